@@ -46,6 +46,38 @@ public class Config {
         return defaultValue;
     }
 
+    public static long getLong(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                LOGGER.log(Level.WARNING, "Failed to parse long for key '" + key + "'. Value: '" + value + "'. Using default: " + defaultValue, e);
+            }
+        }
+        return defaultValue;
+    }
+
+    public static double getDouble(String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        if (value != null) {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                LOGGER.log(Level.WARNING, "Failed to parse double for key '" + key + "'. Value: '" + value + "'. Using default: " + defaultValue, e);
+            }
+        }
+        return defaultValue;
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
+
     public static String getEnvOrConfig(String configKey, String envVarName, String defaultValue) {
         // Try config first
         String value = getString(configKey, null);
@@ -144,11 +176,228 @@ public class Config {
         return getInt("memory.chromadbltm.embedding.mock.dimension", getMockEmbeddingDimension()); // Fallback to general mock dimension
     }
 
+    public static int getLtmBatchSize() {
+        return getInt("memory.ltm.batch.size", 64);
+    }
+
     // Embedding Configuration
     public static int getMockEmbeddingDimension() {
         return getInt("embedding.mock.dimension", 4); // General default
     }
 
+    // Agent Conversation History Configuration
+    public static int getAgentHistoryTokenBudget() {
+        return getInt("agent.history.token.budget", 2000);
+    }
+
+    public static int getAgentHistoryRecentTurns() {
+        return getInt("agent.history.recent.turns", 4);
+    }
+
+    public static int getAgentHistoryMaxTurnTokens() {
+        return getInt("agent.history.max.turn.tokens", 500);
+    }
+
+    public static String getToolOutputDirectory() {
+        return getString("agent.tool.output.dir", null);
+    }
+
+    public static long getToolOutputRetentionMillis() {
+        return getLong("agent.tool.output.retention.ms", 86_400_000L);
+    }
+
+    // Short Term Memory Configuration
+    public static long getShortTermMaxWeightBytes() {
+        return getInt("memory.shortterm.max.weight.bytes", 0);
+    }
+
+    // Write-behind Memory Configuration
+    public static int getWriteBehindQueueCapacity() {
+        return getInt("memory.writebehind.queue.capacity", 1024);
+    }
+
+    public static int getWriteBehindBatchSize() {
+        return getInt("memory.writebehind.batch.size", 64);
+    }
+
+    public static long getWriteBehindFlushIntervalMillis() {
+        return getInt("memory.writebehind.flush.interval.ms", 200);
+    }
+
+    // Event Log Configuration
+    public static int getEventLogCapacity() {
+        return getInt("context.eventlog.capacity", 4096);
+    }
+
+    public static String getEventLogLevel() {
+        return getString("context.eventlog.level", "INFO");
+    }
+
+    // Task-scoped Data Configuration
+    public static int getTaskDataMaxTasks() {
+        return getInt("context.taskdata.max.tasks", 1000);
+    }
+
+    public static long getTaskDataIdleTtlMillis() {
+        return getLong("context.taskdata.idle.ttl.ms", 3_600_000L);
+    }
+
+    public static long getTaskDataCompletedRetentionMillis() {
+        return getLong("context.taskdata.completed.retention.ms", 30_000L);
+    }
+
+    public static int getTaskDataSpillThresholdChars() {
+        return getInt("context.taskdata.spill.threshold.chars", 65_536);
+    }
+
+    public static String getTaskDataSpillDirectory() {
+        return getString("context.taskdata.spill.dir", null);
+    }
+
+    // Process Configuration
+    public static int getDagMaxParallelism() {
+        return getInt("process.dag.max.parallelism", 4);
+    }
+
+    public static int getHierarchicalMaxParallelism() {
+        return getInt("process.hierarchical.max.parallelism", 4);
+    }
+
+    public static int getPipelineQueueCapacity() {
+        return getInt("crew.pipeline.queue.capacity", 16);
+    }
+
+    public static int getPipelineStageConcurrency() {
+        return getInt("crew.pipeline.stage.concurrency", 2);
+    }
+
+    // Crew Service Configuration
+    public static int getCrewServiceMaxConcurrent() {
+        return getInt("crew.service.max.concurrent", 4);
+    }
+
+    public static int getCrewServiceQueueCapacity() {
+        return getInt("crew.service.queue.capacity", 64);
+    }
+
+    public static long getCrewServiceMaxQueueWaitMillis() {
+        return getInt("crew.service.max.queue.wait.ms", 0);
+    }
+
+    // Execution Journal Configuration
+    public static String getJournalDirectory() {
+        return getString("crew.journal.dir", "");
+    }
+
+    public static boolean isJournalFsync() {
+        return getBoolean("crew.journal.fsync", false);
+    }
+
+    // Step Memoization Configuration
+    public static String getStepMemoDirectory() {
+        return getString("crew.memo.dir", "");
+    }
+
+    public static String getStepMemoVersion() {
+        return getString("crew.memo.version", "v1");
+    }
+
+    public static int getMapReduceChunkTokens() {
+        return getInt("process.mapreduce.chunk.tokens", 2000);
+    }
+
+    public static int getMapReduceMaxParallelism() {
+        return getInt("process.mapreduce.max.parallelism", 4);
+    }
+
+    public static int getMapReduceReduceTokens() {
+        return getInt("process.mapreduce.reduce.tokens", 8000);
+    }
+
+    // Human-in-the-loop Registry Configuration
+    public static String getHitlRegistryFile() {
+        return getString("hitl.registry.file", "");
+    }
+
+    public static long getHitlTimeoutMillis() {
+        return getInt("hitl.timeout.ms", 0);
+    }
+
+    public static String getHitlTimeoutPolicy() {
+        return getString("hitl.timeout.policy", "FAIL");
+    }
+
+    public static long getHitlEscalationGraceMillis() {
+        return getInt("hitl.escalation.grace.ms", 0);
+    }
+
+    public static long getHitlSweepIntervalMillis() {
+        return getInt("hitl.sweep.interval.ms", 1000);
+    }
+
+    // Fair Scheduler Configuration
+    public static int getSchedulerMaxConcurrentCalls() {
+        return getInt("scheduler.max.concurrent.calls", 8);
+    }
+
+    public static int getSchedulerTenantMaxConcurrentCalls() {
+        return getInt("scheduler.tenant.max.concurrent.calls", 0);
+    }
+
+    public static long getSchedulerTenantTokensPerMinute() {
+        return getInt("scheduler.tenant.tokens.per.minute", 0);
+    }
+
+    // File Task Queue Configuration
+    public static long getQueueSegmentBytes() {
+        return getInt("queue.segment.bytes", 64 * 1024 * 1024);
+    }
+
+    public static boolean isQueueFsync() {
+        return getBoolean("queue.fsync", false);
+    }
+
+    public static long getQueueVisibilityTimeoutMillis() {
+        return getInt("queue.visibility.timeout.ms", 300000);
+    }
+
+    public static int getQueueMaxAttempts() {
+        return getInt("queue.max.attempts", 5);
+    }
+
+    public static long getQueueRetryDelayMillis() {
+        return getInt("queue.retry.delay.ms", 1000);
+    }
+
+    // Distributed Execution Configuration
+    public static long getDistributedHeartbeatIntervalMillis() {
+        return getInt("distributed.heartbeat.interval.ms", 1000);
+    }
+
+    public static long getDistributedHeartbeatTimeoutMillis() {
+        return getInt("distributed.heartbeat.timeout.ms", 5000);
+    }
+
+    public static int getDistributedMaxAttempts() {
+        return getInt("distributed.max.attempts", 3);
+    }
+
+    public static int getDistributedMaxFrameBytes() {
+        return getInt("distributed.max.frame.bytes", 16 * 1024 * 1024);
+    }
+
+    public static int getConsensualQuorum() {
+        return getInt("process.consensual.quorum", 0);
+    }
+
+    public static double getConsensualAgreementThreshold() {
+        return getDouble("process.consensual.agreement.threshold", 0);
+    }
+
+    public static long getConsensualRoundTimeoutMillis() {
+        return getInt("process.consensual.round.timeout.ms", 0);
+    }
+
     // Private constructor to prevent instantiation
     private Config() {
     }
@@ -1,11 +1,13 @@
 package com.javaagentai.aiagents.core;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Agent context that holds context information for Agent during execution
@@ -20,9 +22,34 @@ public class AgentContext {
     public record LogEntry(LocalDateTime timestamp, String message) {
     }
 
-    private final Map<String, Object> sharedMemory = new ConcurrentHashMap<>();
-    private final List<LogEntry> logHistory = new ArrayList<>();
-    private final Map<String, Map<String, Object>> taskScopedMemory = new ConcurrentHashMap<>();
+    // Shared memory is an immutable persistent map swapped atomically, so readers get consistent snapshots for free.
+    private final AtomicReference<PersistentHashMap<String, Object>> sharedMemory = new AtomicReference<>(PersistentHashMap.empty());
+    private final EventLog eventLog;
+    private final TaskDataStore taskData;
+    private volatile ExecutionJournal journal;
+    private volatile StepMemoStore stepMemoStore;
+    private volatile String tenant;
+    private volatile int priority;
+
+    public AgentContext() {
+        this(new EventLog());
+    }
+
+    /**
+     * @param eventLog The event log backing {@link #log(String)}; lets callers choose capacity, level and sinks.
+     */
+    public AgentContext(EventLog eventLog) {
+        this(eventLog, new TaskDataStore());
+    }
+
+    /**
+     * @param eventLog The event log backing {@link #log(String)}.
+     * @param taskData The store backing task-scoped data; lets callers choose limits, TTLs and spilling.
+     */
+    public AgentContext(EventLog eventLog, TaskDataStore taskData) {
+        this.eventLog = eventLog;
+        this.taskData = taskData;
+    }
 
     /**
      * Stores a key-value pair in the general shared memory.
@@ -32,7 +59,18 @@ public class AgentContext {
      * @param value the value to be associated with the specified key
      */
     public void storeSharedData(String key, Object value) {
-        sharedMemory.put(key, value);
+        Objects.requireNonNull(key, "Key cannot be null.");
+        Objects.requireNonNull(value, "Value cannot be null.");
+        sharedMemory.updateAndGet(current -> current.plus(key, value));
+    }
+
+    /**
+     * Removes a key from the general shared memory.
+     *
+     * @param key the key to remove
+     */
+    public void removeSharedData(String key) {
+        sharedMemory.updateAndGet(current -> current.minus(key));
     }
 
     /**
@@ -44,7 +82,7 @@ public class AgentContext {
      * {@code null} if this map contains no mapping for the key
      */
     public Object retrieveSharedData(String key) {
-        return sharedMemory.get(key);
+        return sharedMemory.get().get(key);
     }
 
     /**
@@ -55,7 +93,7 @@ public class AgentContext {
      * @param value  The data to store.
      */
     public void storeTaskData(String taskId, String key, Object value) {
-        taskScopedMemory.computeIfAbsent(taskId, k -> new ConcurrentHashMap<>()).put(key, value);
+        taskData.put(taskId, key, value);
     }
 
     /**
@@ -66,8 +104,7 @@ public class AgentContext {
      * @return The data associated with the key for the task, or null if not found.
      */
     public Object retrieveTaskData(String taskId, String key) {
-        Map<String, Object> taskData = taskScopedMemory.get(taskId);
-        return (taskData != null) ? taskData.get(key) : null;
+        return taskData.get(taskId, key);
     }
 
     /**
@@ -77,40 +114,170 @@ public class AgentContext {
      * @return A map of all data for the task. Returns an empty map if no data exists for the task.
      */
     public Map<String, Object> getTaskScopedData(String taskId) {
-        return taskScopedMemory.getOrDefault(taskId, Collections.emptyMap());
+        return taskData.getAll(taskId);
+    }
+
+    /**
+     * Marks a task as finished. Its data stays readable for the configured completed-task retention
+     * and is then released; see {@link TaskDataStore}.
+     *
+     * @param taskId The identifier of the task.
+     */
+    public void completeTask(String taskId) {
+        taskData.completeTask(taskId);
+    }
+
+    /**
+     * @return The store backing task-scoped data.
+     */
+    public TaskDataStore getTaskDataStore() {
+        return taskData;
     }
 
     /**
-     * Logs a message with the current timestamp.
+     * Logs a message at INFO level with the current timestamp.
      * The log entry is added to the history.
      *
      * @param message The message to log.
      */
     public void log(String message) {
-        synchronized (logHistory) { // Synchronize access if multiple threads might log
-            logHistory.add(new LogEntry(LocalDateTime.now(), message));
-        }
+        eventLog.append(EventLevel.INFO, "log", () -> message);
+    }
+
+    /**
+     * Logs a lazily formatted message. The supplier runs only if the level is enabled and the
+     * message is actually read, so large payloads such as full prompts cost nothing otherwise.
+     *
+     * @param level   The event level.
+     * @param type    The event category, e.g. "llm.prompt".
+     * @param message Supplier of the message text.
+     */
+    public void log(EventLevel level, String type, Supplier<String> message) {
+        eventLog.append(level, type, message);
+    }
+
+    /**
+     * @return true if events at the given level are recorded; use to skip building expensive log arguments.
+     */
+    public boolean isLogEnabled(EventLevel level) {
+        return eventLog.isEnabled(level);
     }
 
     /**
      * Retrieves the history of log entries.
-     * Each entry includes a timestamp and the logged message.
+     * Each entry includes a timestamp and the logged message. Only the most recent entries are
+     * retained; see {@link EventLog}.
      *
      * @return An unmodifiable list of log entries.
      */
     public List<LogEntry> getLogHistory() {
-        synchronized (logHistory) {
-            return Collections.unmodifiableList(new ArrayList<>(logHistory));
-        }
+        return eventLog.snapshot().stream()
+                .map(event -> new LogEntry(LocalDateTime.ofInstant(event.timestamp(), ZoneId.systemDefault()), event.message()))
+                .toList();
+    }
+
+    /**
+     * @return The structured event log backing this context.
+     */
+    public EventLog getEventLog() {
+        return eventLog;
     }
 
     /**
-     * Returns a view of the shared memory map.
+     * Returns an immutable snapshot of the shared memory map. Taking the snapshot is O(1) and it is
+     * not affected by later writes, so it can be handed to a task as-is instead of being copied.
      *
-     * @return the shared memory map
+     * @return the shared memory snapshot
      */
     public Map<String, Object> getSharedMemory() {
-        return Collections.unmodifiableMap(sharedMemory);
+        return sharedMemory.get();
+    }
+
+    /**
+     * Attaches the journal of a durable run and restores the shared memory recorded with its latest step.
+     */
+    public void setExecutionJournal(ExecutionJournal journal) {
+        this.journal = journal;
+        if (journal != null) {
+            journal.getSharedMemory().forEach((key, value) -> {
+                if (key != null && value != null) storeSharedData(key, value);
+            });
+        }
+    }
+
+    /**
+     * @return The journal of the current run, or null if the run is not journaled.
+     */
+    public ExecutionJournal getExecutionJournal() {
+        return journal;
+    }
+
+    /**
+     * Runs a process step at most once per journaled run. If the journal already holds the step's output
+     * it is returned without running the step; otherwise the step runs and its output is recorded on
+     * success. Without a journal the step simply runs.
+     * <p>
+     * Only successful steps are recorded: the task must end COMPLETED and the output must not be an
+     * "Error..." marker, so that resuming a failed run runs its failed steps again instead of replaying them.
+     *
+     * @param step Key identifying the step within the run; must be stable across attempts.
+     * @param task The task the step performs, whose final status decides whether the output is recorded.
+     */
+    public CompletableFuture<String> checkpoint(String step, Task task, Supplier<CompletableFuture<String>> work) {
+        ExecutionJournal current = journal;
+        if (current == null) {
+            return work.get();
+        }
+        String recorded = current.getStepOutput(step).orElse(null);
+        if (recorded != null) {
+            log("JOURNAL: Reusing recorded output of step " + step + " in run " + current.getRunId());
+            return CompletableFuture.completedFuture(recorded);
+        }
+        return work.get().thenApply(output -> {
+            if (output != null && !output.startsWith("Error") && task.getStatus() == TaskStatus.COMPLETED) {
+                current.recordStep(step, output, this::getSharedMemory);
+            } else {
+                log("JOURNAL: Not recording unsuccessful step " + step + " in run " + current.getRunId());
+            }
+            return output;
+        });
+    }
+
+    /**
+     * Enables memoization of agent steps run through {@link #runAgent(Agent, Task)}; null disables it.
+     */
+    public void setStepMemoStore(StepMemoStore stepMemoStore) {
+        this.stepMemoStore = stepMemoStore;
+    }
+
+    public StepMemoStore getStepMemoStore() {
+        return stepMemoStore;
+    }
+
+    /**
+     * Has the agent perform the task in this context, serving the output from the step memo store
+     * instead when an identical step has already been performed.
+     */
+    public CompletableFuture<String> runAgent(Agent agent, Task task) {
+        StepMemoStore store = stepMemoStore;
+        return store != null ? store.perform(agent, task, this) : agent.performTask(task, this);
+    }
+
+    /**
+     * Sets the tenant and priority that the LLM and tool calls of this execution are scheduled under,
+     * including calls made for tasks that processes derive from the initial one.
+     */
+    public void setScheduling(String tenant, int priority) {
+        this.tenant = tenant;
+        this.priority = priority;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public int getPriority() {
+        return priority;
     }
 
     /**
@@ -119,22 +286,27 @@ public class AgentContext {
      * @param taskId The identifier of the task whose data is to be cleared.
      */
     public void clearTaskData(String taskId) {
-        taskScopedMemory.remove(taskId);
+        taskData.release(taskId);
+    }
+
+    /**
+     * Releases the data of every task, including spilled files.
+     */
+    public void clearAllTaskData() {
+        taskData.releaseAll();
     }
 
     /**
      * Clears all shared data.
      */
     public void clearSharedData() {
-        sharedMemory.clear();
+        sharedMemory.set(PersistentHashMap.empty());
     }
 
     /**
      * Clears all log history.
      */
     public void clearLogHistory() {
-        synchronized (logHistory) {
-            logHistory.clear();
-        }
+        eventLog.clear();
     }
 }
\ No newline at end of file
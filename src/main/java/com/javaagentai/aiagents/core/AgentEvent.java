@@ -0,0 +1,73 @@
+package com.javaagentai.aiagents.core;
+
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * A single structured entry in an {@link EventLog}. The message is supplied lazily and formatted at most
+ * once, the first time a reader or sink asks for it, so expensive messages (full prompts, LLM responses)
+ * cost nothing unless somebody actually looks at them.
+ */
+public final class AgentEvent {
+
+    private final long sequence;
+    private final Instant timestamp;
+    private final EventLevel level;
+    private final String type;
+    private Supplier<String> messageSupplier;
+    private volatile String message;
+
+    AgentEvent(long sequence, Instant timestamp, EventLevel level, String type, Supplier<String> messageSupplier) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.level = level;
+        this.type = type;
+        this.messageSupplier = messageSupplier;
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+
+    public Instant timestamp() {
+        return timestamp;
+    }
+
+    public EventLevel level() {
+        return level;
+    }
+
+    /**
+     * @return The event category, e.g. "log", "llm.prompt" or "llm.response".
+     */
+    public String type() {
+        return type;
+    }
+
+    public String message() {
+        String formatted = message;
+        if (formatted == null) {
+            synchronized (this) {
+                if (message == null) {
+                    String value;
+                    try {
+                        value = String.valueOf(messageSupplier.get());
+                    } catch (RuntimeException e) {
+                        value = "[Failed to format event message: " + e.getMessage() + "]";
+                    }
+                    message = value;
+                    messageSupplier = null; // Release whatever the supplier captured
+                }
+                formatted = message;
+            }
+        }
+        return formatted;
+    }
+
+    @Override
+    public String toString() {
+        return timestamp + " [" + level + "] " + type + ": " + message();
+    }
+}
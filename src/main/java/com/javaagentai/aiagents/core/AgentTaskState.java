@@ -0,0 +1,74 @@
+package com.javaagentai.aiagents.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Per-task working state of a {@link BasicAgent}: the bounded conversation history, the iteration count and
+ * prompt sections that do not change between iterations. Memory retrieval for the task is computed once
+ * and reused on every follow-up prompt; it is recomputed only after {@link #markMemoryStale()} is called,
+ * e.g. because the agent wrote new entries to its memory.
+ */
+class AgentTaskState {
+
+    private final Task task;
+    private final ConversationHistory conversationHistory;
+    private final AtomicInteger iterationCount = new AtomicInteger(0);
+    private volatile String toolDescriptions;
+    private volatile CompletableFuture<String> memoryContext;
+    private volatile boolean memoryStale = true;
+
+    AgentTaskState(Task task, ConversationHistory conversationHistory) {
+        this.task = task;
+        this.conversationHistory = conversationHistory;
+    }
+
+    Task getTask() {
+        return task;
+    }
+
+    ConversationHistory getConversationHistory() {
+        return conversationHistory;
+    }
+
+    int incrementIterations() {
+        return iterationCount.incrementAndGet();
+    }
+
+    int getIterations() {
+        return iterationCount.get();
+    }
+
+    String getToolDescriptions(Supplier<String> builder) {
+        if (toolDescriptions == null) {
+            toolDescriptions = builder.get();
+        }
+        return toolDescriptions;
+    }
+
+    /**
+     * Returns the cached memory context, starting the retrieval only on first use or after the cache was marked stale.
+     */
+    CompletableFuture<String> getMemoryContext(Supplier<CompletableFuture<String>> retrieval) {
+        if (memoryStale || memoryContext == null) {
+            memoryContext = retrieval.get();
+            memoryStale = false;
+        }
+        return memoryContext;
+    }
+
+    /**
+     * Seeds the cache with a memory context retrieved before the task started.
+     */
+    void setMemoryContext(String retrieved) {
+        memoryContext = CompletableFuture.completedFuture(retrieved);
+        memoryStale = false;
+    }
+
+    void markMemoryStale() {
+        memoryStale = true;
+    }
+}
@@ -2,18 +2,24 @@ package com.javaagentai.aiagents.core;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javaagentai.aiagents.config.Config;
 import com.javaagentai.aiagents.llm.LLMClient;
+import com.javaagentai.aiagents.memory.AsyncMemory;
 import com.javaagentai.aiagents.memory.Memory;
+import com.javaagentai.aiagents.memory.WriteBehindMemory;
 import com.javaagentai.aiagents.tools.Tool;
 import lombok.Builder;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Builder
@@ -27,6 +33,41 @@ public class BasicAgent implements Agent {
     private final List<Tool> tools;
     private final LLMClient llmClient;
     private final Memory memory;
+    /**
+     * When true, the memory retrieved for a task is refreshed after the agent records new memory entries
+     * during that task. Otherwise retrieval runs once per task and is reused on every iteration.
+     */
+    @Builder.Default
+    private final boolean refreshMemoryOnWrite = false;
+    /**
+     * Token budget of the conversation history re-sent on every iteration. Older turns beyond it are summarized.
+     */
+    @Builder.Default
+    private final int historyTokenBudget = Config.getAgentHistoryTokenBudget();
+    @Builder.Default
+    private final int historyRecentTurns = Config.getAgentHistoryRecentTurns();
+    /**
+     * Tool outputs above this many tokens are truncated in the prompt and kept in full in {@link #toolOutputStore}.
+     */
+    @Builder.Default
+    private final int historyMaxTurnTokens = Config.getAgentHistoryMaxTurnTokens();
+    /**
+     * Keeps the full text of truncated tool outputs; the truncated turn carries the key to load them by.
+     */
+    @Builder.Default
+    private final ToolOutputStore toolOutputStore = new ToolOutputStore();
+    /**
+     * Summarizer for turns evicted from the history; null uses {@link ConversationHistory#extractiveSummarizer(int)}.
+     */
+    private final ConversationHistory.Summarizer historySummarizer;
+    /**
+     * Registry that indexes, persists and times out tasks waiting for human input; null keeps the wait on the task only.
+     */
+    private final HumanInputRegistry humanInputRegistry;
+    /**
+     * Shared scheduler that LLM and tool calls are admitted through; null dispatches them immediately.
+     */
+    private final FairScheduler scheduler;
     public final ExecutorService llmExecutor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private static final int MAX_ITERATIONS = 5;
@@ -63,8 +104,24 @@ public class BasicAgent implements Agent {
         return memory;
     }
 
+    public LLMClient getLlmClient() {
+        return llmClient;
+    }
+
+    public ToolOutputStore getToolOutputStore() {
+        return toolOutputStore;
+    }
+
     @Override
     public CompletableFuture<String> performTask(Task task, AgentContext context) {
+        return performTask(task, context, null);
+    }
+
+    /**
+     * @param memoryContext The task's memory section if the caller already retrieved it, as {@link StepMemoStore}
+     *                      does for its key; null retrieves it as usual.
+     */
+    CompletableFuture<String> performTask(Task task, AgentContext context, String memoryContext) {
         context.log(name + " received task: " + task.getDescription() + " (ID: " + task.getId() + ")");
         task.setAssignedAgent(this); // Assign agent first
 
@@ -73,75 +130,149 @@ public class BasicAgent implements Agent {
             task.setStatus(TaskStatus.AWAITING_HUMAN_INPUT);
             context.log(name + " is AWAITING HUMAN INPUT for task: " + task.getDescription() + " (ID: " + task.getId() + ")");
 
-            CompletableFuture<String> humanInputCompletionFuture = new CompletableFuture<>();
+            CompletableFuture<String> humanInputCompletionFuture = humanInputRegistry != null
+                    ? humanInputRegistry.park(task, name)
+                    : new CompletableFuture<>();
             task.setExternalCompletionHandle(humanInputCompletionFuture); // Store the handle in the task
+            task.getCancellationToken().track(humanInputCompletionFuture); // Stop waiting if the task is cancelled
 
             // Return a future that is chained to humanInputCompletionFuture
             // When humanInputCompletionFuture is completed (by task.setHumanInput), this chain will proceed.
-            return humanInputCompletionFuture.thenApplyAsync(humanProvidedInput -> {
+            return humanInputCompletionFuture.thenComposeAsync(humanProvidedInput -> {
                 context.log(name + " received human input for task " + task.getId() + ": " + humanProvidedInput);
                 // Task status should have been set to IN_PROGRESS by setHumanInput
                 // Treat human input as the direct result of this agent's step for this task.
                 // Store this human input in memory as if it were a final answer for this step.
-                this.memory.add("human_input_received:" + task.getId() + ":" + task.getDescription(), humanProvidedInput);
-
-                // Complete the task with the human input as the result.
-                // The callback of the original task object will be triggered.
-                // Note: If further processing of human_input by LLM was needed, this logic would be different.
-                // For this iteration, human_input is the final output for this agent's step.
-                task.setStatus(TaskStatus.COMPLETED); // Mark as completed since human input is the answer for this step
-                if (task.getCallback() != null) {
-                    task.getCallback().accept(new TaskResult(TaskStatus.COMPLETED, humanProvidedInput));
-                }
-                context.storeTaskData(task.getId(), name + "_human_input_result", humanProvidedInput);
-                return humanProvidedInput;
+                return remember("human_input_received:" + task.getId() + ":" + task.getDescription(), humanProvidedInput, context)
+                        .thenApply(ignored -> {
+                            // Complete the task with the human input as the result.
+                            // The callback of the original task object will be triggered.
+                            // Note: If further processing of human_input by LLM was needed, this logic would be different.
+                            // For this iteration, human_input is the final output for this agent's step.
+                            task.setStatus(TaskStatus.COMPLETED); // Mark as completed since human input is the answer for this step
+                            if (task.getCallback() != null) {
+                                task.getCallback().accept(new TaskResult(TaskStatus.COMPLETED, humanProvidedInput));
+                            }
+                            context.storeTaskData(task.getId(), name + "_human_input_result", humanProvidedInput);
+                            return humanProvidedInput;
+                        });
             }, llmExecutor).exceptionally(ex -> {
+                if (CancellationToken.isCancellation(ex)) {
+                    markCancelled(task, context);
+                    throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(ex);
+                }
                 context.log(name + " failed while processing human input for task " + task.getId() + ". Error: " + ex.getMessage());
                 task.setStatus(TaskStatus.FAILED);
-                this.memory.add("human_input_failure:" + task.getId(), ex.getMessage());
+                remember("human_input_failure:" + task.getId(), ex.getMessage(), context);
                 if (task.getCallback() != null) {
                     task.getCallback().accept(new TaskResult(TaskStatus.FAILED, null, ex.getMessage()));
                 }
                 return "Error processing human input: " + ex.getMessage();
-            });
+            }).whenComplete((result, error) -> context.completeTask(task.getId()));
         }
 
         // If not requiring human input, or if human input is already provided, proceed with normal flow.
         task.setStatus(TaskStatus.IN_PROGRESS); // Set to IN_PROGRESS if not awaiting human input
-        StringBuilder conversationHistory = new StringBuilder();
+        ConversationHistory history = new ConversationHistory(historyTokenBudget, historyRecentTurns, historyMaxTurnTokens,
+                historySummarizer, (toolName, call, output) -> toolOutputStore.store(task.getId(), toolName, call, output),
+                (client, prompt) -> callLlm(task, context, client, prompt));
+        AgentTaskState state = new AgentTaskState(task, history);
+        if (memoryContext != null) {
+            state.setMemoryContext(memoryContext);
+        }
         if (task.getHumanInput() != null) {
             // If human input was provided and we are past the HITL check, it means it was set before performTask was called,
             // or this task doesn't require HITL. If it was set for a task that *did* require HITL, the above block would have handled it.
             // For now, we can log it or add to conversation history if needed.
             context.log(name + " proceeding with task " + task.getId() + ", human input was previously provided: " + task.getHumanInput());
             // Optionally add to conversation history if LLM should be aware of it:
-            // conversationHistory.append("\nHuman provided input: ").append(task.getHumanInput());
+            // state.getConversationHistory().addTurn("Human provided input: " + task.getHumanInput());
             // However, the current HITL logic assumes human input *is* the answer for the step.
         }
 
-        AtomicInteger iterationCount = new AtomicInteger(0);
         CompletableFuture<String> initialPromptFuture = CompletableFuture.supplyAsync(
-                () -> buildInitialPrompt(task, context, conversationHistory.toString()), llmExecutor);
+                () -> buildInitialPrompt(state, context), llmExecutor).thenCompose(Function.identity());
         return initialPromptFuture.thenComposeAsync(prompt ->
 
-                processLlmInteraction(prompt, task, context, conversationHistory, iterationCount), llmExecutor);
+                        processLlmInteraction(prompt, state, context), llmExecutor)
+                .whenComplete((result, error) -> {
+                    if (error != null && CancellationToken.isCancellation(error)) {
+                        markCancelled(task, context);
+                    }
+                    context.completeTask(task.getId());
+                });
+
+    }
 
+    /**
+     * Dispatches an LLM or tool call through the scheduler, if one is configured, under the task's tenant and priority.
+     */
+    private CompletableFuture<String> schedule(Task task, AgentContext context, long estimatedTokens,
+                                               Supplier<CompletableFuture<String>> call) {
+        if (scheduler == null) {
+            return call.get();
+        }
+        int priority = task.getPriority() != 0 ? task.getPriority() : context.getPriority();
+        return scheduler.submit(tenantOf(task, context), priority, estimatedTokens, call);
+    }
+
+    private static String tenantOf(Task task, AgentContext context) {
+        return task.getTenant() != null ? task.getTenant() : context.getTenant();
+    }
+
+    private void markCancelled(Task task, AgentContext context) {
+        String reason = task.getCancellationToken().getCancellationReason();
+        context.log(name + " stopped task " + task.getId() + " because it was cancelled: " + reason);
+        task.setStatus(TaskStatus.CANCELLED);
+        if (task.getCallback() != null) {
+            task.getCallback().accept(new TaskResult(TaskStatus.CANCELLED, null, reason));
+        }
     }
 
-    private CompletableFuture<String> processLlmInteraction(String currentPrompt, Task task, AgentContext context, StringBuilder conversationHistory, AtomicInteger iterationCount) {
-        if (iterationCount.incrementAndGet() > MAX_ITERATIONS) {
+    private CompletableFuture<String> processLlmInteraction(String currentPrompt, AgentTaskState state, AgentContext context) {
+        Task task = state.getTask();
+        CancellationToken cancellationToken = task.getCancellationToken();
+        if (cancellationToken.isCancelled()) {
+            return CompletableFuture.failedFuture(new CancellationException(cancellationToken.getCancellationReason()));
+        }
+        if (state.incrementIterations() > MAX_ITERATIONS) {
             context.log(name + " reached max iterations for task: " + task.getDescription() + " (ID: " + task.getId() + ")");
             task.setStatus(TaskStatus.FAILED);
-            this.memory.add("task_failure_max_iterations:" + task.getId() + ":" + task.getDescription(), "Agent reached maximum iterations.");
-            if (task.getCallback() != null) {
-                task.getCallback().accept(new TaskResult(TaskStatus.FAILED, null, "Agent reached maximum iterations."));
-            }
-            return CompletableFuture.completedFuture("Error: Agent reached maximum iterations.");
+            return remember("task_failure_max_iterations:" + task.getId() + ":" + task.getDescription(), "Agent reached maximum iterations.", context)
+                    .thenApply(ignored -> {
+                        if (task.getCallback() != null) {
+                            task.getCallback().accept(new TaskResult(TaskStatus.FAILED, null, "Agent reached maximum iterations."));
+                        }
+                        return "Error: Agent reached maximum iterations.";
+                    });
         }
 
-        context.log(name + " sending prompt to LLM (iteration " + iterationCount.get() + ") for task " + task.getId() + ":\n" + currentPrompt);
-        String llmResponse = llmClient.complete(currentPrompt);
-        context.log(name + " received LLM response for task " + task.getId() + ": " + llmResponse);
+        context.log(name + " sending prompt to LLM (iteration " + state.getIterations() + ") for task " + task.getId() + ".");
+        context.log(EventLevel.DEBUG, "llm.prompt", () -> name + " prompt for task " + task.getId() + ":\n" + currentPrompt);
+        return callLlm(task, context, llmClient, currentPrompt)
+                .thenComposeAsync(llmResponse -> handleLlmResponse(llmResponse, state, context), llmExecutor);
+    }
+
+    /**
+     * Sends a prompt through the scheduler under the task's tenant. The in-flight call is tracked so cancelling
+     * the task (or reaching its deadline) aborts the request. Also used for history summarization.
+     */
+    private CompletableFuture<String> callLlm(Task task, AgentContext context, LLMClient client, String prompt) {
+        CancellationToken cancellationToken = task.getCancellationToken();
+        CompletableFuture<String> llmCall = schedule(task, context, ConversationHistory.estimateTokens(prompt),
+                () -> client.completeAsync(prompt, cancellationToken.remaining().orElse(null)));
+        if (scheduler != null) {
+            String tenant = tenantOf(task, context);
+            llmCall.thenAccept(response -> scheduler.chargeTokens(tenant, ConversationHistory.estimateTokens(response)));
+        }
+        return cancellationToken.track(llmCall);
+    }
+
+    private CompletableFuture<String> handleLlmResponse(String llmResponse, AgentTaskState state, AgentContext context) {
+        Task task = state.getTask();
+        CancellationToken cancellationToken = task.getCancellationToken();
+        ConversationHistory conversationHistory = state.getConversationHistory();
+        context.log(EventLevel.DEBUG, "llm.response", () -> name + " received LLM response for task " + task.getId() + ": " + llmResponse);
 
         Optional<LLMToolCall> toolCallOpt = parseToolCall(llmResponse, context);
 
@@ -153,41 +284,70 @@ public class BasicAgent implements Agent {
                 Tool selectedTool = selectedToolOpt.get();
                 context.log(name + " attempting to use tool: " + selectedTool.getName() + " with params: " + toolCall.tool_parameters() + " for task " + task.getId());
 
-                return selectedTool.use(toolCall.tool_parameters())
+                return cancellationToken.track(schedule(task, context, 0,
+                                () -> selectedTool.use(toolCall.tool_parameters(), cancellationToken.remaining().orElse(null))))
                         .handleAsync((toolResult, toolError) -> {
+                            cancellationToken.throwIfCancelled();
+                            CompletableFuture<Void> recorded;
                             if (toolError != null) {
                                 String errorMsg = toolError.getMessage();
-                                context.log(name + " tool execution failed for task " + task.getId() + ": " + errorMsg);
-                                conversationHistory.append("\nTool ").append(selectedTool.getName()).append(" execution failed: ").append(errorMsg);
-                                this.memory.add("tool_error:" + selectedTool.getName() + ":" + task.getId(), errorMsg);
+                                context.log(EventLevel.WARN, "tool.error", () -> name + " tool execution failed for task " + task.getId() + ": " + errorMsg);
+                                conversationHistory.addTurn("Tool " + selectedTool.getName() + " execution failed: " + errorMsg);
+                                recorded = recordTaskMemory(state, context, "tool_error:" + selectedTool.getName() + ":" + task.getId(), errorMsg);
                             } else {
-                                context.log(name + " tool " + selectedTool.getName() + " executed for task " + task.getId() + ". Result: " + toolResult);
-                                conversationHistory.append("\nTool ").append(selectedTool.getName()).append(" output: ").append(toolResult);
-                                this.memory.add("tool_interaction:" + selectedTool.getName() + ":" + task.getId(), toolResult);
+                                context.log(EventLevel.INFO, "tool.result", () -> name + " tool " + selectedTool.getName() + " executed for task " + task.getId() + ". Result: " + toolResult);
+                                conversationHistory.addToolOutput(selectedTool.getName(), toolResult);
+                                recorded = recordTaskMemory(state, context, "tool_interaction:" + selectedTool.getName() + ":" + task.getId(), toolResult);
                             }
-                            String nextPrompt = buildFollowUpPrompt(task, context, conversationHistory.toString());
-                            return nextPrompt;
+                            return recorded.thenCompose(ignored -> conversationHistory.compact())
+                                    .thenCompose(ignored -> buildFollowUpPrompt(state, context));
                         }, llmExecutor)
-                        .thenComposeAsync(nextPrompt -> processLlmInteraction(nextPrompt, task, context, conversationHistory, iterationCount), llmExecutor);
+                        .thenCompose(Function.identity())
+                        .thenComposeAsync(nextPrompt -> processLlmInteraction(nextPrompt, state, context), llmExecutor);
             } else {
                 context.log(name + " LLM tried to use unknown tool: " + toolCall.tool_name() + " for task " + task.getId());
-                conversationHistory.append("\nAttempted to use unknown tool: ").append(toolCall.tool_name());
-                this.memory.add("unknown_tool_attempt:" + toolCall.tool_name() + ":" + task.getId(), llmResponse);
-                String nextPrompt = buildFollowUpPrompt(task, context, conversationHistory.toString());
-                return processLlmInteraction(nextPrompt, task, context, conversationHistory, iterationCount);
+                conversationHistory.addTurn("Attempted to use unknown tool: " + toolCall.tool_name());
+                return recordTaskMemory(state, context, "unknown_tool_attempt:" + toolCall.tool_name() + ":" + task.getId(), llmResponse)
+                        .thenCompose(ignored -> conversationHistory.compact())
+                        .thenCompose(ignored -> buildFollowUpPrompt(state, context))
+                        .thenCompose(nextPrompt -> processLlmInteraction(nextPrompt, state, context));
             }
         } else {
-            context.log(name + " received final answer from LLM for task " + task.getId() + ": " + llmResponse);
+            context.log(EventLevel.INFO, "llm.final_answer", () -> name + " received final answer from LLM for task " + task.getId() + ": " + llmResponse);
             task.setStatus(TaskStatus.COMPLETED);
-            this.memory.add("task_summary:" + task.getId() + ":" + task.getDescription(), llmResponse);
-            if (task.getCallback() != null) {
-                task.getCallback().accept(new TaskResult(TaskStatus.COMPLETED, llmResponse));
-            }
-            context.storeTaskData(task.getId(), name + "_final_output", llmResponse);
-            return CompletableFuture.completedFuture(llmResponse);
+            return remember("task_summary:" + task.getId() + ":" + task.getDescription(), llmResponse, context).thenApply(ignored -> {
+                if (task.getCallback() != null) {
+                    task.getCallback().accept(new TaskResult(TaskStatus.COMPLETED, llmResponse));
+                }
+                context.storeTaskData(task.getId(), name + "_final_output", llmResponse);
+                return llmResponse;
+            });
         }
     }
 
+    /**
+     * Records an intermediate result of the running task and, if configured, invalidates the task's cached memory retrieval
+     * once the write has completed.
+     */
+    private CompletableFuture<Void> recordTaskMemory(AgentTaskState state, AgentContext context, String key, Object value) {
+        return remember(key, value, context).thenRun(() -> {
+            if (refreshMemoryOnWrite) {
+                state.markMemoryStale();
+            }
+        });
+    }
+
+    /**
+     * Writes to memory without holding an agent thread while an embedding or vector store call is in flight.
+     * A failed write is logged and does not fail the task.
+     */
+    private CompletableFuture<Void> remember(String key, Object value, AgentContext context) {
+        return AsyncMemory.of(memory).addAsync(key, value).exceptionally(error -> {
+            context.log(EventLevel.WARN, "memory.error", () -> name + " failed to record memory entry " + key + ": " + error.getMessage());
+            return null;
+        });
+    }
+
     private Optional<LLMToolCall> parseToolCall(String llmResponse, AgentContext context) {
         System.out.println("LLM RESPONSE: " + llmResponse);
         String trimmedResponse = llmResponse.trim();
@@ -217,7 +377,7 @@ public class BasicAgent implements Agent {
                     }
                 } catch (JsonProcessingException e) {
                     context.log(name + " failed to parse tool JSON: " + e.getMessage());
-                    context.log("Offending block: " + possibleJson);
+                    context.log(EventLevel.DEBUG, "llm.parse_error", () -> "Offending block: " + possibleJson);
                 }
             }
             // Try next '{'
@@ -258,17 +418,36 @@ public class BasicAgent implements Agent {
         return sb.toString().trim();
     }
 
-    private String buildInitialPrompt(Task task, AgentContext context, String history) {
-        String toolDescriptions = buildToolDescriptions(tools);
+    /**
+     * The memory section of the task's prompt. Package-private so {@link StepMemoStore} can key steps on it.
+     */
+    CompletableFuture<String> retrieveMemoryContext(Task task, AgentContext context) {
+        return AsyncMemory.of(memory).searchAsync(task.getDescription(), 3).handle((memoryResults, error) -> {
+            if (error != null) {
+                context.log(EventLevel.WARN, "memory.error", () -> name + " memory search failed for task " + task.getId() + ": " + error.getMessage());
+                return "No relevant information found in memory.";
+            }
+            String memoryContext = "No relevant information found in memory.";
+            if (memoryResults != null && !memoryResults.isEmpty()) {
+                memoryContext = memoryResults.stream()
+                        .map(String::valueOf)
+                        .collect(Collectors.joining("\n- ", "Previously recorded information that might be relevant:\n- ", ""));
+            }
+            return memoryContext;
+        });
+    }
 
-        List<Object> memoryResults = this.memory.search(task.getDescription(), 3);
-        String memoryContext = "No relevant information found in memory.";
-        if (memoryResults != null && !memoryResults.isEmpty()) {
-            memoryContext = memoryResults.stream()
-                    .map(String::valueOf)
-                    .collect(Collectors.joining("\n- ", "Previously recorded information that might be relevant:\n- ", ""));
-        }
+    private CompletableFuture<String> buildInitialPrompt(AgentTaskState state, AgentContext context) {
+        Task task = state.getTask();
+        // Both sections are fixed for the lifetime of the task, so they are computed once and reused by follow-up prompts.
+        String toolDescriptions = state.getToolDescriptions(() -> buildToolDescriptions(tools));
+        return state.getMemoryContext(() -> retrieveMemoryContext(task, context))
+                .thenApply(memoryContext -> formatPrompt(state, toolDescriptions, memoryContext));
+    }
 
+    private String formatPrompt(AgentTaskState state, String toolDescriptions, String memoryContext) {
+        Task task = state.getTask();
+        ConversationHistory history = state.getConversationHistory();
         String prompt = String.format(
                 "You are an AI agent with the name '%s' and role '%s'.\n" +
                         "Your current task is: %s (Task ID: %s)\n" + // Added Task ID to prompt
@@ -287,19 +466,23 @@ public class BasicAgent implements Agent {
                 memoryContext,
                 toolDescriptions.isEmpty() ? "No tools available." : toolDescriptions,
                 task.getDescription(),
-                history.isEmpty() ? "No history yet." : history
+                history.isEmpty() ? "No history yet." : history.render()
         );
         System.out.println("PROMPT GENERATED");
         return prompt;
 
     }
 
-    private String buildFollowUpPrompt(Task task, AgentContext context, String history) {
-        return buildInitialPrompt(task, context, history);
+    private CompletableFuture<String> buildFollowUpPrompt(AgentTaskState state, AgentContext context) {
+        return buildInitialPrompt(state, context);
     }
 
     public void shutdown() {
         System.out.println(name + " shutting down executor.");
+        if (memory instanceof WriteBehindMemory) {
+            // Memory may be shared with other agents, so only flush it here; the owner closes it.
+            ((WriteBehindMemory) memory).flush();
+        }
         llmExecutor.shutdown();
         try {
             if (!llmExecutor.awaitTermination(5, java.util.concurrent.TimeUnit.SECONDS)) {
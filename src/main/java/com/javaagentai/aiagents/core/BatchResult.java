@@ -0,0 +1,16 @@
+package com.javaagentai.aiagents.core;
+
+/**
+ * Author: Mahesh Awasare
+ * Result of one task submitted through {@link Crew#executeAll(java.util.stream.Stream)}.
+ *
+ * @param index  Position of the task in the submitted stream, starting at 0.
+ * @param task   The submitted task.
+ * @param result Final status and output (or error) of the task.
+ */
+public record BatchResult(long index, Task task, TaskResult result) {
+
+    public boolean isSuccess() {
+        return result.status() == TaskStatus.COMPLETED;
+    }
+}
@@ -0,0 +1,210 @@
+package com.javaagentai.aiagents.core;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Cooperative cancellation and deadline shared by a {@link Task} and everything executed on its behalf.
+ * Processes check the token between steps, and {@link BasicAgent} registers its in-flight LLM calls,
+ * tool executions and human-input waits with {@link #track(CompletableFuture)} so they are cancelled as
+ * soon as the token is. A token is cancelled explicitly, when its deadline passes, or when its parent is.
+ * A child token drops out of its parent once it is cancelled or {@link #release() released}.
+ */
+public class CancellationToken {
+
+    private static final ScheduledThreadPoolExecutor DEADLINE_TIMER = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "cancellation-deadline-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        DEADLINE_TIMER.setRemoveOnCancelPolicy(true); // A stopped timer must not keep its token reachable until the deadline
+    }
+
+    private final CancellationToken parent;
+    private final Instant deadline;
+    private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+    private final Set<CancellationToken> children = ConcurrentHashMap.newKeySet();
+    private final ScheduledFuture<?> deadlineTimer;
+    private volatile String cancellationReason;
+
+    public CancellationToken() {
+        this(null, null);
+    }
+
+    private CancellationToken(CancellationToken parent, Instant deadline) {
+        this.parent = parent;
+        Instant parentDeadline = parent != null ? parent.deadline : null;
+        this.deadline = earliest(deadline, parentDeadline);
+        if (this.deadline != null && !this.deadline.equals(parentDeadline)) { // The parent's own timer covers an inherited deadline
+            long delayMillis = Math.max(0, Duration.between(Instant.now(), this.deadline).toMillis());
+            this.deadlineTimer = DEADLINE_TIMER.schedule(() -> cancel("Deadline exceeded at " + this.deadline + "."), delayMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.deadlineTimer = null;
+        }
+    }
+
+    public static CancellationToken withDeadline(Instant deadline) {
+        return new CancellationToken(null, Objects.requireNonNull(deadline, "Deadline cannot be null."));
+    }
+
+    public static CancellationToken withTimeout(Duration timeout) {
+        return withDeadline(Instant.now().plus(Objects.requireNonNull(timeout, "Timeout cannot be null.")));
+    }
+
+    /**
+     * Creates a token that is cancelled together with this one but can also be cancelled on its own,
+     * e.g. to stop a single straggling agent without stopping the whole execution.
+     */
+    public CancellationToken child() {
+        return child(null);
+    }
+
+    /**
+     * Creates a child token whose deadline is the earlier of this token's deadline and now + {@code timeout}.
+     */
+    public CancellationToken child(Duration timeout) {
+        CancellationToken child = new CancellationToken(this, timeout != null ? Instant.now().plus(timeout) : null);
+        children.add(child);
+        if (isCancelled()) {
+            child.cancel(getCancellationReason());
+        }
+        return child;
+    }
+
+    /**
+     * Cancels this token, its children and every tracked in-flight future. Only the first reason is kept.
+     */
+    public void cancel(String reason) {
+        if (cancellationReason != null) {
+            return;
+        }
+        synchronized (this) {
+            if (cancellationReason != null) return;
+            cancellationReason = reason != null ? reason : "Cancelled.";
+        }
+        release();
+        for (CompletableFuture<?> future : inFlight) {
+            future.cancel(true);
+        }
+        inFlight.clear();
+        for (CancellationToken child : children) {
+            child.cancel(cancellationReason);
+        }
+    }
+
+    public void cancel() {
+        cancel("Cancelled by caller.");
+    }
+
+    /**
+     * Detaches this token from its parent and stops its deadline timer, once the work it covers has finished,
+     * so that a long-lived parent does not accumulate finished children. The token still reports the parent's
+     * cancellation, but its tracked futures are no longer cancelled together with the parent.
+     */
+    public void release() {
+        if (deadlineTimer != null) {
+            deadlineTimer.cancel(false);
+        }
+        if (parent != null) {
+            parent.children.remove(this);
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancellationReason != null || (parent != null && parent.isCancelled());
+    }
+
+    public String getCancellationReason() {
+        if (cancellationReason != null) return cancellationReason;
+        return parent != null ? parent.getCancellationReason() : null;
+    }
+
+    int getChildCount() {
+        return children.size();
+    }
+
+    public Optional<Instant> getDeadline() {
+        return Optional.ofNullable(deadline);
+    }
+
+    /**
+     * @return Time left until the deadline (never negative), or empty if the token has no deadline.
+     */
+    public Optional<Duration> remaining() {
+        if (deadline == null) return Optional.empty();
+        Duration left = Duration.between(Instant.now(), deadline);
+        return Optional.of(left.isNegative() ? Duration.ZERO : left);
+    }
+
+    /**
+     * @throws CancellationException if the token has been cancelled or its deadline has passed.
+     */
+    public void throwIfCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException(getCancellationReason());
+        }
+    }
+
+    /**
+     * Registers an in-flight future so that cancelling this token cancels it. The registration is dropped
+     * once the future completes. If the token is already cancelled the future is cancelled immediately.
+     *
+     * @return The same future, for chaining.
+     */
+    public <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        if (isCancelled()) {
+            future.cancel(true);
+            return future;
+        }
+        inFlight.add(future);
+        future.whenComplete((result, error) -> inFlight.remove(future));
+        if (isCancelled()) { // Cancelled between the check and the registration
+            future.cancel(true);
+        }
+        return future;
+    }
+
+    /**
+     * @return true if the throwable, or the cause of a {@link java.util.concurrent.CompletionException}, is a cancellation.
+     */
+    public static boolean isCancellation(Throwable error) {
+        return rootCause(error) instanceof CancellationException;
+    }
+
+    /**
+     * @return The throwable with its {@link java.util.concurrent.CompletionException} wrappers removed, i.e. the
+     * failure a future chain actually reported.
+     */
+    public static Throwable rootCause(Throwable error) {
+        Throwable current = error;
+        while (current instanceof CompletionException && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    private static Instant earliest(Instant a, Instant b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.isBefore(b) ? a : b;
+    }
+
+    @Override
+    public String toString() {
+        return "CancellationToken{cancelled=" + isCancelled() + ", deadline=" + deadline + "}";
+    }
+}
@@ -1,17 +1,59 @@
 package com.javaagentai.aiagents.core;
 
+import com.javaagentai.aiagents.config.Config;
+
+import java.time.Duration;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Author: Mahesh Awasare
+ * <p>
+ * ConsensualProcess runs the task on every agent in parallel and lets the last agent synthesize the answers.
+ * By default synthesis waits for all agents. With a quorum (k of n answers), an agreement threshold or a
+ * round timeout, the round is decided early and the agents still running are cancelled through their
+ * child cancellation tokens, so they stop spending tokens on answers that would be ignored.
  */
 public class ConsensualProcess implements Process {
 
+    private final int quorum;
+    private final double agreementThreshold;
+    private final Duration roundTimeout;
+
+    public ConsensualProcess() {
+        this(Config.getConsensualQuorum(), Config.getConsensualAgreementThreshold(),
+                Config.getConsensualRoundTimeoutMillis() > 0 ? Duration.ofMillis(Config.getConsensualRoundTimeoutMillis()) : null);
+    }
+
+    /**
+     * @param quorum             Synthesize as soon as this many agents have answered successfully; 0 waits for all agents.
+     *                           Agents that fail, mark their task FAILED or return no output do not count.
+     * @param agreementThreshold Synthesize as soon as a majority of agents gave answers whose word-level Jaccard
+     *                           similarity to a common answer is at least this value; 0 disables the check.
+     * @param roundTimeout       Hard deadline for the parallel round; agents still running are cancelled and
+     *                           synthesis uses the answers received so far. Null for no deadline.
+     */
+    public ConsensualProcess(int quorum, double agreementThreshold, Duration roundTimeout) {
+        if (quorum < 0) {
+            throw new IllegalArgumentException("Quorum cannot be negative.");
+        }
+        if (agreementThreshold < 0 || agreementThreshold > 1) {
+            throw new IllegalArgumentException("Agreement threshold must be between 0 and 1.");
+        }
+        if (roundTimeout != null && (roundTimeout.isNegative() || roundTimeout.isZero())) {
+            throw new IllegalArgumentException("Round timeout must be positive.");
+        }
+        this.quorum = quorum;
+        this.agreementThreshold = agreementThreshold;
+        this.roundTimeout = roundTimeout;
+    }
+
     @Override
     public CompletableFuture<String> execute(Task initialTask, List<Agent> agents, AgentContext context) {
         context.log("CONSENSUAL_PROCESS: Starting execution for task: " + initialTask.getDescription() + " (ID: " + initialTask.getId() + ")");
@@ -29,13 +71,20 @@ public class ConsensualProcess implements Process {
             Agent singleAgent = agents.get(0);
             context.log("CONSENSUAL_PROCESS: Only one agent (" + singleAgent.getName() + ") available. Delegating task " + initialTask.getId() + " directly.");
             // Task status and callback are handled within performTask
-            return singleAgent.performTask(initialTask, context);
+            return context.runAgent(singleAgent, initialTask);
         }
 
         // All agents (including the eventual synthesizer) perform the initial task in parallel.
-        List<CompletableFuture<Map.Entry<String, String>>> individualExecutionFutures = new ArrayList<>();
+        ConsensusRound round = new ConsensusRound(agents.size());
+        List<CancellationToken> agentTokens = new ArrayList<>();
 
-        for (Agent agent : agents) {
+        for (int i = 0; i < agents.size(); i++) {
+            Agent agent = agents.get(i);
+            int agentIndex = i;
+            // Each agent gets its own child token, so stragglers can be cancelled once consensus is reached
+            // without cancelling the process. The per-round timeout becomes the child token's deadline.
+            CancellationToken agentToken = initialTask.getCancellationToken().child(roundTimeout);
+            agentTokens.add(agentToken);
             // Create a new task instance for each agent to prevent shared state issues,
             // especially around status and callbacks if the initialTask object is reused directly.
             // The description, input, and expected output are from the original task.
@@ -47,6 +96,7 @@ public class ConsensualProcess implements Process {
                     .assignedAgent(agent)
                     .status(TaskStatus.PENDING)
                     .requiresHumanInput(initialTask.isRequiresHumanInput())
+                    .cancellationToken(agentToken)
                     .build();
 
             // If HITL is required, and human input is already present on initialTask, pass it.
@@ -56,30 +106,44 @@ public class ConsensualProcess implements Process {
 
 
             context.log("CONSENSUAL_PROCESS: Agent " + agent.getName() + " starting parallel execution for task " + initialTask.getId());
-            CompletableFuture<String> agentOutputFuture = agent.performTask(agentSpecificTask, context);
+            CompletableFuture<String> agentOutputFuture = context.runAgent(agent, agentSpecificTask);
 
-            individualExecutionFutures.add(
-                    agentOutputFuture.handle((output, ex) -> {
-                        if (ex != null) {
-                            context.log("CONSENSUAL_PROCESS: Agent " + agent.getName() + " failed for task " + initialTask.getId() + ". Error: " + ex.getMessage());
-                            return new AbstractMap.SimpleEntry<>(agent.getName(), "Error: " + ex.getMessage());
-                        }
-                        context.log("CONSENSUAL_PROCESS: Agent " + agent.getName() + " completed task " + initialTask.getId() + ". Output: " + output);
-                        return new AbstractMap.SimpleEntry<>(agent.getName(), output);
-                    })
-            );
+            agentOutputFuture.whenComplete((output, ex) -> {
+                if (ex != null) {
+                    if (CancellationToken.isCancellation(ex) && round.isDecided()) {
+                        context.log("CONSENSUAL_PROCESS: Agent " + agent.getName() + " was stopped after the round was decided for task " + initialTask.getId());
+                    } else {
+                        context.log("CONSENSUAL_PROCESS: Agent " + agent.getName() + " failed for task " + initialTask.getId() + ". Error: " + ex.getMessage());
+                    }
+                    round.recordFailure(agentIndex, agent.getName(), "Error: " + ex.getMessage());
+                } else if (output == null || agentSpecificTask.getStatus() == TaskStatus.FAILED) {
+                    // Soft failures such as "Error: Agent reached maximum iterations." must not count toward quorum or agreement.
+                    context.log("CONSENSUAL_PROCESS: Agent " + agent.getName() + " did not produce an answer for task " + initialTask.getId() + ". Output: " + output);
+                    round.recordFailure(agentIndex, agent.getName(), output != null ? output : "Error: Agent returned no output.");
+                } else {
+                    context.log("CONSENSUAL_PROCESS: Agent " + agent.getName() + " completed task " + initialTask.getId() + ". Output: " + output);
+                    round.recordAnswer(agentIndex, agent.getName(), output);
+                }
+            });
         }
 
-        CompletableFuture<Void> allOfFutures = CompletableFuture.allOf(
-                individualExecutionFutures.toArray(new CompletableFuture[0])
-        );
+        // Hard deadline for the round, even for agents that do not honour their cancellation token.
+        if (roundTimeout != null) {
+            CompletableFuture.delayedExecutor(roundTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .execute(() -> round.decide("Round deadline of " + roundTimeout.toMillis() + "ms reached"));
+        }
 
-        return allOfFutures.thenComposeAsync(v -> {
-                    List<Map.Entry<String, String>> individualResults = individualExecutionFutures.stream()
-                            .map(CompletableFuture::join) // .join() is safe here because allOfFutures ensures completion
-                            .collect(Collectors.toList());
+        CompletableFuture<List<Map.Entry<String, String>>> roundResult = round.result().whenComplete((results, ex) -> {
+            // Stop the agents that have not answered yet; their answers would no longer be used.
+            for (CancellationToken agentToken : agentTokens) {
+                agentToken.cancel("Consensus round for task " + initialTask.getId() + " was decided.");
+            }
+        });
 
-                    context.log("CONSENSUAL_PROCESS: All agents completed parallel execution for task " + initialTask.getId());
+        return roundResult.thenComposeAsync(individualResults -> {
+                    initialTask.getCancellationToken().throwIfCancelled();
+                    context.log("CONSENSUAL_PROCESS: Round decided for task " + initialTask.getId() + " (" + round.getDecisionReason() + ") with "
+                            + individualResults.size() + " of " + agents.size() + " agents finished.");
 
                     // Synthesis Step
                     Agent synthesizerAgent = agents.get(agents.size() - 1); // Last agent is the synthesizer
@@ -102,13 +166,20 @@ public class ConsensualProcess implements Process {
                             .status(TaskStatus.PENDING)
                             .callback(initialTask.getCallback())
                             .requiresHumanInput(false)
+                            .cancellationToken(initialTask.getCancellationToken())
                             .build();
 
                     context.log("CONSENSUAL_PROCESS: Asking synthesizer agent " + synthesizerAgent.getName() + " to synthesize final answer for task " + initialTask.getId());
-                    return synthesizerAgent.performTask(synthesisTask, context);
+                    return context.runAgent(synthesizerAgent, synthesisTask);
 
-                }, agents.get(0).getMemory() != null ? ((BasicAgent) agents.get(0)).llmExecutor : Runnable::run) // Use an executor from an agent if possible, or a default one
+                }, agents.get(0) instanceof BasicAgent basicAgent ? basicAgent.llmExecutor : Runnable::run) // Use an executor from an agent if possible, or a default one
                 .exceptionally(ex -> {
+                    if (initialTask.getCancellationToken().isCancelled()) {
+                        String reason = initialTask.getCancellationToken().getCancellationReason();
+                        context.log("CONSENSUAL_PROCESS: Process cancelled for task " + initialTask.getId() + ". Reason: " + reason);
+                        initialTask.setStatus(TaskStatus.CANCELLED);
+                        return "Error: Consensual process cancelled. " + reason;
+                    }
                     context.log("CONSENSUAL_PROCESS: An error occurred during the consensual process for task " + initialTask.getId() + ". Error: " + ex.getMessage());
                     initialTask.setStatus(TaskStatus.FAILED);
                     if (initialTask.getCallback() != null) {
@@ -117,4 +188,114 @@ public class ConsensualProcess implements Process {
                     return "Error: Consensual process failed. " + ex.getMessage();
                 });
     }
+
+    /**
+     * Collects the answers of one parallel round and decides when synthesis can start.
+     */
+    private final class ConsensusRound {
+        private final String[] agentNames;
+        private final String[] outputs;
+        private final boolean[] succeeded;
+        private final CompletableFuture<List<Map.Entry<String, String>>> decided = new CompletableFuture<>();
+        private int finished;
+        private int successes;
+        private volatile String decisionReason;
+
+        ConsensusRound(int agents) {
+            this.agentNames = new String[agents];
+            this.outputs = new String[agents];
+            this.succeeded = new boolean[agents];
+        }
+
+        synchronized void recordAnswer(int index, String agentName, String output) {
+            if (isDecided()) return;
+            agentNames[index] = agentName;
+            outputs[index] = output;
+            succeeded[index] = true;
+            finished++;
+            successes++;
+            if (finished == outputs.length) {
+                decide("all agents finished");
+            } else if (quorum > 0 && successes >= quorum) {
+                decide("quorum of " + quorum + " reached");
+            } else if (agreementThreshold > 0 && majorityAgrees()) {
+                decide("answers agree");
+            }
+        }
+
+        synchronized void recordFailure(int index, String agentName, String error) {
+            if (isDecided()) return;
+            agentNames[index] = agentName;
+            outputs[index] = error;
+            finished++;
+            if (finished == outputs.length) {
+                decide("all agents finished");
+            }
+        }
+
+        /**
+         * Completes the round with the answers received so far, in agent order. No-op once decided.
+         */
+        synchronized void decide(String reason) {
+            if (isDecided()) return;
+            decisionReason = reason;
+            List<Map.Entry<String, String>> results = new ArrayList<>();
+            for (int i = 0; i < outputs.length; i++) {
+                if (outputs[i] != null) {
+                    results.add(new AbstractMap.SimpleEntry<>(agentNames[i], outputs[i]));
+                }
+            }
+            if (successes == 0) {
+                decided.completeExceptionally(new IllegalStateException("No agent produced an answer (" + reason + ")."));
+            } else {
+                decided.complete(results);
+            }
+        }
+
+        boolean isDecided() {
+            return decided.isDone();
+        }
+
+        String getDecisionReason() {
+            return decisionReason;
+        }
+
+        CompletableFuture<List<Map.Entry<String, String>>> result() {
+            return decided;
+        }
+
+        private boolean majorityAgrees() {
+            int needed = outputs.length / 2 + 1;
+            if (successes < needed) return false;
+            for (int i = 0; i < outputs.length; i++) {
+                if (!succeeded[i]) continue;
+                Set<String> reference = words(outputs[i]);
+                int agreeing = 0;
+                for (int j = 0; j < outputs.length; j++) {
+                    if (succeeded[j] && jaccard(reference, words(outputs[j])) >= agreementThreshold) {
+                        agreeing++;
+                    }
+                }
+                if (agreeing >= needed) return true;
+            }
+            return false;
+        }
+    }
+
+    static Set<String> words(String text) {
+        Set<String> words = new HashSet<>();
+        for (String word : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) words.add(word);
+        }
+        return words;
+    }
+
+    static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() && b.isEmpty()) return 1.0;
+        int intersection = 0;
+        for (String word : a) {
+            if (b.contains(word)) intersection++;
+        }
+        return (double) intersection / (a.size() + b.size() - intersection);
+    }
 }
@@ -0,0 +1,281 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.llm.LLMClient;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Token-bounded conversation history for an agent's task loop. The most recent turns are kept verbatim;
+ * {@link #compact()} folds the oldest turns into a rolling summary produced by a {@link Summarizer} once the
+ * rendered history exceeds its token budget. Tool outputs larger than the per-turn limit are truncated in the
+ * prompt and handed in full to an {@link OutputStore}; the truncated turn carries the key to look them up by.
+ * <p>
+ * Token counts are estimated at four characters per token, which is close enough for budgeting prompts.
+ */
+public class ConversationHistory {
+
+    /**
+     * Folds turns that no longer fit the budget into the running summary.
+     */
+    @FunctionalInterface
+    public interface Summarizer {
+        /**
+         * @param previousSummary The current summary, empty if nothing has been summarized yet.
+         * @param evictedTurns    The oldest turns being removed from the verbatim history, oldest first.
+         * @param llm             Dispatches any LLM call the summarizer makes, under the running task's
+         *                        scheduling and cancellation.
+         * @return The new summary covering both.
+         */
+        CompletableFuture<String> summarize(String previousSummary, List<String> evictedTurns, LlmDispatcher llm);
+    }
+
+    /**
+     * Sends a summarization prompt to an LLM. The agent's dispatcher admits the call through its scheduler and
+     * tracks it with the task's cancellation token.
+     */
+    @FunctionalInterface
+    public interface LlmDispatcher {
+        LlmDispatcher DIRECT = (client, prompt) -> client.completeAsync(prompt, null);
+
+        CompletableFuture<String> dispatch(LLMClient client, String prompt);
+    }
+
+    /**
+     * Keeps the full text of a truncated tool output.
+     */
+    @FunctionalInterface
+    public interface OutputStore {
+        /**
+         * @param call Sequence number of the truncated output within this history, starting at 1.
+         * @return The key the output can be retrieved by.
+         */
+        String store(String toolName, int call, String output);
+    }
+
+    static final int CHARS_PER_TOKEN = 4;
+
+    private final int tokenBudget;
+    private final int minRecentTurns;
+    private final int maxTurnTokens;
+    private final Summarizer summarizer;
+    private final OutputStore outputStore;
+    private final LlmDispatcher llmDispatcher;
+    private final Deque<String> turns = new ArrayDeque<>();
+    private String summary = "";
+    private int turnTokens;
+    private int truncatedOutputs;
+    private List<String> summarizing = List.of();
+    private CompletableFuture<Void> compaction = CompletableFuture.completedFuture(null);
+
+    /**
+     * Creates a history that truncates large tool outputs without keeping them and calls LLMs directly.
+     */
+    public ConversationHistory(int tokenBudget, int minRecentTurns, int maxTurnTokens, Summarizer summarizer) {
+        this(tokenBudget, minRecentTurns, maxTurnTokens, summarizer, null, null);
+    }
+
+    /**
+     * @param tokenBudget    Maximum estimated tokens for the rendered history.
+     * @param minRecentTurns Number of most recent turns that are always kept verbatim.
+     * @param maxTurnTokens  Tool outputs above this size are truncated to it.
+     * @param summarizer     Summarizer for evicted turns; {@code null} uses {@link #extractiveSummarizer(int)}.
+     * @param outputStore    Receives the full text of truncated tool outputs. Can be null.
+     * @param llmDispatcher  Dispatcher for the summarizer's LLM calls; {@code null} uses {@link LlmDispatcher#DIRECT}.
+     */
+    public ConversationHistory(int tokenBudget, int minRecentTurns, int maxTurnTokens, Summarizer summarizer,
+                               OutputStore outputStore, LlmDispatcher llmDispatcher) {
+        if (tokenBudget <= 0 || maxTurnTokens <= 0 || minRecentTurns < 0) {
+            throw new IllegalArgumentException("Token budget and max turn tokens must be positive; recent turns cannot be negative.");
+        }
+        this.tokenBudget = tokenBudget;
+        this.minRecentTurns = minRecentTurns;
+        this.maxTurnTokens = maxTurnTokens;
+        this.summarizer = summarizer != null ? summarizer : extractiveSummarizer(200);
+        this.outputStore = outputStore;
+        this.llmDispatcher = llmDispatcher != null ? llmDispatcher : LlmDispatcher.DIRECT;
+    }
+
+    /**
+     * Appends a turn verbatim. Call {@link #compact()} before rendering to bring the history back within budget.
+     */
+    public synchronized void addTurn(String text) {
+        Objects.requireNonNull(text, "Turn text cannot be null.");
+        turns.addLast(text);
+        turnTokens += estimateTokens(text);
+    }
+
+    /**
+     * Appends a tool output turn. Outputs above the per-turn limit are cut down to that limit and the full
+     * text is passed to the output store; the turn names the key it was stored under.
+     *
+     * @return The key of the stored output, or {@code null} if the output was kept verbatim or could not be stored.
+     */
+    public String addToolOutput(String toolName, String output) {
+        String text = String.valueOf(output);
+        if (estimateTokens(text) <= maxTurnTokens) {
+            addTurn("Tool " + toolName + " output: " + text);
+            return null;
+        }
+        int call;
+        synchronized (this) {
+            call = ++truncatedOutputs;
+        }
+        String reference = null;
+        if (outputStore != null) {
+            try {
+                reference = outputStore.store(toolName, call, text); // File I/O stays outside the lock
+            } catch (UncheckedIOException e) {
+                System.err.println("ConversationHistory: Could not store full output of tool " + toolName + ". Error: " + e.getMessage());
+            }
+        }
+        String head = text.substring(0, maxTurnTokens * CHARS_PER_TOKEN);
+        addTurn("Tool " + toolName + " output (truncated from " + text.length() + " characters"
+                + (reference != null ? ", full output stored as '" + reference + "'" : "") + "): " + head + " ...");
+        return reference;
+    }
+
+    /**
+     * Folds the oldest turns into the summary until the history fits its budget again. The summarizer runs
+     * outside the history's lock; while it does, the evicted turns are still rendered verbatim. A compaction
+     * requested while another is running starts after it.
+     *
+     * @return A future completed once the summary is updated. It fails only if the summarization was cancelled;
+     * other summarizer failures fall back to {@link #extractiveSummarizer(int)}.
+     */
+    public CompletableFuture<Void> compact() {
+        List<String> evicted = new ArrayList<>();
+        String previousSummary;
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        synchronized (this) {
+            if (!compaction.isDone()) {
+                return compaction.thenCompose(ignored -> compact());
+            }
+            while (turns.size() > minRecentTurns && turnTokens + estimateTokens(summary) > tokenBudget) {
+                String oldest = turns.removeFirst();
+                turnTokens -= estimateTokens(oldest);
+                evicted.add(oldest);
+            }
+            if (evicted.isEmpty()) {
+                return compaction;
+            }
+            previousSummary = summary;
+            summarizing = List.copyOf(evicted);
+            compaction = done;
+        }
+        CompletableFuture<String> summarized;
+        try {
+            summarized = summarizer.summarize(previousSummary, evicted, llmDispatcher);
+        } catch (RuntimeException e) {
+            summarized = CompletableFuture.failedFuture(e);
+        }
+        summarized.whenComplete((newSummary, error) -> {
+            String result = newSummary;
+            if (error != null) {
+                if (!CancellationToken.isCancellation(error)) {
+                    System.err.println("ConversationHistory: Summarization failed, using extractive summary. Error: " + error.getMessage());
+                }
+                result = extractiveSummarizer(200).summarize(previousSummary, evicted, llmDispatcher).join();
+            }
+            synchronized (this) {
+                summary = capSummary(result);
+                summarizing = List.of();
+            }
+            if (error != null && CancellationToken.isCancellation(error)) {
+                done.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+            } else {
+                done.complete(null);
+            }
+        });
+        return done;
+    }
+
+    public synchronized boolean isEmpty() {
+        return turns.isEmpty() && summarizing.isEmpty() && summary.isEmpty();
+    }
+
+    public synchronized String getSummary() {
+        return summary;
+    }
+
+    public synchronized int size() {
+        return turns.size();
+    }
+
+    /**
+     * Renders the summary followed by the verbatim recent turns.
+     */
+    public synchronized String render() {
+        StringBuilder sb = new StringBuilder();
+        if (!summary.isEmpty()) {
+            sb.append("Summary of earlier steps:\n").append(summary).append("\n");
+        }
+        for (String turn : summarizing) {
+            sb.append("\n").append(turn);
+        }
+        for (String turn : turns) {
+            sb.append("\n").append(turn);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return render();
+    }
+
+    public static int estimateTokens(String text) {
+        return text == null ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    // The summary may use at most a quarter of the budget; keep its most recent part.
+    private String capSummary(String newSummary) {
+        String text = newSummary == null ? "" : newSummary.trim();
+        int maxChars = Math.max(1, tokenBudget / 4) * CHARS_PER_TOKEN;
+        return text.length() <= maxChars ? text : "..." + text.substring(text.length() - maxChars);
+    }
+
+    /**
+     * Summarizer that keeps the first line of each evicted turn, cut to {@code maxCharsPerTurn} characters.
+     * It needs no LLM call and is the default.
+     */
+    public static Summarizer extractiveSummarizer(int maxCharsPerTurn) {
+        return (previousSummary, evictedTurns, llm) -> {
+            String extracted = evictedTurns.stream()
+                    .map(turn -> {
+                        String firstLine = turn.strip().lines().findFirst().orElse("");
+                        return "- " + (firstLine.length() > maxCharsPerTurn ? firstLine.substring(0, maxCharsPerTurn) + " ..." : firstLine);
+                    })
+                    .collect(Collectors.joining("\n"));
+            return CompletableFuture.completedFuture(previousSummary.isEmpty() ? extracted : previousSummary + "\n" + extracted);
+        };
+    }
+
+    /**
+     * Summarizer that asks an LLM to merge the evicted turns into the running summary. The call goes through
+     * the history's {@link LlmDispatcher}, so an agent schedules and cancels it like its own LLM calls.
+     * Falls back to the extractive summary if the LLM call fails or returns nothing.
+     */
+    public static Summarizer llmSummarizer(LLMClient llmClient) {
+        Objects.requireNonNull(llmClient, "LLMClient cannot be null.");
+        Summarizer fallback = extractiveSummarizer(200);
+        return (previousSummary, evictedTurns, llm) -> {
+            String prompt = "Update the running summary of an AI agent's work with the new steps below. " +
+                    "Keep tool names, key facts and errors; answer with the updated summary only.\n\n" +
+                    "Current summary:\n" + (previousSummary.isEmpty() ? "(none)" : previousSummary) + "\n\n" +
+                    "New steps:\n" + String.join("\n", evictedTurns);
+            return llm.dispatch(llmClient, prompt).thenCompose(result -> result == null || result.isBlank()
+                    ? fallback.summarize(previousSummary, evictedTurns, llm)
+                    : CompletableFuture.completedFuture(result));
+        };
+    }
+}
@@ -1,13 +1,18 @@
 package com.javaagentai.aiagents.core;
 
+import com.javaagentai.aiagents.config.Config;
 import lombok.Builder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
-import static com.javaagentai.aiagents.core.ProcessStrategy.HIERARCHICAL;
 import static com.javaagentai.aiagents.core.ProcessStrategy.SEQUENTIAL;
 
 @Builder
@@ -18,7 +23,21 @@ public class Crew {
     @Builder.Default
     private List<Agent> agents = new ArrayList<>();
     private ProcessStrategy processStrategy;
-    private Process process;
+    private volatile Process process;
+    // Batch execution (executeAll) settings
+    @Builder.Default
+    private int pipelineQueueCapacity = Config.getPipelineQueueCapacity();
+    @Builder.Default
+    private int pipelineStageConcurrency = Config.getPipelineStageConcurrency();
+    @Builder.Default
+    private boolean pipelinePreserveOrder = true;
+    // Durable runs (execute with a run id, resume) write their journals here
+    @Builder.Default
+    private Path journalDirectory = resolveJournalDirectory(Config.getJournalDirectory());
+    @Builder.Default
+    private boolean journalFsync = Config.isJournalFsync();
+    // Optional cache of agent step outputs shared by all executions; null disables memoization
+    private StepMemoStore stepMemoStore;
     // No global context here; it's per execution.
 
    /* public Crew(List<Agent> agents, ProcessStrategy strategy) {
@@ -46,20 +65,50 @@ public class Crew {
     public CompletableFuture<String> execute(Task initialTask) {
         Objects.requireNonNull(initialTask, "Initial task cannot be null.");
         AgentContext context = new AgentContext(); // Fresh context for each execution
-        context.log("CREW_ASYNC: Starting execution with strategy: " + this.processStrategy + " for task: " + initialTask.getDescription());
-        switch (this.processStrategy) {
-            case SEQUENTIAL:
-                this.process = new SequentialProcess(); // This now returns CompletableFuture
-                break;
-            case HIERARCHICAL:
-                this.process = new HierarchicalProcess(); // Placeholder
-                break;
+        context.setStepMemoStore(stepMemoStore);
+        return execute(initialTask, context, null);
+    }
 
-            default:
-                throw new IllegalArgumentException("Unsupported process strategy: " + this.processStrategy);
+    /**
+     * Executes the task as a durable run: every completed step is journaled under {@code runId}, and if a
+     * journal for that run already exists, e.g. from before a JVM restart, its completed steps are reused
+     * instead of executed again. The journal is deleted once the run finishes successfully.
+     *
+     * @param initialTask The task; must be the same as in earlier attempts of the run for replay to be meaningful.
+     * @param runId       Identifies the run; letters, digits, '.', '_' and '-' only.
+     */
+    public CompletableFuture<String> execute(Task initialTask, String runId) {
+        Objects.requireNonNull(initialTask, "Initial task cannot be null.");
+        ExecutionJournal journal;
+        try {
+            journal = ExecutionJournal.open(journalDirectory, runId, journalFsync);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the journal of run " + runId, e);
         }
+        AgentContext context = new AgentContext();
+        context.setStepMemoStore(stepMemoStore);
+        context.setExecutionJournal(journal);
+        context.log("CREW_ASYNC: Journaling run " + runId + " to " + journal.getFile() + " (" + journal.getCompletedStepCount() + " completed steps recorded).");
+        return execute(initialTask, context, journal);
+    }
+
+    /**
+     * Resumes an interrupted run from its last checkpoint.
+     *
+     * @throws IllegalStateException if no journal exists for the run.
+     */
+    public CompletableFuture<String> resume(String runId, Task initialTask) {
+        if (!ExecutionJournal.exists(journalDirectory, runId)) {
+            throw new IllegalStateException("No journal found for run " + runId + " in " + journalDirectory);
+        }
+        return execute(initialTask, runId);
+    }
+
+    private CompletableFuture<String> execute(Task initialTask, AgentContext context, ExecutionJournal journal) {
+        context.setScheduling(initialTask.getTenant(), initialTask.getPriority());
+        context.log("CREW_ASYNC: Starting execution with strategy: " + this.processStrategy + " for task: " + initialTask.getDescription());
         // The process.execute method now returns a CompletableFuture
-        return this.process.execute(initialTask, this.agents, context)
+        CompletableFuture<String> result = resolveProcess().execute(initialTask, this.agents, context)
                 .thenApply(finalResult -> {
                     context.log("CREW_ASYNC: Execution finished. Final result: " + finalResult);
                     // Example of accessing logs, could be useful for debugging or post-processing
@@ -71,6 +120,93 @@ public class Crew {
                     // Depending on requirements, might rethrow or return an error marker string
                     return "Error during crew execution: " + ex.getMessage();
                 });
+        // Cancelling the returned future stops in-flight LLM calls, tool executions and the remaining process steps.
+        result.whenComplete((finalResult, ex) -> {
+            if (result.isCancelled()) {
+                context.log("CREW_ASYNC: Execution cancelled by caller for task: " + initialTask.getDescription());
+                initialTask.getCancellationToken().cancel("Crew execution was cancelled by the caller.");
+            }
+            // The context is private to this execution, so its task data (and any spilled files) can go now.
+            context.clearAllTaskData();
+            if (journal != null) {
+                // A finished run has nothing left to resume; failed or cancelled runs keep their checkpoints.
+                boolean succeeded = !result.isCancelled() && ex == null && finalResult != null && !finalResult.startsWith("Error");
+                if (succeeded) {
+                    journal.delete();
+                } else {
+                    journal.close();
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Processes keep no per-execution state, so one instance is created lazily and shared by every
+     * execution, including concurrent ones submitted through {@link CrewService}.
+     */
+    private Process resolveProcess() {
+        Process current = this.process;
+        if (current == null) {
+            current = createProcess();
+            this.process = current;
+        }
+        return current;
+    }
+
+    private Process createProcess() {
+        switch (this.processStrategy) {
+            case SEQUENTIAL:
+                return new SequentialProcess(); // This now returns CompletableFuture
+            case HIERARCHICAL:
+                return new HierarchicalProcess();
+            case DAG:
+                return new DagProcess();
+            case CONSENSUAL:
+                return new ConsensualProcess();
+            case MAP_REDUCE:
+                return new MapReduceProcess();
+
+            default:
+                throw new IllegalArgumentException("Unsupported process strategy: " + this.processStrategy);
+        }
+    }
+
+    /**
+     * Executes many independent tasks as a pipeline. With the SEQUENTIAL strategy every agent is a
+     * pipeline stage with its own bounded queue and workers, so different tasks occupy different agents
+     * at the same time; other strategies run whole executions with bounded concurrency. The task stream
+     * is consumed only as fast as results are taken from the returned stream.
+     *
+     * @param tasks The tasks to execute; each gets its own context.
+     * @return Results in input order (or completion order if {@code pipelinePreserveOrder} is false).
+     * Close the stream to stop the pipeline early.
+     */
+    public Stream<BatchResult> executeAll(Stream<Task> tasks) {
+        Objects.requireNonNull(tasks, "Tasks cannot be null.");
+        TaskPipeline pipeline;
+        if (this.processStrategy == SEQUENTIAL) {
+            if (agents.isEmpty()) {
+                throw new IllegalStateException("Crew has no agents to execute tasks.");
+            }
+            pipeline = TaskPipeline.sequential(agents, stepMemoStore, pipelineQueueCapacity, pipelineStageConcurrency, pipelinePreserveOrder);
+        } else {
+            Process batchProcess = resolveProcess();
+            TaskPipeline.Stage stage = (task, context) -> {
+                context.setStepMemoStore(stepMemoStore);
+                return batchProcess.execute(task, agents, context);
+            };
+            pipeline = new TaskPipeline(List.of(String.valueOf(this.processStrategy)), List.of(stage),
+                    pipelineQueueCapacity, pipelineStageConcurrency, pipelinePreserveOrder);
+        }
+        return pipeline.execute(tasks);
+    }
+
+    private static Path resolveJournalDirectory(String configured) {
+        if (configured == null || configured.isBlank()) {
+            return Paths.get(System.getProperty("java.io.tmpdir"), "crew4j-journal");
+        }
+        return Paths.get(configured.trim());
     }
 
     public List<Agent> getAgents() {
@@ -0,0 +1,280 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.config.Config;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Long-lived front end for a {@link Crew}. Submissions wait in a bounded priority queue and at most
+ * {@code maxConcurrent} of them execute at a time. When the queue is full, a new submission either
+ * displaces the lowest-priority queued one (which is shed) or is rejected. Submissions that have waited
+ * longer than the maximum queue wait are dropped when they reach the head of the queue, because their
+ * caller has most likely given up. Rejected, shed and expired submissions fail fast with a
+ * {@link RejectedExecutionException}, so overload turns into quick errors rather than long latency
+ * for every caller.
+ */
+public class CrewService implements AutoCloseable {
+
+    public static final int DEFAULT_PRIORITY = 0;
+
+    private final Crew crew;
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final long maxQueueWaitNanos;
+    private final PriorityQueue<Submission> queue = new PriorityQueue<>(
+            Comparator.comparingInt((Submission s) -> -s.priority).thenComparingLong(s -> s.sequence));
+    private final Set<Submission> running = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private int active;
+    private boolean shutdown;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong startedCount = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Snapshot of the service's load and counters.
+     */
+    public record Stats(int queueDepth, int activeExecutions, long submitted, long completed, long rejected,
+                        long shed, long expired, double averageQueueWaitMillis, double maxQueueWaitMillis) {
+    }
+
+    private static final class Submission {
+        final Task task;
+        final int priority;
+        final long sequence;
+        final long enqueuedNanos = System.nanoTime();
+        final CompletableFuture<String> result = new CompletableFuture<>();
+
+        Submission(Task task, int priority, long sequence) {
+            this.task = task;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+
+    public CrewService(Crew crew) {
+        this(crew, Config.getCrewServiceMaxConcurrent(), Config.getCrewServiceQueueCapacity(),
+                Duration.ofMillis(Config.getCrewServiceMaxQueueWaitMillis()));
+    }
+
+    /**
+     * @param crew          The crew executing the submissions.
+     * @param maxConcurrent Maximum number of executions running at the same time.
+     * @param queueCapacity Maximum number of submissions waiting to run.
+     * @param maxQueueWait  Submissions waiting longer are dropped instead of executed; null or zero disables this.
+     */
+    public CrewService(Crew crew, int maxConcurrent, int queueCapacity, Duration maxQueueWait) {
+        if (maxConcurrent <= 0 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Max concurrent executions must be positive and queue capacity non-negative.");
+        }
+        this.crew = Objects.requireNonNull(crew, "Crew cannot be null.");
+        this.maxConcurrent = maxConcurrent;
+        this.queueCapacity = queueCapacity;
+        this.maxQueueWaitNanos = maxQueueWait != null ? maxQueueWait.toNanos() : 0;
+    }
+
+    public CompletableFuture<String> submit(Task task) {
+        return submit(task, DEFAULT_PRIORITY);
+    }
+
+    /**
+     * Queues a task for execution. Higher priorities run first; equal priorities run in submission order.
+     *
+     * @return The execution result. Fails with {@link RejectedExecutionException} if the task is rejected,
+     * shed or expires in the queue. Cancelling it removes the task from the queue or cancels its execution.
+     */
+    public CompletableFuture<String> submit(Task task, int priority) {
+        Objects.requireNonNull(task, "Task cannot be null.");
+        submitted.incrementAndGet();
+        Submission submission = new Submission(task, priority, sequence.getAndIncrement());
+        Submission displaced = null;
+        boolean startNow = false;
+        synchronized (this) {
+            if (shutdown) {
+                rejected.incrementAndGet();
+                return CompletableFuture.failedFuture(new RejectedExecutionException("CrewService is shut down."));
+            }
+            if (active < maxConcurrent && queue.isEmpty()) {
+                active++;
+                startNow = true;
+            } else if (queue.size() < queueCapacity) {
+                queue.add(submission);
+            } else {
+                Submission lowest = lowestPriority();
+                if (lowest == null || lowest.priority >= priority) {
+                    rejected.incrementAndGet();
+                    return CompletableFuture.failedFuture(new RejectedExecutionException(
+                            "CrewService is saturated: " + active + " running, " + queue.size() + " queued."));
+                }
+                queue.remove(lowest);
+                queue.add(submission);
+                displaced = lowest;
+            }
+        }
+        if (displaced != null) {
+            shed.incrementAndGet();
+            displaced.result.completeExceptionally(new RejectedExecutionException("Shed in favour of a higher-priority submission."));
+        }
+        submission.result.whenComplete((output, error) -> {
+            if (submission.result.isCancelled()) {
+                synchronized (this) {
+                    queue.remove(submission);
+                }
+                submission.task.cancel(); // Stops the execution if it had already started
+            }
+        });
+        if (startNow) {
+            start(submission);
+        }
+        return submission.result;
+    }
+
+    private Submission lowestPriority() {
+        Submission lowest = null;
+        for (Submission candidate : queue) {
+            if (lowest == null || candidate.priority < lowest.priority
+                    || (candidate.priority == lowest.priority && candidate.sequence > lowest.sequence)) {
+                lowest = candidate;
+            }
+        }
+        return lowest;
+    }
+
+    /**
+     * Starts the submission and, while executions complete synchronously, the ones that take over its slot.
+     * Looping here instead of starting the next one from the completion callback keeps the stack flat when
+     * many queued executions finish immediately.
+     */
+    private void start(Submission submission) {
+        while (submission != null) {
+            long waited = System.nanoTime() - submission.enqueuedNanos;
+            totalWaitNanos.addAndGet(waited);
+            startedCount.incrementAndGet();
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            running.add(submission);
+            CompletableFuture<String> execution;
+            try {
+                execution = crew.execute(submission.task);
+            } catch (RuntimeException e) {
+                execution = CompletableFuture.failedFuture(e);
+            }
+            Submission current = submission;
+            if (!execution.isDone()) {
+                execution.whenComplete((output, error) -> start(finish(current, output, error)));
+                return;
+            }
+            submission = execution.handle((output, error) -> finish(current, output, error)).join();
+        }
+    }
+
+    /**
+     * Completes the submission's result.
+     *
+     * @return The submission that takes over the slot, or null if the slot was released.
+     */
+    private Submission finish(Submission submission, String output, Throwable error) {
+        running.remove(submission);
+        completed.incrementAndGet();
+        Submission next = next(); // Hand the slot over before the caller observes the result, so the stats are settled
+        if (error != null) {
+            submission.result.completeExceptionally(error);
+        } else {
+            submission.result.complete(output);
+        }
+        return next;
+    }
+
+    /**
+     * @return The next queued submission to start in the slot of a finished execution, or null if none is
+     * left, in which case the slot is released.
+     */
+    private Submission next() {
+        while (true) {
+            Submission next;
+            synchronized (this) {
+                next = queue.poll();
+                if (next == null) {
+                    active--;
+                    return null;
+                }
+            }
+            if (next.result.isDone()) {
+                continue; // Cancelled while queued
+            }
+            if (maxQueueWaitNanos > 0 && System.nanoTime() - next.enqueuedNanos > maxQueueWaitNanos) {
+                expired.incrementAndGet();
+                next.result.completeExceptionally(new RejectedExecutionException("Waited longer than the maximum queue time."));
+                continue;
+            }
+            return next; // Keeps the slot released by the finished execution
+        }
+    }
+
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    public synchronized int getActiveExecutions() {
+        return active;
+    }
+
+    public Stats getStats() {
+        int depth;
+        int running;
+        synchronized (this) {
+            depth = queue.size();
+            running = active;
+        }
+        long started = startedCount.get();
+        double averageWaitMillis = started == 0 ? 0 : totalWaitNanos.get() / (double) started / 1_000_000;
+        return new Stats(depth, running, submitted.get(), completed.get(), rejected.get(), shed.get(), expired.get(),
+                averageWaitMillis, maxWaitNanos.get() / 1_000_000.0);
+    }
+
+    /**
+     * Stops accepting submissions. Queued and running executions still complete.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+    }
+
+    /**
+     * Stops accepting submissions, fails every queued submission and cancels the running ones.
+     */
+    public void shutdownNow() {
+        shutdown();
+        Submission[] queued;
+        synchronized (this) {
+            queued = queue.toArray(new Submission[0]);
+            queue.clear();
+        }
+        for (Submission submission : queued) {
+            submission.result.completeExceptionally(new CancellationException("CrewService was shut down."));
+        }
+        for (Submission submission : running) {
+            submission.task.cancel();
+        }
+    }
+
+    @Override
+    public void close() {
+        shutdown();
+    }
+}
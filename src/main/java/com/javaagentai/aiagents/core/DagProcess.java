@@ -0,0 +1,210 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.config.Config;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * DagProcess runs a graph of tasks declared through {@link Task#getDependencies()}. The task handed to
+ * {@link #execute} is the sink of the graph; every task reachable through its dependencies is executed
+ * exactly once, as soon as all of its own dependencies have finished, with at most {@code maxParallelism}
+ * tasks running at a time. Each task receives its dependencies' outputs in its input under
+ * {@link #DEPENDENCY_OUTPUTS_KEY}, as a list of {@link DependencyOutput}s in declaration order, so that
+ * dependencies sharing a description are all passed on. A task runs on its assigned agent, or
+ * on the crew's agents in round-robin order if none is assigned. If a task fails, the tasks that depend on
+ * it are skipped and the process result is an error; independent branches still run to completion.
+ */
+public class DagProcess implements Process {
+
+    public static final String DEPENDENCY_OUTPUTS_KEY = "dependency_outputs";
+
+    /**
+     * The output of one dependency as its dependents see it.
+     */
+    public record DependencyOutput(String description, String output) {
+        @Override
+        public String toString() {
+            return description + ": " + output;
+        }
+    }
+
+    private final int maxParallelism;
+
+    public DagProcess() {
+        this(Config.getDagMaxParallelism());
+    }
+
+    public DagProcess(int maxParallelism) {
+        if (maxParallelism <= 0) {
+            throw new IllegalArgumentException("Max parallelism must be positive.");
+        }
+        this.maxParallelism = maxParallelism;
+    }
+
+    @Override
+    public CompletableFuture<String> execute(Task finalTask, List<Agent> agents, AgentContext context) {
+        String flowId = "dag_" + UUID.randomUUID();
+        context.log("DAG_PROCESS: Starting process for task: " + finalTask.getDescription() + " with FlowID: " + flowId);
+
+        List<Task> order;
+        try {
+            order = topologicalOrder(finalTask);
+        } catch (IllegalArgumentException e) {
+            return fail(finalTask, context, e.getMessage());
+        }
+
+        Map<Task, Agent> assignments = new IdentityHashMap<>();
+        int nextAgent = 0;
+        for (Task task : order) {
+            Agent agent = task.getAssignedAgent();
+            if (agent == null) {
+                if (agents == null || agents.isEmpty()) {
+                    return fail(finalTask, context, "No agents available for task '" + task.getDescription() + "'.");
+                }
+                agent = agents.get(nextAgent++ % agents.size());
+            }
+            assignments.put(task, agent);
+        }
+        context.log("DAG_PROCESS: Scheduling " + order.size() + " tasks with max parallelism " + maxParallelism + ".");
+
+        CancellationToken cancellationToken = finalTask.getCancellationToken();
+        ParallelismLimiter limiter = new ParallelismLimiter(maxParallelism);
+        Map<Task, CompletableFuture<String>> outputs = new IdentityHashMap<>();
+        // Topological order guarantees every dependency's future exists before its dependents are wired.
+        for (Task task : order) {
+            List<CompletableFuture<String>> upstream = task.getDependencies().stream().map(outputs::get).toList();
+            CompletableFuture<String> output = CompletableFuture.allOf(upstream.toArray(new CompletableFuture[0]))
+                    .handle((ignored, upstreamError) -> {
+                        if (upstreamError != null) {
+                            skip(task, context, upstreamError);
+                            throw upstreamError instanceof CompletionException ce ? ce : new CompletionException(upstreamError);
+                        }
+                        return null;
+                    })
+                    .thenCompose(ignored -> limiter.submit(() -> runTask(task, assignments.get(task), outputs, cancellationToken, flowId, context)));
+            outputs.put(task, output);
+        }
+
+        return outputs.get(finalTask).handle((finalOutput, error) -> {
+            if (cancellationToken.isCancelled()) {
+                finalTask.setStatus(TaskStatus.CANCELLED);
+                context.log("DAG_PROCESS: Process cancelled. Reason: " + cancellationToken.getCancellationReason());
+                return "Error: DAG process cancelled. " + cancellationToken.getCancellationReason();
+            }
+            if (error != null) {
+                String reason = CancellationToken.rootCause(error).getMessage();
+                finalTask.setStatus(TaskStatus.FAILED);
+                context.log("DAG_PROCESS: Process failed. Error: " + reason);
+                return "Error: DAG process failed. " + reason;
+            }
+            context.log("DAG_PROCESS: Process finished. Final output: " + finalOutput);
+            return finalOutput;
+        }).whenComplete((result, error) -> context.completeTask(flowId));
+    }
+
+    private CompletableFuture<String> runTask(Task task, Agent agent, Map<Task, CompletableFuture<String>> outputs,
+                                              CancellationToken cancellationToken, String flowId, AgentContext context) {
+        if (cancellationToken.isCancelled() || task.isCancelled()) {
+            return CompletableFuture.failedFuture(new CancellationException(
+                    cancellationToken.isCancelled() ? cancellationToken.getCancellationReason() : task.getCancellationToken().getCancellationReason()));
+        }
+
+        Map<String, Object> input = new LinkedHashMap<>();
+        if (task.getInput() != null) {
+            input.putAll(task.getInput());
+        }
+        if (!task.getDependencies().isEmpty()) {
+            List<DependencyOutput> dependencyOutputs = new ArrayList<>();
+            for (Task dependency : task.getDependencies()) {
+                dependencyOutputs.add(new DependencyOutput(dependency.getDescription(), outputs.get(dependency).join())); // Already complete
+            }
+            input.put(DEPENDENCY_OUTPUTS_KEY, dependencyOutputs);
+        }
+
+        // The task actually run carries the merged input; it is cancelled together with the whole graph.
+        Task execution = Task.builder()
+                .description(task.getDescription())
+                .input(input)
+                .expectedOutput(task.getExpectedOutput())
+                .status(TaskStatus.PENDING)
+                .assignedAgent(agent)
+                .callback(task.getCallback())
+                .cancellationToken(cancellationToken.child())
+                .build();
+
+        context.log("DAG_PROCESS: Agent " + agent.getName() + " starting task: " + task.getDescription());
+        task.setAssignedAgent(agent);
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        // Released once the node is done, so the graph's token does not collect one child per finished node.
+        CompletableFuture<String> run = context.runAgent(agent, execution)
+                .whenComplete((output, error) -> execution.getCancellationToken().release());
+        return run.thenApply(output -> {
+            task.setStatus(execution.getStatus());
+            if (execution.getStatus() == TaskStatus.FAILED) {
+                throw new IllegalStateException("Task '" + task.getDescription() + "' failed: " + output);
+            }
+            context.storeTaskData(flowId, task.getDescription() + "_output", output);
+            context.log("DAG_PROCESS: Agent " + agent.getName() + " finished task: " + task.getDescription() + ". Output: " + output);
+            return output;
+        });
+    }
+
+    private void skip(Task task, AgentContext context, Throwable upstreamError) {
+        if (CancellationToken.isCancellation(upstreamError)) {
+            task.setStatus(TaskStatus.CANCELLED);
+            return;
+        }
+        task.setStatus(TaskStatus.FAILED);
+        String reason = "Skipped because a dependency failed: " + CancellationToken.rootCause(upstreamError).getMessage();
+        context.log("DAG_PROCESS: Task '" + task.getDescription() + "' " + reason);
+        if (task.getCallback() != null) {
+            task.getCallback().accept(new TaskResult(TaskStatus.FAILED, null, reason));
+        }
+    }
+
+    /**
+     * @return Every task reachable from the sink, dependencies before dependents.
+     * @throws IllegalArgumentException if the dependencies contain a cycle.
+     */
+    static List<Task> topologicalOrder(Task sink) {
+        List<Task> order = new ArrayList<>();
+        Map<Task, Boolean> visiting = new IdentityHashMap<>(); // true while on the DFS stack, false once finished
+        visit(sink, visiting, order);
+        return order;
+    }
+
+    private static void visit(Task task, Map<Task, Boolean> visiting, List<Task> order) {
+        Boolean state = visiting.get(task);
+        if (Boolean.FALSE.equals(state)) {
+            return;
+        }
+        if (Boolean.TRUE.equals(state)) {
+            throw new IllegalArgumentException("Task dependencies contain a cycle through task '" + task.getDescription() + "'.");
+        }
+        visiting.put(task, true);
+        for (Task dependency : task.getDependencies()) {
+            visit(dependency, visiting, order);
+        }
+        visiting.put(task, false);
+        order.add(task);
+    }
+
+    private CompletableFuture<String> fail(Task finalTask, AgentContext context, String reason) {
+        context.log("DAG_PROCESS: " + reason);
+        finalTask.setStatus(TaskStatus.FAILED);
+        if (finalTask.getCallback() != null) {
+            finalTask.getCallback().accept(new TaskResult(TaskStatus.FAILED, null, reason));
+        }
+        return CompletableFuture.completedFuture("Error: " + reason);
+    }
+}
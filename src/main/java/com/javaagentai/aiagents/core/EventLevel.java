@@ -0,0 +1,31 @@
+package com.javaagentai.aiagents.core;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Severity of an {@link AgentEvent}. Events below the {@link EventLog}'s minimum level are dropped
+ * before their message is ever formatted.
+ */
+public enum EventLevel {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR;
+
+    public boolean isEnabledFor(EventLevel minimum) {
+        return compareTo(minimum) >= 0;
+    }
+
+    /**
+     * Parses a level name case-insensitively, falling back to INFO for unknown values.
+     */
+    public static EventLevel parse(String name) {
+        if (name == null) return INFO;
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("EventLevel: Unknown level '" + name + "'. Using INFO.");
+            return INFO;
+        }
+    }
+}
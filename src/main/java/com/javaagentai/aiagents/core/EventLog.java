@@ -0,0 +1,127 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.config.Config;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Bounded, lock-free event log. Events are written into a fixed-size ring buffer: each producer claims a
+ * slot with a single atomic increment and publishes the event with a volatile write, so parallel agents
+ * never contend on a lock. Once the buffer is full the oldest events are overwritten, keeping memory
+ * constant for long-running crews. Events below the minimum level are rejected before their message
+ * supplier runs, and accepted events are also forwarded to the registered {@link EventSink}s.
+ */
+public class EventLog {
+
+    private final AtomicReferenceArray<AgentEvent> slots;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong(0);
+    private final AtomicLong clearedUpTo = new AtomicLong(0);
+    private final List<EventSink> sinks = new CopyOnWriteArrayList<>();
+    private volatile EventLevel minimumLevel;
+
+    public EventLog() {
+        this(Config.getEventLogCapacity(), EventLevel.parse(Config.getEventLogLevel()));
+    }
+
+    /**
+     * @param capacity     Maximum number of retained events; rounded up to the next power of two.
+     * @param minimumLevel Events below this level are discarded.
+     */
+    public EventLog(int capacity, EventLevel minimumLevel) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Event log capacity must be positive.");
+        }
+        int size = Integer.highestOneBit(Math.min(capacity, 1 << 30));
+        if (size < capacity) size <<= 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.minimumLevel = Objects.requireNonNull(minimumLevel, "Minimum level cannot be null.");
+    }
+
+    public boolean isEnabled(EventLevel level) {
+        return level.isEnabledFor(minimumLevel);
+    }
+
+    /**
+     * Appends an event if its level is enabled. The supplier is not invoked here.
+     *
+     * @return The appended event, or null if the level is disabled.
+     */
+    public AgentEvent append(EventLevel level, String type, Supplier<String> message) {
+        if (!isEnabled(level)) {
+            return null;
+        }
+        long sequence = nextSequence.getAndIncrement();
+        AgentEvent event = new AgentEvent(sequence, Instant.now(), level, type, message);
+        slots.set((int) (sequence & mask), event);
+        for (EventSink sink : sinks) {
+            try {
+                sink.accept(event);
+            } catch (RuntimeException e) {
+                System.err.println("EventLog: sink " + sink + " failed: " + e.getMessage());
+            }
+        }
+        return event;
+    }
+
+    /**
+     * @return The retained events in sequence order. Events overwritten while the snapshot is taken are skipped.
+     */
+    public List<AgentEvent> snapshot() {
+        long end = nextSequence.get();
+        long start = Math.max(clearedUpTo.get(), end - slots.length());
+        List<AgentEvent> events = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            AgentEvent event = slots.get((int) (sequence & mask));
+            if (event != null && event.sequence() == sequence) { // Skip slots not yet published or already reused
+                events.add(event);
+            }
+        }
+        return Collections.unmodifiableList(events);
+    }
+
+    /**
+     * Forgets all events logged so far. Concurrent appends are not lost.
+     */
+    public void clear() {
+        clearedUpTo.accumulateAndGet(nextSequence.get(), Math::max);
+    }
+
+    /**
+     * @return Number of events that were overwritten because the buffer was full.
+     */
+    public long getDroppedCount() {
+        return Math.max(0, nextSequence.get() - slots.length());
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    public EventLevel getMinimumLevel() {
+        return minimumLevel;
+    }
+
+    public void setMinimumLevel(EventLevel minimumLevel) {
+        this.minimumLevel = Objects.requireNonNull(minimumLevel, "Minimum level cannot be null.");
+    }
+
+    public void addSink(EventSink sink) {
+        sinks.add(Objects.requireNonNull(sink, "Sink cannot be null."));
+    }
+
+    public void removeSink(EventSink sink) {
+        sinks.remove(sink);
+    }
+}
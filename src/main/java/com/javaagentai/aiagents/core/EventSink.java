@@ -0,0 +1,27 @@
+package com.javaagentai.aiagents.core;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Receives every {@link AgentEvent} accepted by an {@link EventLog}. Sinks are invoked synchronously on
+ * the thread that logged the event, so they should be fast and must be thread-safe; anything slow
+ * (files, network) should hand the event off to its own queue.
+ */
+@FunctionalInterface
+public interface EventSink {
+
+    void accept(AgentEvent event);
+
+    /**
+     * A sink that prints events to standard out (ERROR events to standard err).
+     */
+    static EventSink console() {
+        return event -> {
+            if (event.level() == EventLevel.ERROR) {
+                System.err.println(event);
+            } else {
+                System.out.println(event);
+            }
+        };
+    }
+}
@@ -0,0 +1,265 @@
+package com.javaagentai.aiagents.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Append-only journal of a crew run, stored as one JSON object per line in {@code <directory>/<runId>.jsonl}.
+ * Every completed step is appended together with the changes to the JSON-serializable part of the shared
+ * memory since the previous record: the entries stored or replaced, and the keys removed. When a journal
+ * with the same run id is opened again, e.g. after a JVM restart, the recorded steps are loaded and
+ * {@link AgentContext#checkpoint} returns their outputs instead of running them again. A torn last line
+ * left by a crash is truncated on open, so later appends start on a fresh line.
+ * <p>
+ * The shared memory is read while the record is appended, so the records replay to the shared memory as of
+ * the latest step, also when steps checkpoint in parallel. Values are compared by identity; a value changed
+ * in place rather than stored again is not journaled again.
+ */
+public class ExecutionJournal implements AutoCloseable {
+
+    private static final Pattern VALID_RUN_ID = Pattern.compile("[A-Za-z0-9._-]+");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * One journal line. {@code sharedMemory} holds the shared memory entries stored or replaced since the
+     * previous record, and {@code removedKeys} the ones removed or no longer serializable.
+     */
+    record JournalRecord(String step, String output, Map<String, Object> sharedMemory, List<String> removedKeys,
+                         long timestamp) {
+    }
+
+    private final String runId;
+    private final Path file;
+    private final boolean fsync;
+    private final Map<String, String> completedSteps = new ConcurrentHashMap<>();
+    private final Map<String, Object> mergedSharedMemory = new LinkedHashMap<>(); // Guarded by this
+    private final Map<String, Object> lastRecorded = new HashMap<>(); // Shared memory values as last journaled; guarded by this
+    private FileChannel channel;
+
+    private ExecutionJournal(String runId, Path file, boolean fsync) {
+        this.runId = runId;
+        this.file = file;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Opens the journal of the given run, creating it if it does not exist and loading it otherwise.
+     *
+     * @param directory Directory holding the journals; created if missing.
+     * @param runId     Identifies the run; letters, digits, '.', '_' and '-' only.
+     * @param fsync     Whether every append is forced to disk before returning.
+     */
+    public static ExecutionJournal open(Path directory, String runId, boolean fsync) throws IOException {
+        Objects.requireNonNull(directory, "Journal directory cannot be null.");
+        if (runId == null || !VALID_RUN_ID.matcher(runId).matches()) {
+            throw new IllegalArgumentException("Invalid run id: " + runId);
+        }
+        Files.createDirectories(directory);
+        ExecutionJournal journal = new ExecutionJournal(runId, journalFile(directory, runId), fsync);
+        journal.load();
+        journal.channel = FileChannel.open(journal.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return journal;
+    }
+
+    public static boolean exists(Path directory, String runId) {
+        return Files.exists(journalFile(directory, runId));
+    }
+
+    private static Path journalFile(Path directory, String runId) {
+        return directory.resolve(runId + ".jsonl");
+    }
+
+    private void load() throws IOException {
+        if (!Files.exists(file)) return;
+        truncateTornTail();
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+                try {
+                    JournalRecord record = MAPPER.readValue(line, JournalRecord.class);
+                    completedSteps.put(record.step(), record.output());
+                    if (record.sharedMemory() != null) {
+                        mergedSharedMemory.putAll(record.sharedMemory());
+                    }
+                    if (record.removedKeys() != null) {
+                        record.removedKeys().forEach(mergedSharedMemory::remove);
+                    }
+                } catch (JsonProcessingException e) {
+                    System.err.println("ExecutionJournal: Skipping unreadable line " + lineNumber + " of " + file + ". Error: " + e.getOriginalMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Cuts the file back to the end of its last complete line, dropping a record that was only partly written.
+     */
+    private void truncateTornTail() throws IOException {
+        try (FileChannel journalChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = journalChannel.size();
+            long end = lastLineEnd(journalChannel, size);
+            if (end < size) {
+                System.err.println("ExecutionJournal: Truncating " + (size - end) + " bytes of a partly written record at the end of " + file);
+                journalChannel.truncate(end);
+                if (fsync) {
+                    journalChannel.force(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The offset just past the last newline in the first {@code size} bytes, or 0 if there is none.
+     */
+    private static long lastLineEnd(FileChannel journalChannel, long size) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(8192);
+        for (long windowEnd = size; windowEnd > 0; windowEnd -= window.capacity()) {
+            int length = (int) Math.min(window.capacity(), windowEnd);
+            long start = windowEnd - length;
+            window.clear().limit(length);
+            while (window.hasRemaining() && journalChannel.read(window, start + window.position()) >= 0) {
+                // Reads until the window is full
+            }
+            for (int i = length - 1; i >= 0; i--) {
+                if (window.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return The recorded output of the step, if it completed in this or an earlier attempt of the run.
+     */
+    public Optional<String> getStepOutput(String step) {
+        return Optional.ofNullable(completedSteps.get(step));
+    }
+
+    public int getCompletedStepCount() {
+        return completedSteps.size();
+    }
+
+    /**
+     * @return The shared memory recorded with the steps so far, replayed in journal order and read back from JSON.
+     */
+    public synchronized Map<String, Object> getSharedMemory() {
+        return new LinkedHashMap<>(mergedSharedMemory);
+    }
+
+    /**
+     * Appends a completed step. Shared memory values that cannot be serialized to JSON are left out.
+     */
+    public void recordStep(String step, String output, Map<String, Object> sharedMemory) {
+        recordStep(step, output, () -> sharedMemory);
+    }
+
+    /**
+     * Appends a completed step with the shared memory changes since the previous record. The supplier is
+     * called while the journal is locked, so that records are in the order of the snapshots they describe.
+     * A step recorded after the journal was closed, e.g. by a straggler of a finished run, is ignored.
+     */
+    public void recordStep(String step, String output, Supplier<Map<String, Object>> sharedMemory) {
+        Objects.requireNonNull(step, "Step cannot be null.");
+        synchronized (this) {
+            if (channel == null) {
+                System.err.println("ExecutionJournal: Ignoring step " + step + " recorded after run " + runId + " was closed.");
+                return;
+            }
+            Map<String, Object> current = sharedMemory != null ? sharedMemory.get() : null;
+            Map<String, Object> snapshot = current != null ? current : Map.of();
+            Map<String, Object> changed = new LinkedHashMap<>();
+            List<String> removed = new ArrayList<>();
+            snapshot.forEach((key, value) -> {
+                if (lastRecorded.containsKey(key) && lastRecorded.get(key) == value) return;
+                try {
+                    changed.put(key, MAPPER.readValue(MAPPER.writeValueAsString(value), Object.class));
+                } catch (JsonProcessingException e) {
+                    System.err.println("ExecutionJournal: Not journaling shared memory entry '" + key + "' of run " + runId + ". Error: " + e.getOriginalMessage());
+                    if (mergedSharedMemory.containsKey(key)) removed.add(key); // Do not restore a stale value
+                }
+            });
+            for (String key : mergedSharedMemory.keySet()) {
+                if (!snapshot.containsKey(key)) removed.add(key);
+            }
+            String line;
+            try {
+                line = MAPPER.writeValueAsString(new JournalRecord(step, output, changed, removed, System.currentTimeMillis())) + "\n";
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (fsync) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not append to journal " + file, e);
+            }
+            mergedSharedMemory.putAll(changed);
+            removed.forEach(mergedSharedMemory::remove);
+            lastRecorded.clear();
+            lastRecorded.putAll(snapshot);
+        }
+        completedSteps.put(step, output);
+    }
+
+    /**
+     * Closes the journal and deletes its file, e.g. once the run has finished and will not be resumed.
+     */
+    public void delete() {
+        close();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("ExecutionJournal: Could not delete " + file + ". Error: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("ExecutionJournal: Could not close " + file + ". Error: " + e.getMessage());
+        }
+        channel = null;
+    }
+}
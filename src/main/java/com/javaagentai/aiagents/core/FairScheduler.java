@@ -0,0 +1,324 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.config.Config;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Admits LLM and tool calls from many crews and tenants onto a shared, limited number of concurrent calls.
+ * When a slot frees up, the next call is chosen by:
+ * <ol>
+ *     <li>priority - a higher-priority call always goes first, so interactive work never waits behind batch jobs;</li>
+ *     <li>weighted fair queuing between tenants - each call gets a virtual finish time of
+ *     {@code max(virtualTime, tenant's last finish) + cost / weight}, and the earliest finish goes first, so
+ *     tenants share capacity in proportion to their weights however many calls each has queued;</li>
+ *     <li>submission order within a tenant.</li>
+ * </ol>
+ * A tenant at its concurrent-call quota or out of its per-minute token budget is skipped until it is
+ * back within limits. Token costs are estimated from prompt and response length. Nothing blocks: calls
+ * wait as queued suppliers, and cancelling the returned future withdraws or cancels the call.
+ */
+public class FairScheduler implements AutoCloseable {
+
+    public static final String DEFAULT_TENANT = "default";
+    private static final long TOKEN_WINDOW_MILLIS = 60_000;
+    // Start actions waiting to run on the current thread; see start(List)
+    private static final ThreadLocal<ArrayDeque<Runnable>> STARTING = new ThreadLocal<>();
+
+    /**
+     * Limits and weight of one tenant. Zero quotas mean unlimited.
+     */
+    public record TenantPolicy(int weight, int maxConcurrentCalls, long maxTokensPerMinute) {
+        public TenantPolicy {
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Tenant weight must be positive.");
+            }
+        }
+    }
+
+    /**
+     * Per-tenant counters.
+     */
+    public record TenantStats(String tenant, int queued, int running, long completed, long tokensThisWindow) {
+    }
+
+    private static final class Call<T> {
+        final TenantState tenant;
+        final int priority;
+        final long cost;
+        final long tokens;
+        final long sequence;
+        final double finishTag;
+        final Supplier<CompletableFuture<T>> work;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        volatile CompletableFuture<T> started;
+
+        Call(TenantState tenant, int priority, long cost, long tokens, long sequence, double finishTag, Supplier<CompletableFuture<T>> work) {
+            this.tenant = tenant;
+            this.priority = priority;
+            this.cost = cost;
+            this.tokens = tokens;
+            this.sequence = sequence;
+            this.finishTag = finishTag;
+            this.work = work;
+        }
+    }
+
+    private static final class TenantState {
+        final String name;
+        TenantPolicy policy;
+        final PriorityQueue<Call<?>> queue = new PriorityQueue<>(Comparator.comparingInt((Call<?> c) -> -c.priority)
+                .thenComparingLong(c -> c.sequence));
+        double lastFinishTag;
+        int running;
+        long completed;
+        long windowStartMillis;
+        long windowTokens;
+
+        TenantState(String name, TenantPolicy policy) {
+            this.name = name;
+            this.policy = policy;
+        }
+
+        long tokensInWindow(long now) {
+            if (now - windowStartMillis >= TOKEN_WINDOW_MILLIS) {
+                windowStartMillis = now;
+                windowTokens = 0;
+            }
+            return windowTokens;
+        }
+    }
+
+    private final int maxConcurrentCalls;
+    private final TenantPolicy defaultPolicy;
+    private final Map<String, TenantState> tenants = new HashMap<>();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "fair-scheduler-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private double virtualTime;
+    private long sequence;
+    private int running;
+    private boolean wakeupScheduled;
+
+    public FairScheduler() {
+        this(Config.getSchedulerMaxConcurrentCalls(), new TenantPolicy(1, Config.getSchedulerTenantMaxConcurrentCalls(),
+                Config.getSchedulerTenantTokensPerMinute()));
+    }
+
+    /**
+     * @param maxConcurrentCalls Calls running at the same time across all tenants.
+     * @param defaultPolicy      Policy of tenants without one of their own.
+     */
+    public FairScheduler(int maxConcurrentCalls, TenantPolicy defaultPolicy) {
+        if (maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("Max concurrent calls must be positive.");
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.defaultPolicy = Objects.requireNonNull(defaultPolicy, "Default policy cannot be null.");
+    }
+
+    public void setTenantPolicy(String tenant, TenantPolicy policy) {
+        Objects.requireNonNull(policy, "Policy cannot be null.");
+        List<Runnable> toStart;
+        synchronized (this) {
+            tenantState(tenant).policy = policy;
+            toStart = dispatch(); // A raised quota may admit queued calls
+        }
+        start(toStart);
+    }
+
+    /**
+     * Queues a call and starts it when the policy allows.
+     *
+     * @param tenant          Tenant the call is accounted to; null means {@link #DEFAULT_TENANT}.
+     * @param priority        Higher runs first.
+     * @param estimatedTokens Estimated cost of the call; used for fairness and charged against the token budget.
+     * @return The call's result. Cancelling it removes a queued call or cancels a running one.
+     */
+    public <T> CompletableFuture<T> submit(String tenant, int priority, long estimatedTokens, Supplier<CompletableFuture<T>> work) {
+        Objects.requireNonNull(work, "Work cannot be null.");
+        Call<T> call;
+        synchronized (this) {
+            TenantState state = tenantState(tenant);
+            long cost = Math.max(1, estimatedTokens); // Even a call without tokens, e.g. a tool call, takes a turn
+            double start = Math.max(virtualTime, state.lastFinishTag);
+            double finishTag = start + (double) cost / state.policy.weight();
+            state.lastFinishTag = finishTag;
+            call = new Call<>(state, priority, cost, Math.max(0, estimatedTokens), sequence++, finishTag, work);
+            state.queue.add(call);
+        }
+        Call<T> submitted = call;
+        call.result.whenComplete((value, error) -> {
+            if (submitted.result.isCancelled()) {
+                CompletableFuture<T> started = submitted.started;
+                if (started != null) {
+                    started.cancel(true);
+                } else {
+                    synchronized (this) {
+                        submitted.tenant.queue.remove(submitted);
+                    }
+                }
+            }
+        });
+        List<Runnable> toStart;
+        synchronized (this) {
+            toStart = dispatch();
+        }
+        start(toStart);
+        return call.result;
+    }
+
+    /**
+     * Charges tokens that were only known after a call finished, e.g. the response length.
+     */
+    public synchronized void chargeTokens(String tenant, long tokens) {
+        TenantState state = tenantState(tenant);
+        state.tokensInWindow(System.currentTimeMillis());
+        state.windowTokens += tokens;
+    }
+
+    public synchronized List<TenantStats> getStats() {
+        long now = System.currentTimeMillis();
+        List<TenantStats> stats = new ArrayList<>();
+        for (TenantState state : tenants.values()) {
+            stats.add(new TenantStats(state.name, state.queue.size(), state.running, state.completed, state.tokensInWindow(now)));
+        }
+        return stats;
+    }
+
+    public synchronized int getRunningCount() {
+        return running;
+    }
+
+    private TenantState tenantState(String tenant) {
+        String name = tenant != null ? tenant : DEFAULT_TENANT;
+        return tenants.computeIfAbsent(name, n -> new TenantState(n, defaultPolicy));
+    }
+
+    /**
+     * Picks calls while slots are free. Returns them as actions to run outside the lock.
+     */
+    private List<Runnable> dispatch() {
+        List<Runnable> toStart = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        boolean throttledByTokens = false;
+        while (running < maxConcurrentCalls) {
+            Call<?> best = null;
+            for (TenantState state : tenants.values()) {
+                Call<?> head = state.queue.peek();
+                while (head != null && head.result.isDone()) { // Cancelled while queued
+                    state.queue.poll();
+                    head = state.queue.peek();
+                }
+                if (head == null) continue;
+                TenantPolicy policy = state.policy;
+                if (policy.maxConcurrentCalls() > 0 && state.running >= policy.maxConcurrentCalls()) continue;
+                long used = policy.maxTokensPerMinute() > 0 ? state.tokensInWindow(now) : 0;
+                // A call that alone exceeds the budget still runs in a fresh window, otherwise it would wait forever.
+                if (used > 0 && used + head.tokens > policy.maxTokensPerMinute()) {
+                    throttledByTokens = true;
+                    continue;
+                }
+                if (best == null || head.priority > best.priority
+                        || (head.priority == best.priority && head.finishTag < best.finishTag)) {
+                    best = head;
+                }
+            }
+            if (best == null) break;
+            best.tenant.queue.poll();
+            best.tenant.running++;
+            best.tenant.windowTokens += best.tokens;
+            running++;
+            virtualTime = Math.max(virtualTime, best.finishTag - (double) best.cost / best.tenant.policy.weight());
+            toStart.add(startAction(best));
+        }
+        if (throttledByTokens && !wakeupScheduled) {
+            // Token budgets refill when their window rolls over; nothing else would trigger a dispatch then.
+            wakeupScheduled = true;
+            timer.schedule(() -> {
+                List<Runnable> resumed;
+                synchronized (this) {
+                    wakeupScheduled = false;
+                    resumed = dispatch();
+                }
+                start(resumed);
+            }, 1, TimeUnit.SECONDS);
+        }
+        return toStart;
+    }
+
+    /**
+     * Runs start actions outside the lock. A call whose work completes synchronously dispatches its successors
+     * from its completion callback; those are handed to the loop already running on this thread instead of
+     * being started from inside the callback, so a long run of such calls does not deepen the stack.
+     */
+    private static void start(List<Runnable> actions) {
+        if (actions.isEmpty()) return;
+        ArrayDeque<Runnable> pending = STARTING.get();
+        if (pending != null) {
+            pending.addAll(actions);
+            return;
+        }
+        pending = new ArrayDeque<>(actions);
+        STARTING.set(pending);
+        try {
+            Runnable action;
+            while ((action = pending.poll()) != null) {
+                action.run();
+            }
+        } finally {
+            STARTING.remove();
+        }
+    }
+
+    private <T> Runnable startAction(Call<T> call) {
+        return () -> {
+            CompletableFuture<T> started;
+            try {
+                started = call.work.get();
+            } catch (RuntimeException e) {
+                started = CompletableFuture.failedFuture(e);
+            }
+            call.started = started;
+            if (call.result.isCancelled()) {
+                started.cancel(true);
+            }
+            started.whenComplete((value, error) -> {
+                List<Runnable> next;
+                synchronized (this) {
+                    running--;
+                    call.tenant.running--;
+                    call.tenant.completed++;
+                    next = dispatch();
+                }
+                start(next);
+                if (error != null) {
+                    call.result.completeExceptionally(error);
+                } else {
+                    call.result.complete(value);
+                }
+            });
+        };
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,767 @@
+package com.javaagentai.aiagents.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javaagentai.aiagents.config.Config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Durable, append-only queue of tasks on local disk, for absorbing bursts of work without holding it on heap.
+ * Tasks are appended to segment files ({@code segment-<first offset>.log}) as length-prefixed, checksummed
+ * JSON records, each identified by a sequential offset. Acknowledged offsets go to {@code acks.log}; a segment
+ * is deleted once every task in it is acknowledged. Each segment has a sparse offset index
+ * ({@code segment-<first offset>.idx}) so that opening the queue does not rescan segments from the start.
+ * <p>
+ * Delivery is at-least-once: a delivered task that is not acknowledged within the visibility timeout, is
+ * negatively acknowledged, or was in flight when the process stopped is delivered again. After a restart,
+ * consumption resumes at the oldest unacknowledged task. A torn record at the end of the last segment,
+ * left by a crash during an append, is truncated on open.
+ * <p>
+ * Only the description, input, expected output, tenant and priority of a task are stored; the input must be
+ * JSON-serializable. Callbacks, dependencies and cancellation tokens are process-local and are not kept.
+ */
+public class FileTaskQueue implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String ACK_FILE = "acks.log";
+    private static final int RECORD_HEADER_BYTES = 4 + 4 + 8; // payload length, CRC32 of the payload, offset
+    private static final int ACK_COMPACTION_THRESHOLD = 4096;
+    private static final int INDEX_ENTRY_BYTES = 8 + 8; // offset, position of its record
+    private static final long INDEX_INTERVAL_BYTES = 4096; // Segment bytes between index entries
+
+    /**
+     * The stored form of a task.
+     */
+    record QueuedTask(String description, Map<String, Object> input, String expectedOutput, String tenant,
+                      int priority, long enqueuedAt) {
+    }
+
+    /**
+     * A task handed out by {@link #poll()}; acknowledge it by offset. {@code attempt} starts at 1 and counts
+     * deliveries since the queue was opened.
+     */
+    public record Delivery(long offset, Task task, int attempt) {
+    }
+
+    private static final class Segment {
+        final long baseOffset;
+        final Path file;
+        final FileChannel channel;
+        final Path indexFile;
+        final FileChannel indexChannel;
+        final TreeMap<Long, Long> index = new TreeMap<>(); // Offset -> position of its record; a hint, checked on use
+        final List<long[]> unflushedIndex = new ArrayList<>();
+        long size;
+        long lastIndexedPosition;
+
+        Segment(long baseOffset, Path file, FileChannel channel, long size, Path indexFile, FileChannel indexChannel) {
+            this.baseOffset = baseOffset;
+            this.file = file;
+            this.channel = channel;
+            this.size = size;
+            this.indexFile = indexFile;
+            this.indexChannel = indexChannel;
+        }
+
+        void close() throws IOException {
+            channel.close();
+            indexChannel.close();
+        }
+    }
+
+    private record StoredRecord(long offset, byte[] payload, long nextPosition) {
+    }
+
+    private static final class InFlight {
+        final Segment segment;
+        final long position;
+        int attempt = 1;
+        long deadlineMillis;
+        boolean awaitingRedelivery;
+        long retryAtMillis; // Not redelivered before this time
+
+        InFlight(Segment segment, long position, long deadlineMillis) {
+            this.segment = segment;
+            this.position = position;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final long visibilityTimeoutMillis;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final Map<Long, InFlight> inFlight = new HashMap<>();
+    private final ArrayDeque<Long> redeliveries = new ArrayDeque<>();
+    private final TreeSet<Long> ackedAbove = new TreeSet<>(); // Acknowledged offsets at or after ackedUpTo
+    private final List<Runnable> appendListeners = new CopyOnWriteArrayList<>();
+    private long ackedUpTo; // Every offset below this one is acknowledged
+    private long nextOffset;
+    private int ackRecords;
+    private FileChannel ackChannel;
+    private Segment readSegment;
+    private long readPosition;
+    private boolean closed;
+
+    private FileTaskQueue(Path directory, long segmentBytes, boolean fsync, long visibilityTimeoutMillis) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.visibilityTimeoutMillis = visibilityTimeoutMillis;
+    }
+
+    public static FileTaskQueue open(Path directory) throws IOException {
+        return open(directory, Config.getQueueSegmentBytes(), Config.isQueueFsync(),
+                Duration.ofMillis(Config.getQueueVisibilityTimeoutMillis()));
+    }
+
+    /**
+     * Opens the queue stored in the directory, creating it if it does not exist.
+     *
+     * @param segmentBytes      Size after which appends roll over to a new segment file.
+     * @param fsync             Whether appends and acknowledgements are forced to disk before returning.
+     * @param visibilityTimeout Time a polled task may stay unacknowledged before it is delivered again.
+     */
+    public static FileTaskQueue open(Path directory, long segmentBytes, boolean fsync, Duration visibilityTimeout) throws IOException {
+        Objects.requireNonNull(directory, "Queue directory cannot be null.");
+        if (segmentBytes <= RECORD_HEADER_BYTES || visibilityTimeout == null || visibilityTimeout.isNegative() || visibilityTimeout.isZero()) {
+            throw new IllegalArgumentException("Segment size and visibility timeout must be positive.");
+        }
+        Files.createDirectories(directory);
+        FileTaskQueue queue = new FileTaskQueue(directory, segmentBytes, fsync, visibilityTimeout.toMillis());
+        try {
+            queue.load();
+        } catch (IOException | RuntimeException e) {
+            queue.close();
+            throw e;
+        }
+        return queue;
+    }
+
+    private void load() throws IOException {
+        // Acknowledgements: an 8-byte base (all offsets below it are acknowledged) followed by 8-byte offsets.
+        Path ackFile = directory.resolve(ACK_FILE);
+        ackChannel = FileChannel.open(ackFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long ackSize = ackChannel.size();
+        if (ackSize < Long.BYTES) {
+            ackChannel.truncate(0);
+            ackChannel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, 0), 0);
+        } else {
+            ackSize -= (ackSize - Long.BYTES) % Long.BYTES; // Drop a torn last entry
+            ackChannel.truncate(ackSize);
+            ByteBuffer acks = ByteBuffer.allocate((int) ackSize);
+            readFully(ackChannel, acks, 0);
+            acks.flip();
+            ackedUpTo = acks.getLong();
+            while (acks.hasRemaining()) {
+                long offset = acks.getLong();
+                if (offset >= ackedUpTo) ackedAbove.add(offset);
+                ackRecords++;
+            }
+            advanceAckedUpTo();
+        }
+        ackChannel.position(ackChannel.size());
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                    && p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long baseOffset = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Path indexFile = indexFileOf(baseOffset);
+            Segment segment = new Segment(baseOffset, file, channel, channel.size(), indexFile,
+                    FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            segments.put(baseOffset, segment);
+            loadIndex(segment);
+        }
+        nextOffset = ackedUpTo;
+        if (!segments.isEmpty()) {
+            Segment last = segments.lastEntry().getValue();
+            nextOffset = Math.max(nextOffset, last.baseOffset);
+            // Only the records after the last indexed one need scanning to find the end of the log
+            Map.Entry<Long, Long> indexed = last.index.lastEntry();
+            long position = indexed != null ? indexedPosition(last, indexed.getKey()) : 0;
+            StoredRecord record;
+            while ((record = readRecord(last, position)) != null) {
+                nextOffset = record.offset() + 1;
+                position = record.nextPosition();
+            }
+            if (position < last.size) {
+                System.err.println("FileTaskQueue: Truncating torn record at " + last.file + ":" + position);
+                last.channel.truncate(position);
+                last.size = position;
+            }
+        }
+        deleteAcknowledgedSegments();
+        Map.Entry<Long, Segment> start = segments.floorEntry(ackedUpTo);
+        readSegment = start != null ? start.getValue() : (segments.isEmpty() ? null : segments.firstEntry().getValue());
+        readPosition = readSegment != null ? indexedPosition(readSegment, ackedUpTo) : 0;
+    }
+
+    private Path indexFileOf(long baseOffset) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, baseOffset, INDEX_SUFFIX));
+    }
+
+    /**
+     * Reads the segment's index, keeping the entries that point inside the segment in increasing order. Entries
+     * after the first bad one, such as a torn last entry or one written before its records reached the disk,
+     * are cut off; the index is rebuilt from there as records are appended.
+     */
+    private void loadIndex(Segment segment) throws IOException {
+        long indexSize = segment.indexChannel.size() - segment.indexChannel.size() % INDEX_ENTRY_BYTES;
+        ByteBuffer entries = ByteBuffer.allocate((int) indexSize);
+        readFully(segment.indexChannel, entries, 0);
+        entries.flip();
+        long previousOffset = segment.baseOffset;
+        long previousPosition = 0;
+        while (entries.hasRemaining()) {
+            long offset = entries.getLong();
+            long position = entries.getLong();
+            if (offset <= previousOffset || position <= previousPosition || position >= segment.size) break;
+            segment.index.put(offset, position);
+            previousOffset = offset;
+            previousPosition = position;
+        }
+        segment.lastIndexedPosition = previousPosition;
+        segment.indexChannel.truncate((long) segment.index.size() * INDEX_ENTRY_BYTES);
+    }
+
+    /**
+     * @return Position of the last indexed record at or before the offset, or 0 if there is none. Entries that
+     * do not match the record they point to, e.g. one pointing at a truncated torn record, are dropped with
+     * everything after them.
+     */
+    private long indexedPosition(Segment segment, long offset) throws IOException {
+        Map.Entry<Long, Long> entry;
+        while ((entry = segment.index.floorEntry(offset)) != null) {
+            StoredRecord record = readRecord(segment, entry.getValue());
+            if (record != null && record.offset() == entry.getKey()) return entry.getValue();
+            segment.index.tailMap(entry.getKey(), true).clear();
+            segment.lastIndexedPosition = segment.index.isEmpty() ? 0 : segment.index.lastEntry().getValue();
+            segment.indexChannel.truncate((long) segment.index.size() * INDEX_ENTRY_BYTES);
+        }
+        return 0;
+    }
+
+    /**
+     * Appends a task durably.
+     *
+     * @return The task's offset.
+     * @throws IllegalArgumentException if the task input cannot be serialized to JSON.
+     */
+    public long append(Task task) {
+        return appendAll(List.of(task));
+    }
+
+    /**
+     * Appends several tasks with a single write and, if enabled, a single fsync.
+     *
+     * @return The offset of the first task.
+     */
+    public long appendAll(Collection<Task> tasks) {
+        Objects.requireNonNull(tasks, "Tasks cannot be null.");
+        long enqueuedAt = System.currentTimeMillis();
+        List<byte[]> payloads = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            try {
+                payloads.add(MAPPER.writeValueAsBytes(new QueuedTask(task.getDescription(), task.getInput(),
+                        task.getExpectedOutput(), task.getTenant(), task.getPriority(), enqueuedAt)));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Task " + task.getId() + " cannot be serialized: " + e.getOriginalMessage(), e);
+            }
+        }
+        long firstOffset;
+        synchronized (this) {
+            ensureOpen();
+            firstOffset = nextOffset;
+            try {
+                Segment segment = segments.isEmpty() ? null : segments.lastEntry().getValue();
+                ByteBuffer batch = null;
+                for (byte[] payload : payloads) {
+                    int recordBytes = RECORD_HEADER_BYTES + payload.length;
+                    long batched = batch != null ? batch.position() : 0;
+                    if (segment == null || (segment.size + batched > 0 && segment.size + batched + recordBytes > segmentBytes)) {
+                        flush(segment, batch);
+                        batch = null;
+                        segment = newSegment(nextOffset);
+                    }
+                    if (batch == null || batch.remaining() < recordBytes) {
+                        flush(segment, batch);
+                        batch = ByteBuffer.allocate(Math.max(recordBytes, 64 * 1024));
+                    }
+                    long position = segment.size + batch.position();
+                    if (position >= segment.lastIndexedPosition + INDEX_INTERVAL_BYTES) {
+                        segment.unflushedIndex.add(new long[]{nextOffset, position});
+                        segment.lastIndexedPosition = position;
+                    }
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    batch.putInt(payload.length).putInt((int) crc.getValue()).putLong(nextOffset++).put(payload);
+                }
+                flush(segment, batch);
+                if (fsync && segment != null) {
+                    segment.channel.force(false);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not append to queue " + directory, e);
+            }
+            if (readSegment == null) {
+                readSegment = segments.firstEntry().getValue();
+                readPosition = 0;
+            }
+        }
+        appendListeners.forEach(Runnable::run);
+        return firstOffset;
+    }
+
+    private void flush(Segment segment, ByteBuffer batch) throws IOException {
+        if (segment == null || batch == null || batch.position() == 0) return;
+        batch.flip();
+        while (batch.hasRemaining()) {
+            segment.size += segment.channel.write(batch, segment.size);
+        }
+        if (fsync) {
+            segment.channel.force(false);
+        }
+        // The index is written after its records and never forced: a lost or stale entry only costs a longer scan
+        if (!segment.unflushedIndex.isEmpty()) {
+            ByteBuffer entries = ByteBuffer.allocate(segment.unflushedIndex.size() * INDEX_ENTRY_BYTES);
+            for (long[] entry : segment.unflushedIndex) {
+                entries.putLong(entry[0]).putLong(entry[1]);
+                segment.index.put(entry[0], entry[1]);
+            }
+            segment.unflushedIndex.clear();
+            entries.flip();
+            long indexPosition = segment.indexChannel.size();
+            while (entries.hasRemaining()) {
+                indexPosition += segment.indexChannel.write(entries, indexPosition);
+            }
+        }
+    }
+
+    private Segment newSegment(long baseOffset) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, baseOffset, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Path indexFile = indexFileOf(baseOffset);
+        Segment segment = new Segment(baseOffset, file, channel, 0, indexFile, FileChannel.open(indexFile,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        segments.put(baseOffset, segment);
+        return segment;
+    }
+
+    /**
+     * Hands out the next task that is neither acknowledged nor in flight: first tasks due for redelivery,
+     * then new tasks in offset order.
+     */
+    public Optional<Delivery> poll() {
+        return nextDelivery(visibilityTimeoutMillis);
+    }
+
+    private synchronized Optional<Delivery> nextDelivery(long visibilityMillis) {
+        ensureOpen();
+        long now = System.currentTimeMillis();
+        long deadline = visibilityMillis == Long.MAX_VALUE ? Long.MAX_VALUE : now + visibilityMillis;
+        inFlight.forEach((offset, delivery) -> {
+            if (delivery.deadlineMillis <= now && !delivery.awaitingRedelivery) {
+                delivery.awaitingRedelivery = true;
+                delivery.retryAtMillis = now;
+                redeliveries.add(offset);
+            }
+        });
+        try {
+            Iterator<Long> due = redeliveries.iterator();
+            while (due.hasNext()) {
+                long offset = due.next();
+                InFlight delivery = inFlight.get(offset);
+                if (delivery == null) { // Acknowledged meanwhile
+                    due.remove();
+                    continue;
+                }
+                if (delivery.retryAtMillis > now) continue; // Still backing off
+                due.remove();
+                StoredRecord record = readRecord(delivery.segment, delivery.position);
+                delivery.attempt++;
+                delivery.deadlineMillis = deadline;
+                delivery.awaitingRedelivery = false;
+                return Optional.of(new Delivery(offset, toTask(record), delivery.attempt));
+            }
+            while (readSegment != null) {
+                if (readPosition >= readSegment.size) {
+                    Map.Entry<Long, Segment> next = segments.higherEntry(readSegment.baseOffset);
+                    if (next == null) return Optional.empty();
+                    readSegment = next.getValue();
+                    readPosition = 0;
+                    continue;
+                }
+                long position = readPosition;
+                StoredRecord record = readRecord(readSegment, position);
+                if (record == null) {
+                    throw new IOException("Corrupt record at " + readSegment.file + ":" + position);
+                }
+                readPosition = record.nextPosition();
+                if (isAcknowledged(record.offset()) || inFlight.containsKey(record.offset())) continue;
+                inFlight.put(record.offset(), new InFlight(readSegment, position, deadline));
+                return Optional.of(new Delivery(record.offset(), toTask(record), 1));
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read from queue " + directory, e);
+        }
+    }
+
+    /**
+     * Marks a delivered task as done; it will not be delivered again.
+     *
+     * @return false if the offset was already acknowledged or does not exist.
+     */
+    public synchronized boolean ack(long offset) {
+        ensureOpen();
+        if (offset < 0 || offset >= nextOffset || isAcknowledged(offset)) {
+            return false;
+        }
+        try {
+            ByteBuffer entry = ByteBuffer.allocate(Long.BYTES).putLong(0, offset);
+            while (entry.hasRemaining()) {
+                ackChannel.write(entry);
+            }
+            if (fsync) {
+                ackChannel.force(false);
+            }
+            inFlight.remove(offset);
+            ackedAbove.add(offset);
+            ackRecords++;
+            advanceAckedUpTo();
+            if (ackRecords > ACK_COMPACTION_THRESHOLD && ackRecords > 2 * ackedAbove.size()) {
+                compactAcks();
+            }
+            deleteAcknowledgedSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not acknowledge offset " + offset + " in queue " + directory, e);
+        }
+        return true;
+    }
+
+    /**
+     * Makes a delivered task available again right away, e.g. after its processing failed.
+     */
+    public void nack(long offset) {
+        nack(offset, Duration.ZERO);
+    }
+
+    /**
+     * Makes a delivered task available again once the delay has passed; until then {@link #poll()} skips it.
+     */
+    public synchronized void nack(long offset, Duration delay) {
+        ensureOpen();
+        InFlight delivery = inFlight.get(offset);
+        if (delivery != null && !delivery.awaitingRedelivery) {
+            delivery.awaitingRedelivery = true;
+            delivery.retryAtMillis = System.currentTimeMillis() + delay.toMillis();
+            redeliveries.add(offset);
+        }
+    }
+
+    /**
+     * Consumes the queue in the background: tasks are passed to the handler, at most {@code maxInFlight}
+     * at a time, and acknowledged once the handler's future completes. A task whose future fails, or whose
+     * output starts with "Error" (the way crews report failed runs), is delivered again after the retry
+     * delay, up to the configured maximum attempts, then dropped with an error log.
+     * <p>
+     * Typical handlers are {@code crew::execute} and {@code crewService::submit}; with a {@link CrewService},
+     * keep {@code maxInFlight} within its capacity so that tasks are not rejected.
+     *
+     * @return Closing it stops consuming; tasks already handed to the handler keep running.
+     */
+    public AutoCloseable consume(Function<Task, CompletableFuture<String>> handler, int maxInFlight) {
+        return consume(handler, maxInFlight, Config.getQueueMaxAttempts(), Duration.ofMillis(Config.getQueueRetryDelayMillis()));
+    }
+
+    public AutoCloseable consume(Function<Task, CompletableFuture<String>> handler, int maxInFlight, int maxAttempts, Duration retryDelay) {
+        return consume(handler, maxInFlight, maxAttempts, retryDelay, output -> output == null || !output.startsWith("Error"));
+    }
+
+    /**
+     * @param succeeded Tells a successful output from a failed one; failed outputs are retried like failed futures.
+     */
+    public AutoCloseable consume(Function<Task, CompletableFuture<String>> handler, int maxInFlight, int maxAttempts, Duration retryDelay,
+                                 Predicate<String> succeeded) {
+        Objects.requireNonNull(handler, "Handler cannot be null.");
+        Objects.requireNonNull(succeeded, "Success predicate cannot be null.");
+        if (maxInFlight <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("Max in-flight tasks and max attempts must be positive.");
+        }
+        QueueConsumer consumer = new QueueConsumer(handler, succeeded, maxInFlight, maxAttempts, retryDelay.toMillis());
+        appendListeners.add(consumer.listener);
+        consumer.start();
+        return consumer;
+    }
+
+    private final class QueueConsumer implements AutoCloseable {
+        private final Function<Task, CompletableFuture<String>> handler;
+        private final Predicate<String> succeeded;
+        private final int maxInFlight;
+        private final int maxAttempts;
+        private final long retryDelayMillis;
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger pumpRequests = new AtomicInteger();
+        private final Runnable listener = this::pump;
+        private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "file-task-queue-consumer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private volatile boolean stopped;
+
+        QueueConsumer(Function<Task, CompletableFuture<String>> handler, Predicate<String> succeeded, int maxInFlight,
+                      int maxAttempts, long retryDelayMillis) {
+            this.handler = handler;
+            this.succeeded = succeeded;
+            this.maxInFlight = maxInFlight;
+            this.maxAttempts = maxAttempts;
+            this.retryDelayMillis = retryDelayMillis;
+        }
+
+        void start() {
+            // The timer picks up retries once their delay has passed; new appends and completions pump right away.
+            timer.scheduleWithFixedDelay(this::pump, 0, Math.max(1, retryDelayMillis), TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Only one thread fills the in-flight slots at a time. A pump requested meanwhile, including one from a
+         * handler whose future completed synchronously inside {@link #dispatch}, makes that thread go round
+         * again instead of recursing, so the stack stays flat however many tasks complete inline.
+         */
+        private void pump() {
+            if (pumpRequests.getAndIncrement() > 0) return;
+            int requests = 1;
+            do {
+                fill();
+                requests = pumpRequests.addAndGet(-requests);
+            } while (requests > 0);
+        }
+
+        private void fill() {
+            while (!stopped) {
+                if (running.incrementAndGet() > maxInFlight) {
+                    running.decrementAndGet();
+                    return;
+                }
+                Optional<Delivery> next;
+                try {
+                    // Handler tasks may legitimately run long, so they are not subject to the visibility timeout.
+                    next = nextDelivery(Long.MAX_VALUE);
+                } catch (RuntimeException e) {
+                    running.decrementAndGet();
+                    if (!stopped) {
+                        System.err.println("FileTaskQueue: Consumer stopped polling. Error: " + e.getMessage());
+                    }
+                    return;
+                }
+                if (next.isEmpty()) {
+                    running.decrementAndGet();
+                    return;
+                }
+                dispatch(next.get());
+            }
+        }
+
+        private void dispatch(Delivery delivery) {
+            CompletableFuture<String> result;
+            try {
+                result = handler.apply(delivery.task());
+            } catch (RuntimeException e) {
+                result = CompletableFuture.failedFuture(e);
+            }
+            result.whenComplete((output, error) -> {
+                running.decrementAndGet();
+                try {
+                    if (error == null && succeeded.test(output)) {
+                        ack(delivery.offset());
+                        pump();
+                    } else if (delivery.attempt() >= maxAttempts) {
+                        System.err.println("FileTaskQueue: Dropping task at offset " + delivery.offset() + " after "
+                                + delivery.attempt() + " attempts. Error: " + (error != null ? error.getMessage() : output));
+                        ack(delivery.offset());
+                        pump();
+                    } else {
+                        nack(delivery.offset(), Duration.ofMillis(retryDelayMillis)); // Picked up again by the timer
+                    }
+                } catch (IllegalStateException closedQueue) {
+                    // Queue closed while the task ran; it is delivered again after the next open.
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            stopped = true;
+            appendListeners.remove(listener);
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * @return Number of tasks not yet acknowledged, including the ones in flight.
+     */
+    public synchronized long getPendingCount() {
+        return nextOffset - ackedUpTo - ackedAbove.size();
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    private boolean isAcknowledged(long offset) {
+        return offset < ackedUpTo || ackedAbove.contains(offset);
+    }
+
+    private void advanceAckedUpTo() {
+        while (!ackedAbove.isEmpty() && ackedAbove.first() == ackedUpTo) {
+            ackedAbove.pollFirst();
+            ackedUpTo++;
+        }
+        ackedAbove.headSet(ackedUpTo).clear();
+    }
+
+    /**
+     * Rewrites the acknowledgement log as the current base plus the acknowledged offsets above it.
+     */
+    private void compactAcks() throws IOException {
+        Path ackFile = directory.resolve(ACK_FILE);
+        Path temp = directory.resolve(ACK_FILE + ".tmp");
+        ByteBuffer content = ByteBuffer.allocate(Long.BYTES * (1 + ackedAbove.size()));
+        content.putLong(ackedUpTo);
+        ackedAbove.forEach(content::putLong);
+        content.flip();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (content.hasRemaining()) {
+                out.write(content);
+            }
+            out.force(true);
+        }
+        ackChannel.close();
+        Files.move(temp, ackFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        ackChannel = FileChannel.open(ackFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ackChannel.position(ackChannel.size());
+        ackRecords = ackedAbove.size();
+    }
+
+    /**
+     * Deletes segments whose tasks are all acknowledged. The last segment is kept for appends.
+     */
+    private void deleteAcknowledgedSegments() throws IOException {
+        while (segments.size() > 1) {
+            Segment first = segments.firstEntry().getValue();
+            long nextBase = segments.higherKey(first.baseOffset);
+            if (nextBase > ackedUpTo || first == readSegment) return;
+            segments.remove(first.baseOffset);
+            first.close();
+            Files.deleteIfExists(first.file);
+            Files.deleteIfExists(first.indexFile);
+        }
+    }
+
+    /**
+     * @return The record at the position, or null if it is incomplete or fails its checksum.
+     */
+    private StoredRecord readRecord(Segment segment, long position) throws IOException {
+        if (position + RECORD_HEADER_BYTES > segment.size) return null;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        readFully(segment.channel, header, position);
+        header.flip();
+        int length = header.getInt();
+        int checksum = header.getInt();
+        long offset = header.getLong();
+        if (length < 0 || position + RECORD_HEADER_BYTES + length > segment.size) return null;
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(segment.channel, payload, position + RECORD_HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        if ((int) crc.getValue() != checksum) return null;
+        return new StoredRecord(offset, payload.array(), position + RECORD_HEADER_BYTES + length);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file.");
+            }
+        }
+    }
+
+    private static Task toTask(StoredRecord record) throws IOException {
+        QueuedTask stored = MAPPER.readValue(record.payload(), QueuedTask.class);
+        return Task.builder()
+                .description(stored.description())
+                .input(stored.input())
+                .expectedOutput(stored.expectedOutput())
+                .tenant(stored.tenant())
+                .priority(stored.priority())
+                .status(TaskStatus.PENDING)
+                .build();
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Queue " + directory + " is closed.");
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        appendListeners.clear();
+        try {
+            if (ackChannel != null) ackChannel.close();
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        } catch (IOException e) {
+            System.err.println("FileTaskQueue: Could not close " + directory + ". Error: " + e.getMessage());
+        }
+    }
+}
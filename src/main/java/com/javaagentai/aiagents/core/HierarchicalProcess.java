@@ -2,30 +2,59 @@ package com.javaagentai.aiagents.core;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javaagentai.aiagents.config.Config;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 
 /**
- * This enum represents the different strategies for processing the input data.
- * ProcessStrategy
+ * HierarchicalProcess lets a manager agent (the first agent) plan sub-tasks for the worker agents and
+ * then synthesize their results. The plan is JSON of the form
+ * {@code {"sub_tasks": [{"id": "...", "task_description": "...", "assigned_agent_name": "...",
+ * "expected_output": "...", "depends_on": ["..."]}], "manager_notes": "..."}}, where {@code id} and
+ * {@code depends_on} are optional. Sub-tasks run as soon as their dependencies are done, up to a
+ * configurable number at a time; a sub-task receives its dependencies' results under
+ * {@link DagProcess#DEPENDENCY_OUTPUTS_KEY}. A sub-task whose dependency failed is skipped and reported to
+ * the manager as an error instead of running on incomplete input. Results are presented to the manager in
+ * plan order.
  */
 public class HierarchicalProcess implements Process {
 
     // Helper Records for parsing manager's plan
     // Ensure these are public or accessible if used outside, or keep them private if only internal
-    record SubTaskDetail(String task_description, String assigned_agent_name, String expected_output) {
+    // id and depends_on are optional; sub-tasks without dependencies run in parallel
+    record SubTaskDetail(String id, String task_description, String assigned_agent_name, String expected_output,
+                         List<String> depends_on) {
     }
 
     record ManagerPlan(List<SubTaskDetail> sub_tasks, String manager_notes) {
     }
 
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int maxParallelism;
+
+    public HierarchicalProcess() {
+        this(Config.getHierarchicalMaxParallelism());
+    }
+
+    /**
+     * @param maxParallelism Maximum number of sub-tasks executed at the same time.
+     */
+    public HierarchicalProcess(int maxParallelism) {
+        if (maxParallelism <= 0) {
+            throw new IllegalArgumentException("Max parallelism must be positive.");
+        }
+        this.maxParallelism = maxParallelism;
+    }
 
     @Override
     public CompletableFuture<String> execute(Task initialTask, List<Agent> agents, AgentContext context) {
@@ -47,7 +76,7 @@ public class HierarchicalProcess implements Process {
             context.log("HIERARCHICAL_PROCESS: Only one agent (manager) available. Delegating task directly.");
             // Manager processes the task directly without delegation.
             // The BasicAgent's prompt should ideally detect it has no workers and just solve the task.
-            return managerAgent.performTask(initialTask, context);
+            return context.runAgent(managerAgent, initialTask);
         }
 
         if (workerAgents.isEmpty() && agents.size() > 1) {
@@ -55,7 +84,7 @@ public class HierarchicalProcess implements Process {
             // This case implies the setup is for hierarchical but workers are missing.
             // Manager might still be prompted to break down, but won't be able to delegate.
             // For simplicity, let manager solve it.
-            return managerAgent.performTask(initialTask, context);
+            return context.runAgent(managerAgent, initialTask);
         }
 
 
@@ -63,7 +92,8 @@ public class HierarchicalProcess implements Process {
         context.log("HIERARCHICAL_PROCESS: Asking manager " + managerAgent.getName() + " to plan sub-tasks.");
         // The initialTask for the manager should guide it to break down the task.
         // Its prompt (handled by BasicAgent) needs to be tailored for this.
-        CompletableFuture<String> managerPlanJsonFuture = managerAgent.performTask(initialTask, context);
+        // Plan, sub-task results and synthesis are checkpoints, so a resumed run only repeats unfinished work.
+        CompletableFuture<String> managerPlanJsonFuture = context.checkpoint("hierarchical:plan", initialTask, () -> context.runAgent(managerAgent, initialTask));
 
         return managerPlanJsonFuture.thenComposeAsync(planJson -> {
             context.log("HIERARCHICAL_PROCESS: Manager " + managerAgent.getName() + " produced plan: " + planJson);
@@ -86,51 +116,97 @@ public class HierarchicalProcess implements Process {
                 return CompletableFuture.completedFuture("Error: Failed to parse manager's plan. Manager's output: " + planJson);
             }
 
-            // Step 2: Sub-Task Execution (Sequential for now)
-            Map<String, String> subTaskResults = new HashMap<>();
-            CompletableFuture<Void> allSubTasksFuture = CompletableFuture.completedFuture(null);
-
-            for (SubTaskDetail subTaskDetail : managerPlan.sub_tasks()) {
-                allSubTasksFuture = allSubTasksFuture.thenComposeAsync(v -> {
-                    Optional<Agent> assignedAgentOpt = workerAgents.stream()
-                            .filter(agent -> agent.getName().equals(subTaskDetail.assigned_agent_name()))
-                            .findFirst();
+            // Step 2: Sub-Task Execution. Independent sub-tasks run in parallel; depends_on edges are honoured.
+            List<SubTaskDetail> subTasks = managerPlan.sub_tasks();
+            List<List<Integer>> dependencies;
+            try {
+                dependencies = resolveDependencies(subTasks, context);
+            } catch (IllegalArgumentException e) {
+                context.log("HIERARCHICAL_PROCESS: Invalid plan. " + e.getMessage());
+                initialTask.setStatus(TaskStatus.FAILED);
+                if (initialTask.getCallback() != null) {
+                    initialTask.getCallback().accept(new TaskResult(TaskStatus.FAILED, null, "Invalid manager plan: " + e.getMessage()));
+                }
+                return CompletableFuture.completedFuture("Error: Invalid manager plan. " + e.getMessage());
+            }
 
-                    if (assignedAgentOpt.isEmpty()) {
-                        context.log("HIERARCHICAL_PROCESS: Could not find assigned agent: " + subTaskDetail.assigned_agent_name() + " for sub-task: " + subTaskDetail.task_description());
-                        subTaskResults.put(subTaskDetail.task_description(), "Error: Agent not found - " + subTaskDetail.assigned_agent_name());
-                        return CompletableFuture.completedFuture(null); // Continue to next sub-task
+            // Results are written concurrently but read back in plan order, so the synthesis prompt is deterministic.
+            Map<Integer, String> subTaskResults = new ConcurrentHashMap<>();
+            ParallelismLimiter limiter = new ParallelismLimiter(maxParallelism);
+            List<CompletableFuture<Void>> subTaskFutures = new ArrayList<>(Collections.nCopies(subTasks.size(), null));
+            for (int index : executionOrder(dependencies)) {
+                SubTaskDetail subTaskDetail = subTasks.get(index);
+                List<Integer> upstream = dependencies.get(index);
+                CompletableFuture<?>[] upstreamFutures = upstream.stream().map(subTaskFutures::get).toArray(CompletableFuture[]::new);
+                CompletableFuture<Void> subTaskFuture = CompletableFuture.allOf(upstreamFutures).thenCompose(ignored -> {
+                    Optional<Integer> failedDependency = upstream.stream().filter(dependency -> isFailed(subTaskResults.get(dependency))).findFirst();
+                    if (failedDependency.isPresent()) {
+                        String dependencyDescription = subTasks.get(failedDependency.get()).task_description();
+                        context.log("HIERARCHICAL_PROCESS: Skipping sub-task '" + subTaskDetail.task_description() + "' because its dependency '" + dependencyDescription + "' failed.");
+                        subTaskResults.put(index, "Error: Skipped because dependency '" + dependencyDescription + "' failed.");
+                        return CompletableFuture.completedFuture(null);
                     }
+                    return limiter.submit(() -> {
+                        initialTask.getCancellationToken().throwIfCancelled(); // Do not start further sub-tasks once cancelled
+                        Optional<Agent> assignedAgentOpt = workerAgents.stream()
+                                .filter(agent -> agent.getName().equals(subTaskDetail.assigned_agent_name()))
+                                .findFirst();
+
+                        if (assignedAgentOpt.isEmpty()) {
+                            context.log("HIERARCHICAL_PROCESS: Could not find assigned agent: " + subTaskDetail.assigned_agent_name() + " for sub-task: " + subTaskDetail.task_description());
+                            subTaskResults.put(index, "Error: Agent not found - " + subTaskDetail.assigned_agent_name());
+                            return CompletableFuture.completedFuture(null); // Continue with the other sub-tasks
+                        }
 
-                    Agent workerAgent = assignedAgentOpt.get();
-
-
-                    Task subTask = Task.builder()
-                            .description(subTaskDetail.task_description())
-                            .input(initialTask.getInput())
-                            .expectedOutput(subTaskDetail.expected_output())
-                            .assignedAgent(workerAgent)
-                            .status(TaskStatus.PENDING).build();
-                    context.log("HIERARCHICAL_PROCESS: Assigning sub-task '" + subTask.getDescription() + "' to agent " + workerAgent.getName());
-                    return workerAgent.performTask(subTask, context)
-                            .thenAccept(result -> {
-                                context.log("HIERARCHICAL_PROCESS: Sub-task '" + subTask.getDescription() + "' completed by " + workerAgent.getName() + ". Output: " + result);
-                                subTaskResults.put(subTask.getDescription(), result);
-                            }).exceptionally(ex -> {
-                                context.log("HIERARCHICAL_PROCESS: Sub-task '" + subTask.getDescription() + "' failed for agent " + workerAgent.getName() + ". Error: " + ex.getMessage());
-                                subTaskResults.put(subTask.getDescription(), "Error: " + ex.getMessage());
-                                return null; // Continue to next sub-task even if one fails
-                            });
+                        Agent workerAgent = assignedAgentOpt.get();
+
+                        Map<String, Object> input = new HashMap<>();
+                        if (initialTask.getInput() != null) {
+                            input.putAll(initialTask.getInput());
+                        }
+                        if (!upstream.isEmpty()) {
+                            List<DagProcess.DependencyOutput> dependencyOutputs = new ArrayList<>();
+                            for (int dependency : upstream) {
+                                dependencyOutputs.add(new DagProcess.DependencyOutput(subTasks.get(dependency).task_description(),
+                                        subTaskResults.get(dependency)));
+                            }
+                            input.put(DagProcess.DEPENDENCY_OUTPUTS_KEY, dependencyOutputs);
+                        }
+
+                        Task subTask = Task.builder()
+                                .description(subTaskDetail.task_description())
+                                .input(input)
+                                .expectedOutput(subTaskDetail.expected_output())
+                                .assignedAgent(workerAgent)
+                                .status(TaskStatus.PENDING)
+                                .cancellationToken(initialTask.getCancellationToken())
+                                .build();
+                        context.log("HIERARCHICAL_PROCESS: Assigning sub-task '" + subTask.getDescription() + "' to agent " + workerAgent.getName());
+                        return context.checkpoint("hierarchical:subtask:" + index, subTask, () -> context.runAgent(workerAgent, subTask))
+                                .thenAccept(result -> {
+                                    context.log("HIERARCHICAL_PROCESS: Sub-task '" + subTask.getDescription() + "' completed by " + workerAgent.getName() + ". Output: " + result);
+                                    subTaskResults.put(index, result);
+                                }).exceptionally(ex -> {
+                                    if (CancellationToken.isCancellation(ex)) {
+                                        throw ex instanceof CompletionException ce ? ce : new CompletionException(ex); // Cancellation ends the whole process, not just this sub-task
+                                    }
+                                    context.log("HIERARCHICAL_PROCESS: Sub-task '" + subTask.getDescription() + "' failed for agent " + workerAgent.getName() + ". Error: " + ex.getMessage());
+                                    subTaskResults.put(index, "Error: " + ex.getMessage());
+                                    return null; // Continue with the other sub-tasks even if one fails
+                                });
+                    });
                 });
+                subTaskFutures.set(index, subTaskFuture);
             }
+            CompletableFuture<Void> allSubTasksFuture = CompletableFuture.allOf(subTaskFutures.toArray(new CompletableFuture[0]));
 
             // Step 3: Final Result Aggregation (Manager's Second Pass)
             return allSubTasksFuture.thenComposeAsync(v -> {
                 context.log("HIERARCHICAL_PROCESS: All sub-tasks processed. Preparing for manager synthesis.");
                 StringBuilder synthesisPromptDetails = new StringBuilder("Synthesize the final answer for the original task based on the following sub-task results:\n");
-                for (Map.Entry<String, String> entry : subTaskResults.entrySet()) {
-                    synthesisPromptDetails.append("\n- Sub-task: ").append(entry.getKey())
-                            .append("\n  Result: ").append(entry.getValue());
+                for (int i = 0; i < subTasks.size(); i++) {
+                    synthesisPromptDetails.append("\n- Sub-task: ").append(subTasks.get(i).task_description())
+                            .append("\n  Result: ").append(subTaskResults.get(i));
                 }
                 if (managerPlan.manager_notes() != null && !managerPlan.manager_notes().isEmpty()) {
                     synthesisPromptDetails.append("\n\nManager's initial notes for synthesis: ").append(managerPlan.manager_notes());
@@ -148,13 +224,21 @@ public class HierarchicalProcess implements Process {
                         .input(new HashMap<>())
                         .expectedOutput(initialTask.getExpectedOutput())
                         .assignedAgent(managerAgent)
-                        .status(TaskStatus.PENDING).build();
+                        .status(TaskStatus.PENDING)
+                        .cancellationToken(initialTask.getCancellationToken())
+                        .build();
 
                 context.log("HIERARCHICAL_PROCESS: Asking manager " + managerAgent.getName() + " to synthesize final answer.");
-                return managerAgent.performTask(synthesisTask, context);
+                return context.checkpoint("hierarchical:synthesis", synthesisTask, () -> context.runAgent(managerAgent, synthesisTask));
             });
 
         }).exceptionally(ex -> {
+            if (CancellationToken.isCancellation(ex)) {
+                String reason = initialTask.getCancellationToken().getCancellationReason();
+                context.log("HIERARCHICAL_PROCESS: Process cancelled. Reason: " + reason);
+                initialTask.setStatus(TaskStatus.CANCELLED);
+                return "Error: Hierarchical process cancelled. " + reason;
+            }
             context.log("HIERARCHICAL_PROCESS: An error occurred in the process. Error: " + ex.getMessage());
             initialTask.setStatus(TaskStatus.FAILED);
             if (initialTask.getCallback() != null) {
@@ -163,4 +247,65 @@ public class HierarchicalProcess implements Process {
             return "Error: Hierarchical process failed. " + ex.getMessage();
         });
     }
+
+    // Failed, skipped and unassignable sub-tasks all record an "Error" result, as do agents reporting a failure.
+    private static boolean isFailed(String result) {
+        return result == null || result.startsWith("Error");
+    }
+
+    /**
+     * Maps each sub-task's depends_on ids to plan indexes. Sub-tasks without an id are addressable as
+     * "1", "2", ... by their position in the plan. Unknown ids are logged and ignored.
+     *
+     * @throws IllegalArgumentException if the dependencies contain a cycle.
+     */
+    private List<List<Integer>> resolveDependencies(List<SubTaskDetail> subTasks, AgentContext context) {
+        Map<String, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < subTasks.size(); i++) {
+            String id = subTasks.get(i).id();
+            indexById.put(id != null && !id.isBlank() ? id : String.valueOf(i + 1), i);
+        }
+        List<List<Integer>> dependencies = new ArrayList<>();
+        for (SubTaskDetail subTask : subTasks) {
+            List<Integer> resolved = new ArrayList<>();
+            if (subTask.depends_on() != null) {
+                for (String dependencyId : subTask.depends_on()) {
+                    Integer dependency = indexById.get(dependencyId);
+                    if (dependency == null) {
+                        context.log("HIERARCHICAL_PROCESS: Sub-task '" + subTask.task_description() + "' depends on unknown id '" + dependencyId + "'. Ignoring it.");
+                    } else if (!resolved.contains(dependency)) {
+                        resolved.add(dependency);
+                    }
+                }
+            }
+            dependencies.add(resolved);
+        }
+        executionOrder(dependencies); // Fails fast on cycles
+        return dependencies;
+    }
+
+    /**
+     * @return Plan indexes ordered so that every sub-task comes after its dependencies.
+     */
+    private static List<Integer> executionOrder(List<List<Integer>> dependencies) {
+        List<Integer> order = new ArrayList<>();
+        int[] state = new int[dependencies.size()]; // 0 = unvisited, 1 = on stack, 2 = done
+        for (int i = 0; i < dependencies.size(); i++) {
+            visit(i, dependencies, state, order);
+        }
+        return order;
+    }
+
+    private static void visit(int index, List<List<Integer>> dependencies, int[] state, List<Integer> order) {
+        if (state[index] == 2) return;
+        if (state[index] == 1) {
+            throw new IllegalArgumentException("Sub-task dependencies contain a cycle at sub-task " + (index + 1) + ".");
+        }
+        state[index] = 1;
+        for (int dependency : dependencies.get(index)) {
+            visit(dependency, dependencies, state, order);
+        }
+        state[index] = 2;
+        order.add(index);
+    }
 }
@@ -0,0 +1,454 @@
+package com.javaagentai.aiagents.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.javaagentai.aiagents.config.Config;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Index of tasks waiting for human input. A parked task costs one small map entry holding its id, a few
+ * strings and its completion handle; no thread waits on it. Lookup and resume by task id are O(1), and
+ * input can be given to many tasks in one batched call.
+ * <p>
+ * Waits can time out: a single sweeper thread takes expired waits off a deadline-ordered queue and either
+ * fails them or, with {@link TimeoutPolicy#ESCALATE}, hands them to the escalation handler once and fails
+ * them only if the escalation grace period also passes without input.
+ * <p>
+ * If a file is configured, every change is appended to it as a JSON line and the file is compacted when
+ * it grows well beyond the live entries. After a restart the waits are reloaded as orphans: they no longer
+ * have a completion handle, but input given to one is kept and handed to the first task with the same
+ * agent and description that parks again, e.g. when the run is resumed with {@link Crew#resume}.
+ */
+public class HumanInputRegistry implements AutoCloseable {
+
+    public enum TimeoutPolicy {
+        FAIL,
+        ESCALATE
+    }
+
+    /**
+     * Read-only view of a waiting task. {@code deadlineMillis} is 0 if the wait has no timeout.
+     */
+    public record PendingApproval(String taskId, String agentName, String description, long createdAtMillis,
+                                  long deadlineMillis, boolean escalated, boolean orphaned) {
+    }
+
+    // One persisted change; op is park, deadline, done, answer or consume.
+    record RegistryRecord(String op, String taskId, String agentName, String description, long createdAt, long deadline,
+                          String input) {
+    }
+
+    private static final class Waiter {
+        final String taskId;
+        final String agentName;
+        final String description;
+        final long createdAt;
+        final CompletableFuture<String> handle; // null for waits reloaded after a restart
+        volatile long deadline;
+        volatile boolean escalated;
+
+        Waiter(String taskId, String agentName, String description, long createdAt, long deadline, CompletableFuture<String> handle) {
+            this.taskId = taskId;
+            this.agentName = agentName;
+            this.description = description;
+            this.createdAt = createdAt;
+            this.deadline = deadline;
+            this.handle = handle;
+        }
+
+        PendingApproval view() {
+            return new PendingApproval(taskId, agentName, description, createdAt, deadline, escalated, handle == null);
+        }
+    }
+
+    private record Deadline(long at, String taskId) {
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int COMPACTION_SLACK = 1024;
+
+    private final Map<String, Waiter> waiters = new ConcurrentHashMap<>();
+    // Input given to orphaned waits, keyed by agent and description, for the task that parks again after a restart
+    private final Map<String, String> orphanAnswers = new ConcurrentHashMap<>();
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>((a, b) -> Long.compare(a.at(), b.at()));
+    private final Path file;
+    private final long timeoutMillis;
+    private final TimeoutPolicy timeoutPolicy;
+    private final long escalationGraceMillis;
+    private volatile Consumer<PendingApproval> escalationHandler;
+    private final ScheduledExecutorService sweeper;
+    private BufferedWriter writer;
+    private long linesWritten;
+    private int batchDepth;
+
+    public HumanInputRegistry() {
+        this(resolveFile(Config.getHitlRegistryFile()),
+                Duration.ofMillis(Config.getHitlTimeoutMillis()),
+                TimeoutPolicy.valueOf(Config.getHitlTimeoutPolicy().trim().toUpperCase()),
+                Duration.ofMillis(Config.getHitlEscalationGraceMillis()),
+                Duration.ofMillis(Config.getHitlSweepIntervalMillis()));
+    }
+
+    /**
+     * @param file            Journal file, or null to keep the registry in memory only.
+     * @param timeout         How long a task may wait for input; null or zero waits forever.
+     * @param timeoutPolicy   What happens when the timeout passes.
+     * @param escalationGrace With {@link TimeoutPolicy#ESCALATE}, how much longer an escalated wait may last.
+     * @param sweepInterval   How often expired waits are looked for.
+     */
+    public HumanInputRegistry(Path file, Duration timeout, TimeoutPolicy timeoutPolicy, Duration escalationGrace, Duration sweepInterval) {
+        this.file = file;
+        this.timeoutMillis = timeout != null ? Math.max(0, timeout.toMillis()) : 0;
+        this.timeoutPolicy = Objects.requireNonNull(timeoutPolicy, "Timeout policy cannot be null.");
+        this.escalationGraceMillis = escalationGrace != null ? Math.max(0, escalationGrace.toMillis()) : 0;
+        if (file != null) {
+            load();
+            compact();
+        }
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hitl-registry-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(10, sweepInterval != null ? sweepInterval.toMillis() : 1000);
+        sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called for every wait that times out under {@link TimeoutPolicy#ESCALATE}, e.g. to notify a supervisor.
+     */
+    public void setEscalationHandler(Consumer<PendingApproval> escalationHandler) {
+        this.escalationHandler = escalationHandler;
+    }
+
+    /**
+     * Registers a task as waiting for human input.
+     *
+     * @return The handle completed with the input; already complete if input was given for this step
+     * before a restart. It is deregistered however it completes.
+     */
+    public CompletableFuture<String> park(Task task, String agentName) {
+        String answer = orphanAnswers.remove(answerKey(agentName, task.getDescription()));
+        if (answer != null) {
+            append(new RegistryRecord("consume", null, agentName, task.getDescription(), 0, 0, null));
+            return CompletableFuture.completedFuture(answer);
+        }
+        long now = System.currentTimeMillis();
+        long deadline = timeoutMillis > 0 ? now + timeoutMillis : 0;
+        CompletableFuture<String> handle = new CompletableFuture<>();
+        Waiter waiter = new Waiter(task.getId(), agentName, task.getDescription(), now, deadline, handle);
+        waiters.put(waiter.taskId, waiter);
+        append(new RegistryRecord("park", waiter.taskId, agentName, waiter.description, now, deadline, null));
+        scheduleDeadline(waiter);
+        handle.whenComplete((input, error) -> {
+            if (waiters.remove(waiter.taskId, waiter)) {
+                append(new RegistryRecord("done", waiter.taskId, null, null, 0, 0, null));
+            }
+        });
+        return handle;
+    }
+
+    /**
+     * Resumes the waiting task with the given input.
+     *
+     * @return false if no task with that id is waiting.
+     */
+    public boolean provideInput(String taskId, String input) {
+        Waiter waiter = waiters.get(taskId);
+        if (waiter == null) return false;
+        if (waiter.handle != null) {
+            return waiter.handle.complete(input);
+        }
+        // Orphaned by a restart: keep the answer for the task that parks again.
+        if (!waiters.remove(taskId, waiter)) return false;
+        orphanAnswers.put(answerKey(waiter.agentName, waiter.description), input);
+        appendAll(List.of(new RegistryRecord("answer", null, waiter.agentName, waiter.description, 0, 0, input),
+                new RegistryRecord("done", taskId, null, null, 0, 0, null)));
+        return true;
+    }
+
+    /**
+     * Gives input to many waiting tasks at once.
+     *
+     * @return For each task id, whether a waiting task was resumed.
+     */
+    public Map<String, Boolean> provideInputs(Map<String, String> inputsByTaskId) {
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        batched(() -> inputsByTaskId.forEach((taskId, input) -> results.put(taskId, provideInput(taskId, input))));
+        return results;
+    }
+
+    /**
+     * Gives the same input, e.g. "approved", to every waiting task that matches the filter.
+     *
+     * @return The number of tasks resumed.
+     */
+    public int approveAll(Predicate<PendingApproval> filter, String input) {
+        int[] resumed = new int[1];
+        batched(() -> {
+            for (Waiter waiter : List.copyOf(waiters.values())) {
+                if (filter.test(waiter.view()) && provideInput(waiter.taskId, input)) {
+                    resumed[0]++;
+                }
+            }
+        });
+        return resumed[0];
+    }
+
+    /**
+     * Fails the waiting task, e.g. when the human declines it.
+     *
+     * @return false if no task with that id is waiting.
+     */
+    public boolean reject(String taskId, String reason) {
+        Waiter waiter = waiters.get(taskId);
+        if (waiter == null) return false;
+        return fail(waiter, new IllegalStateException("Human input rejected for task " + taskId + ": " + reason));
+    }
+
+    public Optional<PendingApproval> get(String taskId) {
+        Waiter waiter = waiters.get(taskId);
+        return waiter != null ? Optional.of(waiter.view()) : Optional.empty();
+    }
+
+    public List<PendingApproval> getPending() {
+        List<PendingApproval> pending = new ArrayList<>(waiters.size());
+        for (Waiter waiter : waiters.values()) {
+            pending.add(waiter.view());
+        }
+        return pending;
+    }
+
+    public int getPendingCount() {
+        return waiters.size();
+    }
+
+    private boolean fail(Waiter waiter, Exception error) {
+        if (waiter.handle != null) {
+            return waiter.handle.completeExceptionally(error);
+        }
+        if (waiters.remove(waiter.taskId, waiter)) {
+            append(new RegistryRecord("done", waiter.taskId, null, null, 0, 0, null));
+            return true;
+        }
+        return false;
+    }
+
+    private void scheduleDeadline(Waiter waiter) {
+        if (waiter.deadline <= 0) return;
+        synchronized (deadlines) {
+            deadlines.add(new Deadline(waiter.deadline, waiter.taskId));
+        }
+    }
+
+    void sweep() {
+        long now = System.currentTimeMillis();
+        while (true) {
+            Deadline due;
+            synchronized (deadlines) {
+                due = deadlines.peek();
+                if (due == null || due.at() > now) return;
+                deadlines.poll();
+            }
+            Waiter waiter = waiters.get(due.taskId());
+            if (waiter == null || waiter.deadline != due.at()) continue; // Resolved, or superseded by an escalation deadline
+            try {
+                expire(waiter, now);
+            } catch (RuntimeException e) {
+                System.err.println("HumanInputRegistry: Error while expiring wait of task " + waiter.taskId + ". Error: " + e.getMessage());
+            }
+        }
+    }
+
+    private void expire(Waiter waiter, long now) {
+        if (timeoutPolicy == TimeoutPolicy.ESCALATE && !waiter.escalated) {
+            waiter.escalated = true;
+            Consumer<PendingApproval> handler = escalationHandler;
+            if (handler != null) {
+                handler.accept(waiter.view());
+            } else {
+                System.err.println("HumanInputRegistry: Escalating task " + waiter.taskId + " waiting for input since " + waiter.createdAt);
+            }
+            if (escalationGraceMillis > 0) {
+                waiter.deadline = now + escalationGraceMillis;
+                append(new RegistryRecord("deadline", waiter.taskId, null, null, 0, waiter.deadline, null));
+                scheduleDeadline(waiter);
+                return;
+            }
+        }
+        fail(waiter, new TimeoutException("No human input for task " + waiter.taskId + " within the allowed time."));
+    }
+
+    private static String answerKey(String agentName, String description) {
+        return agentName + "\u0000" + description;
+    }
+
+    // Runs several changes with one flush at the end instead of one per change.
+    private void batched(Runnable changes) {
+        synchronized (this) {
+            batchDepth++;
+        }
+        try {
+            changes.run();
+        } finally {
+            synchronized (this) {
+                if (--batchDepth == 0) flush();
+            }
+        }
+    }
+
+    private void append(RegistryRecord record) {
+        appendAll(List.of(record));
+    }
+
+    private synchronized void appendAll(List<RegistryRecord> records) {
+        if (file == null) return;
+        try {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            for (RegistryRecord record : records) {
+                writer.write(MAPPER.writeValueAsString(record));
+                writer.newLine();
+                linesWritten++;
+            }
+            if (batchDepth == 0) flush();
+        } catch (IOException e) {
+            System.err.println("HumanInputRegistry: Could not persist to " + file + ". Error: " + e.getMessage());
+        }
+        if (linesWritten > 2L * (waiters.size() + orphanAnswers.size()) + COMPACTION_SLACK) {
+            compact();
+        }
+    }
+
+    private synchronized void flush() {
+        if (writer == null) return;
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            System.err.println("HumanInputRegistry: Could not flush " + file + ". Error: " + e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(file)) return;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                RegistryRecord record;
+                try {
+                    record = MAPPER.readValue(line, RegistryRecord.class);
+                } catch (JsonProcessingException e) {
+                    System.err.println("HumanInputRegistry: Skipping unreadable line in " + file + ". Error: " + e.getOriginalMessage());
+                    continue;
+                }
+                switch (record.op()) {
+                    case "park" -> waiters.put(record.taskId(), new Waiter(record.taskId(), record.agentName(), record.description(),
+                            record.createdAt(), record.deadline(), null));
+                    case "deadline" -> {
+                        Waiter waiter = waiters.get(record.taskId());
+                        if (waiter != null) {
+                            waiter.deadline = record.deadline();
+                            waiter.escalated = true;
+                        }
+                    }
+                    case "done" -> waiters.remove(record.taskId());
+                    case "answer" -> orphanAnswers.put(answerKey(record.agentName(), record.description()), record.input());
+                    case "consume" -> orphanAnswers.remove(answerKey(record.agentName(), record.description()));
+                    default -> System.err.println("HumanInputRegistry: Ignoring unknown record type " + record.op());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("HumanInputRegistry: Could not load " + file + ". Error: " + e.getMessage());
+        }
+        waiters.values().forEach(this::scheduleDeadline);
+    }
+
+    /**
+     * Rewrites the file with only the live entries.
+     */
+    private synchronized void compact() {
+        try {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            long lines = 0;
+            try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Waiter waiter : waiters.values()) {
+                    out.write(MAPPER.writeValueAsString(new RegistryRecord("park", waiter.taskId, waiter.agentName, waiter.description,
+                            waiter.createdAt, waiter.deadline, null)));
+                    out.newLine();
+                    lines++;
+                    if (waiter.escalated) {
+                        // Keeps the wait escalated after a reload, so it is not escalated again with a fresh grace period
+                        out.write(MAPPER.writeValueAsString(new RegistryRecord("deadline", waiter.taskId, null, null, 0, waiter.deadline, null)));
+                        out.newLine();
+                        lines++;
+                    }
+                }
+                for (Map.Entry<String, String> answer : orphanAnswers.entrySet()) {
+                    String[] key = answer.getKey().split("\u0000", 2);
+                    out.write(MAPPER.writeValueAsString(new RegistryRecord("answer", null, key[0], key[1], 0, 0, answer.getValue())));
+                    out.newLine();
+                    lines++;
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            linesWritten = lines;
+        } catch (IOException e) {
+            System.err.println("HumanInputRegistry: Could not compact " + file + ". Error: " + e.getMessage());
+        }
+    }
+
+    private static Path resolveFile(String configured) {
+        return configured == null || configured.isBlank() ? null : Paths.get(configured.trim());
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        synchronized (this) {
+            flush();
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    System.err.println("HumanInputRegistry: Could not close " + file + ". Error: " + e.getMessage());
+                }
+                writer = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.config.Config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * MapReduceProcess handles task inputs too large for one prompt. One input entry is split into chunks:
+ * a collection by element, a string on paragraph, sentence or, as a last resort, character boundaries,
+ * with each chunk kept within a token budget. Every chunk becomes a map task that runs on the mapper
+ * agents (all agents but the last, in round-robin order) with at most {@code maxParallelism} tasks in
+ * flight. The last agent is the reducer: it combines consecutive partial results, as many as fit in
+ * {@code reduceTokenBudget} estimated tokens per reduce task, level by level until a single result remains.
+ * A failed chunk fails the whole process and cancels the remaining work, since a result missing part of
+ * the input would be silently incomplete.
+ */
+public class MapReduceProcess implements Process {
+
+    public static final String CHUNK_INDEX_KEY = "chunk_index";
+    public static final String CHUNK_COUNT_KEY = "chunk_count";
+
+    // Reducer outputs that never fall below half the budget would otherwise be split and reduced forever
+    private static final int MAX_REDUCE_LEVELS = 32;
+
+    private final int chunkTokenBudget;
+    private final int maxParallelism;
+    private final int reduceTokenBudget;
+    private final String splitKey;
+
+    public MapReduceProcess() {
+        this(Config.getMapReduceChunkTokens(), Config.getMapReduceMaxParallelism(), Config.getMapReduceReduceTokens(), null);
+    }
+
+    /**
+     * @param chunkTokenBudget  Maximum estimated tokens per chunk.
+     * @param maxParallelism    Maximum number of map or reduce tasks running at the same time.
+     * @param reduceTokenBudget Maximum estimated tokens of the partial results given to one reduce task; at least 2.
+     * @param splitKey          Input entry to split, or null to split the largest entry.
+     */
+    public MapReduceProcess(int chunkTokenBudget, int maxParallelism, int reduceTokenBudget, String splitKey) {
+        if (chunkTokenBudget <= 0 || maxParallelism <= 0 || reduceTokenBudget < 2) {
+            throw new IllegalArgumentException("Chunk budget and parallelism must be positive and the reduce budget at least 2 tokens.");
+        }
+        this.chunkTokenBudget = chunkTokenBudget;
+        this.maxParallelism = maxParallelism;
+        this.reduceTokenBudget = reduceTokenBudget;
+        this.splitKey = splitKey;
+    }
+
+    @Override
+    public CompletableFuture<String> execute(Task initialTask, List<Agent> agents, AgentContext context) {
+        String flowId = "map_reduce_" + UUID.randomUUID();
+        context.log("MAP_REDUCE_PROCESS: Starting process for task: " + initialTask.getDescription() + " with FlowID: " + flowId);
+        if (agents == null || agents.isEmpty()) {
+            return fail(initialTask, context, "No agents available.");
+        }
+        Map<String, Object> input = initialTask.getInput() != null ? initialTask.getInput() : Map.of();
+        String key = splitKey != null ? splitKey : largestEntry(input);
+        if (key == null || !input.containsKey(key)) {
+            context.log("MAP_REDUCE_PROCESS: Nothing to split, running the task on a single agent.");
+            return context.runAgent(agents.get(0), initialTask);
+        }
+
+        List<Object> chunks = split(input.get(key), chunkTokenBudget);
+        List<Agent> mappers = agents.size() > 1 ? agents.subList(0, agents.size() - 1) : agents;
+        Agent reducer = agents.get(agents.size() - 1);
+        context.log("MAP_REDUCE_PROCESS: Split input '" + key + "' into " + chunks.size() + " chunks for " + mappers.size() + " mapper(s).");
+
+        // Map and reduce tasks share a child token, so one failure can stop the rest without cancelling the caller's task.
+        CancellationToken runToken = initialTask.getCancellationToken().child();
+        ParallelismLimiter limiter = new ParallelismLimiter(maxParallelism);
+        List<CompletableFuture<String>> partials = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            Map<String, Object> chunkInput = new LinkedHashMap<>(input);
+            chunkInput.put(key, chunks.get(i));
+            chunkInput.put(CHUNK_INDEX_KEY, i + 1);
+            chunkInput.put(CHUNK_COUNT_KEY, chunks.size());
+            Task mapTask = Task.builder()
+                    .description(String.format("%s%n%nYou are given part %d of %d of the input '%s'. Work only on this part; "
+                            + "your result will be combined with the results for the other parts.", initialTask.getDescription(), i + 1, chunks.size(), key))
+                    .input(chunkInput)
+                    .expectedOutput(initialTask.getExpectedOutput())
+                    .status(TaskStatus.PENDING)
+                    .cancellationToken(runToken)
+                    .build();
+            Agent mapper = mappers.get(i % mappers.size());
+            partials.add(runStep(mapper, mapTask, limiter, runToken, context, "map " + (i + 1) + "/" + chunks.size()));
+        }
+
+        return reduce(initialTask, partials, reducer, limiter, runToken, context, 1).handle((finalOutput, error) -> {
+            if (error != null) {
+                if (CancellationToken.isCancellation(error) && initialTask.getCancellationToken().isCancelled()) {
+                    String reason = initialTask.getCancellationToken().getCancellationReason();
+                    initialTask.setStatus(TaskStatus.CANCELLED);
+                    context.log("MAP_REDUCE_PROCESS: Process cancelled. Reason: " + reason);
+                    return "Error: Map-reduce process cancelled. " + reason;
+                }
+                // The first failure cancels the other steps; report it rather than a resulting cancellation.
+                String reason = runToken.isCancelled() ? runToken.getCancellationReason() : CancellationToken.rootCause(error).getMessage();
+                return "Error: " + failureReason(initialTask, context, reason);
+            }
+            initialTask.setStatus(TaskStatus.COMPLETED);
+            if (initialTask.getCallback() != null) {
+                initialTask.getCallback().accept(new TaskResult(TaskStatus.COMPLETED, finalOutput));
+            }
+            context.log("MAP_REDUCE_PROCESS: Process finished. Final output: " + finalOutput);
+            return finalOutput;
+        }).whenComplete((result, error) -> {
+            runToken.release();
+            context.completeTask(flowId);
+        });
+    }
+
+    /**
+     * Combines the partial results level by level until one is left. Each level waits for its partials and
+     * groups consecutive ones within the reduce budget. A partial that ends up alone in its group is carried
+     * to the next level if it is at most half the budget, where it pairs with its reduced neighbours;
+     * otherwise it is split into pieces of at most half the budget, which are condensed like any other group.
+     */
+    private CompletableFuture<String> reduce(Task initialTask, List<CompletableFuture<String>> partials, Agent reducer,
+                                             ParallelismLimiter limiter, CancellationToken runToken, AgentContext context, int level) {
+        return CompletableFuture.allOf(partials.toArray(new CompletableFuture[0])).thenCompose(ignored -> {
+            List<String> outputs = partials.stream().map(CompletableFuture::join).toList();
+            if (outputs.size() == 1) {
+                return CompletableFuture.completedFuture(outputs.get(0));
+            }
+            if (level > MAX_REDUCE_LEVELS) {
+                throw new IllegalStateException("Partial results did not converge within " + MAX_REDUCE_LEVELS
+                        + " reduce levels; they stay above half the reduce budget of " + reduceTokenBudget + " tokens.");
+            }
+            int halfBudget = Math.max(1, reduceTokenBudget / 2);
+            List<CompletableFuture<String>> combined = new ArrayList<>();
+            int firstPart = 1;
+            for (List<String> group : groupWithinBudget(outputs)) {
+                int lastPart = firstPart + group.size() - 1;
+                if (group.size() > 1) {
+                    String label = "reduce level " + level + " parts " + firstPart + "-" + lastPart;
+                    combined.add(runReduce(initialTask, group, "partial results", reducer, limiter, runToken, context, label));
+                } else if (ConversationHistory.estimateTokens(group.get(0)) <= halfBudget) {
+                    combined.add(CompletableFuture.completedFuture(group.get(0))); // Carried to the next level unchanged
+                } else {
+                    int firstPiece = 1;
+                    for (List<String> pieces : groupWithinBudget(splitText(group.get(0), halfBudget))) {
+                        String label = "reduce level " + level + " part " + firstPart + " pieces " + firstPiece + "-" + (firstPiece + pieces.size() - 1);
+                        combined.add(pieces.size() > 1
+                                ? runReduce(initialTask, pieces, "consecutive pieces of one partial result", reducer, limiter, runToken, context, label)
+                                : CompletableFuture.completedFuture(pieces.get(0)));
+                        firstPiece += pieces.size();
+                    }
+                }
+                firstPart = lastPart + 1;
+            }
+            return reduce(initialTask, combined, reducer, limiter, runToken, context, level + 1);
+        });
+    }
+
+    /**
+     * Packs consecutive texts into groups of at most {@code reduceTokenBudget} estimated tokens; a text over
+     * the budget forms a group of its own.
+     */
+    private List<List<String>> groupWithinBudget(List<String> texts) {
+        List<List<String>> groups = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int currentTokens = 0;
+        for (String text : texts) {
+            int tokens = ConversationHistory.estimateTokens(text);
+            if (!current.isEmpty() && currentTokens + tokens > reduceTokenBudget) {
+                groups.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(text);
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) groups.add(current);
+        return groups;
+    }
+
+    private CompletableFuture<String> runReduce(Task initialTask, List<String> parts, String what, Agent reducer,
+                                                ParallelismLimiter limiter, CancellationToken runToken, AgentContext context, String label) {
+        StringBuilder description = new StringBuilder("Original Task: ").append(initialTask.getDescription())
+                .append("\nCombine the following ").append(what).append(" into a single result for the original task:\n");
+        for (int i = 0; i < parts.size(); i++) {
+            description.append("\n- Part ").append(i + 1).append(":\n").append(parts.get(i));
+        }
+        Task reduceTask = Task.builder()
+                .description(description.toString())
+                .input(new LinkedHashMap<>())
+                .expectedOutput(initialTask.getExpectedOutput())
+                .status(TaskStatus.PENDING)
+                .cancellationToken(runToken)
+                .build();
+        return runStep(reducer, reduceTask, limiter, runToken, context, label);
+    }
+
+    private CompletableFuture<String> runStep(Agent agent, Task task, ParallelismLimiter limiter, CancellationToken runToken,
+                                              AgentContext context, String label) {
+        return limiter.submit(() -> {
+            runToken.throwIfCancelled();
+            task.setAssignedAgent(agent);
+            context.log("MAP_REDUCE_PROCESS: Agent " + agent.getName() + " starting " + label);
+            return context.runAgent(agent, task);
+        }).thenApply(output -> {
+            if (task.getStatus() == TaskStatus.FAILED) {
+                throw new IllegalStateException(label + " failed: " + output);
+            }
+            context.log("MAP_REDUCE_PROCESS: Agent " + agent.getName() + " finished " + label);
+            return output;
+        }).whenComplete((output, error) -> {
+            if (error != null && !runToken.isCancelled()) {
+                runToken.cancel("Map-reduce step " + label + " failed: " + CancellationToken.rootCause(error).getMessage());
+            }
+        });
+    }
+
+    /**
+     * Splits a value into chunks of at most {@code tokenBudget} estimated tokens. Collections are split
+     * between elements (an element larger than the budget becomes a chunk of its own); anything else is
+     * split as text.
+     */
+    static List<Object> split(Object value, int tokenBudget) {
+        List<Object> chunks = new ArrayList<>();
+        if (value instanceof Collection<?> collection) {
+            List<Object> current = new ArrayList<>();
+            int currentTokens = 0;
+            for (Object element : collection) {
+                int tokens = ConversationHistory.estimateTokens(String.valueOf(element));
+                if (!current.isEmpty() && currentTokens + tokens > tokenBudget) {
+                    chunks.add(current);
+                    current = new ArrayList<>();
+                    currentTokens = 0;
+                }
+                current.add(element);
+                currentTokens += tokens;
+            }
+            if (!current.isEmpty()) chunks.add(current);
+        } else {
+            chunks.addAll(splitText(String.valueOf(value), tokenBudget));
+        }
+        if (chunks.isEmpty()) chunks.add(value);
+        return chunks;
+    }
+
+    private static List<String> splitText(String text, int tokenBudget) {
+        int maxChars = tokenBudget * ConversationHistory.CHARS_PER_TOKEN;
+        List<String> pieces = new ArrayList<>();
+        for (String paragraph : text.split("\\n\\s*\\n")) {
+            if (ConversationHistory.estimateTokens(paragraph) <= tokenBudget) {
+                pieces.add(paragraph);
+                continue;
+            }
+            for (String sentence : paragraph.split("(?<=[.!?])\\s+")) {
+                for (int start = 0; start < sentence.length(); start += maxChars) {
+                    pieces.add(sentence.substring(start, Math.min(sentence.length(), start + maxChars)));
+                }
+            }
+        }
+        // Pack the pieces back together up to the budget.
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String piece : pieces) {
+            if (piece.isBlank()) continue;
+            String candidate = current.isEmpty() ? piece : current + "\n\n" + piece;
+            if (!current.isEmpty() && ConversationHistory.estimateTokens(candidate) > tokenBudget) {
+                chunks.add(current.toString());
+                current = new StringBuilder(piece);
+            } else {
+                current = new StringBuilder(candidate);
+            }
+        }
+        if (!current.isEmpty()) chunks.add(current.toString());
+        return chunks;
+    }
+
+    private static String largestEntry(Map<String, Object> input) {
+        String largest = null;
+        int largestTokens = -1;
+        for (Map.Entry<String, Object> entry : input.entrySet()) {
+            int tokens = ConversationHistory.estimateTokens(String.valueOf(entry.getValue()));
+            if (tokens > largestTokens) {
+                largest = entry.getKey();
+                largestTokens = tokens;
+            }
+        }
+        return largest;
+    }
+
+    private String failureReason(Task initialTask, AgentContext context, String reason) {
+        context.log("MAP_REDUCE_PROCESS: Process failed. Error: " + reason);
+        initialTask.setStatus(TaskStatus.FAILED);
+        if (initialTask.getCallback() != null) {
+            initialTask.getCallback().accept(new TaskResult(TaskStatus.FAILED, null, reason));
+        }
+        return "Map-reduce process failed. " + reason;
+    }
+
+    private CompletableFuture<String> fail(Task initialTask, AgentContext context, String reason) {
+        return CompletableFuture.completedFuture("Error: " + failureReason(initialTask, context, reason));
+    }
+}
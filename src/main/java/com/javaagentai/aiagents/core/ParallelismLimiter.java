@@ -0,0 +1,79 @@
+package com.javaagentai.aiagents.core;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Caps how many asynchronous units of work a process has in flight. Work beyond the limit is queued and
+ * started, in submission order, as earlier work completes. No thread ever blocks waiting for a slot, so
+ * the limiter is safe to use from inside CompletableFuture callbacks.
+ */
+class ParallelismLimiter {
+
+    private final int maxInFlight;
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    ParallelismLimiter(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Queues the work and starts it once a slot is free.
+     *
+     * @return A future completed with the work's result.
+     */
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        pending.add(() -> {
+            CompletableFuture<T> started;
+            try {
+                started = work.get();
+            } catch (RuntimeException e) {
+                started = CompletableFuture.failedFuture(e);
+            }
+            started.whenComplete((value, error) -> {
+                // Free the slot before completing, so work chained on the result can start right away.
+                inFlight.decrementAndGet();
+                drain();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        });
+        drain();
+        return result;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void drain() {
+        while (!pending.isEmpty()) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Runnable next = pending.poll();
+            if (next == null) { // Another thread took it
+                inFlight.decrementAndGet();
+                continue;
+            }
+            next.run();
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.javaagentai.aiagents.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Immutable hash array mapped trie (HAMT). {@link #plus(Object, Object)} and {@link #minus(Object)} return a
+ * new map that shares every untouched branch with the old one, so an update copies at most one 32-slot
+ * node per trie level (O(log32 n)) and holding on to an older version, i.e. taking a snapshot, is free.
+ * Lookups walk the same path without locking. Null keys and values are not supported, and the
+ * {@link Map} mutators inherited from {@link AbstractMap} throw {@link UnsupportedOperationException}.
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentHashMap EMPTY = new PersistentHashMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentHashMap) {
+            @SuppressWarnings("unchecked")
+            PersistentHashMap<K, V> persistent = (PersistentHashMap<K, V>) map;
+            return persistent;
+        }
+        PersistentHashMap<K, V> result = empty();
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            result = result.plus(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * @return A map with the given mapping added or replaced; this map if the key already maps to the same value instance.
+     */
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        Objects.requireNonNull(key, "Key cannot be null.");
+        Objects.requireNonNull(value, "Value cannot be null.");
+        Leaf leaf = new Leaf(hash(key), key, value);
+        boolean[] added = new boolean[1];
+        Node newRoot = root == null ? BitmapNode.EMPTY.put(leaf, 0, added) : root.put(leaf, 0, added);
+        if (newRoot == root) return this;
+        return new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * @return A map without the given key; this map if the key is absent.
+     */
+    public PersistentHashMap<K, V> minus(Object key) {
+        if (root == null || key == null) return this;
+        Node newRoot = root.remove(key, hash(key), 0);
+        if (newRoot == root) return this;
+        return newRoot == null ? empty() : new PersistentHashMap<>(newRoot, size - 1);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (root == null || key == null) return null;
+        Leaf leaf = root.find(key, hash(key), 0);
+        return leaf != null ? (V) leaf.value : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return root != null && key != null && root.find(key, hash(key), 0) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int bitFor(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private interface Node {
+        Leaf find(Object key, int hash, int shift);
+
+        /** Returns this node if nothing changed; sets added[0] when the key was not present before. */
+        Node put(Leaf leaf, int shift, boolean[] added);
+
+        /** Returns this node if the key is absent, or null if the node became empty. */
+        Node remove(Object key, int hash, int shift);
+    }
+
+    private static final class Leaf implements Map.Entry<Object, Object> {
+        final int hash;
+        final Object key;
+        final Object value;
+
+        Leaf(int hash, Object key, Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public Object getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException("PersistentHashMap entries are immutable.");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> e && key.equals(e.getKey()) && value.equals(e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ value.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * Branch node: the bitmap records which of the 32 hash slots are occupied and the array holds only
+     * those slots, each either a {@link Leaf} or a child {@link Node}.
+     */
+    private static final class BitmapNode implements Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] slots;
+
+        BitmapNode(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        public Leaf find(Object key, int hash, int shift) {
+            int bit = bitFor(hash, shift);
+            if ((bitmap & bit) == 0) return null;
+            Object slot = slots[index(bit)];
+            if (slot instanceof Leaf leaf) {
+                return leaf.key.equals(key) ? leaf : null;
+            }
+            return ((Node) slot).find(key, hash, shift + BITS);
+        }
+
+        @Override
+        public Node put(Leaf leaf, int shift, boolean[] added) {
+            int bit = bitFor(leaf.hash, shift);
+            int idx = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, idx);
+                newSlots[idx] = leaf;
+                System.arraycopy(slots, idx, newSlots, idx + 1, slots.length - idx);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+            Object slot = slots[idx];
+            Object replacement;
+            if (slot instanceof Leaf existing) {
+                if (existing.key.equals(leaf.key)) {
+                    if (existing.value == leaf.value) return this;
+                    replacement = leaf;
+                } else {
+                    added[0] = true;
+                    replacement = merge(existing, leaf, shift + BITS);
+                }
+            } else {
+                Node child = (Node) slot;
+                Node newChild = child.put(leaf, shift + BITS, added);
+                if (newChild == child) return this;
+                replacement = newChild;
+            }
+            Object[] newSlots = slots.clone();
+            newSlots[idx] = replacement;
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        @Override
+        public Node remove(Object key, int hash, int shift) {
+            int bit = bitFor(hash, shift);
+            if ((bitmap & bit) == 0) return this;
+            int idx = index(bit);
+            Object slot = slots[idx];
+            if (slot instanceof Leaf leaf) {
+                return leaf.key.equals(key) ? without(bit, idx) : this;
+            }
+            Node child = (Node) slot;
+            Node newChild = child.remove(key, hash, shift + BITS);
+            if (newChild == child) return this;
+            if (newChild == null) return without(bit, idx);
+            Object[] newSlots = slots.clone();
+            // A child left holding a single entry is pulled up so the trie stays as shallow as possible.
+            Leaf single = singleLeaf(newChild);
+            newSlots[idx] = single != null ? single : newChild;
+            return new BitmapNode(bitmap, newSlots);
+        }
+
+        private Node without(int bit, int idx) {
+            if (slots.length == 1) return null;
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, idx);
+            System.arraycopy(slots, idx + 1, newSlots, idx, slots.length - idx - 1);
+            return new BitmapNode(bitmap & ~bit, newSlots);
+        }
+
+        private static Leaf singleLeaf(Node node) {
+            if (node instanceof BitmapNode bitmapNode && bitmapNode.slots.length == 1 && bitmapNode.slots[0] instanceof Leaf leaf) {
+                return leaf;
+            }
+            if (node instanceof CollisionNode collisionNode && collisionNode.leaves.length == 1) {
+                return collisionNode.leaves[0];
+            }
+            return null;
+        }
+
+        private static Node merge(Leaf a, Leaf b, int shift) {
+            if (a.hash == b.hash) {
+                return new CollisionNode(a.hash, new Leaf[]{a, b});
+            }
+            boolean[] ignored = new boolean[1];
+            return EMPTY.put(a, shift, ignored).put(b, shift, ignored);
+        }
+    }
+
+    /**
+     * Holds keys whose full 32-bit hashes are equal.
+     */
+    private static final class CollisionNode implements Node {
+        final int hash;
+        final Leaf[] leaves;
+
+        CollisionNode(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < leaves.length; i++) {
+                if (leaves[i].key.equals(key)) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public Leaf find(Object key, int hash, int shift) {
+            if (hash != this.hash) return null;
+            int idx = indexOf(key);
+            return idx >= 0 ? leaves[idx] : null;
+        }
+
+        @Override
+        public Node put(Leaf leaf, int shift, boolean[] added) {
+            if (leaf.hash != hash) {
+                // Same prefix so far but a different hash: branch here with this node as one child.
+                BitmapNode branch = new BitmapNode(bitFor(hash, shift), new Object[]{this});
+                return branch.put(leaf, shift, added);
+            }
+            int idx = indexOf(leaf.key);
+            if (idx >= 0) {
+                if (leaves[idx].value == leaf.value) return this;
+                Leaf[] newLeaves = leaves.clone();
+                newLeaves[idx] = leaf;
+                return new CollisionNode(hash, newLeaves);
+            }
+            Leaf[] newLeaves = Arrays.copyOf(leaves, leaves.length + 1);
+            newLeaves[leaves.length] = leaf;
+            added[0] = true;
+            return new CollisionNode(hash, newLeaves);
+        }
+
+        @Override
+        public Node remove(Object key, int hash, int shift) {
+            if (hash != this.hash) return this;
+            int idx = indexOf(key);
+            if (idx < 0) return this;
+            if (leaves.length == 1) return null;
+            Leaf[] newLeaves = new Leaf[leaves.length - 1];
+            System.arraycopy(leaves, 0, newLeaves, 0, idx);
+            System.arraycopy(leaves, idx + 1, newLeaves, idx, leaves.length - idx - 1);
+            return new CollisionNode(hash, newLeaves);
+        }
+    }
+
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Deque<Object[]> stack = new ArrayDeque<>();
+        private final Deque<Integer> positions = new ArrayDeque<>();
+        private Leaf next;
+
+        EntryIterator(Node root) {
+            if (root != null) push(root);
+            advance();
+        }
+
+        private void push(Node node) {
+            stack.push(node instanceof BitmapNode bitmapNode ? bitmapNode.slots : ((CollisionNode) node).leaves);
+            positions.push(0);
+        }
+
+        private void advance() {
+            next = null;
+            while (!stack.isEmpty()) {
+                Object[] slots = stack.peek();
+                int position = positions.pop();
+                if (position >= slots.length) {
+                    stack.pop();
+                    continue;
+                }
+                positions.push(position + 1);
+                Object slot = slots[position];
+                if (slot instanceof Leaf leaf) {
+                    next = leaf;
+                    return;
+                }
+                push((Node) slot);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (next == null) throw new NoSuchElementException();
+            Leaf current = next;
+            advance();
+            return (Map.Entry<K, V>) (Map.Entry<?, ?>) current;
+        }
+    }
+}
@@ -8,6 +8,8 @@ package com.javaagentai.aiagents.core;
 
 public enum ProcessStrategy {
     SEQUENTIAL,
-    HIERARCHICAL
-    // PARALLEL will be added later if implemented
+    HIERARCHICAL,
+    DAG,
+    CONSENSUAL,
+    MAP_REDUCE
 }
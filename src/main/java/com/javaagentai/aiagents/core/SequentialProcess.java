@@ -1,7 +1,6 @@
 package com.javaagentai.aiagents.core;
 
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
@@ -27,16 +26,25 @@ public class SequentialProcess implements Process {
         String taskId = initialTask.getDescription() + "_" + UUID.randomUUID().toString(); // Unique ID for this execution flow
         context.log("SEQUENTIAL_PROCESS_ASYNC: Starting process for task: " + initialTask.getDescription() + " with TaskID: " + taskId);
 
+        // Every task derived along the chain shares the initial task's token, so cancelling it stops the remaining steps.
+        CancellationToken cancellationToken = initialTask.getCancellationToken();
+
         // Start with a completed future holding the initial task
         CompletableFuture<Task> taskChain = CompletableFuture.completedFuture(initialTask);
 
-        for (Agent agent : agents) {
+        for (int i = 0; i < agents.size(); i++) {
+            Agent agent = agents.get(i);
+            String step = "sequential:" + i + ":" + agent.getName();
             taskChain = taskChain.thenComposeAsync(currentTask -> {
                 // If currentTask is null (e.g. from a failed previous step that didn't propagate task), handle it.
                 if (currentTask == null) {
                     context.log("SEQUENTIAL_PROCESS_ASYNC: Skipping agent " + agent.getName() + " due to null task from previous step.");
                     return CompletableFuture.completedFuture(null); // Or handle error appropriately
                 }
+                if (cancellationToken.isCancelled()) {
+                    context.log("SEQUENTIAL_PROCESS_ASYNC: Skipping agent " + agent.getName() + " because the task was cancelled: " + cancellationToken.getCancellationReason());
+                    return CompletableFuture.completedFuture(null);
+                }
 
                 currentTask.setAssignedAgent(agent);
                 // No, status is set to IN_PROGRESS by the agent's performTask now.
@@ -45,7 +53,8 @@ public class SequentialProcess implements Process {
                 context.log("SEQUENTIAL_PROCESS_ASYNC: Agent " + agent.getName() + " starting task: " + currentTask.getDescription());
                 context.storeTaskData(taskId, agent.getName() + "_input", currentTask.getInput());
 
-                return agent.performTask(currentTask, context)
+                // In a journaled run a step that already completed is replayed from the journal instead of re-run.
+                return context.checkpoint(step, currentTask, () -> context.runAgent(agent, currentTask))
                         .thenApply(output -> {
                             // currentTask.setStatus(TaskStatus.COMPLETED); // Set by agent.performTask
                             context.storeTaskData(taskId, agent.getName() + "_output", output);
@@ -60,10 +69,11 @@ public class SequentialProcess implements Process {
 
                             return Task.builder()
                                     .description(output)
-                                    .input(Map.copyOf(context.getSharedMemory()))
+                                    .input(context.getSharedMemory()) // Immutable O(1) snapshot, no per-step copy
                                     .expectedOutput(currentTask.getExpectedOutput())
                                     .status(TaskStatus.PENDING)
                                     .callback(currentTask.getCallback())
+                                    .cancellationToken(cancellationToken)
                                     .build();
 
                         })
@@ -77,6 +87,11 @@ public class SequentialProcess implements Process {
 
 
         return taskChain.thenApply(lastTask -> {
+            if (cancellationToken.isCancelled()) {
+                initialTask.setStatus(TaskStatus.CANCELLED);
+                context.log("SEQUENTIAL_PROCESS_ASYNC: Process cancelled. Reason: " + cancellationToken.getCancellationReason());
+                return "Error: Process cancelled. " + cancellationToken.getCancellationReason();
+            }
             if (lastTask == null || lastTask.getStatus() == TaskStatus.FAILED) {
                 context.log("SEQUENTIAL_PROCESS_ASYNC: Process finished with failure or no result from the last agent.");
                 return "Error: Process failed or produced no result.";
@@ -88,6 +103,6 @@ public class SequentialProcess implements Process {
         }).exceptionally(ex -> {
             context.log("SEQUENTIAL_PROCESS_ASYNC: Process chain failed. Error: " + ex.getMessage());
             return "Error: Process chain failed.";
-        });
+        }).whenComplete((finalOutput, ex) -> context.completeTask(taskId));
     }
 }
@@ -0,0 +1,293 @@
+package com.javaagentai.aiagents.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.javaagentai.aiagents.config.Config;
+import com.javaagentai.aiagents.llm.LLMClient;
+import com.javaagentai.aiagents.tools.Tool;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Content-addressed cache of agent step outputs. The key is a SHA-256 hash of the store's version tag,
+ * the agent's configuration (class, name, role, tools and {@link LLMClient#getModelIdentity() model identity}),
+ * the task (description, expected output and input) and, for a {@link BasicAgent} with memory, the memory
+ * context its prompt would include, so a step is never served an output computed from different memories.
+ * That context is retrieved before the key is computed and handed to the agent on a miss, so it is not
+ * searched for twice. Upstream outputs reach a step through its description or input, e.g. the previous
+ * agent's output in {@link SequentialProcess} or {@link DagProcess#DEPENDENCY_OUTPUTS_KEY}, so they are
+ * part of the key as well. When a pipeline is re-run with some steps changed, the unchanged
+ * prefix is served from the store and only the steps downstream of the change call an LLM.
+ * <p>
+ * Bumping the version tag invalidates every earlier entry, e.g. after a prompt template change or a model
+ * update behind an unchanged model name, which the key cannot see;
+ * {@link #invalidate(String)} also frees the entries recorded under an old tag. Entries are kept in memory
+ * and, if a directory is given, in one file per key so they survive restarts. Only successful outputs
+ * are stored, and tasks waiting for human input are never memoized.
+ */
+public class StepMemoStore {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    record MemoEntry(String versionTag, String output, long createdAt) {
+    }
+
+    private final Path directory;
+    private final String versionTag;
+    private final Map<String, MemoEntry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public StepMemoStore() {
+        this(resolveDirectory(Config.getStepMemoDirectory()), Config.getStepMemoVersion());
+    }
+
+    /**
+     * @param directory  Directory for persistent entries, or null to keep them in memory only.
+     * @param versionTag Tag mixed into every key; change it to invalidate all earlier entries.
+     */
+    public StepMemoStore(Path directory, String versionTag) {
+        this.directory = directory;
+        this.versionTag = Objects.requireNonNull(versionTag, "Version tag cannot be null.");
+    }
+
+    /**
+     * Returns the memoized output of the step if there is one, without invoking the agent; otherwise
+     * performs the task and memoizes its output.
+     */
+    public CompletableFuture<String> perform(Agent agent, Task task, AgentContext context) {
+        if (task.isRequiresHumanInput()) {
+            return agent.performTask(task, context);
+        }
+        return memoryContextOf(agent, task, context)
+                .thenCompose(memoryContext -> perform(agent, task, context, memoryContext));
+    }
+
+    private CompletableFuture<String> perform(Agent agent, Task task, AgentContext context, String memoryContext) {
+        String key = key(agent, task, memoryContext);
+        Optional<String> memoized = lookup(key);
+        if (memoized.isPresent()) {
+            String output = memoized.get();
+            context.log("STEP_MEMO: Reusing memoized output of " + agent.getName() + " for task: " + task.getDescription());
+            task.setAssignedAgent(agent);
+            task.setStatus(TaskStatus.COMPLETED);
+            if (task.getCallback() != null) {
+                task.getCallback().accept(new TaskResult(TaskStatus.COMPLETED, output));
+            }
+            return CompletableFuture.completedFuture(output);
+        }
+        CompletableFuture<String> run = memoryContext != null && agent instanceof BasicAgent basicAgent
+                ? basicAgent.performTask(task, context, memoryContext)
+                : agent.performTask(task, context);
+        return run.thenApply(output -> {
+            if (output != null && task.getStatus() != TaskStatus.FAILED && task.getStatus() != TaskStatus.CANCELLED) {
+                record(key, output);
+            }
+            return output;
+        });
+    }
+
+    private static CompletableFuture<String> memoryContextOf(Agent agent, Task task, AgentContext context) {
+        if (agent instanceof BasicAgent basicAgent && basicAgent.getMemory() != null) {
+            return basicAgent.retrieveMemoryContext(task, context);
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * @return The content hash identifying the step of this agent on this task, leaving out memory context.
+     */
+    public String key(Agent agent, Task task) {
+        return key(agent, task, null);
+    }
+
+    /**
+     * @param memoryContext Memory context the agent's prompt includes, or null if it has none.
+     * @return The content hash identifying the step of this agent on this task.
+     */
+    public String key(Agent agent, Task task, String memoryContext) {
+        Map<String, Object> identity = new TreeMap<>();
+        identity.put("version", versionTag);
+        identity.put("agent_class", agent.getClass().getName());
+        identity.put("agent_name", agent.getName());
+        identity.put("agent_role", agent.getRole());
+        if (agent.getTools() != null) {
+            identity.put("tools", agent.getTools().stream()
+                    .sorted(Comparator.comparing(Tool::getName))
+                    .map(tool -> tool.getName() + ":" + tool.getDescription() + ":" + tool.getParameterSchema())
+                    .toList());
+        }
+        if (agent instanceof BasicAgent basicAgent && basicAgent.getLlmClient() != null) {
+            identity.put("llm_client", basicAgent.getLlmClient().getModelIdentity());
+        }
+        if (memoryContext != null) {
+            identity.put("memory_context", memoryContext);
+        }
+        identity.put("description", task.getDescription());
+        identity.put("expected_output", task.getExpectedOutput());
+        identity.put("input", canonicalInput(task.getInput()));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(MAPPER.writeValueAsBytes(identity)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Could not hash step identity.", e);
+        }
+    }
+
+    // Values Jackson cannot serialize are keyed by their string form instead.
+    private static Map<String, Object> canonicalInput(Map<String, Object> input) {
+        Map<String, Object> canonical = new TreeMap<>();
+        if (input == null) return canonical;
+        input.forEach((key, value) -> {
+            try {
+                canonical.put(key, MAPPER.readValue(MAPPER.writeValueAsString(value), Object.class));
+            } catch (JsonProcessingException e) {
+                canonical.put(key, String.valueOf(value));
+            }
+        });
+        return canonical;
+    }
+
+    public Optional<String> lookup(String key) {
+        MemoEntry entry = entries.get(key);
+        if (entry == null && directory != null) {
+            entry = readEntry(key);
+            if (entry != null) {
+                entries.putIfAbsent(key, entry);
+            }
+        }
+        if (entry == null || !versionTag.equals(entry.versionTag())) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(entry.output());
+    }
+
+    public void record(String key, String output) {
+        MemoEntry entry = new MemoEntry(versionTag, output, System.currentTimeMillis());
+        entries.put(key, entry);
+        if (directory == null) return;
+        try {
+            Files.createDirectories(directory);
+            // Write-then-rename, so a crash never leaves a half-written entry behind.
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temp, MAPPER.writeValueAsBytes(entry));
+            Files.move(temp, fileFor(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("StepMemoStore: Could not persist memo entry " + key + ". Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes every entry recorded under the given version tag, in memory and on disk.
+     *
+     * @return The number of entries removed.
+     */
+    public int invalidate(String tag) {
+        Map<String, MemoEntry> stale = new HashMap<>();
+        entries.forEach((key, entry) -> {
+            if (entry.versionTag().equals(tag)) stale.put(key, entry);
+        });
+        stale.forEach(entries::remove);
+        int removed = stale.size();
+        if (directory != null && Files.isDirectory(directory)) {
+            for (Path file : listEntryFiles()) {
+                String key = file.getFileName().toString().replace(".json", "");
+                if (stale.containsKey(key)) {
+                    deleteQuietly(file);
+                    continue;
+                }
+                MemoEntry entry = readEntry(key);
+                if (entry != null && entry.versionTag().equals(tag)) {
+                    deleteQuietly(file);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every entry, in memory and on disk.
+     */
+    public void clear() {
+        entries.clear();
+        if (directory != null && Files.isDirectory(directory)) {
+            listEntryFiles().forEach(StepMemoStore::deleteQuietly);
+        }
+    }
+
+    public String getVersionTag() {
+        return versionTag;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private Path fileFor(String key) {
+        return directory.resolve(key + ".json");
+    }
+
+    private MemoEntry readEntry(String key) {
+        Path file = fileFor(key);
+        if (!Files.exists(file)) return null;
+        try {
+            return MAPPER.readValue(Files.readString(file, StandardCharsets.UTF_8), MemoEntry.class);
+        } catch (IOException e) {
+            System.err.println("StepMemoStore: Ignoring unreadable memo entry " + file + ". Error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private List<Path> listEntryFiles() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            List<Path> result = new ArrayList<>();
+            files.forEach(result::add);
+            return result;
+        } catch (IOException e) {
+            System.err.println("StepMemoStore: Could not list " + directory + ". Error: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("StepMemoStore: Could not delete " + file + ". Error: " + e.getMessage());
+        }
+    }
+
+    private static Path resolveDirectory(String configured) {
+        return configured == null || configured.isBlank() ? null : Paths.get(configured.trim());
+    }
+}
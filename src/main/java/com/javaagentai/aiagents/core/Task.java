@@ -2,9 +2,13 @@ package com.javaagentai.aiagents.core;
 
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
+import lombok.ToString;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -35,6 +39,20 @@ public class Task {
     @Setter
     private transient CompletableFuture<String> externalCompletionHandle; // New field for HITL
 
+    // Scheduling identity used by FairScheduler; processes also pass it on through the AgentContext
+    private final String tenant;
+    private final int priority;
+
+    // Cancellation and deadline, shared with the tasks that processes derive from this one
+    @Builder.Default
+    private final transient CancellationToken cancellationToken = new CancellationToken();
+
+    // Tasks whose outputs this task consumes; used by DagProcess
+    @Builder.Default
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final List<Task> dependencies = List.of();
+
     // Constructor updated for requiresHumanInput
    /* public Task(String description, Map<String, Object> input, String expectedOutput, boolean requiresHumanInput) {
         this(description, input, expectedOutput, null, TaskStatus.PENDING, null, requiresHumanInput);
@@ -84,6 +102,33 @@ public class Task {
     }
 
 
+    /**
+     * Requests cooperative cancellation of this task and of all work executed on its behalf.
+     */
+    public void cancel() {
+        cancellationToken.cancel("Task " + id + " was cancelled.");
+    }
+
+    public boolean isCancelled() {
+        return cancellationToken.isCancelled();
+    }
+
+    /**
+     * Builder conveniences for deadlines and dependencies.
+     */
+    public static class TaskBuilder {
+        public TaskBuilder timeout(Duration timeout) {
+            return cancellationToken(CancellationToken.withTimeout(timeout));
+        }
+
+        /**
+         * Convenience for {@code dependencies(List.of(tasks))}.
+         */
+        public TaskBuilder dependsOn(Task... tasks) {
+            return dependencies(List.of(tasks));
+        }
+    }
+
     public void completeTask(TaskResult result) {
         this.status = result.status();
         if (this.callback != null) {
@@ -0,0 +1,296 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.config.Config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Task-scoped storage behind {@link AgentContext} with a bounded footprint. Each task's data lives in its
+ * own scope that is released by:
+ * <ul>
+ *     <li>{@link #completeTask(String)} - the scope is kept for the completed-task retention period
+ *     (so results can still be inspected) and then evicted; a retention of zero releases it immediately,</li>
+ *     <li>idle TTL - scopes not read or written for longer than the TTL are evicted,</li>
+ *     <li>the task limit - when more than {@code maxTasks} scopes exist, completed scopes are evicted
+ *     first, then the least recently used ones.</li>
+ * </ul>
+ * Eviction runs opportunistically on writes, so no background thread is needed. Writes and evictions of a
+ * scope are atomic with respect to each other: a write either lands before the eviction decision, which then
+ * sees the fresh access time, or creates a new scope. String values larger than
+ * the spill threshold are written to a file and only a handle is kept on the heap; they are read back
+ * transparently on retrieval and the file is deleted when the scope is released.
+ */
+public class TaskDataStore {
+
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
+
+    private final Map<String, TaskScope> scopes = new ConcurrentHashMap<>();
+    private final int maxTasks;
+    private final long idleTtlMillis;
+    private final long completedRetentionMillis;
+    private final int spillThresholdChars;
+    private final Path spillDirectory;
+    private final AtomicLong lastSweepMillis = new AtomicLong(System.currentTimeMillis());
+    private final AtomicLong evictedTasks = new AtomicLong();
+    private final AtomicLong spilledValues = new AtomicLong();
+
+    public TaskDataStore() {
+        this(Config.getTaskDataMaxTasks(),
+                Duration.ofMillis(Config.getTaskDataIdleTtlMillis()),
+                Duration.ofMillis(Config.getTaskDataCompletedRetentionMillis()),
+                Config.getTaskDataSpillThresholdChars(),
+                resolveSpillDirectory(Config.getTaskDataSpillDirectory()));
+    }
+
+    /**
+     * @param maxTasks            Maximum number of task scopes kept; values <= 0 disable the limit.
+     * @param idleTtl             Scopes idle for longer are evicted; null or zero disables the TTL.
+     * @param completedRetention  How long a completed task's scope is kept; zero releases it on completion.
+     * @param spillThresholdChars String values longer than this are spilled to disk; values <= 0 disable spilling.
+     * @param spillDirectory      Directory for spilled values; created on first use.
+     */
+    public TaskDataStore(int maxTasks, Duration idleTtl, Duration completedRetention, int spillThresholdChars, Path spillDirectory) {
+        this.maxTasks = maxTasks;
+        this.idleTtlMillis = idleTtl != null ? idleTtl.toMillis() : 0;
+        this.completedRetentionMillis = completedRetention != null ? Math.max(0, completedRetention.toMillis()) : 0;
+        this.spillThresholdChars = spillThresholdChars;
+        this.spillDirectory = spillDirectory;
+    }
+
+    public void put(String taskId, String key, Object value) {
+        Object stored = shouldSpill(value) ? spill(taskId, (String) value) : value;
+        Object[] previous = new Object[1];
+        scopes.compute(taskId, (id, scope) -> {
+            TaskScope target = scope != null ? scope : new TaskScope(id);
+            target.touch();
+            previous[0] = target.values.put(key, stored);
+            return target;
+        });
+        if (previous[0] instanceof SpilledValue spilled) {
+            spilled.delete();
+        }
+        maybeEvict();
+    }
+
+    public Object get(String taskId, String key) {
+        TaskScope scope = scopes.get(taskId);
+        if (scope == null) return null;
+        scope.touch();
+        return resolve(scope.values.get(key));
+    }
+
+    /**
+     * @return A copy of the task's data with spilled values read back, or an empty map.
+     */
+    public Map<String, Object> getAll(String taskId) {
+        TaskScope scope = scopes.get(taskId);
+        if (scope == null) return Collections.emptyMap();
+        scope.touch();
+        Map<String, Object> copy = new HashMap<>();
+        scope.values.forEach((key, value) -> {
+            Object resolved = resolve(value);
+            if (resolved != null) copy.put(key, resolved);
+        });
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Marks the task as finished. Its data is released once the completed-task retention has elapsed.
+     */
+    public void completeTask(String taskId) {
+        TaskScope scope = scopes.get(taskId);
+        if (scope == null) return;
+        if (completedRetentionMillis == 0) {
+            release(taskId);
+            return;
+        }
+        scope.completedAtMillis = System.currentTimeMillis();
+        maybeEvict();
+    }
+
+    /**
+     * Releases the task's data immediately, deleting any spilled files.
+     */
+    public void release(String taskId) {
+        TaskScope scope = scopes.remove(taskId);
+        if (scope != null) {
+            scope.deleteSpilled();
+        }
+    }
+
+    public void releaseAll() {
+        for (String taskId : List.copyOf(scopes.keySet())) {
+            release(taskId);
+        }
+    }
+
+    /**
+     * Runs TTL, retention and size-based eviction now instead of waiting for the next write.
+     */
+    public void evictExpired() {
+        lastSweepMillis.set(System.currentTimeMillis());
+        sweep();
+    }
+
+    public int getTaskCount() {
+        return scopes.size();
+    }
+
+    public long getEvictedTaskCount() {
+        return evictedTasks.get();
+    }
+
+    public long getSpilledValueCount() {
+        return spilledValues.get();
+    }
+
+    private void maybeEvict() {
+        long now = System.currentTimeMillis();
+        long last = lastSweepMillis.get();
+        boolean overLimit = maxTasks > 0 && scopes.size() > maxTasks;
+        if (overLimit || (now - last >= SWEEP_INTERVAL_MILLIS && lastSweepMillis.compareAndSet(last, now))) {
+            sweep();
+        }
+    }
+
+    private void sweep() {
+        for (TaskScope scope : scopes.values()) {
+            if (isExpired(scope, System.currentTimeMillis())) {
+                // Re-checked under the scope's lock so a write that touched it in the meantime keeps it alive.
+                evict(scope, current -> isExpired(current, System.currentTimeMillis()));
+            }
+        }
+        if (maxTasks > 0 && scopes.size() > maxTasks) {
+            // Completed scopes go first, then the least recently used. Evicting down to 90% of the limit
+            // keeps the sort from running on every new task once the store is full.
+            List<TaskScope> candidates = scopes.values().stream()
+                    .sorted(Comparator.comparing((TaskScope scope) -> scope.completedAtMillis == 0)
+                            .thenComparingLong(scope -> scope.lastAccessMillis))
+                    .toList();
+            int excess = scopes.size() - (maxTasks - maxTasks / 10);
+            for (int i = 0; i < candidates.size() && excess > 0; i++) {
+                if (evict(candidates.get(i), current -> true)) excess--;
+            }
+        }
+    }
+
+    private boolean isExpired(TaskScope scope, long now) {
+        boolean retentionElapsed = scope.completedAtMillis > 0 && now - scope.completedAtMillis >= completedRetentionMillis;
+        boolean idleExpired = idleTtlMillis > 0 && now - scope.lastAccessMillis >= idleTtlMillis;
+        return retentionElapsed || idleExpired;
+    }
+
+    /**
+     * Removes the scope if it is still mapped and still eligible. Runs under the same map lock as
+     * {@link #put}, so no write can land in a scope after it has been evicted.
+     */
+    private boolean evict(TaskScope scope, Predicate<TaskScope> stillEligible) {
+        boolean[] evicted = new boolean[1];
+        scopes.computeIfPresent(scope.taskId, (id, current) -> {
+            if (current != scope || !stillEligible.test(current)) {
+                return current;
+            }
+            evicted[0] = true;
+            return null;
+        });
+        if (evicted[0]) {
+            scope.deleteSpilled();
+            evictedTasks.incrementAndGet();
+        }
+        return evicted[0];
+    }
+
+    private boolean shouldSpill(Object value) {
+        return spillThresholdChars > 0 && spillDirectory != null
+                && value instanceof String text && text.length() > spillThresholdChars;
+    }
+
+    private Object spill(String taskId, String value) {
+        try {
+            Files.createDirectories(spillDirectory);
+            Path file = Files.createTempFile(spillDirectory, "task-", ".txt");
+            Files.writeString(file, value, StandardCharsets.UTF_8);
+            spilledValues.incrementAndGet();
+            return new SpilledValue(file);
+        } catch (IOException e) {
+            System.err.println("TaskDataStore: Could not spill value for task " + taskId + " to disk, keeping it in memory. Error: " + e.getMessage());
+            return value;
+        }
+    }
+
+    private static Object resolve(Object stored) {
+        if (stored instanceof SpilledValue spilled) {
+            try {
+                return spilled.read();
+            } catch (UncheckedIOException e) {
+                System.err.println("TaskDataStore: Could not read spilled value " + spilled.file + ". Error: " + e.getMessage());
+                return null;
+            }
+        }
+        return stored;
+    }
+
+    private static Path resolveSpillDirectory(String configured) {
+        if (configured == null || configured.isBlank()) {
+            return Paths.get(System.getProperty("java.io.tmpdir"), "crew4j-taskdata");
+        }
+        return Paths.get(configured.trim());
+    }
+
+    private static final class TaskScope {
+        final String taskId;
+        final Map<String, Object> values = new ConcurrentHashMap<>();
+        volatile long lastAccessMillis = System.currentTimeMillis();
+        volatile long completedAtMillis;
+
+        TaskScope(String taskId) {
+            this.taskId = taskId;
+        }
+
+        void touch() {
+            lastAccessMillis = System.currentTimeMillis();
+        }
+
+        void deleteSpilled() {
+            for (Object value : values.values()) {
+                if (value instanceof SpilledValue spilled) {
+                    spilled.delete();
+                }
+            }
+        }
+    }
+
+    private record SpilledValue(Path file) {
+        String read() {
+            try {
+                return Files.readString(file, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void delete() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("TaskDataStore: Could not delete spilled value " + file + ". Error: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.javaagentai.aiagents.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Pipelined batch executor. Each stage (typically one agent of a sequential chain) has its own bounded
+ * inbox and a fixed number of workers, so item N+1 can be in stage 1 while item N is in stage 2. A full
+ * inbox blocks the stage in front of it, and the number of items in flight is capped, so a slow stage
+ * or a slow consumer throttles the whole pipeline back to the source stream instead of buffering.
+ * <p>
+ * Every item runs with its own {@link AgentContext}. The output of a stage becomes the description of the
+ * item's next task, as in {@link SequentialProcess}. An item that fails or is cancelled leaves the pipeline
+ * at that stage. Results are streamed back in input order or completion order. Closing the result
+ * stream stops the pipeline.
+ */
+public class TaskPipeline {
+
+    /**
+     * One pipeline stage: runs a task in the item's context and returns its output.
+     */
+    @FunctionalInterface
+    public interface Stage extends BiFunction<Task, AgentContext, CompletableFuture<String>> {
+    }
+
+    private static final Object END = new Object();
+
+    private final List<Stage> stages;
+    private final List<String> stageNames;
+    private final int queueCapacity;
+    private final int stageConcurrency;
+    private final boolean preserveOrder;
+
+    public TaskPipeline(List<String> stageNames, List<Stage> stages, int queueCapacity, int stageConcurrency, boolean preserveOrder) {
+        if (stages.isEmpty() || stages.size() != stageNames.size()) {
+            throw new IllegalArgumentException("Pipeline needs at least one stage and a name per stage.");
+        }
+        if (queueCapacity <= 0 || stageConcurrency <= 0) {
+            throw new IllegalArgumentException("Queue capacity and stage concurrency must be positive.");
+        }
+        this.stages = List.copyOf(stages);
+        this.stageNames = List.copyOf(stageNames);
+        this.queueCapacity = queueCapacity;
+        this.stageConcurrency = stageConcurrency;
+        this.preserveOrder = preserveOrder;
+    }
+
+    /**
+     * A pipeline with one stage per agent, chaining outputs the way {@link SequentialProcess} does.
+     */
+    public static TaskPipeline sequential(List<Agent> agents, int queueCapacity, int stageConcurrency, boolean preserveOrder) {
+        return sequential(agents, null, queueCapacity, stageConcurrency, preserveOrder);
+    }
+
+    /**
+     * Like {@link #sequential(List, int, int, boolean)}, serving steps already in the memo store without
+     * invoking the agent.
+     *
+     * @param memoStore The step memo store, or null to always invoke the agents.
+     */
+    public static TaskPipeline sequential(List<Agent> agents, StepMemoStore memoStore, int queueCapacity, int stageConcurrency,
+                                          boolean preserveOrder) {
+        List<String> names = new ArrayList<>();
+        List<Stage> stages = new ArrayList<>();
+        for (Agent agent : agents) {
+            names.add(agent.getName());
+            stages.add(memoStore != null ? (task, context) -> memoStore.perform(agent, task, context) : agent::performTask);
+        }
+        return new TaskPipeline(names, stages, queueCapacity, stageConcurrency, preserveOrder);
+    }
+
+    private static final class Item {
+        final long index;
+        final Task initialTask;
+        final AgentContext context = new AgentContext();
+        Task currentTask;
+
+        Item(long index, Task initialTask) {
+            this.index = index;
+            this.initialTask = initialTask;
+            this.currentTask = initialTask;
+            this.context.setScheduling(initialTask.getTenant(), initialTask.getPriority());
+        }
+    }
+
+    /**
+     * Starts pushing the tasks through the pipeline. The source stream is consumed lazily on a background
+     * thread, only as fast as the pipeline accepts items.
+     *
+     * @return A lazily populated stream of results; close it to stop the pipeline early.
+     */
+    public Stream<BatchResult> execute(Stream<Task> tasks) {
+        Objects.requireNonNull(tasks, "Tasks cannot be null.");
+        int maxInFlight = stages.size() * (queueCapacity + stageConcurrency);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        BlockingQueue<Object> results = new LinkedBlockingQueue<>(); // Bounded in practice by the in-flight permits
+        List<BlockingQueue<Object>> inboxes = new ArrayList<>();
+        for (int i = 0; i < stages.size(); i++) {
+            inboxes.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService threads = Executors.newFixedThreadPool(stages.size() * stageConcurrency + 1, r -> {
+            Thread thread = new Thread(r, "task-pipeline-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        threads.execute(() -> feed(tasks, inboxes.get(0), inFlight, results));
+        for (int stage = 0; stage < stages.size(); stage++) {
+            AtomicInteger liveWorkers = new AtomicInteger(stageConcurrency);
+            for (int worker = 0; worker < stageConcurrency; worker++) {
+                int stageIndex = stage;
+                threads.execute(() -> work(stageIndex, inboxes, results, liveWorkers));
+            }
+        }
+        threads.shutdown(); // Threads exit once the END markers have passed through every stage
+
+        Iterator<BatchResult> iterator = new ResultIterator(results, inFlight);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(threads::shutdownNow);
+    }
+
+    private void feed(Stream<Task> tasks, BlockingQueue<Object> firstInbox, Semaphore inFlight, BlockingQueue<Object> results) {
+        long index = 0;
+        try (tasks) {
+            Iterator<Task> source = tasks.iterator();
+            while (source.hasNext()) {
+                Task task = source.next();
+                inFlight.acquire(); // Backpressure: wait until the consumer has taken enough results
+                firstInbox.put(new Item(index++, task));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RuntimeException e) {
+            System.err.println("TaskPipeline: Source stream failed after " + index + " tasks. Error: " + e.getMessage());
+        }
+        try {
+            for (int i = 0; i < stageConcurrency; i++) {
+                firstInbox.put(END);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void work(int stageIndex, List<BlockingQueue<Object>> inboxes, BlockingQueue<Object> results, AtomicInteger liveWorkers) {
+        BlockingQueue<Object> inbox = inboxes.get(stageIndex);
+        boolean lastStage = stageIndex == stages.size() - 1;
+        try {
+            while (true) {
+                Object next = inbox.take();
+                if (next == END) {
+                    break;
+                }
+                Item item = (Item) next;
+                BatchResult finished = runStage(stageIndex, item, lastStage);
+                if (finished != null) {
+                    results.put(finished);
+                } else {
+                    inboxes.get(stageIndex + 1).put(item); // Blocks while the next stage is saturated
+                }
+            }
+            // The last worker of a stage to see END passes it on, after every item of this stage was forwarded.
+            if (liveWorkers.decrementAndGet() == 0) {
+                if (lastStage) {
+                    results.put(END);
+                } else {
+                    for (int i = 0; i < stageConcurrency; i++) {
+                        inboxes.get(stageIndex + 1).put(END);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return The item's final result if it leaves the pipeline at this stage, or null to forward it.
+     */
+    private BatchResult runStage(int stageIndex, Item item, boolean lastStage) {
+        Task task = item.currentTask;
+        CancellationToken cancellationToken = item.initialTask.getCancellationToken();
+        if (cancellationToken.isCancelled()) {
+            return finish(item, new TaskResult(TaskStatus.CANCELLED, null, cancellationToken.getCancellationReason()));
+        }
+        item.context.log("TASK_PIPELINE: Stage " + stageNames.get(stageIndex) + " starting item " + item.index + ": " + task.getDescription());
+        String output;
+        try {
+            output = stages.get(stageIndex).apply(task, item.context).join();
+        } catch (RuntimeException e) {
+            if (cancellationToken.isCancelled() || CancellationToken.isCancellation(e)) {
+                return finish(item, new TaskResult(TaskStatus.CANCELLED, null, cancellationToken.getCancellationReason()));
+            }
+            String error = "Stage " + stageNames.get(stageIndex) + " failed: " + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            return finish(item, new TaskResult(TaskStatus.FAILED, null, error));
+        }
+        if (task.getStatus() == TaskStatus.FAILED) {
+            return finish(item, new TaskResult(TaskStatus.FAILED, null, "Stage " + stageNames.get(stageIndex) + " failed: " + output));
+        }
+        if (lastStage) {
+            return finish(item, new TaskResult(TaskStatus.COMPLETED, output));
+        }
+        item.currentTask = Task.builder()
+                .description(output)
+                .input(item.context.getSharedMemory())
+                .expectedOutput(task.getExpectedOutput())
+                .status(TaskStatus.PENDING)
+                .cancellationToken(cancellationToken)
+                .build();
+        return null;
+    }
+
+    private BatchResult finish(Item item, TaskResult result) {
+        item.initialTask.setStatus(result.status());
+        if (item.initialTask.getCallback() != null) {
+            item.initialTask.getCallback().accept(result);
+        }
+        item.context.clearAllTaskData();
+        return new BatchResult(item.index, item.initialTask, result);
+    }
+
+    /**
+     * Hands results to the consumer, reordering them by input index if required, and releases an
+     * in-flight permit for each result taken.
+     */
+    private final class ResultIterator implements Iterator<BatchResult> {
+        private final BlockingQueue<Object> results;
+        private final Semaphore inFlight;
+        private final Map<Long, BatchResult> reorderBuffer = new HashMap<>();
+        private long nextIndex;
+        private boolean ended;
+        private BatchResult next;
+
+        ResultIterator(BlockingQueue<Object> results, Semaphore inFlight) {
+            this.results = results;
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (preserveOrder && reorderBuffer.containsKey(nextIndex)) {
+                    next = reorderBuffer.remove(nextIndex++);
+                    break;
+                }
+                if (ended) {
+                    return false;
+                }
+                Object taken;
+                try {
+                    taken = results.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                if (taken == END) {
+                    ended = true;
+                    continue;
+                }
+                BatchResult result = (BatchResult) taken;
+                if (!preserveOrder) {
+                    next = result;
+                } else {
+                    reorderBuffer.put(result.index(), result);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public BatchResult next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            BatchResult result = next;
+            next = null;
+            inFlight.release();
+            return result;
+        }
+    }
+}
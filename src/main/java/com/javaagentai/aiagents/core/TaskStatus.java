@@ -8,5 +8,6 @@ public enum TaskStatus {
     IN_PROGRESS,
     COMPLETED,
     FAILED,
-    AWAITING_HUMAN_INPUT // New status for HITL
+    AWAITING_HUMAN_INPUT, // New status for HITL
+    CANCELLED // Cancelled by the caller or stopped by its deadline
 }
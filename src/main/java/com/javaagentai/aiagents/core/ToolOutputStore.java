@@ -0,0 +1,117 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.config.Config;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Keeps the full text of tool outputs that {@link ConversationHistory} truncated in the prompt. Each output is
+ * written to its own file, named after the task and the call, and is addressed by the reference key placed
+ * in the truncated turn. Files outlive the task so the output can still be looked up after the agent is done;
+ * they are deleted once they are older than the retention period, checked opportunistically on writes.
+ */
+public class ToolOutputStore {
+
+    public static final String REFERENCE_PREFIX = "tool_output_ref:";
+
+    private static final long SWEEP_INTERVAL_MILLIS = 60_000;
+
+    private final Path directory;
+    private final long retentionMillis;
+    private final AtomicLong lastSweepMillis = new AtomicLong();
+
+    public ToolOutputStore() {
+        this(resolveDirectory(Config.getToolOutputDirectory()), Duration.ofMillis(Config.getToolOutputRetentionMillis()));
+    }
+
+    /**
+     * @param directory Directory for the stored outputs; created on first use.
+     * @param retention How long stored outputs are kept; null or zero keeps them until deleted by hand.
+     */
+    public ToolOutputStore(Path directory, Duration retention) {
+        this.directory = directory;
+        this.retentionMillis = retention != null ? Math.max(0, retention.toMillis()) : 0;
+    }
+
+    /**
+     * Writes the output and returns the reference key it can be loaded with.
+     *
+     * @throws UncheckedIOException if the output cannot be written.
+     */
+    public String store(String taskId, String toolName, int call, String output) {
+        String name = sanitize(taskId) + "_" + sanitize(toolName) + "_" + call;
+        try {
+            Files.createDirectories(directory);
+            Files.writeString(directory.resolve(name + ".txt"), output, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store output of tool " + toolName + " for task " + taskId, e);
+        }
+        maybeSweep();
+        return REFERENCE_PREFIX + name;
+    }
+
+    /**
+     * @return The full output stored under the reference, or empty if it is unknown or has expired.
+     */
+    public Optional<String> load(String reference) {
+        if (reference == null || !reference.startsWith(REFERENCE_PREFIX)) {
+            return Optional.empty();
+        }
+        String name = reference.substring(REFERENCE_PREFIX.length()).trim();
+        if (name.isEmpty() || !name.equals(sanitize(name))) {
+            return Optional.empty(); // Not a key this store handed out; never resolve paths outside the directory
+        }
+        try {
+            return Optional.of(Files.readString(directory.resolve(name + ".txt"), StandardCharsets.UTF_8));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            System.err.println("ToolOutputStore: Could not read stored output " + reference + ". Error: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private void maybeSweep() {
+        long now = System.currentTimeMillis();
+        long last = lastSweepMillis.get();
+        if (retentionMillis == 0 || now - last < SWEEP_INTERVAL_MILLIS || !lastSweepMillis.compareAndSet(last, now)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.txt")) {
+            for (Path file : files) {
+                if (now - Files.getLastModifiedTime(file).toMillis() >= retentionMillis) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("ToolOutputStore: Could not delete expired outputs in " + directory + ". Error: " + e.getMessage());
+        }
+    }
+
+    private static String sanitize(String value) {
+        return String.valueOf(value).replaceAll("[^A-Za-z0-9_.-]", "-").replace("..", "--");
+    }
+
+    private static Path resolveDirectory(String configured) {
+        if (configured == null || configured.isBlank()) {
+            return Paths.get(System.getProperty("java.io.tmpdir"), "crew4j-tool-outputs");
+        }
+        return Paths.get(configured.trim());
+    }
+}
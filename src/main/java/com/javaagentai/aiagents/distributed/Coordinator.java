@@ -0,0 +1,204 @@
+package com.javaagentai.aiagents.distributed;
+
+import com.javaagentai.aiagents.config.Config;
+import com.javaagentai.aiagents.core.AgentContext;
+import com.javaagentai.aiagents.core.EventLevel;
+import com.javaagentai.aiagents.core.EventLog;
+import com.javaagentai.aiagents.core.Task;
+import com.javaagentai.aiagents.core.TaskStatus;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Dispatches agent steps to {@link WorkerNode}s in other JVMs. The coordinator connects to every worker,
+ * learns which agents each one registered and hands out {@link RemoteAgent} proxies that plug into a
+ * {@code Crew} like local agents, so any process strategy can run on remote workers unchanged.
+ * <p>
+ * A step goes to the least busy live worker that has the agent. Workers are watched with heartbeats; when
+ * one dies or stops answering, its pending steps are sent again to another worker, up to
+ * {@code maxAttempts} times in total. A step can therefore run more than once if a worker dies after doing
+ * the work but before its result arrived. Lost workers are reconnected on later heartbeats.
+ * <p>
+ * Workers connecting and getting lost are recorded in the coordinator's {@link EventLog} rather than printed,
+ * since a flapping worker would otherwise flood the error stream.
+ */
+public class Coordinator implements AutoCloseable {
+
+    private final List<WorkerClient> workers = new ArrayList<>();
+    private final long heartbeatTimeoutMillis;
+    private final int maxAttempts;
+    private final EventLog eventLog;
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "coordinator-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public Coordinator(List<InetSocketAddress> workerAddresses) {
+        this(workerAddresses, Duration.ofMillis(Config.getDistributedHeartbeatIntervalMillis()),
+                Duration.ofMillis(Config.getDistributedHeartbeatTimeoutMillis()), Config.getDistributedMaxAttempts());
+    }
+
+    /**
+     * Connects to the workers; unreachable ones are retried on every heartbeat.
+     *
+     * @param heartbeatInterval How often workers are pinged and lost workers reconnected.
+     * @param heartbeatTimeout  Silence after which a worker counts as lost.
+     * @param maxAttempts       Workers a step is tried on before it fails.
+     */
+    public Coordinator(List<InetSocketAddress> workerAddresses, Duration heartbeatInterval, Duration heartbeatTimeout, int maxAttempts) {
+        this(workerAddresses, heartbeatInterval, heartbeatTimeout, maxAttempts, Config.getDistributedMaxFrameBytes());
+    }
+
+    /**
+     * @param maxFrameBytes Largest message exchanged with a worker; a step whose request or result is larger fails
+     *                      on its own without affecting the connection.
+     */
+    public Coordinator(List<InetSocketAddress> workerAddresses, Duration heartbeatInterval, Duration heartbeatTimeout, int maxAttempts,
+                       int maxFrameBytes) {
+        this(workerAddresses, heartbeatInterval, heartbeatTimeout, maxAttempts, maxFrameBytes, new EventLog());
+    }
+
+    /**
+     * @param eventLog Receives worker connection events, e.g. the crew's {@code AgentContext.getEventLog()}.
+     */
+    public Coordinator(List<InetSocketAddress> workerAddresses, Duration heartbeatInterval, Duration heartbeatTimeout, int maxAttempts,
+                       int maxFrameBytes, EventLog eventLog) {
+        Objects.requireNonNull(workerAddresses, "Worker addresses cannot be null.");
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Max attempts must be positive.");
+        }
+        this.heartbeatTimeoutMillis = heartbeatTimeout.toMillis();
+        this.maxAttempts = maxAttempts;
+        this.eventLog = Objects.requireNonNull(eventLog, "Event log cannot be null.");
+        for (InetSocketAddress address : workerAddresses) {
+            WorkerClient worker = new WorkerClient(address, maxFrameBytes, eventLog);
+            workers.add(worker);
+            tryConnect(worker);
+        }
+        long intervalMillis = heartbeatInterval.toMillis();
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return A proxy for the named agent.
+     * @throws IllegalArgumentException if no connected worker has registered the agent.
+     */
+    public RemoteAgent agent(String name) {
+        String role = getAgentRoles().get(name);
+        if (role == null) {
+            throw new IllegalArgumentException("No connected worker has agent: " + name);
+        }
+        return new RemoteAgent(name, role, this);
+    }
+
+    /**
+     * @return Agent names registered on the connected workers, mapped to their roles.
+     */
+    public Map<String, String> getAgentRoles() {
+        Map<String, String> roles = new LinkedHashMap<>();
+        for (WorkerClient worker : workers) {
+            if (worker.isAlive()) {
+                worker.getAgentRoles().forEach(roles::putIfAbsent);
+            }
+        }
+        return roles;
+    }
+
+    public EventLog getEventLog() {
+        return eventLog;
+    }
+
+    public int getLiveWorkerCount() {
+        return (int) workers.stream().filter(WorkerClient::isAlive).count();
+    }
+
+    /**
+     * Runs the step on a worker that has the agent and fails it over to another one if that worker is lost.
+     * Cancelling the task withdraws the step from the worker.
+     */
+    CompletableFuture<String> dispatch(String agentName, Task task, AgentContext context) {
+        String tenant = task.getTenant() != null ? task.getTenant() : context.getTenant();
+        int priority = task.getPriority() != 0 ? task.getPriority() : context.getPriority();
+        return attempt(agentName, task, tenant, priority, context, 1, new HashSet<>());
+    }
+
+    private CompletableFuture<String> attempt(String agentName, Task task, String tenant, int priority, AgentContext context,
+                                              int attempt, Set<WorkerClient> tried) {
+        WorkerClient worker = pickWorker(agentName, tried);
+        if (worker == null) {
+            return CompletableFuture.failedFuture(new IOException("No live worker has agent: " + agentName));
+        }
+        tried.add(worker);
+        long timeoutMillis = task.getCancellationToken().remaining().map(left -> Math.max(1, left.toMillis())).orElse(0L);
+        WireCodec.StepRequest request = new WireCodec.StepRequest(agentName, task.getId(), task.getDescription(), task.getInput(),
+                task.getExpectedOutput(), tenant, priority, timeoutMillis);
+        context.log("COORDINATOR: Sending task " + task.getId() + " for agent " + agentName + " to worker " + worker.getAddress()
+                + " (attempt " + attempt + ")");
+        CompletableFuture<WireCodec.StepResult> call = task.getCancellationToken().track(worker.execute(request));
+        return call.handle((result, error) -> {
+            if (error == null) {
+                task.setStatus(TaskStatus.valueOf(result.status()));
+                return CompletableFuture.completedFuture(result.output());
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof IOException && attempt < maxAttempts && !task.isCancelled()) {
+                context.log("COORDINATOR: Failing over task " + task.getId() + " after: " + cause.getMessage());
+                return attempt(agentName, task, tenant, priority, context, attempt + 1, tried);
+            }
+            return CompletableFuture.<String>failedFuture(cause);
+        }).thenCompose(next -> next);
+    }
+
+    /**
+     * Picks the live worker with the fewest pending steps, preferring workers this step has not been tried on.
+     */
+    private WorkerClient pickWorker(String agentName, Set<WorkerClient> tried) {
+        Comparator<WorkerClient> order = Comparator.comparing((WorkerClient w) -> tried.contains(w))
+                .thenComparingInt(WorkerClient::getPendingCount);
+        return workers.stream().filter(w -> w.hasAgent(agentName)).min(order).orElse(null);
+    }
+
+    private void heartbeat() {
+        for (WorkerClient worker : workers) {
+            if (worker.isAlive()) {
+                worker.heartbeat(heartbeatTimeoutMillis);
+            } else {
+                tryConnect(worker);
+            }
+        }
+    }
+
+    private void tryConnect(WorkerClient worker) {
+        try {
+            worker.connect((int) Math.min(Integer.MAX_VALUE, heartbeatTimeoutMillis));
+            eventLog.append(EventLevel.INFO, "worker.connected",
+                    () -> "COORDINATOR: Connected to worker " + worker.getAddress() + " with agents " + worker.getAgentRoles().keySet());
+        } catch (IOException e) {
+            // Retried on the next heartbeat
+        }
+    }
+
+    @Override
+    public void close() {
+        heartbeats.shutdownNow();
+        workers.forEach(WorkerClient::close);
+    }
+}
@@ -0,0 +1,91 @@
+package com.javaagentai.aiagents.distributed;
+
+import com.javaagentai.aiagents.core.Agent;
+import com.javaagentai.aiagents.core.AgentContext;
+import com.javaagentai.aiagents.core.CancellationToken;
+import com.javaagentai.aiagents.core.Task;
+import com.javaagentai.aiagents.core.TaskResult;
+import com.javaagentai.aiagents.core.TaskStatus;
+import com.javaagentai.aiagents.memory.Memory;
+import com.javaagentai.aiagents.memory.ShortTermMemory;
+import com.javaagentai.aiagents.tools.Tool;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Local stand-in for an agent registered on a {@link WorkerNode}; obtained from {@link Coordinator#agent(String)}.
+ * The agent's tools and working memory live on the worker; the local memory only records the results of
+ * steps dispatched from here.
+ */
+public class RemoteAgent implements Agent {
+
+    private final String name;
+    private final String role;
+    private final Coordinator coordinator;
+    private final Memory memory = new ShortTermMemory(100); // Recent results only
+
+    RemoteAgent(String name, String role, Coordinator coordinator) {
+        this.name = name;
+        this.role = role;
+        this.coordinator = coordinator;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getRole() {
+        return role;
+    }
+
+    @Override
+    public List<Tool> getTools() {
+        return List.of();
+    }
+
+    @Override
+    public Memory getMemory() {
+        return memory;
+    }
+
+    @Override
+    public CompletableFuture<String> performTask(Task task, AgentContext context) {
+        context.log(name + " (remote) received task: " + task.getDescription() + " (ID: " + task.getId() + ")");
+        task.setAssignedAgent(this);
+        if (task.isRequiresHumanInput() && task.getHumanInput() == null) {
+            return fail(task, context, "Tasks requiring human input cannot run on remote agents.");
+        }
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        return coordinator.dispatch(name, task, context).handle((output, error) -> {
+            if (error != null) {
+                if (CancellationToken.isCancellation(error) || task.isCancelled()) {
+                    task.setStatus(TaskStatus.CANCELLED);
+                    context.log(name + " (remote) stopped task " + task.getId() + " because it was cancelled.");
+                    return CompletableFuture.<String>failedFuture(error);
+                }
+                return fail(task, context, error.getMessage());
+            }
+            memory.add("remote_result:" + task.getId(), output);
+            if (task.getCallback() != null) {
+                task.getCallback().accept(task.getStatus() == TaskStatus.FAILED
+                        ? new TaskResult(TaskStatus.FAILED, null, output)
+                        : new TaskResult(task.getStatus(), output));
+            }
+            return CompletableFuture.completedFuture(output);
+        }).thenCompose(next -> next).whenComplete((output, error) -> context.completeTask(task.getId()));
+    }
+
+    private CompletableFuture<String> fail(Task task, AgentContext context, String reason) {
+        context.log(name + " (remote) failed task " + task.getId() + ". Error: " + reason);
+        task.setStatus(TaskStatus.FAILED);
+        if (task.getCallback() != null) {
+            task.getCallback().accept(new TaskResult(TaskStatus.FAILED, null, reason));
+        }
+        return CompletableFuture.failedFuture(new IllegalStateException(name + " (remote) failed: " + reason));
+    }
+}
@@ -0,0 +1,153 @@
+package com.javaagentai.aiagents.distributed;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Wire format shared by {@link WorkerNode} and {@link Coordinator}. Every message is one frame:
+ * <pre>
+ *   int    length of the rest of the frame
+ *   byte   message type; the high bit marks a gzipped body
+ *   long   request id (0 for connection-level messages)
+ *   byte[] body, JSON; empty for PING, PONG and CANCEL
+ * </pre>
+ * The header is binary, so heartbeats and cancellations cost 13 bytes. Bodies are JSON because task inputs
+ * are arbitrary maps; bodies over {@link #COMPRESS_THRESHOLD} bytes are gzipped.
+ */
+final class WireCodec {
+
+    static final byte HELLO = 1;   // Coordinator asks which agents the worker has
+    static final byte AGENTS = 2;  // Worker answers with List<AgentInfo>
+    static final byte EXECUTE = 3; // Coordinator sends a StepRequest
+    static final byte RESULT = 4;  // Worker answers with a StepResult
+    static final byte CANCEL = 5;  // Coordinator withdraws a request
+    static final byte PING = 6;
+    static final byte PONG = 7;
+
+    private static final int GZIP_FLAG = 0x80;
+    private static final int HEADER_BYTES = 1 + 8;
+    static final int COMPRESS_THRESHOLD = 4096;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    record Frame(byte type, long requestId, byte[] body) {
+    }
+
+    record AgentInfo(String name, String role) {
+    }
+
+    /**
+     * One agent step. The deadline travels as the time left, since worker clocks may differ.
+     */
+    record StepRequest(String agentName, String taskId, String description, Map<String, Object> input,
+                       String expectedOutput, String tenant, int priority, long timeoutMillis) {
+    }
+
+    record StepResult(String status, String output) {
+    }
+
+    private WireCodec() {
+    }
+
+    /**
+     * Writes one frame. Callers writing from several threads must hold the stream's lock.
+     *
+     * @throws IllegalArgumentException if the frame is larger than {@code maxFrameBytes}; nothing is written.
+     */
+    static void write(DataOutputStream out, byte type, long requestId, Object body, int maxFrameBytes) throws IOException {
+        write(out, encode(type, requestId, body, maxFrameBytes));
+    }
+
+    /**
+     * Writes a frame built by {@link #encode}. Callers writing from several threads must hold the stream's lock.
+     */
+    static void write(DataOutputStream out, byte[] frame) throws IOException {
+        out.write(frame);
+        out.flush();
+    }
+
+    /**
+     * Serializes one frame, length prefix included, without touching the connection. A body that cannot be
+     * serialized or does not fit is a problem of that one message, so it is reported as an
+     * {@link IllegalArgumentException} rather than an {@link IOException}, which callers take as a broken connection.
+     */
+    static byte[] encode(byte type, long requestId, Object body, int maxFrameBytes) {
+        byte[] payload;
+        int flaggedType = type;
+        try {
+            payload = body != null ? MAPPER.writeValueAsBytes(body) : new byte[0];
+            if (HEADER_BYTES + payload.length > maxFrameBytes) { // Also bounds the receiver's decompressed size
+                throw new IllegalArgumentException("Frame of " + (HEADER_BYTES + payload.length) + " bytes exceeds the limit of " + maxFrameBytes + ".");
+            }
+            if (payload.length > COMPRESS_THRESHOLD) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(payload.length / 4);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                    gzip.write(payload);
+                }
+                payload = compressed.toByteArray();
+                flaggedType |= GZIP_FLAG;
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot encode frame body: " + e.getMessage(), e);
+        }
+        if (HEADER_BYTES + payload.length > maxFrameBytes) {
+            throw new IllegalArgumentException("Frame of " + (HEADER_BYTES + payload.length) + " bytes exceeds the limit of " + maxFrameBytes + ".");
+        }
+        ByteBuffer frame = ByteBuffer.allocate(4 + HEADER_BYTES + payload.length);
+        frame.putInt(HEADER_BYTES + payload.length);
+        frame.put((byte) flaggedType);
+        frame.putLong(requestId);
+        frame.put(payload);
+        return frame.array();
+    }
+
+    static Frame read(DataInputStream in, int maxFrameBytes) throws IOException {
+        int length = in.readInt();
+        if (length < HEADER_BYTES || length > maxFrameBytes) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        int flaggedType = in.readUnsignedByte();
+        long requestId = in.readLong();
+        byte[] payload = new byte[length - HEADER_BYTES];
+        in.readFully(payload);
+        if ((flaggedType & GZIP_FLAG) != 0) {
+            payload = inflate(payload, maxFrameBytes - HEADER_BYTES);
+        }
+        return new Frame((byte) (flaggedType & ~GZIP_FLAG), requestId, payload);
+    }
+
+    /**
+     * Decompresses a body, giving up as soon as it grows past {@code maxBytes}, so a small frame cannot expand
+     * into an unbounded allocation. Peers never send such a frame (see {@link #encode}), so it fails the connection.
+     */
+    private static byte[] inflate(byte[] compressed, int maxBytes) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            byte[] body = gzip.readNBytes(maxBytes);
+            if (gzip.read() != -1) {
+                throw new IOException("Decompressed frame body exceeds the limit of " + maxBytes + " bytes.");
+            }
+            return body;
+        }
+    }
+
+    static <T> T decode(Frame frame, Class<T> type) throws IOException {
+        return MAPPER.readValue(frame.body(), type);
+    }
+
+    static List<AgentInfo> decodeAgents(Frame frame) throws IOException {
+        return MAPPER.readValue(frame.body(), new TypeReference<List<AgentInfo>>() {
+        });
+    }
+}
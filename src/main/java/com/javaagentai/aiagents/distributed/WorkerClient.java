@@ -0,0 +1,213 @@
+package com.javaagentai.aiagents.distributed;
+
+import com.javaagentai.aiagents.core.EventLevel;
+import com.javaagentai.aiagents.core.EventLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * The coordinator's connection to one worker. Requests are multiplexed over a single socket and matched to
+ * results by request id. When the connection breaks or the worker stops answering heartbeats, every pending
+ * request fails with an {@link IOException}, which the coordinator takes as the signal to fail over. A request
+ * too large for a frame fails on its own with an {@link IllegalArgumentException} and leaves the connection up.
+ */
+final class WorkerClient {
+
+    private final InetSocketAddress address;
+    private final int maxFrameBytes;
+    private final EventLog eventLog;
+    private final Map<Long, CompletableFuture<WireCodec.StepResult>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong requestIds = new AtomicLong();
+    private volatile Map<String, String> agentRoles = Map.of();
+    private volatile boolean alive;
+    private volatile long lastHeardMillis;
+    private Socket socket;
+    private DataOutputStream out;
+
+    WorkerClient(InetSocketAddress address, int maxFrameBytes, EventLog eventLog) {
+        this.address = address;
+        this.maxFrameBytes = maxFrameBytes;
+        this.eventLog = eventLog;
+    }
+
+    /**
+     * Connects and asks the worker for its agents. Blocks for at most {@code timeoutMillis} per phase.
+     */
+    synchronized void connect(int timeoutMillis) throws IOException {
+        if (alive) return;
+        Socket newSocket = new Socket();
+        try {
+            newSocket.connect(address, timeoutMillis);
+            newSocket.setTcpNoDelay(true);
+            newSocket.setSoTimeout(timeoutMillis);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(newSocket.getInputStream()));
+            DataOutputStream newOut = new DataOutputStream(new BufferedOutputStream(newSocket.getOutputStream()));
+            WireCodec.write(newOut, WireCodec.HELLO, 0, null, maxFrameBytes);
+            WireCodec.Frame reply = WireCodec.read(in, maxFrameBytes);
+            if (reply.type() != WireCodec.AGENTS) {
+                throw new IOException("Unexpected reply to HELLO: " + reply.type());
+            }
+            Map<String, String> roles = new LinkedHashMap<>();
+            for (WireCodec.AgentInfo info : WireCodec.decodeAgents(reply)) {
+                roles.put(info.name(), info.role());
+            }
+            newSocket.setSoTimeout(0); // Liveness is checked by heartbeats from here on
+            socket = newSocket;
+            out = newOut;
+            agentRoles = roles;
+            lastHeardMillis = System.currentTimeMillis();
+            alive = true;
+            Thread reader = new Thread(() -> readLoop(newSocket, in), "coordinator-" + address.getPort());
+            reader.setDaemon(true);
+            reader.start();
+        } catch (IOException e) {
+            newSocket.close();
+            throw e;
+        }
+    }
+
+    CompletableFuture<WireCodec.StepResult> execute(WireCodec.StepRequest request) {
+        long requestId = requestIds.incrementAndGet();
+        CompletableFuture<WireCodec.StepResult> result = new CompletableFuture<>();
+        pending.put(requestId, result);
+        result.whenComplete((value, error) -> {
+            pending.remove(requestId);
+            if (result.isCancelled() && alive) {
+                try {
+                    send(WireCodec.CANCEL, requestId, null);
+                } catch (IOException e) {
+                    fail(e);
+                }
+            }
+        });
+        if (!alive) { // Lost between choosing this worker and registering the request
+            result.completeExceptionally(new IOException("Worker " + address + " is not connected."));
+            return result;
+        }
+        try {
+            send(WireCodec.EXECUTE, requestId, request);
+        } catch (IllegalArgumentException e) {
+            // Too large for a frame: only this request fails, the connection is fine
+            result.completeExceptionally(e);
+        } catch (IOException e) {
+            fail(e);
+        }
+        return result;
+    }
+
+    /**
+     * Sends a heartbeat, or gives the worker up if nothing was heard from it within {@code timeoutMillis}.
+     */
+    void heartbeat(long timeoutMillis) {
+        if (!alive) return;
+        if (System.currentTimeMillis() - lastHeardMillis > timeoutMillis) {
+            fail(new IOException("No heartbeat for " + timeoutMillis + " ms."));
+            return;
+        }
+        try {
+            send(WireCodec.PING, 0, null);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void readLoop(Socket readerSocket, DataInputStream in) {
+        try {
+            while (true) {
+                WireCodec.Frame frame = WireCodec.read(in, maxFrameBytes);
+                lastHeardMillis = System.currentTimeMillis();
+                if (frame.type() == WireCodec.RESULT) {
+                    CompletableFuture<WireCodec.StepResult> result = pending.remove(frame.requestId());
+                    if (result != null) {
+                        result.complete(WireCodec.decode(frame, WireCodec.StepResult.class));
+                    }
+                } else if (frame.type() != WireCodec.PONG) {
+                    throw new IOException("Unexpected frame type " + frame.type());
+                }
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                if (socket != readerSocket) return; // A newer connection has replaced this one
+            }
+            fail(e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the body does not fit in a frame; nothing is sent.
+     */
+    private void send(byte type, long requestId, Object body) throws IOException {
+        byte[] frame = WireCodec.encode(type, requestId, body, maxFrameBytes);
+        DataOutputStream current;
+        synchronized (this) {
+            current = out;
+        }
+        if (current == null) {
+            throw new IOException("Worker " + address + " is not connected.");
+        }
+        synchronized (current) {
+            WireCodec.write(current, frame);
+        }
+    }
+
+    /**
+     * Marks the worker lost, closes the connection and fails its pending requests.
+     */
+    void fail(IOException cause) {
+        synchronized (this) {
+            if (!alive) return;
+            alive = false;
+            out = null;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already broken
+            }
+        }
+        eventLog.append(EventLevel.WARN, "worker.lost", () -> "COORDINATOR: Lost worker " + address + ": " + cause.getMessage());
+        for (Long requestId : List.copyOf(pending.keySet())) {
+            CompletableFuture<WireCodec.StepResult> result = pending.remove(requestId);
+            if (result != null) {
+                result.completeExceptionally(new IOException("Worker " + address + " lost: " + cause.getMessage(), cause));
+            }
+        }
+    }
+
+    boolean isAlive() {
+        return alive;
+    }
+
+    boolean hasAgent(String name) {
+        return alive && agentRoles.containsKey(name);
+    }
+
+    Map<String, String> getAgentRoles() {
+        return agentRoles;
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    InetSocketAddress getAddress() {
+        return address;
+    }
+
+    void close() {
+        fail(new IOException("Coordinator closed."));
+    }
+}
@@ -0,0 +1,268 @@
+package com.javaagentai.aiagents.distributed;
+
+import com.javaagentai.aiagents.config.Config;
+import com.javaagentai.aiagents.core.Agent;
+import com.javaagentai.aiagents.core.AgentContext;
+import com.javaagentai.aiagents.core.CancellationToken;
+import com.javaagentai.aiagents.core.EventLevel;
+import com.javaagentai.aiagents.core.EventLog;
+import com.javaagentai.aiagents.core.Task;
+import com.javaagentai.aiagents.core.TaskStatus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Runs agent steps on behalf of a {@link Coordinator} in another JVM. Agents are registered by name; the
+ * coordinator learns the names when it connects and sends steps for them over TCP (see {@link WireCodec}).
+ * Each step runs with a fresh {@link AgentContext} carrying the task's tenant and priority, so a worker's
+ * agents can share a {@code FairScheduler}. If the coordinator disconnects, its running steps are cancelled.
+ * <p>
+ * Tasks that require human input are not supported: the waiting task would be unreachable from the coordinator.
+ * Listening and dropped coordinator connections are recorded in the node's {@link EventLog}.
+ */
+public class WorkerNode implements AutoCloseable {
+
+    private final Map<String, Agent> agents = new ConcurrentHashMap<>();
+    private final ServerSocket serverSocket;
+    private final int maxFrameBytes;
+    private final EventLog eventLog;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ExecutorService threads = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "worker-node-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean closed;
+
+    /**
+     * @param port Port to listen on; 0 picks a free one (see {@link #getPort()}).
+     */
+    public WorkerNode(int port) throws IOException {
+        this(port, Config.getDistributedMaxFrameBytes());
+    }
+
+    public WorkerNode(int port, int maxFrameBytes) throws IOException {
+        this(port, maxFrameBytes, new EventLog());
+    }
+
+    public WorkerNode(int port, int maxFrameBytes, EventLog eventLog) throws IOException {
+        this.eventLog = Objects.requireNonNull(eventLog, "Event log cannot be null.");
+        this.serverSocket = new ServerSocket(port);
+        this.maxFrameBytes = maxFrameBytes;
+    }
+
+    /**
+     * Makes the agent available to coordinators that connect after this call.
+     */
+    public WorkerNode register(Agent agent) {
+        agents.put(agent.getName(), agent);
+        return this;
+    }
+
+    /**
+     * Starts accepting coordinator connections.
+     */
+    public WorkerNode start() {
+        threads.execute(this::acceptLoop);
+        eventLog.append(EventLevel.INFO, "worker.listening", () -> "WORKER_NODE: Listening on port " + getPort() + " with agents " + agents.keySet());
+        return this;
+    }
+
+    public EventLog getEventLog() {
+        return eventLog;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return Number of steps currently running on this worker.
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                threads.execute(connection::readLoop);
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("WORKER_NODE: Failed to accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops listening and drops all connections; coordinators see the worker as lost and move its steps elsewhere.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("WORKER_NODE: Failed to close server socket: " + e.getMessage());
+        }
+        connections.forEach(Connection::close);
+        threads.shutdownNow();
+    }
+
+    /**
+     * One coordinator connection. Frames are read on one thread; results are written from agent callbacks.
+     */
+    private final class Connection {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final Map<Long, Task> running = new ConcurrentHashMap<>();
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        void readLoop() {
+            try {
+                while (!closed) {
+                    WireCodec.Frame frame = WireCodec.read(in, maxFrameBytes);
+                    switch (frame.type()) {
+                        case WireCodec.HELLO -> send(WireCodec.AGENTS, 0, agents.values().stream()
+                                .map(agent -> new WireCodec.AgentInfo(agent.getName(), agent.getRole()))
+                                .toList());
+                        case WireCodec.PING -> send(WireCodec.PONG, 0, null);
+                        case WireCodec.EXECUTE -> execute(frame.requestId(), WireCodec.decode(frame, WireCodec.StepRequest.class));
+                        case WireCodec.CANCEL -> {
+                            Task task = running.get(frame.requestId());
+                            if (task != null) {
+                                task.cancel();
+                            }
+                        }
+                        default -> throw new IOException("Unexpected frame type " + frame.type());
+                    }
+                }
+            } catch (EOFException | SocketException e) {
+                // Coordinator went away or the node is closing
+            } catch (IOException e) {
+                eventLog.append(EventLevel.WARN, "worker.connection.dropped",
+                        () -> "WORKER_NODE: Dropping connection from " + socket.getRemoteSocketAddress() + ": " + e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        private void execute(long requestId, WireCodec.StepRequest request) throws IOException {
+            Agent agent = agents.get(request.agentName());
+            if (agent == null) {
+                send(WireCodec.RESULT, requestId, new WireCodec.StepResult(TaskStatus.FAILED.name(), "Unknown agent: " + request.agentName()));
+                return;
+            }
+            Task.TaskBuilder builder = Task.builder()
+                    .description(request.description())
+                    .input(request.input())
+                    .expectedOutput(request.expectedOutput())
+                    .tenant(request.tenant())
+                    .priority(request.priority())
+                    .status(TaskStatus.PENDING);
+            if (request.timeoutMillis() > 0) {
+                builder.timeout(Duration.ofMillis(request.timeoutMillis()));
+            }
+            Task task = builder.build();
+            AgentContext context = new AgentContext();
+            context.setScheduling(request.tenant(), request.priority());
+            running.put(requestId, task);
+            inFlight.incrementAndGet();
+            CompletableFuture<String> step;
+            try {
+                step = agent.performTask(task, context);
+            } catch (RuntimeException e) {
+                step = CompletableFuture.failedFuture(e);
+            }
+            step.whenComplete((output, error) -> {
+                running.remove(requestId);
+                inFlight.decrementAndGet();
+                WireCodec.StepResult result;
+                if (error != null) {
+                    TaskStatus status = task.isCancelled() ? TaskStatus.CANCELLED : TaskStatus.FAILED;
+                    result = new WireCodec.StepResult(status.name(), String.valueOf(CancellationToken.rootCause(error).getMessage()));
+                } else {
+                    TaskStatus status = task.getStatus() != null ? task.getStatus() : TaskStatus.COMPLETED;
+                    result = new WireCodec.StepResult(status.name(), output);
+                }
+                try {
+                    sendResult(requestId, result);
+                } catch (IOException e) {
+                    // The connection is gone; the coordinator fails the step over on its side.
+                    close();
+                }
+            });
+        }
+
+        /**
+         * Sends the result, or a failure in its place if it is too large for a frame, so the coordinator hears
+         * about the step and the connection stays up for the others.
+         */
+        private void sendResult(long requestId, WireCodec.StepResult result) throws IOException {
+            byte[] frame;
+            try {
+                frame = WireCodec.encode(WireCodec.RESULT, requestId, result, maxFrameBytes);
+            } catch (IllegalArgumentException e) {
+                System.err.println("WORKER_NODE: Failing request " + requestId + ": " + e.getMessage());
+                WireCodec.StepResult failure = new WireCodec.StepResult(TaskStatus.FAILED.name(),
+                        "Error: Result cannot be sent: " + e.getMessage());
+                frame = WireCodec.encode(WireCodec.RESULT, requestId, failure, maxFrameBytes);
+            }
+            synchronized (out) {
+                WireCodec.write(out, frame);
+            }
+        }
+
+        private void send(byte type, long requestId, Object body) throws IOException {
+            byte[] frame = WireCodec.encode(type, requestId, body, maxFrameBytes);
+            synchronized (out) {
+                WireCodec.write(out, frame);
+            }
+        }
+
+        void close() {
+            if (!connections.remove(this)) {
+                return;
+            }
+            List.copyOf(running.values()).forEach(Task::cancel);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                System.err.println("WORKER_NODE: Failed to close connection: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package com.javaagentai.aiagents.llm;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Author: Mahesh Awasare
@@ -28,28 +31,50 @@ public class ClaudeClient implements LLMClient {
     @Override
     public String complete(String prompt) {
         try {
-            Map<String, Object> body = Map.of(
-                    "model", model,
-                    "max_tokens", 1024,
-                    "temperature", 0.7,
-                    "messages", List.of(Map.of(
-                            "role", "user",
-                            "content", prompt
-                    ))
-            );
+            HttpResponse<String> response = HttpClient.newHttpClient()
+                    .send(buildRequest(prompt).build(), HttpResponse.BodyHandlers.ofString());
+            return parseResponse(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return "[Claude error]";
+    }
 
-            String requestBody = mapper.writeValueAsString(body);
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(baseUrl))
-                    .header("x-api-key", apiKey)
-                    .header("anthropic-version", "2023-06-01")
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
+    @Override
+    public CompletableFuture<String> completeAsync(String prompt, Duration timeout) {
+        try {
+            return HttpCompletions.send(buildRequest(prompt), timeout, this::parseResponse, e -> {
+                e.printStackTrace();
+                return "[Claude error]";
+            });
+        } catch (JsonProcessingException e) {
+            e.printStackTrace();
+            return CompletableFuture.completedFuture("[Claude error]");
+        }
+    }
 
-            HttpResponse<String> response = HttpClient.newHttpClient()
-                    .send(request, HttpResponse.BodyHandlers.ofString());
+    private HttpRequest.Builder buildRequest(String prompt) throws JsonProcessingException {
+        Map<String, Object> body = Map.of(
+                "model", model,
+                "max_tokens", 1024,
+                "temperature", 0.7,
+                "messages", List.of(Map.of(
+                        "role", "user",
+                        "content", prompt
+                ))
+        );
 
+        String requestBody = mapper.writeValueAsString(body);
+        return HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl))
+                .header("x-api-key", apiKey)
+                .header("anthropic-version", "2023-06-01")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody));
+    }
+
+    private String parseResponse(HttpResponse<String> response) {
+        try {
             Map<?, ?> json = mapper.readValue(response.body(), Map.class);
             List<?> contentList = (List<?>) json.get("content");
 
@@ -57,12 +82,17 @@ public class ClaudeClient implements LLMClient {
                 Map<?, ?> contentBlock = (Map<?, ?>) contentList.get(0);
                 return (String) contentBlock.get("text");
             }
-        } catch (Exception e) {
+        } catch (JsonProcessingException e) {
             e.printStackTrace();
         }
         return "[Claude error]";
     }
 
+    @Override
+    public String getModelIdentity() {
+        return getClass().getName() + ":" + model + "@" + baseUrl;
+    }
+
     @Override
     public void close() {
 
@@ -1,14 +1,17 @@
 package com.javaagentai.aiagents.llm;
 
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Author: Mahesh Awasare
@@ -29,18 +32,41 @@ public class GeminiClient implements LLMClient {
     @Override
     public String complete(String prompt) {
         try {
-            Map<String, Object> body = Map.of(
-                    "contents", List.of(Map.of("parts", List.of(Map.of("text", prompt))))
-            );
-
-            String requestBody = mapper.writeValueAsString(body);
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(baseUrl))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
-
-            HttpResponse<String> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = HttpClient.newHttpClient().send(buildRequest(prompt).build(), HttpResponse.BodyHandlers.ofString());
+            return parseResponse(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return "[Gemini error]";
+    }
+
+    @Override
+    public CompletableFuture<String> completeAsync(String prompt, Duration timeout) {
+        try {
+            return HttpCompletions.send(buildRequest(prompt), timeout, this::parseResponse, e -> {
+                e.printStackTrace();
+                return "[Gemini error]";
+            });
+        } catch (JsonProcessingException e) {
+            e.printStackTrace();
+            return CompletableFuture.completedFuture("[Gemini error]");
+        }
+    }
+
+    private HttpRequest.Builder buildRequest(String prompt) throws JsonProcessingException {
+        Map<String, Object> body = Map.of(
+                "contents", List.of(Map.of("parts", List.of(Map.of("text", prompt))))
+        );
+
+        String requestBody = mapper.writeValueAsString(body);
+        return HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody));
+    }
+
+    private String parseResponse(HttpResponse<String> response) {
+        try {
             Map<?, ?> json = mapper.readValue(response.body(), Map.class);
             List<?> candidates = (List<?>) json.get("candidates");
             if (!candidates.isEmpty()) {
@@ -55,6 +81,11 @@ public class GeminiClient implements LLMClient {
         return "[Gemini error]";
     }
 
+    @Override
+    public String getModelIdentity() {
+        return getClass().getName() + ":" + model + "@" + baseUrl;
+    }
+
     @Override
     public void close() {
 
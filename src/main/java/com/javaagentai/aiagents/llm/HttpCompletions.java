@@ -0,0 +1,51 @@
+package com.javaagentai.aiagents.llm;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Shared plumbing for the HTTP based {@link LLMClient#completeAsync(String, Duration)} implementations.
+ */
+final class HttpCompletions {
+
+    private HttpCompletions() {
+    }
+
+    /**
+     * Sends the request asynchronously and maps the response, or the failure, to the completion text the
+     * same way the client's synchronous {@code complete} does. Cancelling the returned future cancels the
+     * underlying HTTP exchange, which the JDK client aborts instead of waiting for the response.
+     */
+    static CompletableFuture<String> send(HttpRequest.Builder requestBuilder, Duration timeout,
+                                          Function<HttpResponse<String>, String> responseMapper,
+                                          Function<Throwable, String> errorMapper) {
+        if (timeout != null) {
+            requestBuilder.timeout(timeout);
+        }
+        CompletableFuture<HttpResponse<String>> exchange = HttpClient.newHttpClient()
+                .sendAsync(requestBuilder.build(), HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<String> result = exchange.handle((response, error) -> {
+            if (error != null) {
+                return errorMapper.apply(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+            try {
+                return responseMapper.apply(response);
+            } catch (RuntimeException e) {
+                return errorMapper.apply(e);
+            }
+        });
+        result.whenComplete((text, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+}
@@ -1,10 +1,39 @@
 package com.javaagentai.aiagents.llm;
 
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
 public interface LLMClient {
     String complete(String prompt);
 
+    /**
+     * Asynchronous completion with an optional timeout. Cancelling the returned future should abort the
+     * underlying request, so callers can stop paying for work they no longer need.
+     * <p>
+     * The default runs {@link #complete(String)} on the calling thread; HTTP based clients override it
+     * with a non-blocking, cancellable request.
+     *
+     * @param prompt  The prompt to complete.
+     * @param timeout Maximum time for the request, or null for no limit.
+     * @return A future with the completion text.
+     */
+    default CompletableFuture<String> completeAsync(String prompt, Duration timeout) {
+        try {
+            return CompletableFuture.completedFuture(complete(prompt));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Identifies the model and settings behind this client, so caches of its outputs (such as
+     * {@code StepMemoStore}) can tell clients of the same class apart. The default is the class name;
+     * clients configured with a model or endpoint include them.
+     */
+    default String getModelIdentity() {
+        return getClass().getName();
+    }
 
     void close();
 }
-
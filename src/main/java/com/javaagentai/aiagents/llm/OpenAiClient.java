@@ -1,13 +1,16 @@
 package com.javaagentai.aiagents.llm;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Author: Mahesh Awasare
@@ -31,30 +34,47 @@ public class OpenAiClient implements LLMClient {
     @Override
     public String complete(String prompt) {
         try {
-            Map<String, Object> body = Map.of(
-                    "model", model,
-                    "messages", List.of(Map.of(
-                            "role", "user",
-                            "content", prompt
-                    ))
-            );
-
-            String requestBody = mapper.writeValueAsString(body);
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(baseUrl))
-                    .header("Authorization", "Bearer " + apiKey)
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
-                    .build();
-
             HttpResponse<String> response = HttpClient.newHttpClient()
-                    .send(request, HttpResponse.BodyHandlers.ofString());
+                    .send(buildRequest(prompt).build(), HttpResponse.BodyHandlers.ofString());
+            return parseResponse(response);
+        } catch (Exception e) {
+            return "[OpenAI error: " + e.getMessage() + "]";
+        }
+    }
 
-            if (response.statusCode() != 200) {
-                return "[OpenAI error: " + response.statusCode() + "]";
-            }
+    @Override
+    public CompletableFuture<String> completeAsync(String prompt, Duration timeout) {
+        try {
+            return HttpCompletions.send(buildRequest(prompt), timeout, this::parseResponse,
+                    e -> "[OpenAI error: " + e.getMessage() + "]");
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.completedFuture("[OpenAI error: " + e.getMessage() + "]");
+        }
+    }
 
+    private HttpRequest.Builder buildRequest(String prompt) throws JsonProcessingException {
+        Map<String, Object> body = Map.of(
+                "model", model,
+                "messages", List.of(Map.of(
+                        "role", "user",
+                        "content", prompt
+                ))
+        );
+
+        String requestBody = mapper.writeValueAsString(body);
+
+        return HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl))
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody));
+    }
+
+    private String parseResponse(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            return "[OpenAI error: " + response.statusCode() + "]";
+        }
+        try {
             Map<?, ?> json = mapper.readValue(response.body(), Map.class);
             List<?> choices = (List<?>) json.get("choices");
 
@@ -63,12 +83,16 @@ public class OpenAiClient implements LLMClient {
                 Map<?, ?> message = (Map<?, ?>) choice.get("message");
                 return (String) message.get("content");
             }
-
-            return "[OpenAI error: unable to retrieve response]";
-
-        } catch (Exception e) {
+        } catch (JsonProcessingException e) {
             return "[OpenAI error: " + e.getMessage() + "]";
         }
+
+        return "[OpenAI error: unable to retrieve response]";
+    }
+
+    @Override
+    public String getModelIdentity() {
+        return getClass().getName() + ":" + model + "@" + baseUrl;
     }
 
     @Override
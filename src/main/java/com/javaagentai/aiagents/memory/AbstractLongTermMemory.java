@@ -1,99 +1,220 @@
 package com.javaagentai.aiagents.memory;
 
+import com.javaagentai.aiagents.config.Config;
 import com.javaagentai.aiagents.services.embedding.EmbeddingClient;
 import com.javaagentai.aiagents.services.vectordb.Document;
 import com.javaagentai.aiagents.services.vectordb.VectorStore;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
  * Abstract base class for Long-Term Memory implementations that use
  * an EmbeddingClient and a VectorStore.
+ * <p>
+ * Operations are implemented asynchronously ({@link AsyncMemory}) on the futures of the embedding client and
+ * vector store; each remote call times out after {@value #DEFAULT_TIMEOUT_SECONDS} seconds. The synchronous
+ * {@link Memory} methods wait for the asynchronous ones and log failures instead of throwing.
  */
-public abstract class AbstractLongTermMemory implements Memory {
+public abstract class AbstractLongTermMemory implements Memory, AsyncMemory {
 
     protected final EmbeddingClient embeddingClient;
     protected final VectorStore vectorStore;
+    private final int batchSize;
     private static final long DEFAULT_TIMEOUT_SECONDS = 10; // Default timeout for async operations
 
+    /**
+     * Outcome of {@link #addBatch(Map)} and {@link #addBatchAsync(Map)}.
+     *
+     * @param stored   The number of entries embedded and upserted.
+     * @param failures The reason each remaining entry was not stored, by key.
+     */
+    public record IngestResult(int stored, Map<String, String> failures) {
+        public boolean isComplete() {
+            return failures.isEmpty();
+        }
+    }
+
     public AbstractLongTermMemory(EmbeddingClient embeddingClient, VectorStore vectorStore) {
+        this(embeddingClient, vectorStore, Config.getLtmBatchSize());
+    }
+
+    /**
+     * @param batchSize The maximum number of entries embedded together and upserted in one call by {@link #addBatchAsync(Map)}.
+     */
+    public AbstractLongTermMemory(EmbeddingClient embeddingClient, VectorStore vectorStore, int batchSize) {
         this.embeddingClient = Objects.requireNonNull(embeddingClient, "EmbeddingClient cannot be null.");
         this.vectorStore = Objects.requireNonNull(vectorStore, "VectorStore cannot be null.");
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        this.batchSize = batchSize;
     }
 
     @Override
     public void add(String key, Object value) {
         Objects.requireNonNull(key, "Key cannot be null for LTM add.");
-        if (value instanceof String) {
-            String textValue = (String) value;
-            try {
-                CompletableFuture<List<Double>> embeddingFuture = embeddingClient.embed(textValue);
-                List<Double> embeddedVector = embeddingFuture.get(DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS); // Block here
-
-                if (embeddedVector == null || embeddedVector.isEmpty()) {
-                    System.err.println("AbstractLongTermMemory: Failed to generate embedding for key: " + key + ". Vector is null or empty.");
-                    return;
-                }
+        await(addAsync(key, value), "embed or upsert text for key: " + key, null);
+    }
 
-                Map<String, Object> metadata = Map.of(
-                        "original_key", key,
-                        "type", "text_chunk",
-                        "timestamp", System.currentTimeMillis(),
-                        "text_length", textValue.length()
-                );
-                // Using key as ID in vector store
-                CompletableFuture<Void> upsertFuture = vectorStore.upsert(
-                        List.of(key), // Using the key as the document ID
-                        List.of(embeddedVector),
-                        List.of(metadata),
-                        List.of(textValue)
-                );
-                upsertFuture.get(DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS); // Block here to ensure completion if interface implies sync
-                // System.out.println("AbstractLongTermMemory: Added and embedded text for key: " + key);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                System.err.println("AbstractLongTermMemory: Embedding or upsert was interrupted for key: " + key + ". Error: " + e.getMessage());
-            } catch (ExecutionException | TimeoutException e) {
-                System.err.println("AbstractLongTermMemory: Failed to embed or upsert text for key: " + key + ". Error: " + e.getMessage());
-            }
-        } else {
-            System.err.println("AbstractLongTermMemory: LTM currently only supports string values for embedding. Key: " + key + ", Value type: " + (value != null ? value.getClass().getName() : "null"));
+    @Override
+    public CompletableFuture<Void> addAsync(String key, Object value) {
+        Objects.requireNonNull(key, "Key cannot be null for LTM add.");
+        if (!(value instanceof String textValue)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("LTM currently only supports string values for embedding. Key: "
+                    + key + ", Value type: " + (value != null ? value.getClass().getName() : "null")));
         }
+        return withTimeout(embeddingClient.embed(textValue)).thenCompose(embeddedVector -> {
+            if (embeddedVector == null || embeddedVector.isEmpty()) {
+                throw new IllegalStateException("Failed to generate embedding for key: " + key + ". Vector is null or empty.");
+            }
+            // Using key as ID in vector store
+            return withTimeout(vectorStore.upsert(
+                    List.of(key), // Using the key as the document ID
+                    List.of(embeddedVector),
+                    List.of(metadataFor(key, textValue)),
+                    List.of(textValue)
+            ));
+        });
     }
 
     @Override
     public void add(Map<String, Object> data) {
         if (data == null) return;
+        IngestResult result = addBatch(data);
+        result.failures().forEach((key, reason) ->
+                System.err.println("AbstractLongTermMemory: Skipping key: " + key + " in batch add. Reason: " + reason));
+    }
+
+    @Override
+    public CompletableFuture<Void> addAsync(Map<String, Object> data) {
+        return addBatchAsync(data).thenAccept(result -> result.failures().forEach((key, reason) ->
+                System.err.println("AbstractLongTermMemory: Skipping key: " + key + " in batch add. Reason: " + reason)));
+    }
+
+    /**
+     * Blocking form of {@link #addBatchAsync(Map)}.
+     */
+    public IngestResult addBatch(Map<String, Object> data) {
+        return addBatchAsync(data).join();
+    }
+
+    /**
+     * Bulk ingestion: embeds the string values in chunks of the configured batch size with a single
+     * {@link EmbeddingClient#embed(List)} call each, and upserts each chunk with a single
+     * {@link VectorStore#upsert} call. Chunks are stored one after another; a failed chunk does not stop the
+     * ones after it.
+     *
+     * @param data Entries to store; values must be strings.
+     * @return How many entries were stored and why the others were not. The future does not fail for
+     * individual entries or chunks.
+     */
+    public CompletableFuture<IngestResult> addBatchAsync(Map<String, Object> data) {
+        Map<String, String> failures = new LinkedHashMap<>();
+        if (data == null || data.isEmpty()) {
+            return CompletableFuture.completedFuture(new IngestResult(0, failures));
+        }
+        // Split into chunks before any chunk starts, so only the running chunk touches the failures afterwards.
+        List<List<String>> keyChunks = new ArrayList<>();
+        List<List<String>> textChunks = new ArrayList<>();
         for (Map.Entry<String, Object> entry : data.entrySet()) {
-            if (entry.getValue() instanceof String) {
-                add(entry.getKey(), entry.getValue()); // Call the single add method
+            if (entry.getKey() == null) {
+                failures.put(null, "Key cannot be null.");
+            } else if (!(entry.getValue() instanceof String text)) {
+                failures.put(entry.getKey(), "Only string values can be embedded, got "
+                        + (entry.getValue() != null ? entry.getValue().getClass().getName() : "null") + ".");
             } else {
-                System.err.println("AbstractLongTermMemory: Skipping non-string value for key: " + entry.getKey() + " in batch add.");
+                if (keyChunks.isEmpty() || keyChunks.get(keyChunks.size() - 1).size() == batchSize) {
+                    keyChunks.add(new ArrayList<>(batchSize));
+                    textChunks.add(new ArrayList<>(batchSize));
+                }
+                keyChunks.get(keyChunks.size() - 1).add(entry.getKey());
+                textChunks.get(textChunks.size() - 1).add(text);
             }
         }
+        CompletableFuture<Integer> stored = CompletableFuture.completedFuture(0);
+        for (int i = 0; i < keyChunks.size(); i++) {
+            List<String> keys = keyChunks.get(i);
+            List<String> texts = textChunks.get(i);
+            stored = stored.thenCompose(total -> storeChunk(keys, texts, failures).thenApply(count -> total + count));
+        }
+        return stored.thenApply(total -> new IngestResult(total, failures));
+    }
+
+    /**
+     * @return The number of entries stored; the others are recorded in {@code failures}. Never fails.
+     */
+    private CompletableFuture<Integer> storeChunk(List<String> keys, List<String> texts, Map<String, String> failures) {
+        return withTimeout(embeddingClient.embed(texts)).handle((vectors, error) -> {
+            if (error != null) {
+                keys.forEach(key -> failures.put(key, "Embedding failed: " + rootCause(error).getMessage()));
+                return CompletableFuture.completedFuture(0);
+            }
+            if (vectors == null || vectors.size() != keys.size()) {
+                keys.forEach(key -> failures.put(key, "Embedding client returned " + (vectors == null ? "no" : vectors.size())
+                        + " vectors for " + keys.size() + " texts."));
+                return CompletableFuture.completedFuture(0);
+            }
+
+            List<String> ids = new ArrayList<>(keys.size());
+            List<List<Double>> embedded = new ArrayList<>(keys.size());
+            List<Map<String, Object>> metadata = new ArrayList<>(keys.size());
+            List<String> contents = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                List<Double> vector = vectors.get(i);
+                if (vector == null || vector.isEmpty()) {
+                    failures.put(keys.get(i), "Vector is null or empty.");
+                    continue;
+                }
+                ids.add(keys.get(i));
+                embedded.add(vector);
+                metadata.add(metadataFor(keys.get(i), texts.get(i)));
+                contents.add(texts.get(i));
+            }
+            if (ids.isEmpty()) {
+                return CompletableFuture.completedFuture(0);
+            }
+            return withTimeout(vectorStore.upsert(ids, embedded, metadata, contents)).handle((ignored, upsertError) -> {
+                if (upsertError != null) {
+                    ids.forEach(id -> failures.put(id, "Upsert failed: " + rootCause(upsertError).getMessage()));
+                    return 0;
+                }
+                return ids.size();
+            });
+        }).thenCompose(count -> count);
+    }
+
+    private static Map<String, Object> metadataFor(String key, String text) {
+        return Map.of(
+                "original_key", key,
+                "type", "text_chunk",
+                "timestamp", System.currentTimeMillis(),
+                "text_length", text.length()
+        );
     }
 
     @Override
     public Object get(String key) {
+        return getAsync(key).join();
+    }
+
+    @Override
+    public CompletableFuture<Object> getAsync(String key) {
         // This typically translates to fetching a document by its ID if the VectorStore supports it.
         // The current VectorStore interface doesn't have a direct getById method that returns a single Document's textContent.
         // A query with a filter for the ID could be one way, or extending VectorStore.
         System.err.println("AbstractLongTermMemory: get(key) is not directly supported for semantic entries. " +
                 "Use search() or ensure keys are document IDs for direct vector store lookup (feature not fully implemented for direct get). Key: " + key);
-        // As a placeholder, one might try to search for it, but it's not a true "get by ID".
-        // List<Object> results = search(key, 1); // This would search by content, not ID.
-        // if (!results.isEmpty() && results.get(0) instanceof String) {
-        //     // This is not ideal as it's a semantic search on the key itself.
-        // }
-        return null;
+        return CompletableFuture.completedFuture(null);
     }
 
     @Override
@@ -104,46 +225,66 @@ public abstract class AbstractLongTermMemory implements Memory {
 
     @Override
     public List<Object> search(String query, int topK) {
-        Objects.requireNonNull(query, "Query cannot be null for LTM search.");
-        if (topK <= 0) return Collections.emptyList();
+        return await(searchAsync(query, topK), "search for query: " + query, Collections.emptyList());
+    }
 
-        try {
-            CompletableFuture<List<Double>> queryVectorFuture = embeddingClient.embed(query);
-            List<Double> queryVector = queryVectorFuture.get(DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS); // Block here
+    @Override
+    public CompletableFuture<List<Object>> searchAsync(String query, int topK) {
+        Objects.requireNonNull(query, "Query cannot be null for LTM search.");
+        if (topK <= 0) return CompletableFuture.completedFuture(Collections.emptyList());
 
+        return withTimeout(embeddingClient.embed(query)).thenCompose(queryVector -> {
             if (queryVector == null || queryVector.isEmpty()) {
                 System.err.println("AbstractLongTermMemory: Failed to generate embedding for query: " + query + ". Vector is null or empty.");
-                return Collections.emptyList();
+                return CompletableFuture.completedFuture(Collections.emptyList());
             }
+            return withTimeout(vectorStore.query(queryVector, topK, null)) // No filter for now
+                    .thenApply(documents -> documents.stream()
+                            .map(Document::textContent) // Extract text content
+                            .filter(Objects::nonNull)   // Filter out any null text content
+                            .collect(Collectors.toList()));
+        });
+    }
 
-            // System.out.println("AbstractLongTermMemory: Searching with query: " + query);
-            CompletableFuture<List<Document>> searchResultsFuture = vectorStore.query(queryVector, topK, null); // No filter for now
-            List<Document> documents = searchResultsFuture.get(DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS); // Block here
+    @Override
+    public void clear() {
+        await(clearAsync(), "clear vector store", null);
+    }
 
-            return documents.stream()
-                    .map(Document::textContent) // Extract text content
-                    .filter(Objects::nonNull)   // Filter out any null text content
-                    .collect(Collectors.toList());
+    @Override
+    public CompletableFuture<Void> clearAsync() {
+        return withTimeout(vectorStore.clearAll());
+    }
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            System.err.println("AbstractLongTermMemory: Search was interrupted for query: " + query + ". Error: " + e.getMessage());
-        } catch (ExecutionException | TimeoutException e) {
-            System.err.println("AbstractLongTermMemory: Failed to search for query: " + query + ". Error: " + e.getMessage());
-        }
-        return Collections.emptyList();
+    /**
+     * Applies the default timeout to a call on the embedding client or vector store without completing the caller's future.
+     */
+    private static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future) {
+        return future.copy().orTimeout(DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
     }
 
-    @Override
-    public void clear() {
-        // System.out.println("AbstractLongTermMemory: Clearing all entries from the vector store.");
+    /**
+     * Waits for an asynchronous operation on behalf of the synchronous {@link Memory} methods, logging a failure and
+     * returning {@code fallback} instead of throwing.
+     */
+    private static <T> T await(CompletableFuture<T> future, String action, T fallback) {
         try {
-            vectorStore.clearAll().get(DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS); // Block here
+            return future.get();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            System.err.println("AbstractLongTermMemory: Clearing vector store was interrupted. Error: " + e.getMessage());
-        } catch (ExecutionException | TimeoutException e) {
-            System.err.println("AbstractLongTermMemory: Failed to clear vector store. Error: " + e.getMessage());
+            System.err.println("AbstractLongTermMemory: Interrupted while trying to " + action + ". Error: " + e.getMessage());
+        } catch (ExecutionException e) {
+            Throwable cause = rootCause(e);
+            System.err.println("AbstractLongTermMemory: Failed to " + action + ". Error: "
+                    + (cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName()));
+        }
+        return fallback;
+    }
+
+    private static Throwable rootCause(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
         }
+        return error;
     }
 }
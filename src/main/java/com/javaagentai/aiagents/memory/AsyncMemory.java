@@ -0,0 +1,39 @@
+package com.javaagentai.aiagents.memory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Non-blocking counterpart of {@link Memory}. Memories backed by embedding services or vector stores implement
+ * it directly, so callers can compose on the pending I/O instead of parking a thread on it. Any other memory
+ * can be used through {@link #of(Memory)}.
+ */
+public interface AsyncMemory {
+
+    CompletableFuture<Void> addAsync(String key, Object value);
+
+    CompletableFuture<Void> addAsync(Map<String, Object> data);
+
+    CompletableFuture<Object> getAsync(String key);
+
+    CompletableFuture<List<Object>> searchAsync(String query, int topK);
+
+    CompletableFuture<Void> clearAsync();
+
+    /**
+     * Returns the memory itself if it is already asynchronous; otherwise an adapter that runs each call on the
+     * calling thread and returns an already completed future. That suits in-memory stores such as
+     * {@link ShortTermMemory}; memories that block on I/O should implement this interface instead.
+     */
+    static AsyncMemory of(Memory memory) {
+        Objects.requireNonNull(memory, "Memory cannot be null.");
+        if (memory instanceof AsyncMemory asyncMemory) {
+            return asyncMemory;
+        }
+        return new SynchronousMemoryAdapter(memory);
+    }
+}
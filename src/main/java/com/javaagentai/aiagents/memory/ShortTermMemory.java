@@ -1,29 +1,140 @@
 package com.javaagentai.aiagents.memory;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import com.javaagentai.aiagents.config.Config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ToLongBiFunction;
 
 /**
  * Author: Mahesh Awasare
- * Short term memory implementation using a LinkedHashMap to maintain insertion order and allow for LRU eviction if capacity is exceeded
+ * Short term memory with least-recently-used eviction, built for agents sharing one memory across threads.
+ * Entries are evicted once either the entry capacity or the optional weight limit is exceeded. An entry's
+ * weight is the estimated heap it retains ({@link #estimateWeight} unless a weigher is given), so one
+ * multi-megabyte tool output counts for more than many short notes.
+ * <p>
+ * Entries live in a {@link ConcurrentHashMap}, so {@link #get} never takes a lock. Instead of reordering the
+ * LRU list on every read, a read records the entry in one of several small striped buffers; writers, and
+ * readers finding their buffer full, replay the buffered reads into the list under the eviction lock. A
+ * read may be dropped when its buffer is full, which makes the recency order approximate under heavy
+ * read load. Writes, eviction and ordered scans ({@link #getAll}) take the eviction lock.
+ * <p>
+ * {@link #search} ranks entries with BM25 over an inverted index of the terms in each key and value. The
+ * index is updated as entries are added, replaced, evicted and cleared, so a query only visits the postings
+ * of its own terms.
  */
 public class ShortTermMemory implements Memory {
-    private final Map<String, Object> memoryStore;
-    private final int capacity; // Optional: to limit memory size
+    private static final int READ_BUFFER_SIZE = 16; // Power of two
+    private static final int READ_BUFFER_STRIPES = Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+    private static final long ENTRY_OVERHEAD_BYTES = 128; // Map node, list links and index bookkeeping
+
+    private final ConcurrentHashMap<String, Node> memoryStore;
+    private final int capacity;
+    private final long maxWeight; // 0 = no weight limit
+    private final ToLongBiFunction<String, Object> weigher;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final Node head = new Node(null, null); // Sentinel of the access-ordered list, least recently used first
+    private final ReadBuffer[] readBuffers = new ReadBuffer[READ_BUFFER_STRIPES];
+    // Inverted index, guarded by the eviction lock
+    private final Map<String, Set<Node>> postings = new HashMap<>();
+    private long totalTerms;
+    private long writeSequence;
+    // Written under the eviction lock
+    private volatile long totalWeight;
+    private volatile long evictionCount;
+
+    private static final class Node {
+        final String key;
+        volatile Object value;
+        // Guarded by the eviction lock
+        Node prev;
+        Node next;
+        boolean linked;
+        Map<String, Integer> termFrequencies = Map.of();
+        int length;
+        long sequence; // Order of the last write, for breaking ties in search
+        long weight;
+
+        Node(String key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Lossy ring buffer of recent reads. Any thread may offer; only the eviction lock holder drains.
+     */
+    private static final class ReadBuffer {
+        final AtomicReferenceArray<Node> slots = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        final AtomicLong writes = new AtomicLong();
+        volatile long reads;
+
+        /**
+         * @return true if the buffer is full or just reached half full, and should be drained.
+         */
+        boolean offer(Node node) {
+            long write = writes.get();
+            long pending = write - reads;
+            if (pending >= READ_BUFFER_SIZE) {
+                return true;
+            }
+            if (!writes.compareAndSet(write, write + 1)) {
+                return false; // On contention the read is simply not recorded
+            }
+            slots.lazySet((int) (write & (READ_BUFFER_SIZE - 1)), node);
+            return pending + 1 == READ_BUFFER_SIZE / 2;
+        }
+    }
 
     public ShortTermMemory() {
         this(Integer.MAX_VALUE); // Default to a very large capacity
     }
 
     public ShortTermMemory(int capacity) {
+        this(capacity, Config.getShortTermMaxWeightBytes());
+    }
+
+    /**
+     * @param capacity  The maximum number of entries.
+     * @param maxWeight The maximum total estimated size of the entries in bytes; 0 for no limit.
+     */
+    public ShortTermMemory(int capacity, long maxWeight) {
+        this(capacity, maxWeight, ShortTermMemory::estimateWeight);
+    }
+
+    /**
+     * @param capacity  The maximum number of entries.
+     * @param maxWeight The maximum total weight of the entries; 0 for no limit.
+     * @param weigher   Computes the weight of an entry from its key and value; must not be negative.
+     */
+    public ShortTermMemory(int capacity, long maxWeight, ToLongBiFunction<String, Object> weigher) {
         this.capacity = capacity;
-        // Use LinkedHashMap to maintain insertion order and allow for LRU eviction if capacity is exceeded
-        this.memoryStore = new LinkedHashMap<String, Object>(capacity, 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
-                return size() > ShortTermMemory.this.capacity;
-            }
-        };
+        this.maxWeight = Math.max(0, maxWeight);
+        this.weigher = weigher;
+        // Sized for the expected content, not the capacity, which may be effectively unbounded.
+        this.memoryStore = new ConcurrentHashMap<>(Math.max(16, Math.min(capacity, 1024)));
+        head.prev = head;
+        head.next = head;
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer();
+        }
     }
 
     @Override
@@ -33,71 +144,336 @@ public class ShortTermMemory implements Memory {
             System.err.println("ShortTermMemory: Key or value cannot be null.");
             return;
         }
-        synchronized (memoryStore) {
-            memoryStore.put(key, value);
+        // Tokenized and weighed outside the lock
+        Map<String, Integer> termFrequencies = countTerms(key, String.valueOf(value));
+        long weight = Math.max(0, weigher.applyAsLong(key, value));
+        evictionLock.lock();
+        try {
+            put(key, value, termFrequencies, weight);
+        } finally {
+            evictionLock.unlock();
         }
     }
 
     @Override
     public void add(Map<String, Object> data) {
         if (data == null) return;
-        synchronized (memoryStore) {
+        evictionLock.lock();
+        try {
             data.forEach(this::add); // Use the single add method for consistent handling
+        } finally {
+            evictionLock.unlock();
         }
     }
 
+    private void put(String key, Object value, Map<String, Integer> termFrequencies, long weight) {
+        drainReadBuffers();
+        Node node = memoryStore.get(key);
+        if (maxWeight > 0 && weight > maxWeight) {
+            // Storing it would flush everything else and then the entry itself.
+            System.err.println("ShortTermMemory: Entry '" + key + "' weighs " + weight + " bytes, more than the limit of "
+                    + maxWeight + "; not stored.");
+            if (node != null) {
+                evict(node); // The previous value is superseded
+            } else {
+                evictionCount++;
+            }
+            return;
+        }
+        if (node != null) {
+            unindex(node);
+            node.value = value;
+            index(node, termFrequencies);
+            moveToTail(node);
+        } else {
+            node = new Node(key, value);
+            memoryStore.put(key, node);
+            index(node, termFrequencies);
+            linkLast(node);
+        }
+        totalWeight += weight - node.weight;
+        node.weight = weight;
+        while ((memoryStore.size() > capacity || (maxWeight > 0 && totalWeight > maxWeight)) && head.next != head) {
+            evict(head.next);
+        }
+    }
+
+    private void evict(Node node) {
+        unlink(node);
+        unindex(node);
+        memoryStore.remove(node.key, node);
+        totalWeight -= node.weight;
+        evictionCount++;
+    }
+
     @Override
     public Object get(String key) {
         if (key == null) return null;
-        synchronized (memoryStore) {
-            return memoryStore.get(key);
+        Node node = memoryStore.get(key);
+        if (node == null) return null;
+        ReadBuffer buffer = readBuffers[Thread.currentThread().hashCode() & (readBuffers.length - 1)];
+        if (buffer.offer(node) && evictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
         }
+        return node.value;
     }
 
     @Override
     public List<Object> getAll() {
-        synchronized (memoryStore) {
-            return new ArrayList<>(memoryStore.values());
+        List<Object> values = new ArrayList<>();
+        for (Node node : snapshot()) {
+            values.add(node.value);
         }
+        return values;
     }
 
     /**
-     * Simple keyword search. Checks if the query string is contained in the key or
-     * in the string representation of the value.
+     * Keyword search ranked by BM25. Keys and values are split into lowercase letter-and-digit terms; an entry
+     * matches if it shares at least one term with the query. Ties go to the more recently written entry.
      *
      * @param query The search query.
      * @param topK  The maximum number of relevant items to return.
-     * @return A list of relevant values.
+     * @return The most relevant values, best first.
      */
     @Override
     public List<Object> search(String query, int topK) {
-        if (query == null || query.trim().isEmpty()) {
+        if (query == null || query.trim().isEmpty() || topK <= 0) {
             return Collections.emptyList();
         }
-        String lowerCaseQuery = query.toLowerCase();
-        List<Object> results;
-        synchronized (memoryStore) {
-            results = memoryStore.entrySet().stream()
-                    .filter(entry -> entry.getKey().toLowerCase().contains(lowerCaseQuery) ||
-                            String.valueOf(entry.getValue()).toLowerCase().contains(lowerCaseQuery))
-                    .map(Map.Entry::getValue)
-                    .collect(Collectors.toList());
+        Set<String> queryTerms = new LinkedHashSet<>();
+        tokenize(query, queryTerms::add);
+        if (queryTerms.isEmpty()) {
+            return Collections.emptyList();
         }
-        // Reverse to get most recent first if LinkedHashMap maintains insertion order
-        // Collections.reverse(results); // This might be counter-intuitive if not explicitly stated
-        return results.stream().limit(topK).collect(Collectors.toList());
+        Map<Node, Double> scores = new HashMap<>();
+        Map<Node, Long> recency = new HashMap<>();
+        evictionLock.lock();
+        try {
+            int documents = memoryStore.size();
+            if (documents == 0) {
+                return Collections.emptyList();
+            }
+            double averageLength = Math.max(1.0, (double) totalTerms / documents);
+            for (String term : queryTerms) {
+                Set<Node> matches = postings.get(term);
+                if (matches == null) continue;
+                double idf = Math.log(1 + (documents - matches.size() + 0.5) / (matches.size() + 0.5));
+                for (Node node : matches) {
+                    int frequency = node.termFrequencies.get(term);
+                    double norm = BM25_K1 * (1 - BM25_B + BM25_B * node.length / averageLength);
+                    scores.merge(node, idf * frequency * (BM25_K1 + 1) / (frequency + norm), Double::sum);
+                    recency.putIfAbsent(node, node.sequence);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        // Keep the best topK in a min-heap so ranking costs O(matches log topK).
+        Comparator<Map.Entry<Node, Double>> ranking = Map.Entry.<Node, Double>comparingByValue()
+                .thenComparing(entry -> recency.get(entry.getKey()));
+        PriorityQueue<Map.Entry<Node, Double>> best = new PriorityQueue<>(ranking);
+        for (Map.Entry<Node, Double> entry : scores.entrySet()) {
+            best.offer(entry);
+            if (best.size() > topK) {
+                best.poll();
+            }
+        }
+        List<Object> results = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            results.add(best.poll().getKey().value);
+        }
+        Collections.reverse(results);
+        return results;
     }
 
     @Override
     public void clear() {
-        synchronized (memoryStore) {
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            for (Node node = head.next; node != head; node = node.next) {
+                node.linked = false;
+            }
+            head.next = head;
+            head.prev = head;
+            postings.clear();
+            totalTerms = 0;
+            totalWeight = 0;
             memoryStore.clear();
+        } finally {
+            evictionLock.unlock();
         }
     }
 
     public int size() {
-        synchronized (memoryStore) {
-            return memoryStore.size();
+        return memoryStore.size();
+    }
+
+    /**
+     * @return The total weight of the stored entries, in bytes unless a custom weigher is used.
+     */
+    public long getWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * @return The weight limit, or 0 if only the entry capacity applies.
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * @return The number of entries removed to stay within the capacity or weight limit, including entries
+     * too heavy to store at all. Overwrites and {@link #clear()} are not counted.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Rough estimate of the heap retained by an entry: strings at two bytes per char, arrays by length,
+     * collections and maps by their elements, and anything else by the length of its string form.
+     */
+    public static long estimateWeight(String key, Object value) {
+        return ENTRY_OVERHEAD_BYTES + estimateSize(key, 0) + estimateSize(value, 0);
+    }
+
+    private static long estimateSize(Object value, int depth) {
+        if (value == null) return 0;
+        if (value instanceof CharSequence text) return 40 + 2L * text.length();
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character || value instanceof Enum<?>) return 16;
+        if (value instanceof byte[] bytes) return 16 + bytes.length;
+        if (value instanceof char[] chars) return 16 + 2L * chars.length;
+        if (depth < 8) { // Deeper (or cyclic) structures fall back to their string form
+            if (value instanceof Map<?, ?> map) {
+                long size = 64;
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    size += 32 + estimateSize(entry.getKey(), depth + 1) + estimateSize(entry.getValue(), depth + 1);
+                }
+                return size;
+            }
+            if (value instanceof Collection<?> collection) {
+                long size = 40;
+                for (Object element : collection) {
+                    size += 8 + estimateSize(element, depth + 1);
+                }
+                return size;
+            }
+            if (value instanceof Object[] array) {
+                long size = 16;
+                for (Object element : array) {
+                    size += 8 + estimateSize(element, depth + 1);
+                }
+                return size;
+            }
+        }
+        return 40 + 2L * String.valueOf(value).length();
+    }
+
+    /**
+     * @return The entries from least to most recently used.
+     */
+    private List<Node> snapshot() {
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            List<Node> nodes = new ArrayList<>(memoryStore.size());
+            for (Node node = head.next; node != head; node = node.next) {
+                nodes.add(node);
+            }
+            return nodes;
+        } finally {
+            evictionLock.unlock();
         }
     }
+
+    /**
+     * Replays buffered reads into the access order. Must hold the eviction lock.
+     */
+    private void drainReadBuffers() {
+        for (ReadBuffer buffer : readBuffers) {
+            long read = buffer.reads;
+            long write = buffer.writes.get();
+            for (; read < write; read++) {
+                int index = (int) (read & (READ_BUFFER_SIZE - 1));
+                Node node = buffer.slots.get(index);
+                if (node == null) break; // Claimed but not yet published; picked up by a later drain
+                buffer.slots.lazySet(index, null);
+                if (node.linked) {
+                    moveToTail(node); // Entries evicted or replaced since the read are skipped
+                }
+            }
+            buffer.reads = read;
+        }
+    }
+
+    private void index(Node node, Map<String, Integer> termFrequencies) {
+        node.termFrequencies = termFrequencies;
+        node.length = 0;
+        for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new HashSet<>()).add(node);
+            node.length += entry.getValue();
+        }
+        node.sequence = ++writeSequence;
+        totalTerms += node.length;
+    }
+
+    private void unindex(Node node) {
+        for (String term : node.termFrequencies.keySet()) {
+            Set<Node> matches = postings.get(term);
+            if (matches != null && matches.remove(node) && matches.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalTerms -= node.length;
+        node.termFrequencies = Map.of();
+        node.length = 0;
+    }
+
+    private static Map<String, Integer> countTerms(String key, String value) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokenize(key, term -> frequencies.merge(term, 1, Integer::sum));
+        tokenize(value, term -> frequencies.merge(term, 1, Integer::sum));
+        return frequencies;
+    }
+
+    private static void tokenize(String text, Consumer<String> sink) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean termChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (termChar && start < 0) {
+                start = i;
+            } else if (!termChar && start >= 0) {
+                sink.accept(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+    }
+
+    private void linkLast(Node node) {
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+        node.linked = true;
+    }
+
+    private void unlink(Node node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        node.linked = false;
+    }
+
+    private void moveToTail(Node node) {
+        if (head.prev == node) return;
+        unlink(node);
+        linkLast(node);
+    }
 }
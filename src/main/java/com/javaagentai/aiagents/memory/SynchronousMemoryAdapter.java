@@ -0,0 +1,63 @@
+package com.javaagentai.aiagents.memory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * {@link AsyncMemory} view of a synchronous {@link Memory}; see {@link AsyncMemory#of(Memory)}.
+ * Exceptions thrown by the memory are returned as failed futures.
+ */
+class SynchronousMemoryAdapter implements AsyncMemory {
+
+    private final Memory memory;
+
+    SynchronousMemoryAdapter(Memory memory) {
+        this.memory = memory;
+    }
+
+    @Override
+    public CompletableFuture<Void> addAsync(String key, Object value) {
+        return call(() -> {
+            memory.add(key, value);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> addAsync(Map<String, Object> data) {
+        return call(() -> {
+            memory.add(data);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Object> getAsync(String key) {
+        return call(() -> memory.get(key));
+    }
+
+    @Override
+    public CompletableFuture<List<Object>> searchAsync(String query, int topK) {
+        return call(() -> memory.search(query, topK));
+    }
+
+    @Override
+    public CompletableFuture<Void> clearAsync() {
+        return call(() -> {
+            memory.clear();
+            return null;
+        });
+    }
+
+    private static <T> CompletableFuture<T> call(Supplier<T> operation) {
+        try {
+            return CompletableFuture.completedFuture(operation.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
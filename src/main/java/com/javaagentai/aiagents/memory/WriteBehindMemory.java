@@ -0,0 +1,310 @@
+package com.javaagentai.aiagents.memory;
+
+import com.javaagentai.aiagents.config.Config;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Write-behind decorator for any {@link Memory}. Calls to {@code add} are queued and
+ * persisted to the delegate in batches on a shared pool of daemon flusher threads, so callers such as
+ * {@code BasicAgent} do not pay for embeddings or vector store upserts inside the LLM loop. A memory
+ * only occupies a flusher thread while it has writes queued.
+ * <ul>
+ *     <li>Backpressure: the queue is bounded; {@code add} blocks while it is full.</li>
+ *     <li>Read-your-writes: {@code get} sees values that are still waiting to be flushed.</li>
+ *     <li>Durability: {@link #flush()} waits for everything queued so far, {@link #close()} drains
+ *     the queue and a JVM shutdown hook, shared by all instances, flushes whatever is left when the process exits.</li>
+ *     <li>{@link #clear()} waits for the batch being written, so nothing queued before it reaches the delegate after it.</li>
+ * </ul>
+ * {@code search} is answered by the delegate and is therefore eventually consistent.
+ * As an {@link AsyncMemory}, queued writes complete once queued and reads compose on the delegate's
+ * asynchronous operations.
+ */
+public class WriteBehindMemory implements Memory, AsyncMemory, AutoCloseable {
+
+    private static final AtomicInteger FLUSHER_COUNT = new AtomicInteger();
+    private static final ExecutorService FLUSHERS = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "write-behind-memory-flusher-" + FLUSHER_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Weakly held: an instance with queued writes is kept reachable by its flush task, an idle one has nothing to drain.
+    private static final Set<WriteBehindMemory> OPEN = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(WriteBehindMemory::drainAllOnShutdown, "write-behind-memory-shutdown"));
+    }
+
+    private final Memory delegate;
+    private final BlockingQueue<Map.Entry<String, Object>> queue;
+    private final Map<String, Object> pending = new ConcurrentHashMap<>();
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final ReentrantLock writeLock = new ReentrantLock(); // Held from draining a batch until it is written; serializes with clear()
+    private final Object flushMonitor = new Object();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    public WriteBehindMemory(Memory delegate) {
+        this(delegate, Config.getWriteBehindQueueCapacity(), Config.getWriteBehindBatchSize(), Config.getWriteBehindFlushIntervalMillis());
+    }
+
+    public WriteBehindMemory(Memory delegate, int queueCapacity, int batchSize, long flushIntervalMillis) {
+        this.delegate = Objects.requireNonNull(delegate, "Delegate memory cannot be null.");
+        if (queueCapacity <= 0 || batchSize <= 0 || flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Queue capacity, batch size and flush interval must be positive.");
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        OPEN.add(this);
+    }
+
+    @Override
+    public void add(String key, Object value) {
+        if (key == null || value == null) {
+            System.err.println("WriteBehindMemory: Key or value cannot be null.");
+            return;
+        }
+        if (closed) {
+            // Nothing will drain the queue any more, so write through to keep the data.
+            delegate.add(key, value);
+            return;
+        }
+        pending.put(key, value);
+        try {
+            queue.put(new AbstractMap.SimpleImmutableEntry<>(key, value)); // Blocks while the queue is full
+            enqueued.incrementAndGet();
+            if (closed) {
+                writeBatches(); // Closed while we were queueing; make sure the entry is not stranded.
+            } else {
+                scheduleDrain();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.remove(key, value);
+            System.err.println("WriteBehindMemory: Interrupted while queueing key: " + key + ". Writing through instead.");
+            delegate.add(key, value);
+        }
+    }
+
+    @Override
+    public void add(Map<String, Object> data) {
+        if (data == null) return;
+        data.forEach(this::add);
+    }
+
+    @Override
+    public Object get(String key) {
+        if (key == null) return null;
+        Object value = pending.get(key);
+        return value != null ? value : delegate.get(key);
+    }
+
+    @Override
+    public CompletableFuture<Void> addAsync(String key, Object value) {
+        add(key, value); // Only waits while the queue is full, which is the intended backpressure
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> addAsync(Map<String, Object> data) {
+        add(data);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Object> getAsync(String key) {
+        if (key == null) return CompletableFuture.completedFuture(null);
+        Object value = pending.get(key);
+        return value != null ? CompletableFuture.completedFuture(value) : AsyncMemory.of(delegate).getAsync(key);
+    }
+
+    @Override
+    public CompletableFuture<List<Object>> searchAsync(String query, int topK) {
+        return AsyncMemory.of(delegate).searchAsync(query, topK);
+    }
+
+    @Override
+    public CompletableFuture<Void> clearAsync() {
+        try {
+            clear();
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public List<Object> getAll() {
+        flush();
+        return delegate.getAll();
+    }
+
+    @Override
+    public List<Object> search(String query, int topK) {
+        return delegate.search(query, topK);
+    }
+
+    @Override
+    public void clear() {
+        writeLock.lock();
+        try {
+            List<Map.Entry<String, Object>> dropped = new ArrayList<>();
+            queue.drainTo(dropped);
+            pending.clear();
+            markProcessed(dropped.size());
+            delegate.clear();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until every write queued before this call has been handed to the delegate.
+     */
+    public void flush() {
+        long target = enqueued.get();
+        synchronized (flushMonitor) {
+            while (processed.get() < target && !closed) {
+                try {
+                    flushMonitor.wait(flushIntervalMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        if (closed) {
+            writeBatches(); // No more flush tasks after close, drain on the caller's thread.
+        }
+    }
+
+    /**
+     * Drains all queued writes and stops write-behind. Later writes go straight to the delegate.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        OPEN.remove(this);
+        stopAndDrain();
+    }
+
+    public Memory getDelegate() {
+        return delegate;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getFailedWriteCount() {
+        return failedWrites.get();
+    }
+
+    private void scheduleDrain() {
+        if (!drainScheduled.compareAndSet(false, true)) return;
+        try {
+            FLUSHERS.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            drainScheduled.set(false);
+            writeBatches();
+        }
+    }
+
+    private void drain() {
+        try {
+            writeBatches();
+        } finally {
+            drainScheduled.set(false);
+        }
+        if (!queue.isEmpty() && !closed) {
+            scheduleDrain(); // Queued after the last drain, while this task still counted as scheduled
+        }
+    }
+
+    private void writeBatches() {
+        writeLock.lock();
+        try {
+            List<Map.Entry<String, Object>> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                writeBatch(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void writeBatch(List<Map.Entry<String, Object>> batch) {
+        // Later writes to the same key win, matching the order callers issued them in.
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : batch) {
+            data.put(entry.getKey(), entry.getValue());
+        }
+        try {
+            if (delegate instanceof AbstractLongTermMemory longTermMemory) {
+                AbstractLongTermMemory.IngestResult result = longTermMemory.addBatch(data);
+                if (!result.isComplete()) {
+                    failedWrites.addAndGet(result.failures().size());
+                    System.err.println("WriteBehindMemory: Failed to write " + result.failures().size() + " of " + data.size()
+                            + " entries. Keys: " + result.failures().keySet());
+                }
+            } else {
+                delegate.add(data);
+            }
+        } catch (RuntimeException e) {
+            failedWrites.addAndGet(data.size());
+            System.err.println("WriteBehindMemory: Failed to write batch of " + data.size() + " entries. Error: " + e.getMessage());
+        } finally {
+            for (Map.Entry<String, Object> entry : batch) {
+                pending.remove(entry.getKey(), entry.getValue());
+            }
+            markProcessed(batch.size());
+        }
+    }
+
+    private void markProcessed(int count) {
+        processed.addAndGet(count);
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+    }
+
+    private void stopAndDrain() {
+        closed = true; // Wakes flush() waiters on their next check; later adds write through
+        writeBatches();
+    }
+
+    private static void drainAllOnShutdown() {
+        List<WriteBehindMemory> open;
+        synchronized (OPEN) {
+            open = List.copyOf(OPEN);
+        }
+        open.forEach(WriteBehindMemory::stopAndDrain);
+    }
+}
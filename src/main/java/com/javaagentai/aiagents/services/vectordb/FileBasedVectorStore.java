@@ -127,7 +127,7 @@ public class FileBasedVectorStore implements VectorStore {
             }
 
             // Perform upsert: remove existing by ID, then add new/updated
-            List<String> newIds = newStoredVectors.stream().map(StoredVector::id).collect(Collectors.toList());
+            Set<String> newIds = newStoredVectors.stream().map(StoredVector::id).collect(Collectors.toSet()); // One pass for large batches
             this.vectorStore.removeIf(sv -> newIds.contains(sv.id()));
             this.vectorStore.addAll(newStoredVectors);
             saveFile();
@@ -1,7 +1,9 @@
 package com.javaagentai.aiagents.tools;
 
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Author: Mahesh Awasare
@@ -16,5 +18,17 @@ public interface Tool {
 
     CompletableFuture<String> use(Map<String, Object> params);
 
+    /**
+     * Runs the tool with a time limit. The agent cancels the returned future when its task is cancelled;
+     * tools holding connections or processes should override this to release them on cancellation.
+     *
+     * @param params  The tool parameters.
+     * @param timeout Maximum time for the execution, or null for no limit.
+     */
+    default CompletableFuture<String> use(Map<String, Object> params, Duration timeout) {
+        CompletableFuture<String> execution = use(params);
+        return timeout == null ? execution : execution.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
     Map<String, String> getParameterSchema();
 }
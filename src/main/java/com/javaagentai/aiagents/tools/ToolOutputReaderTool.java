@@ -0,0 +1,75 @@
+package com.javaagentai.aiagents.tools;
+
+import com.javaagentai.aiagents.core.ToolOutputStore;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Lets an agent read back a tool output that was truncated in its conversation history, one page at a time.
+ * Give it the agent's {@link ToolOutputStore} (see {@code BasicAgent.getToolOutputStore()}).
+ */
+public class ToolOutputReaderTool implements Tool {
+
+    private static final int DEFAULT_LENGTH = 2000;
+
+    private final ToolOutputStore store;
+
+    public ToolOutputReaderTool(ToolOutputStore store) {
+        this.store = Objects.requireNonNull(store, "ToolOutputStore cannot be null.");
+    }
+
+    @Override
+    public String getName() {
+        return "ToolOutputReader";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Reads part of a tool output that was truncated in the conversation history, using the reference it was stored as.";
+    }
+
+    @Override
+    public CompletableFuture<String> use(Map<String, Object> params) {
+        Object reference = params != null ? params.get("reference") : null;
+        if (!(reference instanceof String)) {
+            return CompletableFuture.completedFuture("Error: Missing or invalid 'reference' parameter.");
+        }
+        int offset;
+        int length;
+        try {
+            offset = Math.max(0, intParam(params, "offset", 0));
+            length = Math.max(1, intParam(params, "length", DEFAULT_LENGTH));
+        } catch (NumberFormatException e) {
+            return CompletableFuture.completedFuture("Error: 'offset' and 'length' must be numbers.");
+        }
+        return CompletableFuture.completedFuture(store.load((String) reference)
+                .map(output -> {
+                    if (offset >= output.length()) {
+                        return "Error: Offset " + offset + " is past the end of the output (" + output.length() + " characters).";
+                    }
+                    int end = (int) Math.min(output.length(), (long) offset + length);
+                    return "Characters " + offset + "-" + end + " of " + output.length() + ":\n" + output.substring(offset, end);
+                })
+                .orElse("Error: No stored output found for reference '" + reference + "'."));
+    }
+
+    @Override
+    public Map<String, String> getParameterSchema() {
+        return Map.of(
+                "reference", "String - the reference key from the truncated output, e.g. tool_output_ref:...",
+                "offset", "Integer - first character to read (default 0)",
+                "length", "Integer - number of characters to read (default " + DEFAULT_LENGTH + ")");
+    }
+
+    private static int intParam(Map<String, Object> params, String name, int defaultValue) {
+        Object value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        return value instanceof Number number ? number.intValue() : Integer.parseInt(value.toString().trim());
+    }
+}
@@ -48,6 +48,13 @@ public class ConfigTest {
                 "Should return default for missing integer key.");
     }
 
+    @Test
+    void testGetLong_ValueBeyondIntRange() {
+        assertEquals(5_000_000_000L, Config.getLong("test.long.value", 0L),
+                "Should parse values that do not fit in an int.");
+        assertEquals(7L, Config.getLong("test.int.invalid", 7L), "Should return default for invalid long format.");
+    }
+
     // --- Test getEnvOrConfig ---
     // These tests are limited without a library like JUnit Pioneer to truly mock environment variables.
     // We test based on the properties file and *unset* environment variables primarily.
@@ -0,0 +1,312 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.llm.LLMClient;
+import com.javaagentai.aiagents.memory.AsyncMemory;
+import com.javaagentai.aiagents.memory.Memory;
+import com.javaagentai.aiagents.memory.ShortTermMemory;
+import com.javaagentai.aiagents.tools.Tool;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class BasicAgentTest {
+
+    static final String TOOL_CALL = "{\"tool_name\": \"Lookup\", \"tool_parameters\": {\"query\": \"weather\"}}";
+    static final String FINAL_ANSWER = "It is sunny.";
+
+    // Asks for the tool a fixed number of times, then answers.
+    static class ScriptedLLMClient implements LLMClient {
+        private final int toolCalls;
+        final AtomicInteger calls = new AtomicInteger();
+
+        ScriptedLLMClient(int toolCalls) {
+            this.toolCalls = toolCalls;
+        }
+
+        @Override
+        public String complete(String prompt) {
+            return calls.incrementAndGet() <= toolCalls ? TOOL_CALL : FINAL_ANSWER;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // Never answers on its own; records whether the in-flight request was cancelled.
+    static class HangingLLMClient implements LLMClient {
+        final CompletableFuture<String> inFlight = new CompletableFuture<>();
+        final CompletableFuture<Void> reached = new CompletableFuture<>();
+
+        @Override
+        public String complete(String prompt) {
+            reached.complete(null);
+            return inFlight.join();
+        }
+
+        @Override
+        public CompletableFuture<String> completeAsync(String prompt, Duration timeout) {
+            reached.complete(null);
+            return inFlight;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    static class LookupTool implements Tool {
+        @Override
+        public String getName() {
+            return "Lookup";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Looks up facts.";
+        }
+
+        @Override
+        public CompletableFuture<String> use(Map<String, Object> params) {
+            return CompletableFuture.completedFuture("Sunny, 25 degrees");
+        }
+
+        @Override
+        public Map<String, String> getParameterSchema() {
+            return Map.of("query", "What to look up");
+        }
+    }
+
+    static class CountingMemory extends ShortTermMemory {
+        final AtomicInteger searches = new AtomicInteger();
+
+        CountingMemory() {
+            super(100);
+        }
+
+        @Override
+        public List<Object> search(String query, int topK) {
+            searches.incrementAndGet();
+            return super.search(query, topK);
+        }
+    }
+
+    // Asynchronous memory whose operations complete only when the test says so; the blocking methods must not be used.
+    static class GatedMemory implements Memory, AsyncMemory {
+        final LinkedBlockingQueue<CompletableFuture<List<Object>>> searches = new LinkedBlockingQueue<>();
+        final LinkedBlockingQueue<CompletableFuture<Void>> writes = new LinkedBlockingQueue<>();
+        final List<String> writtenKeys = new CopyOnWriteArrayList<>();
+
+        @Override
+        public CompletableFuture<Void> addAsync(String key, Object value) {
+            writtenKeys.add(key);
+            CompletableFuture<Void> write = new CompletableFuture<>();
+            writes.add(write);
+            return write;
+        }
+
+        @Override
+        public CompletableFuture<Void> addAsync(Map<String, Object> data) {
+            throw new AssertionError("not used");
+        }
+
+        @Override
+        public CompletableFuture<Object> getAsync(String key) {
+            throw new AssertionError("not used");
+        }
+
+        @Override
+        public CompletableFuture<List<Object>> searchAsync(String query, int topK) {
+            CompletableFuture<List<Object>> search = new CompletableFuture<>();
+            searches.add(search);
+            return search;
+        }
+
+        @Override
+        public CompletableFuture<Void> clearAsync() {
+            throw new AssertionError("not used");
+        }
+
+        @Override
+        public void add(String key, Object value) {
+            throw new AssertionError("BasicAgent must not block on memory writes");
+        }
+
+        @Override
+        public void add(Map<String, Object> data) {
+            throw new AssertionError("BasicAgent must not block on memory writes");
+        }
+
+        @Override
+        public Object get(String key) {
+            throw new AssertionError("not used");
+        }
+
+        @Override
+        public List<Object> getAll() {
+            throw new AssertionError("not used");
+        }
+
+        @Override
+        public List<Object> search(String query, int topK) {
+            throw new AssertionError("BasicAgent must not block on memory searches");
+        }
+
+        @Override
+        public void clear() {
+        }
+    }
+
+    private Task newTask() {
+        return Task.builder()
+                .description("What is the weather?")
+                .input(Map.of("city", "Pune"))
+                .expectedOutput("A weather report.")
+                .build();
+    }
+
+    @Test
+    void testMemoryIsRetrievedOncePerTask() throws Exception {
+        CountingMemory memory = new CountingMemory();
+        ScriptedLLMClient llm = new ScriptedLLMClient(2);
+        BasicAgent agent = BasicAgent.builder()
+                .name("Forecaster")
+                .role("Weather Assistant")
+                .tools(List.of(new LookupTool()))
+                .llmClient(llm)
+                .memory(memory)
+                .build();
+        try {
+            String result = agent.performTask(newTask(), new AgentContext()).get(5, TimeUnit.SECONDS);
+
+            assertEquals(FINAL_ANSWER, result);
+            assertEquals(3, llm.calls.get(), "Two tool iterations plus the final answer.");
+            assertEquals(1, memory.searches.get(), "Memory retrieval should be reused across iterations.");
+        } finally {
+            agent.shutdown();
+        }
+    }
+
+    @Test
+    void testAgentComposesOnAsyncMemory() throws Exception {
+        GatedMemory memory = new GatedMemory();
+        ScriptedLLMClient llm = new ScriptedLLMClient(1);
+        BasicAgent agent = BasicAgent.builder()
+                .name("Forecaster")
+                .role("Weather Assistant")
+                .tools(List.of(new LookupTool()))
+                .llmClient(llm)
+                .memory(memory)
+                .build();
+        try {
+            CompletableFuture<String> result = agent.performTask(newTask(), new AgentContext());
+
+            CompletableFuture<List<Object>> search = memory.searches.poll(5, TimeUnit.SECONDS);
+            assertNotNull(search);
+            Thread.sleep(50);
+            assertEquals(0, llm.calls.get(), "The prompt needs the memory context first.");
+            search.complete(List.of("It was cloudy yesterday."));
+
+            memory.writes.poll(5, TimeUnit.SECONDS).complete(null); // Tool interaction
+            CompletableFuture<Void> summary = memory.writes.poll(5, TimeUnit.SECONDS);
+            assertNotNull(summary);
+            assertFalse(result.isDone(), "The step completes once its summary has been written.");
+            summary.complete(null);
+
+            assertEquals(FINAL_ANSWER, result.get(5, TimeUnit.SECONDS));
+            assertEquals(2, llm.calls.get());
+            assertTrue(memory.writtenKeys.get(1).startsWith("task_summary:"));
+        } finally {
+            agent.shutdown();
+        }
+    }
+
+    @Test
+    void testCancellingTaskAbortsInFlightLlmCall() throws Exception {
+        HangingLLMClient llm = new HangingLLMClient();
+        BasicAgent agent = BasicAgent.builder()
+                .name("Forecaster")
+                .role("Weather Assistant")
+                .tools(List.of())
+                .llmClient(llm)
+                .memory(new ShortTermMemory(10))
+                .build();
+        try {
+            CompletableFuture<TaskResult> callback = new CompletableFuture<>();
+            Task task = newTask();
+            task.setCallback(callback::complete);
+
+            CompletableFuture<String> result = agent.performTask(task, new AgentContext());
+            llm.reached.get(5, TimeUnit.SECONDS);
+            task.cancel();
+
+            ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertTrue(CancellationToken.isCancellation(error.getCause()), "Agent future should fail with a cancellation.");
+            assertTrue(llm.inFlight.isCancelled(), "The in-flight LLM request should be cancelled.");
+            assertEquals(TaskStatus.CANCELLED, task.getStatus());
+            assertEquals(TaskStatus.CANCELLED, callback.get(1, TimeUnit.SECONDS).status());
+        } finally {
+            agent.shutdown();
+        }
+    }
+
+    @Test
+    void testTaskDeadlineStopsAgent() {
+        HangingLLMClient llm = new HangingLLMClient();
+        BasicAgent agent = BasicAgent.builder()
+                .name("Forecaster")
+                .role("Weather Assistant")
+                .tools(List.of())
+                .llmClient(llm)
+                .memory(new ShortTermMemory(10))
+                .build();
+        try {
+            Task task = Task.builder()
+                    .description("What is the weather?")
+                    .input(Map.of())
+                    .timeout(Duration.ofMillis(300))
+                    .build();
+
+            CompletableFuture<String> result = agent.performTask(task, new AgentContext());
+
+            assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertTrue(llm.inFlight.isCancelled(), "Deadline should cancel the in-flight LLM request.");
+            assertEquals(TaskStatus.CANCELLED, task.getStatus());
+        } finally {
+            agent.shutdown();
+        }
+    }
+
+    @Test
+    void testMemoryIsRefreshedAfterWritesWhenEnabled() throws Exception {
+        CountingMemory memory = new CountingMemory();
+        BasicAgent agent = BasicAgent.builder()
+                .name("Forecaster")
+                .role("Weather Assistant")
+                .tools(List.of(new LookupTool()))
+                .llmClient(new ScriptedLLMClient(2))
+                .memory(memory)
+                .refreshMemoryOnWrite(true)
+                .build();
+        try {
+            agent.performTask(newTask(), new AgentContext()).get(5, TimeUnit.SECONDS);
+
+            assertEquals(3, memory.searches.get(), "Each tool result written to memory should trigger one refresh.");
+        } finally {
+            agent.shutdown();
+        }
+    }
+}
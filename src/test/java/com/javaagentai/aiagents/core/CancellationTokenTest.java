@@ -0,0 +1,59 @@
+package com.javaagentai.aiagents.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class CancellationTokenTest {
+
+    @Test
+    void testCancelledAndReleasedChildrenLeaveTheParent() {
+        CancellationToken parent = new CancellationToken();
+        CancellationToken cancelled = parent.child();
+        CancellationToken released = parent.child(Duration.ofHours(1));
+        CancellationToken running = parent.child();
+        assertEquals(3, parent.getChildCount());
+
+        cancelled.cancel("Straggler.");
+        released.release();
+
+        assertEquals(1, parent.getChildCount());
+        assertFalse(parent.isCancelled());
+        assertFalse(released.isCancelled(), "Releasing is not cancelling.");
+
+        CompletableFuture<String> call = running.track(new CompletableFuture<>());
+        parent.cancel("Stop.");
+        assertTrue(call.isCancelled(), "Children still attached are cancelled with the parent.");
+        assertTrue(released.isCancelled(), "A released child still reports its parent's cancellation.");
+        assertEquals(0, parent.getChildCount());
+    }
+
+    @Test
+    void testManyShortLivedChildrenDoNotAccumulate() {
+        CancellationToken longLived = new CancellationToken();
+        for (int i = 0; i < 10_000; i++) {
+            CancellationToken child = longLived.child(Duration.ofMinutes(5));
+            child.track(CompletableFuture.completedFuture("done"));
+            child.release();
+        }
+        assertEquals(0, longLived.getChildCount());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testDeadlineCancelsTrackedWork() throws Exception {
+        CancellationToken token = CancellationToken.withTimeout(Duration.ofMillis(50));
+        CompletableFuture<String> call = token.track(new CompletableFuture<>());
+
+        assertTrue(CancellationToken.isCancellation(assertThrows(Exception.class, () -> call.get(5, TimeUnit.SECONDS))));
+        assertTrue(token.getCancellationReason().startsWith("Deadline exceeded"));
+    }
+}
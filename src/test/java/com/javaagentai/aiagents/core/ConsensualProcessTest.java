@@ -3,12 +3,14 @@ package com.javaagentai.aiagents.core;
 import com.javaagentai.aiagents.llm.LLMClient;
 import com.javaagentai.aiagents.memory.Memory;
 import com.javaagentai.aiagents.memory.ShortTermMemory;
+import com.javaagentai.aiagents.tools.Tool;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.Timeout;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -237,4 +239,170 @@ public class ConsensualProcessTest {
             .anyMatch(val -> val instanceof String && ((String)val).equals(PERSPECTIVE_A));
         assertTrue(memoryAPopulated, "Contributor A memory should contain its perspective in single agent scenario.");
     }
+
+    // Answers the task once the gate opens, or never (until cancelled); always answers synthesis prompts with the perspectives it got.
+    static class QuorumLLMClient implements LLMClient {
+        private final String answer;
+        private final CompletableFuture<?> gate;
+        final CompletableFuture<String> pending = new CompletableFuture<>();
+        final CompletableFuture<Void> asked = new CompletableFuture<>();
+
+        QuorumLLMClient(String answer) {
+            this(answer, CompletableFuture.completedFuture(null));
+        }
+
+        QuorumLLMClient(String answer, CompletableFuture<?> gate) {
+            this.answer = answer;
+            this.gate = gate;
+        }
+
+        @Override
+        public String complete(String prompt) {
+            return completeAsync(prompt, null).join();
+        }
+
+        @Override
+        public CompletableFuture<String> completeAsync(String prompt, Duration timeout) {
+            if (prompt.contains("Synthesize a final answer for the original task")) {
+                Matcher agents = Pattern.compile("- Agent (\\w+) said").matcher(prompt);
+                long count = agents.results().map(match -> match.group(1)).distinct().count(); // The prompt may repeat the task description
+                return CompletableFuture.completedFuture("Synthesized " + count + " perspectives");
+            }
+            asked.complete(null);
+            return answer != null ? gate.thenApply(ignored -> answer) : pending;
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    private static BasicAgent quorumAgent(String name, QuorumLLMClient llm) {
+        return BasicAgent.builder().name(name).role("Analyst").llmClient(llm)
+                .memory(new ShortTermMemory(100)).tools(Collections.emptyList()).build();
+    }
+
+    // Reports the given output without calling an LLM; an output starting with "Error" marks the task FAILED, like BasicAgent.
+    private static Agent scriptedAgent(String name, String output) {
+        return new Agent() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getRole() {
+                return "Analyst";
+            }
+
+            @Override
+            public List<Tool> getTools() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public Memory getMemory() {
+                return null;
+            }
+
+            @Override
+            public CompletableFuture<String> performTask(Task task, AgentContext context) {
+                task.setStatus(output != null && output.startsWith("Error") ? TaskStatus.FAILED : TaskStatus.COMPLETED);
+                return CompletableFuture.completedFuture(output);
+            }
+        };
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testFailedAndEmptyAnswersDoNotCountTowardQuorum() throws Exception {
+        List<BasicAgent> answering = List.of(
+                quorumAgent("Fast", new QuorumLLMClient("AI boosts productivity.")),
+                quorumAgent("Synth", new QuorumLLMClient("AI needs regulation.")));
+        try {
+            List<Agent> agents = List.of(scriptedAgent("Broken", "Error: Agent reached maximum iterations."),
+                    scriptedAgent("Silent", null), answering.get(0), answering.get(1));
+            Task task = Task.builder().description(INITIAL_TASK_DESC).input(Map.of()).build();
+
+            String result = new ConsensualProcess(2, 0.5, null).execute(task, agents, new AgentContext()).get(5, TimeUnit.SECONDS);
+
+            // Both failures are reported to the synthesizer, but the quorum is only met by the two real answers.
+            assertEquals("Synthesized 4 perspectives", result);
+        } finally {
+            answering.forEach(BasicAgent::shutdown);
+        }
+    }
+
+    @Test
+    void testRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsensualProcess(-1, 0, null));
+        assertThrows(IllegalArgumentException.class, () -> new ConsensualProcess(0, 1.5, null));
+        assertThrows(IllegalArgumentException.class, () -> new ConsensualProcess(0, 0, Duration.ZERO));
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testQuorumSynthesizesEarlyAndCancelsStragglers() throws Exception {
+        QuorumLLMClient straggler = new QuorumLLMClient(null);
+        // The others answer only once the straggler's LLM call is in flight, so there is a call to cancel.
+        List<BasicAgent> agents = List.of(
+                quorumAgent("Fast", new QuorumLLMClient("AI boosts productivity.", straggler.asked)),
+                quorumAgent("Slow", straggler),
+                quorumAgent("Synth", new QuorumLLMClient("AI needs regulation.", straggler.asked)));
+        try {
+            Task task = Task.builder().description(INITIAL_TASK_DESC).input(Map.of()).build();
+
+            String result = new ConsensualProcess(2, 0, null).execute(task, List.copyOf(agents), new AgentContext()).get(5, TimeUnit.SECONDS);
+
+            assertEquals("Synthesized 2 perspectives", result);
+            assertTrue(straggler.pending.isCancelled(), "The straggler's LLM call should be cancelled once the quorum is reached.");
+        } finally {
+            agents.forEach(BasicAgent::shutdown);
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testAgreementAndRoundDeadlineEndTheRound() throws Exception {
+        QuorumLLMClient straggler = new QuorumLLMClient(null);
+        List<BasicAgent> agreeing = List.of(
+                quorumAgent("First", new QuorumLLMClient("AI will augment most jobs.", straggler.asked)),
+                quorumAgent("Slow", straggler),
+                quorumAgent("Synth", new QuorumLLMClient("AI will augment most jobs!", straggler.asked)));
+        List<BasicAgent> deadline = List.of(
+                quorumAgent("Only", new QuorumLLMClient("AI is a tool.")),
+                quorumAgent("Stuck", new QuorumLLMClient(null)),
+                quorumAgent("Synth", new QuorumLLMClient(null)));
+        try {
+            Task task = Task.builder().description(INITIAL_TASK_DESC).input(Map.of()).build();
+            String agreed = new ConsensualProcess(0, 0.9, null).execute(task, List.copyOf(agreeing), new AgentContext()).get(5, TimeUnit.SECONDS);
+            assertEquals("Synthesized 2 perspectives", agreed, "Two of three agreeing answers are a majority.");
+            assertTrue(straggler.pending.isCancelled());
+
+            Task timed = Task.builder().description(INITIAL_TASK_DESC).input(Map.of()).build();
+            long start = System.nanoTime();
+            String partial = new ConsensualProcess(0, 0, Duration.ofMillis(300)).execute(timed, List.copyOf(deadline), new AgentContext()).get(5, TimeUnit.SECONDS);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(partial.startsWith("Synthesized"), partial);
+            assertTrue(elapsedMillis < 2_000, "The round deadline should bound the wait, took " + elapsedMillis + "ms.");
+        } finally {
+            agreeing.forEach(BasicAgent::shutdown);
+            deadline.forEach(BasicAgent::shutdown);
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testCrewSelectsConsensualProcess() throws Exception {
+        List<BasicAgent> agents = List.of(
+                quorumAgent("A", new QuorumLLMClient("Yes.")),
+                quorumAgent("B", new QuorumLLMClient("No.")));
+        try {
+            Crew crew = Crew.builder().agents(List.copyOf(agents)).processStrategy(ProcessStrategy.CONSENSUAL).build();
+            Task task = Task.builder().description(INITIAL_TASK_DESC).input(Map.of()).build();
+
+            assertEquals("Synthesized 2 perspectives", crew.execute(task).get(5, TimeUnit.SECONDS));
+        } finally {
+            agents.forEach(BasicAgent::shutdown);
+        }
+    }
 }
@@ -0,0 +1,122 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.llm.LLMClient;
+import com.javaagentai.aiagents.tools.ToolOutputReaderTool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class ConversationHistoryTest {
+
+    @Test
+    void testRenderedHistoryStaysWithinBudget() {
+        ConversationHistory history = new ConversationHistory(200, 2, 100, null);
+        for (int i = 0; i < 50; i++) {
+            history.addTurn("Tool Search output: result number " + i + " with some additional detail about the finding.");
+            history.compact().join();
+        }
+
+        String rendered = history.render();
+        assertTrue(ConversationHistory.estimateTokens(rendered) <= 220, "Rendered history should stay near the token budget. Tokens: " + ConversationHistory.estimateTokens(rendered));
+        assertTrue(rendered.contains("result number 49"), "Most recent turn should be kept verbatim.");
+        assertTrue(rendered.contains("result number 48"), "Second most recent turn should be kept verbatim.");
+        assertTrue(rendered.startsWith("Summary of earlier steps:"), "Older turns should be folded into a summary.");
+    }
+
+    @Test
+    void testLargeToolOutputIsRetrievableByItsReference(@TempDir Path directory) throws Exception {
+        ToolOutputStore store = new ToolOutputStore(directory, Duration.ofHours(1));
+        ConversationHistory history = new ConversationHistory(1000, 4, 50, null,
+                (toolName, call, output) -> store.store("task-1", toolName, call, output), null);
+        String hugeOutput = "x".repeat(5_000) + "TAIL";
+
+        String reference = history.addToolOutput("Crawler", hugeOutput);
+
+        assertNotNull(reference, "Oversized output should be stored by reference.");
+        String rendered = history.render();
+        assertTrue(rendered.contains("'" + reference + "'"), "The truncated turn should name the reference: " + rendered);
+        assertTrue(rendered.length() < 500, "Prompt should carry only the head of the output.");
+        assertEquals(hugeOutput, store.load(reference).orElseThrow(), "Full output should be retrievable by its reference key.");
+        String tail = new ToolOutputReaderTool(store).use(Map.of("reference", reference, "offset", 5_000)).get();
+        assertTrue(tail.endsWith("TAIL"), tail);
+
+        assertNull(history.addToolOutput("Crawler", "small"), "Small outputs should be kept verbatim.");
+        assertTrue(store.load("tool_output_ref:../../etc/passwd").isEmpty(), "Keys outside the store must not resolve.");
+    }
+
+    @Test
+    void testLargeToolOutputIsTruncatedWithoutAStore() {
+        ConversationHistory history = new ConversationHistory(1000, 4, 50, null);
+
+        assertNull(history.addToolOutput("Crawler", "x".repeat(10_000)));
+        String rendered = history.render();
+        assertTrue(rendered.contains("truncated from 10000 characters"));
+        assertTrue(rendered.length() < 500, "Prompt should carry only the head of the output.");
+    }
+
+    @Test
+    void testLlmSummarizerRunsAsynchronouslyThroughTheDispatcher() {
+        LLMClient summarizingLlm = new LLMClient() {
+            @Override
+            public String complete(String prompt) {
+                throw new AssertionError("The blocking call must not be used.");
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        List<String> dispatched = new ArrayList<>();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        ConversationHistory history = new ConversationHistory(60, 1, 100, ConversationHistory.llmSummarizer(summarizingLlm), null,
+                (client, prompt) -> {
+                    dispatched.add(prompt);
+                    return pending;
+                });
+        history.addTurn("First turn: " + "detail ".repeat(20));
+        history.addTurn("Second turn: " + "detail ".repeat(20));
+
+        CompletableFuture<Void> compaction = history.compact();
+
+        assertEquals(1, dispatched.size());
+        assertFalse(compaction.isDone(), "Compaction should wait for the LLM without blocking the caller.");
+        assertTrue(history.render().contains("First turn"), "Evicted turns stay visible until the summary arrives.");
+        pending.complete("LLM summary of earlier steps");
+        compaction.join();
+        assertEquals("LLM summary of earlier steps", history.getSummary());
+        assertFalse(history.render().contains("First turn"));
+        assertEquals(1, history.size());
+    }
+
+    @Test
+    void testLlmSummarizerIsUsedForEvictedTurns() {
+        LLMClient summarizingLlm = new LLMClient() {
+            @Override
+            public String complete(String prompt) {
+                return "LLM summary of earlier steps";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        ConversationHistory history = new ConversationHistory(60, 1, 100, ConversationHistory.llmSummarizer(summarizingLlm));
+        history.addTurn("First turn: " + "detail ".repeat(20));
+        history.addTurn("Second turn: " + "detail ".repeat(20));
+        history.compact().join();
+
+        assertEquals("LLM summary of earlier steps", history.getSummary());
+        assertEquals(1, history.size());
+    }
+}
@@ -0,0 +1,185 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.memory.Memory;
+import com.javaagentai.aiagents.memory.ShortTermMemory;
+import com.javaagentai.aiagents.tools.Tool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class CrewServiceTest {
+
+    // Agent whose tasks finish only when the test releases them, keyed by task description.
+    static class GatedAgent implements Agent {
+        final Map<String, CompletableFuture<String>> gates = new ConcurrentHashMap<>();
+        final List<String> started = new CopyOnWriteArrayList<>();
+        private final Memory memory = new ShortTermMemory(100);
+
+        CompletableFuture<String> gate(String description) {
+            return gates.computeIfAbsent(description, d -> new CompletableFuture<>());
+        }
+
+        void release(String description) {
+            gate(description).complete("done " + description);
+        }
+
+        @Override
+        public String getName() {
+            return "Gated";
+        }
+
+        @Override
+        public String getRole() {
+            return "Worker";
+        }
+
+        @Override
+        public List<Tool> getTools() {
+            return List.of();
+        }
+
+        @Override
+        public Memory getMemory() {
+            return memory;
+        }
+
+        @Override
+        public CompletableFuture<String> performTask(Task task, AgentContext context) {
+            started.add(task.getDescription());
+            return gate(task.getDescription());
+        }
+    }
+
+    private static Task task(String description) {
+        return Task.builder().description(description).input(Map.of()).build();
+    }
+
+    private static CrewService service(GatedAgent agent, int maxConcurrent, int queueCapacity, Duration maxQueueWait) {
+        Crew crew = Crew.builder().agents(List.of(agent)).processStrategy(ProcessStrategy.SEQUENTIAL).build();
+        return new CrewService(crew, maxConcurrent, queueCapacity, maxQueueWait);
+    }
+
+    // Processes hand the task to the agent asynchronously.
+    private static void awaitStarted(GatedAgent agent, int count) throws InterruptedException {
+        while (agent.started.size() < count) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testConcurrencyLimitAndPriorityOrder() throws Exception {
+        GatedAgent agent = new GatedAgent();
+        try (CrewService service = service(agent, 1, 10, null)) {
+            CompletableFuture<String> first = service.submit(task("first"));
+            CompletableFuture<String> low = service.submit(task("low"), 1);
+            CompletableFuture<String> high = service.submit(task("high"), 5);
+
+            awaitStarted(agent, 1);
+            assertEquals(List.of("first"), agent.started, "Only one execution may run at a time.");
+            assertEquals(2, service.getQueueDepth());
+            assertEquals(1, service.getActiveExecutions());
+
+            agent.release("first");
+            assertEquals("done first", first.get(5, TimeUnit.SECONDS));
+            agent.release("high");
+            assertEquals("done high", high.get(5, TimeUnit.SECONDS));
+            agent.release("low");
+            assertEquals("done low", low.get(5, TimeUnit.SECONDS));
+
+            assertEquals(List.of("first", "high", "low"), agent.started, "Higher priority should run first.");
+            CrewService.Stats stats = service.getStats();
+            assertEquals(0, stats.queueDepth());
+            assertEquals(0, stats.activeExecutions());
+            assertEquals(3, stats.completed());
+            assertTrue(stats.maxQueueWaitMillis() > 0, "Queued submissions should report their wait time.");
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testSaturatedServiceShedsLowerPriorityOrRejects() throws Exception {
+        GatedAgent agent = new GatedAgent();
+        try (CrewService service = service(agent, 1, 1, null)) {
+            service.submit(task("running"));
+            CompletableFuture<String> queuedLow = service.submit(task("queued-low"), 0);
+
+            CompletableFuture<String> sameLow = service.submit(task("same-low"), 0);
+            ExecutionException rejected = assertThrows(ExecutionException.class, () -> sameLow.get(1, TimeUnit.SECONDS));
+            assertInstanceOf(RejectedExecutionException.class, rejected.getCause());
+
+            CompletableFuture<String> urgent = service.submit(task("urgent"), 9);
+            ExecutionException shed = assertThrows(ExecutionException.class, () -> queuedLow.get(1, TimeUnit.SECONDS));
+            assertInstanceOf(RejectedExecutionException.class, shed.getCause());
+
+            agent.release("running");
+            agent.release("urgent");
+            assertEquals("done urgent", urgent.get(5, TimeUnit.SECONDS));
+
+            CrewService.Stats stats = service.getStats();
+            assertEquals(4, stats.submitted());
+            assertEquals(1, stats.rejected());
+            assertEquals(1, stats.shed());
+            assertFalse(agent.started.contains("queued-low"));
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testStaleSubmissionsExpireAndCancelledOnesLeaveTheQueue() throws Exception {
+        GatedAgent agent = new GatedAgent();
+        try (CrewService service = service(agent, 1, 10, Duration.ofMillis(100))) {
+            service.submit(task("running"));
+            CompletableFuture<String> stale = service.submit(task("stale"));
+            CompletableFuture<String> cancelled = service.submit(task("cancelled"));
+            cancelled.cancel(true);
+            assertEquals(1, service.getQueueDepth());
+
+            Thread.sleep(200);
+            agent.release("running");
+
+            ExecutionException error = assertThrows(ExecutionException.class, () -> stale.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(RejectedExecutionException.class, error.getCause());
+            assertEquals(List.of("running"), agent.started);
+            assertEquals(1, service.getStats().expired());
+            assertEquals(0, service.getActiveExecutions());
+        }
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void testManySynchronousCompletionsDoNotGrowTheStack() throws Exception {
+        CompletableFuture<String> firstGate = new CompletableFuture<>();
+        Process process = (task, agents, context) ->
+                task.getDescription().equals("first") ? firstGate : CompletableFuture.completedFuture("done " + task.getDescription());
+        Crew crew = Crew.builder().agents(List.of()).processStrategy(ProcessStrategy.SEQUENTIAL).process(process).build();
+        CrewService service = new CrewService(crew, 1, 50_000, null);
+
+        CompletableFuture<String> first = service.submit(task("first"));
+        List<CompletableFuture<String>> queued = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            queued.add(service.submit(task("task " + i)));
+        }
+        firstGate.complete("done first"); // Every queued execution now completes on this thread
+
+        assertEquals("done first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("done task 49999", queued.get(queued.size() - 1).get(5, TimeUnit.SECONDS));
+        assertEquals(0, service.getActiveExecutions());
+        assertEquals(50_001, service.getStats().completed());
+    }
+}
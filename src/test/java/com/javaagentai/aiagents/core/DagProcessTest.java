@@ -0,0 +1,161 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.memory.Memory;
+import com.javaagentai.aiagents.memory.ShortTermMemory;
+import com.javaagentai.aiagents.tools.Tool;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class DagProcessTest {
+
+    // Answers after a short delay with its task description and the outputs it received; tracks concurrency.
+    static class RecordingAgent implements Agent {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        private final String failOn;
+
+        RecordingAgent(String failOn) {
+            this.failOn = failOn;
+        }
+
+        @Override
+        public String getName() {
+            return "Recorder";
+        }
+
+        @Override
+        public String getRole() {
+            return "Test Agent";
+        }
+
+        @Override
+        public List<Tool> getTools() {
+            return List.of();
+        }
+
+        @Override
+        public Memory getMemory() {
+            return new ShortTermMemory(10);
+        }
+
+        @Override
+        public CompletableFuture<String> performTask(Task task, AgentContext context) {
+            return CompletableFuture.supplyAsync(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(150);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                if (task.getDescription().equals(failOn)) {
+                    task.setStatus(TaskStatus.FAILED);
+                    return "Error: could not " + task.getDescription();
+                }
+                task.setStatus(TaskStatus.COMPLETED);
+                Object upstream = task.getInput().get(DagProcess.DEPENDENCY_OUTPUTS_KEY);
+                return task.getDescription() + (upstream != null ? " using " + upstream : "");
+            });
+        }
+    }
+
+    private static Task task(String description, Task... dependencies) {
+        return Task.builder().description(description).input(Map.of()).dependsOn(dependencies).build();
+    }
+
+    @Test
+    void testIndependentTasksRunConcurrentlyAndOutputsFlowAlongEdges() throws Exception {
+        RecordingAgent agent = new RecordingAgent(null);
+        Task research = task("research");
+        Task trends = task("trends");
+        Task competitors = task("competitors");
+        Task report = task("report", research, trends, competitors);
+
+        long start = System.nanoTime();
+        String result = new DagProcess(4).execute(report, List.of(agent), new AgentContext()).get(5, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("report using [research: research, trends: trends, competitors: competitors]", result);
+        assertEquals(3, agent.maxRunning.get(), "The three independent tasks should run at the same time.");
+        assertTrue(elapsedMillis < 4 * 150, "Wide graph should take about two task durations, took " + elapsedMillis + "ms.");
+        assertEquals(TaskStatus.COMPLETED, report.getStatus());
+        assertEquals(TaskStatus.COMPLETED, research.getStatus());
+    }
+
+    @Test
+    void testDependenciesWithTheSameDescriptionKeepTheirOwnOutputs() throws Exception {
+        RecordingAgent agent = new RecordingAgent(null);
+        Task fetchA = task("fetch", task("source-a"));
+        Task fetchB = task("fetch", task("source-b"));
+        Task merge = task("merge", fetchA, fetchB);
+
+        String result = new DagProcess(4).execute(merge, List.of(agent), new AgentContext()).get(5, TimeUnit.SECONDS);
+
+        assertEquals("merge using [fetch: fetch using [source-a: source-a], fetch: fetch using [source-b: source-b]]", result);
+    }
+
+    @Test
+    void testParallelismIsBounded() throws Exception {
+        RecordingAgent agent = new RecordingAgent(null);
+        Task a = task("a");
+        Task b = task("b");
+        Task c = task("c");
+        Task d = task("d");
+        Task join = task("join", a, b, c, d);
+
+        new DagProcess(2).execute(join, List.of(agent), new AgentContext()).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, agent.maxRunning.get());
+    }
+
+    @Test
+    void testFailedTaskSkipsDependentsButNotIndependentBranches() throws Exception {
+        RecordingAgent agent = new RecordingAgent("broken");
+        Task broken = task("broken");
+        Task healthy = task("healthy");
+        Task dependent = task("dependent", broken);
+        Task sink = task("sink", dependent, healthy);
+
+        String result = new DagProcess(4).execute(sink, List.of(agent), new AgentContext()).get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.startsWith("Error: DAG process failed."), result);
+        assertEquals(TaskStatus.FAILED, broken.getStatus());
+        assertEquals(TaskStatus.FAILED, dependent.getStatus());
+        assertEquals(TaskStatus.COMPLETED, healthy.getStatus());
+        assertEquals(TaskStatus.FAILED, sink.getStatus());
+    }
+
+    @Test
+    void testCycleIsRejected() throws Exception {
+        List<Task> dependenciesOfA = new ArrayList<>();
+        Task a = Task.builder().description("a").input(Map.of()).dependencies(dependenciesOfA).build();
+        Task b = task("b", a);
+        dependenciesOfA.add(b);
+
+        String result = new DagProcess(2).execute(b, List.of(new RecordingAgent(null)), new AgentContext()).get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.contains("cycle"), result);
+        assertEquals(TaskStatus.FAILED, b.getStatus());
+    }
+
+    @Test
+    void testCrewSelectsDagProcess() throws Exception {
+        RecordingAgent agent = new RecordingAgent(null);
+        Task first = task("first");
+        Task second = task("second", first);
+        Crew crew = Crew.builder().agents(List.of(agent)).processStrategy(ProcessStrategy.DAG).build();
+
+        assertEquals("second using [first: first]", crew.execute(second).get(5, TimeUnit.SECONDS));
+    }
+}
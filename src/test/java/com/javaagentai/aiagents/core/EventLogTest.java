@@ -0,0 +1,105 @@
+package com.javaagentai.aiagents.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class EventLogTest {
+
+    @Test
+    void testLogIsBoundedAndKeepsMostRecentEvents() {
+        EventLog log = new EventLog(8, EventLevel.INFO);
+        for (int i = 0; i < 20; i++) {
+            int n = i;
+            log.append(EventLevel.INFO, "log", () -> "event " + n);
+        }
+
+        List<AgentEvent> events = log.snapshot();
+        assertEquals(8, events.size());
+        assertEquals("event 12", events.get(0).message());
+        assertEquals("event 19", events.get(7).message());
+        assertEquals(12, log.getDroppedCount());
+    }
+
+    @Test
+    void testDisabledLevelsNeverFormatTheMessage() {
+        EventLog log = new EventLog(16, EventLevel.INFO);
+        AtomicInteger formatted = new AtomicInteger();
+
+        assertNull(log.append(EventLevel.DEBUG, "llm.prompt", () -> "prompt " + formatted.incrementAndGet()));
+        AgentEvent info = log.append(EventLevel.INFO, "log", () -> "info " + formatted.incrementAndGet());
+
+        assertEquals(0, formatted.get(), "Messages should only be formatted when read.");
+        assertEquals("info 1", info.message());
+        assertEquals("info 1", info.message());
+        assertEquals(1, formatted.get(), "Messages should be formatted at most once.");
+        assertEquals(1, log.snapshot().size());
+    }
+
+    @Test
+    void testConcurrentProducersAndSinks() throws Exception {
+        int producers = 8;
+        int perProducer = 2_000;
+        EventLog log = new EventLog(producers * perProducer, EventLevel.INFO);
+        AtomicInteger sinkCount = new AtomicInteger();
+        log.addSink(event -> sinkCount.incrementAndGet());
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    int n = i;
+                    log.append(EventLevel.INFO, "log", () -> producer + ":" + n);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<AgentEvent> events = log.snapshot();
+        assertEquals(producers * perProducer, events.size());
+        assertEquals(producers * perProducer, sinkCount.get());
+        Set<String> unique = new HashSet<>();
+        List<Long> sequences = new ArrayList<>();
+        for (AgentEvent event : events) {
+            unique.add(event.message());
+            sequences.add(event.sequence());
+        }
+        assertEquals(producers * perProducer, unique.size(), "No event should be lost or duplicated.");
+        for (int i = 1; i < sequences.size(); i++) {
+            assertTrue(sequences.get(i) > sequences.get(i - 1), "Snapshot should be in sequence order.");
+        }
+    }
+
+    @Test
+    void testContextLogHistoryIsBackedByEventLog() {
+        AgentContext context = new AgentContext(new EventLog(4, EventLevel.INFO));
+        context.log("first");
+        context.log(EventLevel.DEBUG, "llm.prompt", () -> "hidden");
+        context.log("second");
+
+        assertEquals(List.of("first", "second"), context.getLogHistory().stream().map(AgentContext.LogEntry::message).toList());
+        context.clearLogHistory();
+        assertTrue(context.getLogHistory().isEmpty());
+        context.log("third");
+        assertEquals(1, context.getLogHistory().size());
+    }
+}
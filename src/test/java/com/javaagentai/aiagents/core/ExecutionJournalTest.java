@@ -0,0 +1,204 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.memory.Memory;
+import com.javaagentai.aiagents.memory.ShortTermMemory;
+import com.javaagentai.aiagents.tools.Tool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class ExecutionJournalTest {
+
+    @TempDir
+    Path journalDir;
+
+    // Appends its name to the previous output; can be told to fail.
+    static class StepAgent implements Agent {
+        private final String name;
+        private final Memory memory = new ShortTermMemory(100);
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicBoolean failing = new AtomicBoolean();
+        final AtomicBoolean softFailing = new AtomicBoolean();
+
+        StepAgent(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getRole() {
+            return "Step";
+        }
+
+        @Override
+        public List<Tool> getTools() {
+            return List.of();
+        }
+
+        @Override
+        public Memory getMemory() {
+            return memory;
+        }
+
+        @Override
+        public CompletableFuture<String> performTask(Task task, AgentContext context) {
+            calls.incrementAndGet();
+            if (failing.get()) {
+                return CompletableFuture.failedFuture(new IllegalStateException(name + " crashed"));
+            }
+            if (softFailing.get()) {
+                // Like BasicAgent running out of iterations: the future succeeds, the task does not.
+                task.setStatus(TaskStatus.FAILED);
+                return CompletableFuture.completedFuture("Error: " + name + " reached maximum iterations.");
+            }
+            context.storeSharedData(name + "_done", true);
+            task.setStatus(TaskStatus.COMPLETED);
+            return CompletableFuture.completedFuture(task.getDescription() + ">" + name);
+        }
+    }
+
+    @Test
+    void testRecordedStepsSurviveReopenAndTornLinesAreSkipped() throws Exception {
+        try (ExecutionJournal journal = ExecutionJournal.open(journalDir, "run-1", true)) {
+            journal.recordStep("plan", "the plan", Map.of("topic", "cats", "unserializable", new Object()));
+            journal.recordStep("step-1", "first result", Map.of("topic", "cats", "count", 2));
+        }
+        Path file = journalDir.resolve("run-1.jsonl");
+        Files.writeString(file, "{\"step\":\"step-2\",\"outp", StandardCharsets.UTF_8, StandardOpenOption.APPEND); // Crash mid-write
+
+        try (ExecutionJournal reopened = ExecutionJournal.open(journalDir, "run-1", false)) {
+            assertEquals("the plan", reopened.getStepOutput("plan").orElseThrow());
+            assertEquals("first result", reopened.getStepOutput("step-1").orElseThrow());
+            assertTrue(reopened.getStepOutput("step-2").isEmpty());
+            assertEquals(Map.of("topic", "cats", "count", 2), reopened.getSharedMemory());
+
+            AgentContext context = new AgentContext();
+            context.setExecutionJournal(reopened);
+            assertEquals("cats", context.retrieveSharedData("topic"));
+
+            reopened.recordStep("step-2", "second result", Map.of());
+        }
+        assertTrue(Files.readString(file).endsWith("\n"));
+        try (ExecutionJournal reopened = ExecutionJournal.open(journalDir, "run-1", false)) {
+            assertEquals("second result", reopened.getStepOutput("step-2").orElseThrow(), "The torn line must not swallow the next record.");
+        }
+        assertThrows(IllegalArgumentException.class, () -> ExecutionJournal.open(journalDir, "../escape", false));
+    }
+
+    @Test
+    void testSharedMemoryChangesAreJournaledAndReplayed() throws Exception {
+        String report = "a long report";
+        try (ExecutionJournal journal = ExecutionJournal.open(journalDir, "run-2", false)) {
+            journal.recordStep("step-1", "a", Map.of("report", report, "draft", "v1", "phase", 1));
+            journal.recordStep("step-2", "b", Map.of("report", report, "phase", 2));
+        }
+        List<String> lines = Files.readAllLines(journalDir.resolve("run-2.jsonl"));
+        assertEquals(2, lines.size());
+        assertFalse(lines.get(1).contains(report), "Unchanged entries are not journaled again: " + lines.get(1));
+        assertTrue(lines.get(1).contains("\"removedKeys\":[\"draft\"]"), lines.get(1));
+
+        try (ExecutionJournal reopened = ExecutionJournal.open(journalDir, "run-2", false)) {
+            assertEquals(Map.of("report", report, "phase", 2), reopened.getSharedMemory(), "Removed keys must not come back.");
+        }
+    }
+
+    @Test
+    void testParallelCheckpointsKeepEachOthersEntries() throws Exception {
+        AgentContext context = new AgentContext();
+        try (ExecutionJournal journal = ExecutionJournal.open(journalDir, "run-3", false)) {
+            context.setExecutionJournal(journal);
+            Task first = Task.builder().description("first").status(TaskStatus.COMPLETED).build();
+            Task second = Task.builder().description("second").status(TaskStatus.COMPLETED).build();
+            CompletableFuture<String> firstWork = new CompletableFuture<>();
+            CompletableFuture<String> firstStep = context.checkpoint("subtask:0", first, () -> firstWork);
+            context.storeSharedData("a_done", true);
+            context.storeSharedData("b_done", true);
+            context.checkpoint("subtask:1", second, () -> CompletableFuture.completedFuture("b")).join();
+            firstWork.complete("a");
+            firstStep.join();
+        }
+        try (ExecutionJournal reopened = ExecutionJournal.open(journalDir, "run-3", false)) {
+            assertEquals(Map.of("a_done", true, "b_done", true), reopened.getSharedMemory());
+        }
+    }
+
+    @Test
+    void testStepsRecordedAfterCloseAreIgnored() throws Exception {
+        ExecutionJournal journal = ExecutionJournal.open(journalDir, "run-4", false);
+        journal.recordStep("step-1", "a", Map.of());
+        journal.close();
+
+        assertDoesNotThrow(() -> journal.recordStep("straggler", "late", Map.of("late", true)));
+        assertTrue(journal.getStepOutput("straggler").isEmpty());
+        assertEquals(1, Files.readAllLines(journal.getFile()).size());
+    }
+
+    @Test
+    void testSoftFailuresAreNotJournaled() throws Exception {
+        StepAgent first = new StepAgent("A");
+        StepAgent second = new StepAgent("B");
+        Crew crew = Crew.builder()
+                .agents(List.of(first, second))
+                .processStrategy(ProcessStrategy.SEQUENTIAL)
+                .journalDirectory(journalDir)
+                .build();
+
+        second.softFailing.set(true);
+        String failed = crew.execute(Task.builder().description("start").input(Map.of()).build(), "order-7").get(5, TimeUnit.SECONDS);
+        assertTrue(failed.startsWith("Error"), failed);
+
+        second.softFailing.set(false);
+        String resumed = crew.resume("order-7", Task.builder().description("start").input(Map.of()).build()).get(5, TimeUnit.SECONDS);
+
+        assertEquals("start>A>B", resumed, "The failed step must run again rather than replay its error.");
+        assertEquals(1, first.calls.get());
+        assertEquals(2, second.calls.get());
+    }
+
+    @Test
+    void testCrewResumesSequentialRunFromLastCheckpoint() throws Exception {
+        StepAgent first = new StepAgent("A");
+        StepAgent second = new StepAgent("B");
+        StepAgent third = new StepAgent("C");
+        Crew crew = Crew.builder()
+                .agents(List.of(first, second, third))
+                .processStrategy(ProcessStrategy.SEQUENTIAL)
+                .journalDirectory(journalDir)
+                .build();
+        Task task = Task.builder().description("start").input(Map.of()).build();
+
+        second.failing.set(true);
+        String failed = crew.execute(task, "order-42").get(5, TimeUnit.SECONDS);
+        assertTrue(failed.startsWith("Error"), "The interrupted run should fail.");
+        assertTrue(ExecutionJournal.exists(journalDir, "order-42"), "A failed run keeps its journal.");
+
+        second.failing.set(false);
+        String resumed = crew.resume("order-42", Task.builder().description("start").input(Map.of()).build()).get(5, TimeUnit.SECONDS);
+
+        assertEquals("start>A>B>C", resumed);
+        assertEquals(1, first.calls.get(), "The completed first step should be replayed, not re-run.");
+        assertEquals(2, second.calls.get());
+        assertEquals(1, third.calls.get());
+        assertFalse(ExecutionJournal.exists(journalDir, "order-42"), "A finished run's journal is deleted.");
+        assertThrows(IllegalStateException.class, () -> crew.resume("order-42", task));
+    }
+}
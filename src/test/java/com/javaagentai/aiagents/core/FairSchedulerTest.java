@@ -0,0 +1,140 @@
+package com.javaagentai.aiagents.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class FairSchedulerTest {
+
+    // Calls record their start and stay running until released, so the test controls when a slot frees up.
+    private final List<String> started = new CopyOnWriteArrayList<>();
+    private final List<CompletableFuture<String>> gates = new CopyOnWriteArrayList<>();
+
+    private CompletableFuture<String> gatedCall(FairScheduler scheduler, String tenant, int priority, long tokens, String label) {
+        return scheduler.submit(tenant, priority, tokens, () -> {
+            started.add(label);
+            CompletableFuture<String> gate = new CompletableFuture<>();
+            gates.add(gate);
+            return gate;
+        });
+    }
+
+    private void releaseNext() {
+        gates.remove(0).complete("done");
+    }
+
+    private static FairScheduler scheduler(int maxConcurrentCalls) {
+        return new FairScheduler(maxConcurrentCalls, new FairScheduler.TenantPolicy(1, 0, 0));
+    }
+
+    @Test
+    void testHigherPriorityGoesFirst() {
+        try (FairScheduler scheduler = scheduler(1)) {
+            gatedCall(scheduler, "batch", 0, 10, "blocker");
+            gatedCall(scheduler, "batch", 0, 10, "batch-1");
+            gatedCall(scheduler, "batch", 0, 10, "batch-2");
+            CompletableFuture<String> interactive = gatedCall(scheduler, "chat", 5, 10, "interactive");
+
+            releaseNext();
+
+            assertEquals(List.of("blocker", "interactive"), started);
+            releaseNext();
+            assertEquals("done", interactive.getNow(null));
+            assertEquals(List.of("blocker", "interactive", "batch-1"), started);
+        }
+    }
+
+    @Test
+    void testTenantsShareCapacityByWeight() {
+        try (FairScheduler scheduler = scheduler(1)) {
+            scheduler.setTenantPolicy("gold", new FairScheduler.TenantPolicy(2, 0, 0));
+            gatedCall(scheduler, "blocker", 0, 1, "blocker");
+            // A tenant with many queued calls must not starve one with few.
+            for (int i = 0; i < 6; i++) {
+                gatedCall(scheduler, "bronze", 0, 10, "bronze");
+            }
+            for (int i = 0; i < 6; i++) {
+                gatedCall(scheduler, "gold", 0, 10, "gold");
+            }
+            for (int i = 0; i < 6; i++) {
+                releaseNext();
+            }
+
+            List<String> order = started.subList(1, started.size());
+            assertEquals(6, order.size());
+            assertEquals(4, order.stream().filter("gold"::equals).count(), "Gold has twice the weight: " + order);
+            assertEquals(2, order.stream().filter("bronze"::equals).count(), "Bronze still gets its share: " + order);
+        }
+    }
+
+    @Test
+    void testPerTenantConcurrencyQuota() {
+        try (FairScheduler scheduler = scheduler(4)) {
+            scheduler.setTenantPolicy("noisy", new FairScheduler.TenantPolicy(1, 1, 0));
+            gatedCall(scheduler, "noisy", 0, 10, "noisy-1");
+            gatedCall(scheduler, "noisy", 0, 10, "noisy-2");
+            gatedCall(scheduler, "quiet", 0, 10, "quiet-1");
+
+            assertEquals(List.of("noisy-1", "quiet-1"), started);
+            assertEquals(2, scheduler.getRunningCount());
+
+            scheduler.setTenantPolicy("noisy", new FairScheduler.TenantPolicy(1, 2, 0));
+            assertEquals(List.of("noisy-1", "quiet-1", "noisy-2"), started, "A raised quota admits the queued call.");
+        }
+    }
+
+    @Test
+    void testTokenBudgetHoldsCallsBack() {
+        try (FairScheduler scheduler = scheduler(4)) {
+            scheduler.setTenantPolicy("metered", new FairScheduler.TenantPolicy(1, 0, 100));
+            gatedCall(scheduler, "metered", 0, 80, "first");
+            gatedCall(scheduler, "metered", 0, 80, "second");
+
+            assertEquals(List.of("first"), started, "The window budget is spent by the first call.");
+            FairScheduler.TenantStats stats = scheduler.getStats().stream()
+                    .filter(s -> s.tenant().equals("metered")).findFirst().orElseThrow();
+            assertEquals(1, stats.queued());
+            assertEquals(80, stats.tokensThisWindow());
+        }
+    }
+
+    @Test
+    void testCancellingAQueuedCallWithdrawsIt() {
+        try (FairScheduler scheduler = scheduler(1)) {
+            gatedCall(scheduler, "a", 0, 10, "running");
+            CompletableFuture<String> queued = gatedCall(scheduler, "a", 0, 10, "queued");
+            gatedCall(scheduler, "a", 0, 10, "next");
+
+            assertTrue(queued.cancel(true));
+            releaseNext();
+
+            assertEquals(List.of("running", "next"), new ArrayList<>(started));
+            assertEquals(1, scheduler.getRunningCount());
+        }
+    }
+
+    @Test
+    void testManySynchronousCompletionsDoNotGrowTheStack() throws Exception {
+        try (FairScheduler scheduler = scheduler(1)) {
+            gatedCall(scheduler, "acme", 0, 10, "first");
+            List<CompletableFuture<Integer>> queued = new ArrayList<>();
+            for (int i = 0; i < 50_000; i++) {
+                int n = i;
+                queued.add(scheduler.submit("acme", 0, 10, () -> CompletableFuture.completedFuture(n)));
+            }
+
+            releaseNext(); // Every queued call now starts and completes on this thread
+
+            assertEquals(49_999, queued.get(queued.size() - 1).getNow(null));
+            assertEquals(0, scheduler.getRunningCount());
+        }
+    }
+}
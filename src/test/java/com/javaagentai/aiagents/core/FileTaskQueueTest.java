@@ -0,0 +1,295 @@
+package com.javaagentai.aiagents.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class FileTaskQueueTest {
+
+    @TempDir
+    Path tempDir;
+
+    private FileTaskQueue open(long segmentBytes, Duration visibilityTimeout) throws Exception {
+        return FileTaskQueue.open(tempDir, segmentBytes, false, visibilityTimeout);
+    }
+
+    private static Task task(String description) {
+        return Task.builder().description(description).input(Map.of("n", description.length())).build();
+    }
+
+    private static long lastSegmentSize(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            Path last = files.filter(p -> p.getFileName().toString().startsWith("segment-")).sorted().reduce((a, b) -> b).orElseThrow();
+            return Files.size(last);
+        }
+    }
+
+    @Test
+    void testDeliversInOrderAndForgetsAcknowledgedTasks() throws Exception {
+        try (FileTaskQueue queue = open(1 << 20, Duration.ofMinutes(1))) {
+            Task original = Task.builder().description("Summarize the report.").input(Map.of("pages", 12, "tags", List.of("q3")))
+                    .expectedOutput("A summary").tenant("acme").priority(7).build();
+            assertEquals(0, queue.append(original));
+            assertEquals(1, queue.append(task("second")));
+
+            FileTaskQueue.Delivery first = queue.poll().orElseThrow();
+            assertEquals(0, first.offset());
+            assertEquals(1, first.attempt());
+            assertEquals("Summarize the report.", first.task().getDescription());
+            assertEquals(Map.of("pages", 12, "tags", List.of("q3")), first.task().getInput());
+            assertEquals("A summary", first.task().getExpectedOutput());
+            assertEquals("acme", first.task().getTenant());
+            assertEquals(7, first.task().getPriority());
+
+            assertEquals(1, queue.poll().orElseThrow().offset());
+            assertTrue(queue.poll().isEmpty(), "In-flight tasks are not delivered twice.");
+            assertEquals(2, queue.getInFlightCount());
+
+            assertTrue(queue.ack(0));
+            assertFalse(queue.ack(0));
+            assertEquals(1, queue.getPendingCount());
+        }
+    }
+
+    @Test
+    void testUnacknowledgedTasksAreReplayedAfterRestart() throws Exception {
+        try (FileTaskQueue queue = open(1 << 20, Duration.ofMinutes(1))) {
+            for (int i = 0; i < 5; i++) {
+                queue.append(task("task " + i));
+            }
+            queue.poll();
+            queue.poll();
+            queue.poll();
+            queue.ack(0);
+            queue.ack(2);
+        }
+
+        try (FileTaskQueue reopened = open(1 << 20, Duration.ofMinutes(1))) {
+            assertEquals(3, reopened.getPendingCount());
+            List<Long> replayed = new ArrayList<>();
+            reopened.poll().ifPresent(d -> replayed.add(d.offset()));
+            reopened.poll().ifPresent(d -> replayed.add(d.offset()));
+            reopened.poll().ifPresent(d -> replayed.add(d.offset()));
+            assertEquals(List.of(1L, 3L, 4L), replayed);
+            assertEquals(5, reopened.append(task("after restart")), "Offsets continue after the last stored task.");
+        }
+    }
+
+    @Test
+    void testTornLastRecordIsTruncatedOnOpen() throws Exception {
+        try (FileTaskQueue queue = open(1 << 20, Duration.ofMinutes(1))) {
+            queue.append(task("kept 1"));
+            queue.append(task("kept 2"));
+        }
+        long intactSize = lastSegmentSize(tempDir);
+        try (Stream<Path> files = Files.list(tempDir)) {
+            Path segment = files.filter(p -> p.getFileName().toString().startsWith("segment-")).findFirst().orElseThrow();
+            Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND); // Half-written record
+        }
+
+        try (FileTaskQueue reopened = open(1 << 20, Duration.ofMinutes(1))) {
+            assertEquals(intactSize, lastSegmentSize(tempDir));
+            assertEquals(2, reopened.getPendingCount());
+            assertEquals(2, reopened.append(task("new")));
+            assertEquals(List.of("kept 1", "kept 2", "new"), IntStream.range(0, 3)
+                    .mapToObj(i -> reopened.poll().orElseThrow().task().getDescription()).toList());
+        }
+    }
+
+    @Test
+    void testSegmentsRollOverAndAreDeletedOnceAcknowledged() throws Exception {
+        try (FileTaskQueue queue = open(400, Duration.ofMinutes(1))) {
+            queue.appendAll(IntStream.range(0, 30).mapToObj(i -> task("task number " + i)).toList());
+            assertTrue(queue.getSegmentCount() > 3, "Expected several segments, got " + queue.getSegmentCount());
+
+            for (int i = 0; i < 30; i++) {
+                FileTaskQueue.Delivery delivery = queue.poll().orElseThrow();
+                assertEquals("task number " + i, delivery.task().getDescription());
+                queue.ack(delivery.offset());
+            }
+            assertEquals(1, queue.getSegmentCount());
+            assertEquals(0, queue.getPendingCount());
+        }
+    }
+
+    @Test
+    void testAcknowledgementsSurviveCompaction() throws Exception {
+        try (FileTaskQueue queue = open(1 << 20, Duration.ofMinutes(1))) {
+            queue.appendAll(IntStream.range(0, 5000).mapToObj(i -> task("t" + i)).toList());
+            for (int i = 0; i < 4999; i++) {
+                queue.ack(queue.poll().orElseThrow().offset());
+            }
+        }
+        assertTrue(Files.size(tempDir.resolve("acks.log")) < 8 * 4999, "The acknowledgement log should have been compacted.");
+
+        try (FileTaskQueue reopened = open(1 << 20, Duration.ofMinutes(1))) {
+            assertEquals(1, reopened.getPendingCount());
+            assertEquals("t4999", reopened.poll().orElseThrow().task().getDescription());
+        }
+    }
+
+    @Test
+    void testUnacknowledgedDeliveriesComeBackAfterTimeoutOrNack() throws Exception {
+        try (FileTaskQueue queue = open(1 << 20, Duration.ofMillis(50))) {
+            queue.append(task("slow"));
+            queue.append(task("failing"));
+            assertEquals(0, queue.poll().orElseThrow().offset());
+            FileTaskQueue.Delivery failing = queue.poll().orElseThrow();
+
+            queue.nack(failing.offset());
+            FileTaskQueue.Delivery retried = queue.poll().orElseThrow();
+            assertEquals(1, retried.offset());
+            assertEquals(2, retried.attempt());
+
+            Thread.sleep(100);
+            List<Long> redelivered = new ArrayList<>();
+            queue.poll().ifPresent(d -> redelivered.add(d.offset()));
+            queue.poll().ifPresent(d -> redelivered.add(d.offset()));
+            assertEquals(Set.of(0L, 1L), Set.copyOf(redelivered));
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testConsumerAcknowledgesCompletedRunsAndRetriesFailedOnes() throws Exception {
+        Set<String> completed = ConcurrentHashMap.newKeySet();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger flakyAttempts = new AtomicInteger();
+        try (FileTaskQueue queue = open(1 << 20, Duration.ofMinutes(1));
+             AutoCloseable ignored = queue.consume(task -> CompletableFuture.supplyAsync(() -> {
+                 maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                 try {
+                     Thread.sleep(20);
+                     if (task.getDescription().equals("flaky") && flakyAttempts.incrementAndGet() < 3) {
+                         throw new IllegalStateException("transient failure");
+                     }
+                     completed.add(task.getDescription());
+                     return "done";
+                 } catch (InterruptedException e) {
+                     throw new IllegalStateException(e);
+                 } finally {
+                     running.decrementAndGet();
+                 }
+             }), 2, 5, Duration.ofMillis(20))) {
+            for (int i = 0; i < 6; i++) {
+                queue.append(task("task " + i));
+            }
+            queue.append(task("flaky"));
+
+            while (queue.getPendingCount() > 0) {
+                Thread.sleep(10);
+            }
+            assertEquals(7, completed.size());
+            assertEquals(3, flakyAttempts.get());
+            assertTrue(maxRunning.get() <= 2, "At most maxInFlight tasks may run at once.");
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testErrorOutputsAreRetriedAfterTheDelay() throws Exception {
+        List<Long> failingAttempts = new CopyOnWriteArrayList<>();
+        CompletableFuture<Long> otherRan = new CompletableFuture<>();
+        try (FileTaskQueue queue = open(1 << 20, Duration.ofMinutes(1));
+             AutoCloseable ignored = queue.consume(task -> {
+                 if (task.getDescription().equals("other")) {
+                     otherRan.complete(System.nanoTime());
+                     return CompletableFuture.completedFuture("done");
+                 }
+                 failingAttempts.add(System.nanoTime());
+                 return CompletableFuture.completedFuture(failingAttempts.size() == 1 ? "Error: Step failed." : "done");
+             }, 1, 5, Duration.ofMillis(300))) {
+            queue.append(task("failing"));
+            queue.append(task("other")); // Its append and completion pump the consumer, but must not bring the retry forward
+
+            while (queue.getPendingCount() > 0) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, failingAttempts.size(), "The error output counts as a failure and is retried once.");
+            long retryGapMillis = TimeUnit.NANOSECONDS.toMillis(failingAttempts.get(1) - failingAttempts.get(0));
+            assertTrue(retryGapMillis >= 300, "Retried after " + retryGapMillis + " ms");
+            assertTrue(otherRan.get() < failingAttempts.get(1));
+        }
+    }
+
+    @Test
+    void testNackWithDelayHoldsTheTaskBack() throws Exception {
+        try (FileTaskQueue queue = open(1 << 20, Duration.ofMinutes(1))) {
+            queue.append(task("failing"));
+            FileTaskQueue.Delivery delivery = queue.poll().orElseThrow();
+
+            queue.nack(delivery.offset(), Duration.ofMinutes(1));
+
+            assertTrue(queue.poll().isEmpty());
+            assertEquals(1, queue.getInFlightCount());
+        }
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void testSynchronouslyCompletingHandlerDoesNotGrowTheStack() throws Exception {
+        AtomicInteger handled = new AtomicInteger();
+        try (FileTaskQueue queue = open(1 << 24, Duration.ofMinutes(1))) {
+            queue.appendAll(IntStream.range(0, 50_000).mapToObj(i -> task("task " + i)).toList());
+            try (AutoCloseable ignored = queue.consume(task -> {
+                handled.incrementAndGet();
+                return CompletableFuture.completedFuture("done");
+            }, 1, 1, Duration.ofMinutes(1))) {
+                while (queue.getPendingCount() > 0) {
+                    Thread.sleep(10);
+                }
+            }
+            assertEquals(50_000, handled.get());
+        }
+    }
+
+    @Test
+    void testRestartResumesFromTheOffsetIndex() throws Exception {
+        try (FileTaskQueue queue = open(1 << 24, Duration.ofMinutes(1))) {
+            queue.appendAll(IntStream.range(0, 2000).mapToObj(i -> task("task " + i)).toList());
+            for (int i = 0; i < 1500; i++) {
+                queue.ack(queue.poll().orElseThrow().offset());
+            }
+        }
+        Path index;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            index = files.filter(p -> p.getFileName().toString().endsWith(".idx")).findFirst().orElseThrow();
+        }
+        assertTrue(Files.size(index) > 0, "Expected index entries for a multi-page segment.");
+
+        try (FileTaskQueue reopened = open(1 << 24, Duration.ofMinutes(1))) {
+            assertEquals(500, reopened.getPendingCount());
+            assertEquals("task 1500", reopened.poll().orElseThrow().task().getDescription());
+            assertEquals(2000, reopened.append(task("after restart")));
+        }
+
+        // A damaged index is only a hint: entries that do not match their records are dropped
+        Files.write(index, new byte[]{0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 7}, StandardOpenOption.TRUNCATE_EXISTING);
+        try (FileTaskQueue reopened = open(1 << 24, Duration.ofMinutes(1))) {
+            assertEquals("task 1500", reopened.poll().orElseThrow().task().getDescription());
+            assertEquals(2001, reopened.append(task("after damage")));
+        }
+    }
+}
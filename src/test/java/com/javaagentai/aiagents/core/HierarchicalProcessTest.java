@@ -17,6 +17,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -178,6 +179,138 @@ public class HierarchicalProcessTest {
         if (writerAgent != null) writerAgent.shutdown();
     }
 
+    // Slow worker that reports how many workers were running at the same time.
+    static class ConcurrencyTrackingLLMClient implements LLMClient {
+        static final AtomicInteger running = new AtomicInteger();
+        static final AtomicInteger maxRunning = new AtomicInteger();
+        private final String output;
+
+        ConcurrencyTrackingLLMClient(String output) {
+            this.output = output;
+        }
+
+        @Override
+        public String complete(String prompt) {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            return prompt.contains("dependency_outputs") ? output + " built on " + prompt.substring(prompt.indexOf("dependency_outputs")).lines().findFirst().orElse("") : output;
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    @Test
+    void testIndependentSubTasksRunInParallelAndDependenciesAreHonoured() throws Exception {
+        String plan = """
+                {
+                  "sub_tasks": [
+                    {"id": "market", "task_description": "Research the market.", "assigned_agent_name": "MarketAnalyst", "expected_output": "Market notes."},
+                    {"id": "tech", "task_description": "Research the technology.", "assigned_agent_name": "TechAnalyst", "expected_output": "Tech notes."},
+                    {"id": "report", "task_description": "Write the report.", "assigned_agent_name": "ReportWriter", "expected_output": "A report.", "depends_on": ["market", "tech"]}
+                  ]
+                }
+                """;
+        BasicAgent manager = BasicAgent.builder().name("Planner").role("Manager").tools(Collections.emptyList())
+                .llmClient(new LLMClient() {
+                    @Override
+                    public String complete(String prompt) {
+                        return prompt.contains("Synthesize the final answer") ? prompt.substring(prompt.indexOf("- Sub-task:")).replace("\n", " | ") : plan;
+                    }
+
+                    @Override
+                    public void close() {}
+                })
+                .memory(new ShortTermMemory(100)).build();
+        List<BasicAgent> workers = List.of(
+                BasicAgent.builder().name("MarketAnalyst").role("Analyst").tools(Collections.emptyList())
+                        .llmClient(new ConcurrencyTrackingLLMClient("market data")).memory(new ShortTermMemory(100)).build(),
+                BasicAgent.builder().name("TechAnalyst").role("Analyst").tools(Collections.emptyList())
+                        .llmClient(new ConcurrencyTrackingLLMClient("tech data")).memory(new ShortTermMemory(100)).build(),
+                BasicAgent.builder().name("ReportWriter").role("Writer").tools(Collections.emptyList())
+                        .llmClient(new ConcurrencyTrackingLLMClient("report")).memory(new ShortTermMemory(100)).build());
+        try {
+            Task task = Task.builder().description("Produce a market and technology report.").input(Map.of()).build();
+            List<Agent> agents = List.of(manager, workers.get(0), workers.get(1), workers.get(2));
+
+            long start = System.nanoTime();
+            String result = new HierarchicalProcess(4).execute(task, agents, new AgentContext()).get(10, TimeUnit.SECONDS);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals(2, ConcurrencyTrackingLLMClient.maxRunning.get(), "The two research sub-tasks should overlap.");
+            assertTrue(elapsedMillis < 900, "Wall-clock time should follow the critical path, took " + elapsedMillis + "ms.");
+            assertTrue(result.indexOf("Research the market.") < result.indexOf("Research the technology."), "Results should be in plan order.");
+            assertTrue(result.indexOf("Research the technology.") < result.indexOf("Write the report."), "Results should be in plan order.");
+            assertTrue(result.contains("report built on dependency_outputs"), "The report should receive its dependencies' outputs: " + result);
+            assertTrue(result.contains("market data") && result.contains("tech data"));
+        } finally {
+            manager.shutdown();
+            workers.forEach(BasicAgent::shutdown);
+        }
+    }
+
+    @Test
+    void testDependentsOfAFailedSubTaskAreSkipped() throws Exception {
+        String plan = """
+                {
+                  "sub_tasks": [
+                    {"id": "research", "task_description": "Research the market.", "assigned_agent_name": "MissingAnalyst", "expected_output": "Market notes."},
+                    {"id": "report", "task_description": "Write the report.", "assigned_agent_name": "ReportWriter", "expected_output": "A report.", "depends_on": ["research"]},
+                    {"id": "summary", "task_description": "Summarize the report.", "assigned_agent_name": "ReportWriter", "expected_output": "A summary.", "depends_on": ["report"]}
+                  ]
+                }
+                """;
+        BasicAgent manager = BasicAgent.builder().name("Planner").role("Manager").tools(Collections.emptyList())
+                .llmClient(new LLMClient() {
+                    @Override
+                    public String complete(String prompt) {
+                        return prompt.contains("Synthesize the final answer") ? prompt.substring(prompt.indexOf("- Sub-task:")).replace("\n", " | ") : plan;
+                    }
+
+                    @Override
+                    public void close() {}
+                })
+                .memory(new ShortTermMemory(100)).build();
+        AtomicInteger writerCalls = new AtomicInteger();
+        BasicAgent writer = BasicAgent.builder().name("ReportWriter").role("Writer").tools(Collections.emptyList())
+                .llmClient(new LLMClient() {
+                    @Override
+                    public String complete(String prompt) {
+                        writerCalls.incrementAndGet();
+                        return "report";
+                    }
+
+                    @Override
+                    public void close() {}
+                })
+                .memory(new ShortTermMemory(100)).build();
+        try {
+            Task task = Task.builder().description("Produce a market report.").input(Map.of()).build();
+
+            String result = new HierarchicalProcess(2).execute(task, List.of(manager, writer), new AgentContext()).get(10, TimeUnit.SECONDS);
+
+            assertEquals(0, writerCalls.get(), "Sub-tasks depending on a failed one should not run.");
+            assertTrue(result.contains("Error: Agent not found - MissingAnalyst"), result);
+            assertTrue(result.contains("Error: Skipped because dependency 'Research the market.' failed."), result);
+            assertTrue(result.contains("Error: Skipped because dependency 'Write the report.' failed."), "Skips should propagate: " + result);
+        } finally {
+            manager.shutdown();
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectsNonPositiveParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalProcess(0));
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalProcess(-1));
+    }
+
     @Test
     void testHierarchicalExecutionFlow() throws InterruptedException, ExecutionException, TimeoutException {
         AgentContext context = new AgentContext();
@@ -0,0 +1,171 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.memory.ShortTermMemory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class HumanInputRegistryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static Task approvalTask(String description) {
+        return Task.builder().description(description).input(Map.of()).requiresHumanInput(true).build();
+    }
+
+    private static HumanInputRegistry inMemory(Duration timeout, HumanInputRegistry.TimeoutPolicy policy, Duration grace) {
+        return new HumanInputRegistry(null, timeout, policy, grace, Duration.ofMillis(20));
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testAgentParksTaskAndResumesByTaskId() throws Exception {
+        try (HumanInputRegistry registry = inMemory(null, HumanInputRegistry.TimeoutPolicy.FAIL, null)) {
+            BasicAgent agent = BasicAgent.builder()
+                    .name("Approver")
+                    .role("Approvals")
+                    .tools(List.of())
+                    .llmClient(new BasicAgentTest.ScriptedLLMClient(0))
+                    .memory(new ShortTermMemory(10))
+                    .humanInputRegistry(registry)
+                    .build();
+            try {
+                Task task = approvalTask("Approve the refund.");
+                CompletableFuture<String> result = agent.performTask(task, new AgentContext());
+
+                HumanInputRegistry.PendingApproval pending = registry.get(task.getId()).orElseThrow();
+                assertEquals("Approver", pending.agentName());
+                assertEquals(TaskStatus.AWAITING_HUMAN_INPUT, task.getStatus());
+
+                assertTrue(registry.provideInput(task.getId(), "approved"));
+                assertEquals("approved", result.get(5, TimeUnit.SECONDS));
+                assertEquals(TaskStatus.COMPLETED, task.getStatus());
+                assertEquals(0, registry.getPendingCount());
+                assertFalse(registry.provideInput(task.getId(), "again"));
+            } finally {
+                agent.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void testBulkApprovalResumesMatchingTasks() {
+        try (HumanInputRegistry registry = inMemory(null, HumanInputRegistry.TimeoutPolicy.FAIL, null)) {
+            List<CompletableFuture<String>> refunds = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                refunds.add(registry.park(approvalTask("refund " + i), "Approver"));
+            }
+            Task payout = approvalTask("payout 1");
+            CompletableFuture<String> payoutHandle = registry.park(payout, "Approver");
+
+            int approved = registry.approveAll(p -> p.description().startsWith("refund"), "approved");
+
+            assertEquals(10_000, approved);
+            assertTrue(refunds.stream().allMatch(f -> "approved".equals(f.getNow(null))));
+            assertFalse(payoutHandle.isDone());
+            assertEquals(Map.of(payout.getId(), true, "unknown", false), registry.provideInputs(Map.of(payout.getId(), "ok", "unknown", "ok")));
+            assertEquals(0, registry.getPendingCount());
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testStaleWaitsFailOrEscalate() throws Exception {
+        try (HumanInputRegistry failing = inMemory(Duration.ofMillis(100), HumanInputRegistry.TimeoutPolicy.FAIL, null)) {
+            CompletableFuture<String> handle = failing.park(approvalTask("stale"), "Approver");
+            ExecutionException error = assertThrows(ExecutionException.class, () -> handle.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(TimeoutException.class, error.getCause());
+            assertEquals(0, failing.getPendingCount());
+        }
+
+        try (HumanInputRegistry escalating = inMemory(Duration.ofMillis(100), HumanInputRegistry.TimeoutPolicy.ESCALATE, Duration.ofMillis(400))) {
+            List<HumanInputRegistry.PendingApproval> escalated = new CopyOnWriteArrayList<>();
+            escalating.setEscalationHandler(escalated::add);
+            Task task = approvalTask("needs a supervisor");
+            CompletableFuture<String> handle = escalating.park(task, "Approver");
+
+            while (escalated.isEmpty()) {
+                Thread.sleep(10);
+            }
+            assertEquals(task.getId(), escalated.get(0).taskId());
+            assertFalse(handle.isDone(), "An escalated wait gets the grace period.");
+            assertTrue(escalating.get(task.getId()).orElseThrow().escalated());
+
+            assertThrows(ExecutionException.class, () -> handle.get(5, TimeUnit.SECONDS));
+            assertEquals(1, escalated.size(), "A wait is escalated only once.");
+        }
+    }
+
+    @Test
+    void testWaitsSurviveRestartAndAnswersReachTheResumedTask() throws Exception {
+        Path file = tempDir.resolve("hitl.jsonl");
+        Task first = approvalTask("Approve order 1");
+        Task second = approvalTask("Approve order 2");
+        try (HumanInputRegistry registry = new HumanInputRegistry(file, null, HumanInputRegistry.TimeoutPolicy.FAIL, null, null)) {
+            registry.park(first, "Approver");
+            registry.park(second, "Approver");
+            registry.provideInput(second.getId(), "approved before restart");
+        }
+
+        try (HumanInputRegistry restarted = new HumanInputRegistry(file, null, HumanInputRegistry.TimeoutPolicy.FAIL, null, null)) {
+            assertEquals(1, restarted.getPendingCount());
+            HumanInputRegistry.PendingApproval orphan = restarted.get(first.getId()).orElseThrow();
+            assertTrue(orphan.orphaned());
+
+            assertTrue(restarted.provideInput(first.getId(), "approved after restart"));
+            assertEquals(0, restarted.getPendingCount());
+        }
+
+        try (HumanInputRegistry resumed = new HumanInputRegistry(file, null, HumanInputRegistry.TimeoutPolicy.FAIL, null, null)) {
+            CompletableFuture<String> handle = resumed.park(approvalTask("Approve order 1"), "Approver");
+            assertEquals("approved after restart", handle.getNow(null), "The re-run step should receive the stored answer.");
+            assertFalse(resumed.park(approvalTask("Approve order 1"), "Approver").isDone(), "A stored answer is used once.");
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testEscalationSurvivesRestartAndCompaction() throws Exception {
+        Path file = tempDir.resolve("hitl.jsonl");
+        Task task = approvalTask("needs a supervisor");
+        try (HumanInputRegistry registry = new HumanInputRegistry(file, Duration.ofMillis(50),
+                HumanInputRegistry.TimeoutPolicy.ESCALATE, Duration.ofMillis(500), Duration.ofMillis(20))) {
+            CompletableFuture<HumanInputRegistry.PendingApproval> escalated = new CompletableFuture<>();
+            registry.setEscalationHandler(escalated::complete);
+            registry.park(task, "Approver");
+            assertEquals(task.getId(), escalated.get(5, TimeUnit.SECONDS).taskId());
+        }
+
+        // Every open compacts the file, so the second restart reads only what compaction wrote.
+        new HumanInputRegistry(file, Duration.ofMillis(50), HumanInputRegistry.TimeoutPolicy.ESCALATE, Duration.ofMillis(500),
+                Duration.ofHours(1)).close();
+        List<HumanInputRegistry.PendingApproval> escalatedAgain = new CopyOnWriteArrayList<>();
+        try (HumanInputRegistry restarted = new HumanInputRegistry(file, Duration.ofMillis(50),
+                HumanInputRegistry.TimeoutPolicy.ESCALATE, Duration.ofMillis(500), Duration.ofMillis(20))) {
+            restarted.setEscalationHandler(escalatedAgain::add);
+            assertTrue(restarted.get(task.getId()).orElseThrow().escalated());
+
+            while (restarted.getPendingCount() > 0) {
+                Thread.sleep(10);
+            }
+            assertTrue(escalatedAgain.isEmpty(), "An escalated wait fails when its grace period ends instead of escalating again.");
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.memory.Memory;
+import com.javaagentai.aiagents.memory.ShortTermMemory;
+import com.javaagentai.aiagents.tools.Tool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class MapReduceProcessTest {
+
+    private static final Pattern PART = Pattern.compile("- Part \\d+:\\n(.*)");
+    private static final Pattern ITEM = Pattern.compile("i\\d+");
+
+    // Mappers wrap their chunk as M[...]; the reducer condenses the parts it is given to R(first item..last item).
+    static class FakeAgent implements Agent {
+        private final String name;
+        private final boolean reducer;
+        private final Memory memory = new ShortTermMemory(100);
+        static final AtomicInteger running = new AtomicInteger();
+        static final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger maxReduceTokens = new AtomicInteger();
+
+        FakeAgent(String name, boolean reducer) {
+            this.name = name;
+            this.reducer = reducer;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getRole() {
+            return reducer ? "Reducer" : "Mapper";
+        }
+
+        @Override
+        public List<Tool> getTools() {
+            return List.of();
+        }
+
+        @Override
+        public Memory getMemory() {
+            return memory;
+        }
+
+        @Override
+        public CompletableFuture<String> performTask(Task task, AgentContext context) {
+            calls.incrementAndGet();
+            return CompletableFuture.supplyAsync(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                if (reducer) {
+                    List<String> items = new ArrayList<>();
+                    int tokens = 0;
+                    Matcher part = PART.matcher(task.getDescription());
+                    while (part.find()) {
+                        tokens += ConversationHistory.estimateTokens(part.group(1));
+                        Matcher item = ITEM.matcher(part.group(1));
+                        while (item.find()) {
+                            items.add(item.group());
+                        }
+                    }
+                    maxReduceTokens.accumulateAndGet(tokens, Math::max);
+                    return items.isEmpty() ? "R()" : "R(" + items.get(0) + ".." + items.get(items.size() - 1) + ")";
+                }
+                Object chunk = task.getInput().get("items");
+                if (String.valueOf(chunk).contains("poison")) {
+                    throw new IllegalStateException("cannot read " + chunk);
+                }
+                return "M" + chunk;
+            });
+        }
+    }
+
+    private static Task task(List<String> items) {
+        return Task.builder().description("Summarize the items.").input(Map.of("items", items, "style", "brief")).build();
+    }
+
+    @Test
+    void testSplitKeepsChunksWithinBudget() {
+        List<String> items = IntStream.range(0, 10).mapToObj(i -> "item-" + i + "-with-some-padding").toList(); // ~7 tokens each
+        List<Object> chunks = MapReduceProcess.split(items, 15);
+        assertEquals(5, chunks.size());
+        assertEquals(List.of(items.get(0), items.get(1)), chunks.get(0));
+
+        String text = "First paragraph is short.\n\n" + "A long sentence goes here. ".repeat(20) + "\n\nLast paragraph.";
+        List<Object> textChunks = MapReduceProcess.split(text, 20);
+        assertTrue(textChunks.size() > 3);
+        for (Object chunk : textChunks) {
+            assertTrue(ConversationHistory.estimateTokens((String) chunk) <= 20, "Chunk over budget: " + chunk);
+        }
+        assertTrue(((String) textChunks.get(0)).startsWith("First paragraph is short."));
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testChunksAreMappedInParallelAndReducedHierarchically() throws Exception {
+        FakeAgent.maxRunning.set(0);
+        FakeAgent mapperA = new FakeAgent("MapperA", false);
+        FakeAgent mapperB = new FakeAgent("MapperB", false);
+        FakeAgent reducer = new FakeAgent("Reducer", true);
+        List<String> items = IntStream.range(0, 7).mapToObj(i -> "i" + i).toList();
+        Task task = task(items);
+
+        // One item per chunk. Each M[iN] is 2 tokens, so a 6-token budget reduces i0-i2 and i3-i5 and carries
+        // M[i6]; the two 3-token results are reduced next, and the last level combines that with M[i6].
+        MapReduceProcess process = new MapReduceProcess(1, 3, 6, "items");
+        String result = process.execute(task, List.of(mapperA, mapperB, reducer), new AgentContext()).get(5, TimeUnit.SECONDS);
+
+        assertEquals("R(i0..i6)", result);
+        assertEquals(4, mapperA.calls.get());
+        assertEquals(3, mapperB.calls.get());
+        assertEquals(4, reducer.calls.get());
+        assertTrue(reducer.maxReduceTokens.get() <= 6, "Reduce tasks must stay within the budget.");
+        assertTrue(FakeAgent.maxRunning.get() > 1, "Map tasks should run concurrently.");
+        assertTrue(FakeAgent.maxRunning.get() <= 3, "No more than maxParallelism tasks may run at once.");
+        assertEquals(TaskStatus.COMPLETED, task.getStatus());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testOversizedPartialIsSplitAcrossReduceTasks() throws Exception {
+        FakeAgent mapper = new FakeAgent("Mapper", false);
+        FakeAgent reducer = new FakeAgent("Reducer", true);
+        Task task = task(List.of("i0", "i1-" + "x".repeat(200)));
+
+        // M[i0] is carried; the 52-token M[i1-xxx...] is cut into five 10-token pieces and a 2-token tail,
+        // condensed in three pairs, and everything fits one final reduce.
+        String result = new MapReduceProcess(1, 2, 20, "items").execute(task, List.of(mapper, reducer), new AgentContext()).get(5, TimeUnit.SECONDS);
+
+        assertEquals("R(i0..i1)", result);
+        assertEquals(4, reducer.calls.get());
+        assertTrue(reducer.maxReduceTokens.get() <= 20, "Reduce tasks must stay within the budget, got " + reducer.maxReduceTokens.get());
+        assertEquals(TaskStatus.COMPLETED, task.getStatus());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testFailedChunkFailsTheProcess() throws Exception {
+        FakeAgent mapper = new FakeAgent("Mapper", false);
+        FakeAgent reducer = new FakeAgent("Reducer", true);
+        Task task = task(List.of("ok", "poison", "ok-too"));
+
+        String result = new MapReduceProcess(1, 2, 2, null).execute(task, List.of(mapper, reducer), new AgentContext()).get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.startsWith("Error: Map-reduce process failed."), result);
+        assertTrue(result.contains("poison"), result);
+        assertEquals(TaskStatus.FAILED, task.getStatus());
+        assertEquals(0, reducer.calls.get(), "Nothing should be reduced after a map failure.");
+    }
+}
@@ -0,0 +1,78 @@
+package com.javaagentai.aiagents.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class PersistentHashMapTest {
+
+    // Distinct keys that all share one hash code, to exercise collision nodes.
+    record CollidingKey(int id) {
+        @Override
+        public int hashCode() {
+            return 42;
+        }
+    }
+
+    @Test
+    void testMatchesHashMapUnderRandomOperations() {
+        Random random = new Random(7);
+        Map<Object, Integer> expected = new HashMap<>();
+        PersistentHashMap<Object, Integer> actual = PersistentHashMap.empty();
+
+        for (int i = 0; i < 20_000; i++) {
+            Object key = random.nextInt(10) == 0 ? new CollidingKey(random.nextInt(20)) : (Object) random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.minus(key);
+            } else {
+                expected.put(key, i);
+                actual = actual.plus(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, actual);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        int iterated = 0;
+        for (Map.Entry<Object, Integer> entry : actual.entrySet()) {
+            assertEquals(expected.get(entry.getKey()), entry.getValue());
+            iterated++;
+        }
+        assertEquals(expected.size(), iterated);
+    }
+
+    @Test
+    void testOlderVersionsAreUnaffectedByUpdates() {
+        PersistentHashMap<String, Integer> v1 = PersistentHashMap.<String, Integer>empty().plus("a", 1).plus("b", 2);
+        PersistentHashMap<String, Integer> v2 = v1.plus("a", 10).minus("b").plus("c", 3);
+
+        assertEquals(Map.of("a", 1, "b", 2), v1);
+        assertEquals(Map.of("a", 10, "c", 3), v2);
+        assertSame(v1, v1.minus("missing"), "Removing an absent key should return the same map.");
+        assertThrows(UnsupportedOperationException.class, () -> v1.put("d", 4));
+    }
+
+    @Test
+    void testContextSharedMemorySnapshotsAreStable() {
+        AgentContext context = new AgentContext();
+        context.storeSharedData("topic", "AI");
+        Map<String, Object> snapshot = context.getSharedMemory();
+
+        context.storeSharedData("topic", "Java");
+        context.storeSharedData("audience", "developers");
+
+        assertEquals(Map.of("topic", "AI"), snapshot, "A snapshot should not see later writes.");
+        assertEquals("Java", context.retrieveSharedData("topic"));
+        assertEquals(2, context.getSharedMemory().size());
+        context.removeSharedData("audience");
+        assertNull(context.retrieveSharedData("audience"));
+    }
+}
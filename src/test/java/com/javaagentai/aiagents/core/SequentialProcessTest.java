@@ -13,13 +13,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 
 import java.io.File;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -129,6 +133,77 @@ public class SequentialProcessTest {
         }
     }
 
+    @Test
+    void testCancellationStopsRemainingSteps() throws Exception {
+        CompletableFuture<String> firstStepCall = new CompletableFuture<>();
+        CompletableFuture<Void> firstStepReached = new CompletableFuture<>();
+        AtomicBoolean secondAgentCalled = new AtomicBoolean(false);
+        BasicAgent slowAgent = BasicAgent.builder()
+                .name("Slow")
+                .role("Slow Researcher")
+                .tools(List.of())
+                .llmClient(new LLMClient() {
+                    @Override
+                    public String complete(String prompt) {
+                        return firstStepCall.join();
+                    }
+
+                    @Override
+                    public CompletableFuture<String> completeAsync(String prompt, Duration timeout) {
+                        firstStepReached.complete(null);
+                        return firstStepCall;
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                })
+                .memory(new ShortTermMemory(10))
+                .build();
+        BasicAgent nextAgent = BasicAgent.builder()
+                .name("Next")
+                .role("Writer")
+                .tools(List.of())
+                .llmClient(new LLMClient() {
+                    @Override
+                    public String complete(String prompt) {
+                        secondAgentCalled.set(true);
+                        return "should not run";
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                })
+                .memory(new ShortTermMemory(10))
+                .build();
+        try {
+            Task task = Task.builder()
+                    .description("Research and write")
+                    .input(Map.of())
+                    .build();
+            Crew crew = Crew.builder()
+                    .agents(List.of(slowAgent, nextAgent))
+                    .processStrategy(ProcessStrategy.SEQUENTIAL)
+                    .build();
+
+            CompletableFuture<String> result = crew.execute(task);
+            firstStepReached.get(5, TimeUnit.SECONDS);
+            result.cancel(true);
+
+            // The call may be cancelled right away or, if the agent is still registering it, as soon as it does.
+            assertThrows(CancellationException.class, () -> firstStepCall.get(5, TimeUnit.SECONDS),
+                    "Cancelling the crew future should abort the in-flight LLM call.");
+            // The remaining steps are chained on the common pool; once it is idle they have run or been skipped.
+            assertTrue(ForkJoinPool.commonPool().awaitQuiescence(5, TimeUnit.SECONDS));
+            assertFalse(secondAgentCalled.get(), "Remaining sequential steps should not run after cancellation.");
+            assertTrue(task.isCancelled());
+        } finally {
+            slowAgent.shutdown();
+            nextAgent.shutdown();
+        }
+    }
+
     @Test
     void testSequentialExecutionFlow() throws InterruptedException, ExecutionException, TimeoutException {
         AgentContext context = new AgentContext();
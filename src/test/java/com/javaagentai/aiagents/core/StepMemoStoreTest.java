@@ -0,0 +1,203 @@
+package com.javaagentai.aiagents.core;
+
+import com.javaagentai.aiagents.llm.LLMClient;
+import com.javaagentai.aiagents.memory.Memory;
+import com.javaagentai.aiagents.memory.ShortTermMemory;
+import com.javaagentai.aiagents.tools.Tool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class StepMemoStoreTest {
+
+    @TempDir
+    Path memoDir;
+
+    // Appends "name(role)" to the previous output and counts its invocations.
+    static class CountingAgent implements Agent {
+        private final String name;
+        private final String role;
+        private final Memory memory = new ShortTermMemory(100);
+        final AtomicInteger calls = new AtomicInteger();
+
+        CountingAgent(String name, String role) {
+            this.name = name;
+            this.role = role;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getRole() {
+            return role;
+        }
+
+        @Override
+        public List<Tool> getTools() {
+            return List.of();
+        }
+
+        @Override
+        public Memory getMemory() {
+            return memory;
+        }
+
+        @Override
+        public CompletableFuture<String> performTask(Task task, AgentContext context) {
+            calls.incrementAndGet();
+            task.setStatus(TaskStatus.COMPLETED);
+            return CompletableFuture.completedFuture(task.getDescription() + ">" + name + "(" + role + ")");
+        }
+    }
+
+    private static String run(StepMemoStore store, Agent... agents) throws Exception {
+        Crew crew = Crew.builder()
+                .agents(List.of(agents))
+                .processStrategy(ProcessStrategy.SEQUENTIAL)
+                .stepMemoStore(store)
+                .build();
+        return crew.execute(Task.builder().description("brief").input(Map.of("topic", "cats")).build()).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testUnchangedPrefixIsServedFromTheStore() throws Exception {
+        StepMemoStore store = new StepMemoStore(null, "v1");
+        CountingAgent researcher = new CountingAgent("Researcher", "research");
+        CountingAgent writer = new CountingAgent("Writer", "write");
+        CountingAgent editor = new CountingAgent("Editor", "edit");
+
+        String first = run(store, researcher, writer, editor);
+        String second = run(store, researcher, writer, editor);
+
+        assertEquals(first, second);
+        assertEquals(1, researcher.calls.get());
+        assertEquals(1, writer.calls.get());
+        assertEquals(1, editor.calls.get());
+        assertEquals(3, store.getHitCount());
+
+        // Changing the middle agent re-runs it and everything downstream, but not the researcher.
+        CountingAgent rewrittenWriter = new CountingAgent("Writer", "write concisely");
+        String third = run(store, researcher, rewrittenWriter, editor);
+
+        assertEquals("brief>Researcher(research)>Writer(write concisely)>Editor(edit)", third);
+        assertEquals(1, researcher.calls.get());
+        assertEquals(1, rewrittenWriter.calls.get());
+        assertEquals(2, editor.calls.get());
+    }
+
+    @Test
+    void testEntriesPersistAcrossStoresAndVersionTagsInvalidate() throws Exception {
+        CountingAgent agent = new CountingAgent("Solo", "answer");
+        run(new StepMemoStore(memoDir, "v1"), agent);
+
+        run(new StepMemoStore(memoDir, "v1"), agent);
+        assertEquals(1, agent.calls.get(), "A new store over the same directory should reuse the entry.");
+
+        run(new StepMemoStore(memoDir, "v2"), agent);
+        assertEquals(2, agent.calls.get(), "A new version tag should not see entries of the old one.");
+
+        StepMemoStore current = new StepMemoStore(memoDir, "v1");
+        assertEquals(1, current.invalidate("v1"));
+        run(current, agent);
+        assertEquals(3, agent.calls.get(), "Invalidated entries should be recomputed.");
+    }
+
+    @Test
+    void testKeyDependsOnTaskInputAndAgentConfiguration() {
+        StepMemoStore store = new StepMemoStore(null, "v1");
+        CountingAgent agent = new CountingAgent("A", "role");
+        Task task = Task.builder().description("d").input(Map.of("x", 1, "y", 2)).build();
+        Task sameTask = Task.builder().description("d").input(Map.of("y", 2, "x", 1)).build();
+        Task otherInput = Task.builder().description("d").input(Map.of("x", 1, "y", 3)).build();
+
+        assertEquals(store.key(agent, task), store.key(agent, sameTask));
+        assertNotEquals(store.key(agent, task), store.key(agent, otherInput));
+        assertNotEquals(store.key(agent, task), store.key(new CountingAgent("A", "other role"), task));
+        assertNotEquals(store.key(agent, task), new StepMemoStore(null, "v2").key(agent, task));
+    }
+
+    // Answers with its model name, like a client configured for a given model.
+    static class ModelClient implements LLMClient {
+        private final String model;
+
+        ModelClient(String model) {
+            this.model = model;
+        }
+
+        @Override
+        public String complete(String prompt) {
+            return model;
+        }
+
+        @Override
+        public String getModelIdentity() {
+            return "model:" + model;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    void testKeyDependsOnModelAndMemoryContext() throws Exception {
+        StepMemoStore store = new StepMemoStore(null, "v1");
+        Memory memory = new ShortTermMemory(100);
+        BasicAgent small = BasicAgent.builder().name("A").role("role").tools(List.of()).llmClient(new ModelClient("small")).memory(memory).build();
+        BasicAgent large = BasicAgent.builder().name("A").role("role").tools(List.of()).llmClient(new ModelClient("large")).memory(memory).build();
+        try {
+            Task task = Task.builder().description("Summarize the weather report.").input(Map.of()).build();
+            assertNotEquals(store.key(small, task), store.key(large, task), "Same client class, different model.");
+
+            assertEquals("small", store.perform(small, task, new AgentContext()).get(5, TimeUnit.SECONDS));
+            memory.clear(); // Drops the summary the agent recorded, so the next prompt matches the first one again
+            Task again = Task.builder().description("Summarize the weather report.").input(Map.of()).build();
+            store.perform(small, again, new AgentContext()).get(5, TimeUnit.SECONDS);
+            assertEquals(1, store.getHitCount(), "Unchanged memory: the step is reused.");
+
+            memory.add("note", "The weather report says rain.");
+            Task afterMemoryChange = Task.builder().description("Summarize the weather report.").input(Map.of()).build();
+            store.perform(small, afterMemoryChange, new AgentContext()).get(5, TimeUnit.SECONDS);
+            assertEquals(1, store.getHitCount(), "New relevant memories change the prompt, so the step runs again.");
+        } finally {
+            small.shutdown();
+            large.shutdown();
+        }
+    }
+
+    @Test
+    void testMemoryContextIsSearchedOncePerStep() throws Exception {
+        AtomicInteger searches = new AtomicInteger();
+        Memory memory = new ShortTermMemory(100) {
+            @Override
+            public List<Object> search(String query, int topK) {
+                searches.incrementAndGet();
+                return super.search(query, topK);
+            }
+        };
+        BasicAgent agent = BasicAgent.builder().name("A").role("role").tools(List.of()).llmClient(new ModelClient("small")).memory(memory).build();
+        try {
+            StepMemoStore store = new StepMemoStore(null, "v1");
+            Task task = Task.builder().description("Summarize the weather report.").input(Map.of()).build();
+
+            assertEquals("small", store.perform(agent, task, new AgentContext()).get(5, TimeUnit.SECONDS));
+            assertEquals(1, searches.get(), "The context retrieved for the key is reused by the agent's prompt.");
+        } finally {
+            agent.shutdown();
+        }
+    }
+}
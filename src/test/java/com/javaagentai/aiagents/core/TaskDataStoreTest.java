@@ -0,0 +1,89 @@
+package com.javaagentai.aiagents.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class TaskDataStoreTest {
+
+    @TempDir
+    Path spillDir;
+
+    @Test
+    void testCompletedTaskIsReleasedAfterRetention() throws Exception {
+        TaskDataStore store = new TaskDataStore(100, null, Duration.ofMillis(50), 0, null);
+        store.put("task-1", "output", "done");
+        store.completeTask("task-1");
+
+        assertEquals("done", store.get("task-1", "output"), "Data should stay readable during the retention period.");
+        Thread.sleep(80);
+        store.evictExpired();
+        assertNull(store.get("task-1", "output"));
+        assertEquals(0, store.getTaskCount());
+
+        TaskDataStore immediate = new TaskDataStore(100, null, Duration.ZERO, 0, null);
+        immediate.put("task-2", "output", "done");
+        immediate.completeTask("task-2");
+        assertEquals(0, immediate.getTaskCount(), "Zero retention should release data on completion.");
+    }
+
+    @Test
+    void testTaskLimitEvictsCompletedTasksFirst() {
+        TaskDataStore store = new TaskDataStore(10, null, Duration.ofHours(1), 0, null);
+        store.put("finished", "output", "old result");
+        store.completeTask("finished");
+        for (int i = 0; i < 10; i++) {
+            store.put("running-" + i, "input", i);
+        }
+
+        assertTrue(store.getTaskCount() <= 10, "Store should never hold more than the task limit.");
+        assertNull(store.get("finished", "output"), "Completed tasks should be evicted before running ones.");
+        assertEquals(9, store.get("running-9", "input"));
+
+        for (int i = 10; i < 1_000; i++) {
+            store.put("running-" + i, "input", i);
+        }
+        assertTrue(store.getTaskCount() <= 10);
+        assertEquals(999, store.get("running-999", "input"), "The most recently used task should be kept.");
+    }
+
+    @Test
+    void testIdleTasksExpire() throws Exception {
+        TaskDataStore store = new TaskDataStore(100, Duration.ofMillis(50), Duration.ofHours(1), 0, null);
+        store.put("idle", "input", "value");
+        Thread.sleep(80);
+        store.evictExpired();
+
+        assertNull(store.get("idle", "input"));
+        assertEquals(1, store.getEvictedTaskCount());
+    }
+
+    @Test
+    void testLargeValuesAreSpilledToDiskAndCleanedUp() throws Exception {
+        TaskDataStore store = new TaskDataStore(100, null, Duration.ZERO, 100, spillDir);
+        String large = "y".repeat(10_000);
+        store.put("task", "large", large);
+        store.put("task", "small", "tiny");
+
+        assertEquals(1, store.getSpilledValueCount());
+        try (var files = Files.list(spillDir)) {
+            assertEquals(1, files.count());
+        }
+        assertEquals(large, store.get("task", "large"));
+        assertEquals(large, store.getAll("task").get("large"));
+        assertEquals("tiny", store.get("task", "small"));
+
+        store.completeTask("task");
+        try (var files = Files.list(spillDir)) {
+            assertEquals(0, files.count(), "Spilled files should be deleted when the task is released.");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.javaagentai.aiagents.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class TaskPipelineTest {
+
+    // Stage that takes a fixed time, appends its name and fails on a marker description.
+    private static TaskPipeline.Stage stage(String name, long millis) {
+        return (task, context) -> CompletableFuture.supplyAsync(() -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (task.getDescription().contains("poison")) {
+                throw new IllegalStateException("cannot handle " + task.getDescription());
+            }
+            return task.getDescription() + ">" + name;
+        });
+    }
+
+    private static Stream<Task> tasks(int count, AtomicInteger pulled) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            pulled.incrementAndGet();
+            return Task.builder().description("item" + i).input(Map.of()).build();
+        });
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testStagesOverlapAndResultsKeepInputOrder() {
+        TaskPipeline pipeline = new TaskPipeline(List.of("parse", "enrich"), List.of(stage("parse", 100), stage("enrich", 100)), 4, 1, true);
+
+        long start = System.nanoTime();
+        List<BatchResult> results;
+        try (Stream<BatchResult> stream = pipeline.execute(tasks(10, new AtomicInteger()))) {
+            results = stream.toList();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(10, results.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, results.get(i).index());
+            assertEquals("item" + i + ">parse>enrich", results.get(i).result().output());
+            assertEquals(TaskStatus.COMPLETED, results.get(i).task().getStatus());
+        }
+        assertTrue(elapsedMillis < 1_600, "Two 100ms stages over 10 items should pipeline (~1.1s), took " + elapsedMillis + "ms.");
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testSourceIsConsumedOnlyAsFastAsResultsAreTaken() throws Exception {
+        TaskPipeline pipeline = new TaskPipeline(List.of("only"), List.of(stage("only", 10)), 2, 1, true);
+        AtomicInteger pulled = new AtomicInteger();
+
+        try (Stream<BatchResult> stream = pipeline.execute(tasks(1_000, pulled))) {
+            Iterator<BatchResult> iterator = stream.iterator();
+            assertEquals("item0>only", iterator.next().result().output());
+            Thread.sleep(300);
+            // One stage of queue capacity 2 and one worker allows 3 items in flight plus the one taken.
+            assertTrue(pulled.get() <= 5, "The pipeline should not run ahead of the consumer, pulled " + pulled.get());
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testFailedItemLeavesPipelineWithoutStoppingOthers() {
+        TaskPipeline pipeline = new TaskPipeline(List.of("a", "b"), List.of(stage("a", 5), stage("b", 5)), 4, 2, false);
+        Stream<Task> input = Stream.of("ok1", "poison", "ok2").map(d -> Task.builder().description(d).input(Map.of()).build());
+
+        List<BatchResult> results;
+        try (Stream<BatchResult> stream = pipeline.execute(input)) {
+            results = stream.toList();
+        }
+
+        assertEquals(3, results.size());
+        assertEquals(2, results.stream().filter(BatchResult::isSuccess).count());
+        BatchResult failed = results.stream().filter(r -> !r.isSuccess()).findFirst().orElseThrow();
+        assertEquals(TaskStatus.FAILED, failed.result().status());
+        assertTrue(failed.result().error().contains("Stage a failed"), failed.result().error());
+    }
+}
@@ -3,6 +3,7 @@ package com.javaagentai.aiagents.crew;
 import com.javaagentai.aiagents.core.Agent;
 import com.javaagentai.aiagents.core.AgentContext;
 import com.javaagentai.aiagents.core.BasicAgent;
+import com.javaagentai.aiagents.core.BatchResult;
 import com.javaagentai.aiagents.core.Crew;
 import com.javaagentai.aiagents.core.ProcessStrategy;
 import com.javaagentai.aiagents.core.Task;
@@ -18,7 +19,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
@@ -75,6 +78,25 @@ public class CrewEndToEndTest {
         assertNotNull(finalResult);
     }
 
+    @Test
+    public void testCrewBatchExecutionSequential() {
+        crew = Crew.builder()
+                .agents(agents)
+                .processStrategy(ProcessStrategy.SEQUENTIAL)
+                .build();
+        Stream<Task> tasks = Stream.of("First", "Second", "Third")
+                .map(description -> Task.builder().description(description).input(new HashMap<>()).build());
+
+        List<BatchResult> results;
+        try (Stream<BatchResult> stream = crew.executeAll(tasks)) {
+            results = stream.toList();
+        }
+
+        assertEquals(3, results.size());
+        assertEquals("Second", results.get(1).task().getDescription());
+        results.forEach(result -> assertNotNull(result.result()));
+    }
+
     @Test
     public void testCrewExecutionHierarchical() throws InterruptedException, ExecutionException {
         // Create a task
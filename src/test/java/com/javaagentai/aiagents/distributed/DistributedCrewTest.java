@@ -0,0 +1,264 @@
+package com.javaagentai.aiagents.distributed;
+
+import com.javaagentai.aiagents.core.Agent;
+import com.javaagentai.aiagents.core.AgentContext;
+import com.javaagentai.aiagents.core.AgentEvent;
+import com.javaagentai.aiagents.core.Crew;
+import com.javaagentai.aiagents.core.ProcessStrategy;
+import com.javaagentai.aiagents.core.Task;
+import com.javaagentai.aiagents.core.TaskStatus;
+import com.javaagentai.aiagents.memory.Memory;
+import com.javaagentai.aiagents.memory.ShortTermMemory;
+import com.javaagentai.aiagents.tools.Tool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class DistributedCrewTest {
+
+    private final List<WorkerNode> nodes = new ArrayList<>();
+    private Coordinator coordinator;
+
+    // Answers with whatever the behaviour function returns for the task.
+    static class StubAgent implements Agent {
+        private final String name;
+        private final Function<Task, CompletableFuture<String>> behaviour;
+        private final Memory memory = new ShortTermMemory(100);
+
+        StubAgent(String name, Function<Task, CompletableFuture<String>> behaviour) {
+            this.name = name;
+            this.behaviour = behaviour;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getRole() {
+            return name + " role";
+        }
+
+        @Override
+        public List<Tool> getTools() {
+            return List.of();
+        }
+
+        @Override
+        public Memory getMemory() {
+            return memory;
+        }
+
+        @Override
+        public CompletableFuture<String> performTask(Task task, AgentContext context) {
+            task.setStatus(TaskStatus.IN_PROGRESS);
+            return behaviour.apply(task).thenApply(output -> {
+                task.setStatus(TaskStatus.COMPLETED);
+                return output;
+            });
+        }
+    }
+
+    private WorkerNode startWorker(Agent... agents) throws Exception {
+        WorkerNode node = new WorkerNode(0);
+        for (Agent agent : agents) {
+            node.register(agent);
+        }
+        nodes.add(node.start());
+        return node;
+    }
+
+    private Coordinator connect() {
+        List<InetSocketAddress> addresses = nodes.stream().map(n -> new InetSocketAddress("localhost", n.getPort())).toList();
+        coordinator = new Coordinator(addresses, Duration.ofMillis(50), Duration.ofMillis(500), 3);
+        return coordinator;
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (coordinator != null) coordinator.close();
+        nodes.forEach(WorkerNode::close);
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testCrewRunsStepsOnRemoteWorkers() throws Exception {
+        startWorker(new StubAgent("Researcher", task -> CompletableFuture.completedFuture("facts about " + task.getInput().get("topic"))));
+        startWorker(new StubAgent("Writer", task -> CompletableFuture.completedFuture("article from [" + task.getDescription() + "]")));
+        connect();
+        assertEquals(2, coordinator.getLiveWorkerCount());
+        assertEquals("Writer role", coordinator.getAgentRoles().get("Writer"));
+
+        Crew crew = Crew.builder()
+                .agents(List.of(coordinator.agent("Researcher"), coordinator.agent("Writer")))
+                .processStrategy(ProcessStrategy.SEQUENTIAL)
+                .build();
+        Task task = Task.builder().description("Write about Java.").input(Map.of("topic", "Java")).build();
+
+        String result = crew.execute(task).get(5, TimeUnit.SECONDS);
+
+        assertEquals("article from [facts about Java]", result);
+        assertEquals(TaskStatus.COMPLETED, task.getStatus());
+        assertThrows(IllegalArgumentException.class, () -> coordinator.agent("Unknown"));
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testStepFailsOverWhenItsWorkerDies() throws Exception {
+        CountDownLatch reachedFirstWorker = new CountDownLatch(1);
+        WorkerNode first = startWorker(new StubAgent("Writer", task -> {
+            reachedFirstWorker.countDown();
+            return new CompletableFuture<>(); // Never answers
+        }));
+        startWorker(new StubAgent("Writer", task -> CompletableFuture.completedFuture("written on the second worker")));
+        connect();
+        RemoteAgent writer = coordinator.agent("Writer");
+
+        // Both workers are idle, so the tie goes to the first one.
+        Task task = Task.builder().description("Write.").input(Map.of()).build();
+        CompletableFuture<String> result = writer.performTask(task, new AgentContext());
+        assertTrue(reachedFirstWorker.await(5, TimeUnit.SECONDS));
+        first.close();
+
+        assertEquals("written on the second worker", result.get(5, TimeUnit.SECONDS));
+        assertEquals(TaskStatus.COMPLETED, task.getStatus());
+        assertEquals(1, coordinator.getLiveWorkerCount());
+        List<String> events = coordinator.getEventLog().snapshot().stream().map(AgentEvent::type).toList();
+        assertEquals(2, events.stream().filter("worker.connected"::equals).count(), events.toString());
+        assertTrue(events.contains("worker.lost"), events.toString());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testCancellingTheTaskCancelsTheRemoteStep() throws Exception {
+        CompletableFuture<Task> remoteTask = new CompletableFuture<>();
+        WorkerNode worker = startWorker(new StubAgent("Slow", task -> {
+            remoteTask.complete(task);
+            return task.getCancellationToken().track(new CompletableFuture<>());
+        }));
+        connect();
+
+        Task task = Task.builder().description("Take your time.").input(Map.of()).build();
+        CompletableFuture<String> result = coordinator.agent("Slow").performTask(task, new AgentContext());
+        Task onWorker = remoteTask.get(5, TimeUnit.SECONDS);
+        task.cancel();
+
+        assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertEquals(TaskStatus.CANCELLED, task.getStatus());
+        while (!onWorker.isCancelled() || worker.getInFlightCount() > 0) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testStepFailsWhenNoWorkerIsLeft() throws Exception {
+        WorkerNode only = startWorker(new StubAgent("Writer", task -> new CompletableFuture<>()));
+        connect();
+        RemoteAgent writer = coordinator.agent("Writer");
+
+        Task task = Task.builder().description("Write.").input(Map.of()).build();
+        CompletableFuture<String> result = writer.performTask(task, new AgentContext());
+        while (only.getInFlightCount() == 0) {
+            Thread.sleep(10);
+        }
+        only.close();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause().getMessage().contains("No live worker"), error.getCause().getMessage());
+        assertEquals(TaskStatus.FAILED, task.getStatus());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testOversizedStepFailsAloneAndKeepsTheConnection() throws Exception {
+        StringBuilder noise = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            noise.append(UUID.randomUUID()); // Hardly compressible
+        }
+        WorkerNode node = new WorkerNode(0, 64 * 1024);
+        node.register(new StubAgent("Writer", task -> CompletableFuture.completedFuture(
+                task.getInput().containsKey("big") ? noise.toString() : "short answer")));
+        nodes.add(node.start());
+        coordinator = new Coordinator(List.of(new InetSocketAddress("localhost", node.getPort())),
+                Duration.ofMillis(50), Duration.ofMillis(500), 3, 64 * 1024);
+        RemoteAgent writer = coordinator.agent("Writer");
+
+        Task tooBigToSend = Task.builder().description("Write.").input(Map.of("document", noise.toString())).build();
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> writer.performTask(tooBigToSend, new AgentContext()).get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause().getMessage().contains("exceeds the limit"), error.getCause().getMessage());
+
+        Task tooBigToReturn = Task.builder().description("Write.").input(Map.of("big", true)).build();
+        String output = writer.performTask(tooBigToReturn, new AgentContext()).get(5, TimeUnit.SECONDS);
+        assertTrue(output.startsWith("Error: Result cannot be sent"), output);
+        assertEquals(TaskStatus.FAILED, tooBigToReturn.getStatus());
+
+        Task small = Task.builder().description("Write.").input(Map.of()).build();
+        assertEquals("short answer", writer.performTask(small, new AgentContext()).get(5, TimeUnit.SECONDS));
+        assertEquals(1, coordinator.getLiveWorkerCount());
+    }
+
+    @Test
+    void testLargeBodiesAreCompressed() throws Exception {
+        Map<String, Object> input = Map.of("document", "lorem ipsum ".repeat(10_000), "pages", 12);
+        WireCodec.StepRequest request = new WireCodec.StepRequest("Writer", "t-1", "Summarize.", input, "A summary", "acme", 3, 2500);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WireCodec.write(new DataOutputStream(bytes), WireCodec.EXECUTE, 42, request, 1 << 20);
+
+        assertTrue(bytes.size() < 10_000, "Expected a gzipped frame, got " + bytes.size() + " bytes");
+        WireCodec.Frame frame = WireCodec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 1 << 20);
+        assertEquals(WireCodec.EXECUTE, frame.type());
+        assertEquals(42, frame.requestId());
+        assertEquals(request, WireCodec.decode(frame, WireCodec.StepRequest.class));
+    }
+
+    @Test
+    void testCompressedBodiesAreBoundedByTheFrameLimit() throws Exception {
+        Map<String, Object> input = Map.of("document", "lorem ipsum ".repeat(10_000));
+        WireCodec.StepRequest request = new WireCodec.StepRequest("Writer", "t-1", "Summarize.", input, null, null, 0, 0);
+        IllegalArgumentException tooLarge = assertThrows(IllegalArgumentException.class,
+                () -> WireCodec.encode(WireCodec.EXECUTE, 1, request, 64 * 1024));
+        assertTrue(tooLarge.getMessage().contains("exceeds the limit"), tooLarge.getMessage());
+
+        // A hand-made frame: about 16 KB on the wire, 16 MB once inflated
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(new byte[16 << 20]);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(1 + 8 + compressed.size());
+        out.writeByte(WireCodec.EXECUTE | 0x80);
+        out.writeLong(1);
+        out.write(compressed.toByteArray());
+
+        IOException bomb = assertThrows(IOException.class,
+                () -> WireCodec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 64 * 1024));
+        assertTrue(bomb.getMessage().contains("exceeds the limit"), bomb.getMessage());
+    }
+}
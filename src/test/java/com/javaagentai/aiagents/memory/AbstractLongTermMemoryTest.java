@@ -12,8 +12,15 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map; // For add(Map)
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -35,6 +42,10 @@ public class AbstractLongTermMemoryTest {
         public TestLongTermMemory(EmbeddingClient ec, VectorStore vs) {
             super(ec, vs);
         }
+
+        public TestLongTermMemory(EmbeddingClient ec, VectorStore vs, int batchSize) {
+            super(ec, vs, batchSize);
+        }
     }
 
     @BeforeEach
@@ -110,6 +121,121 @@ public class AbstractLongTermMemoryTest {
     }
 
 
+    // Counts calls and fails on demand: texts containing "poison" get an empty vector, batches containing "boom" fail outright.
+    static class CountingEmbeddingClient extends MockEmbeddingClient {
+        final AtomicInteger singleCalls = new AtomicInteger();
+        final AtomicInteger batchCalls = new AtomicInteger();
+
+        CountingEmbeddingClient() {
+            super(4);
+        }
+
+        @Override
+        public CompletableFuture<List<Double>> embed(String text) {
+            singleCalls.incrementAndGet();
+            return text.contains("poison") ? CompletableFuture.completedFuture(List.of()) : super.embed(text);
+        }
+
+        @Override
+        public CompletableFuture<List<List<Double>>> embed(List<String> texts) {
+            batchCalls.incrementAndGet();
+            if (texts.stream().anyMatch(t -> t.contains("boom"))) {
+                return CompletableFuture.failedFuture(new IllegalStateException("embedding service unavailable"));
+            }
+            return super.embed(texts);
+        }
+    }
+
+    static class CountingVectorStore extends FileBasedVectorStore {
+        final List<Integer> upsertSizes = new ArrayList<>();
+
+        CountingVectorStore(String filePath) {
+            super(filePath);
+        }
+
+        @Override
+        public CompletableFuture<Void> upsert(List<String> ids, List<List<Double>> vectors,
+                                              List<Map<String, Object>> metadataList, List<String> textContents) {
+            upsertSizes.add(ids.size());
+            return super.upsert(ids, vectors, metadataList, textContents);
+        }
+    }
+
+    @Test
+    void testAddBatchEmbedsAndUpsertsInChunks() {
+        CountingEmbeddingClient embeddings = new CountingEmbeddingClient();
+        CountingVectorStore store = new CountingVectorStore(tempDir.resolve("batched.json").toString());
+        TestLongTermMemory batched = new TestLongTermMemory(embeddings, store, 100);
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (int i = 0; i < 250; i++) {
+            data.put("doc-" + i, "Document number " + i + " about topic " + (i % 7));
+        }
+
+        AbstractLongTermMemory.IngestResult result = batched.addBatch(data);
+
+        assertEquals(250, result.stored());
+        assertTrue(result.isComplete());
+        assertEquals(3, embeddings.batchCalls.get());
+        assertEquals(List.of(100, 100, 50), store.upsertSizes);
+        assertFalse(batched.search("Document number 42 about topic 0", 1).isEmpty());
+    }
+
+    @Test
+    void testAddBatchReportsPartialFailures() {
+        CountingEmbeddingClient embeddings = new CountingEmbeddingClient();
+        CountingVectorStore store = new CountingVectorStore(tempDir.resolve("partial.json").toString());
+        TestLongTermMemory batched = new TestLongTermMemory(embeddings, store, 2);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("ok-1", "fine text");
+        data.put("bad-vector", "poison pill");   // Same chunk as ok-1; only this entry fails
+        data.put("number", 42);                    // Not embeddable
+        data.put("ok-2", "more fine text");
+        data.put("failing-chunk", "boom");        // Fails the whole second chunk, including ok-2
+        data.put("ok-3", "last fine text");
+
+        AbstractLongTermMemory.IngestResult result = batched.addBatch(data);
+
+        assertEquals(2, result.stored());
+        assertEquals(Set.of("bad-vector", "number", "ok-2", "failing-chunk"), result.failures().keySet());
+        assertTrue(result.failures().get("ok-2").contains("embedding service unavailable"));
+        assertEquals(List.of(1, 1), store.upsertSizes, "Failed chunks and entries are not upserted.");
+    }
+
+    @Test
+    void testAsyncOperationsComposeOnTheEmbeddingClient() throws Exception {
+        CompletableFuture<List<Double>> pendingEmbedding = new CompletableFuture<>();
+        MockEmbeddingClient delegate = new MockEmbeddingClient(4);
+        EmbeddingClient slowClient = new MockEmbeddingClient(4) {
+            @Override
+            public CompletableFuture<List<Double>> embed(String text) {
+                return text.startsWith("slow") ? pendingEmbedding : delegate.embed(text);
+            }
+        };
+        TestLongTermMemory asyncMemory = new TestLongTermMemory(slowClient, fileBasedVectorStore);
+
+        CompletableFuture<Void> added = asyncMemory.addAsync("slow_doc", "slow service response about rivers");
+        assertFalse(added.isDone(), "addAsync returns before the embedding is available.");
+        pendingEmbedding.complete(delegate.embed("slow service response about rivers").get());
+        added.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("slow service response about rivers"),
+                asyncMemory.searchAsync("service response about rivers", 1).get(5, TimeUnit.SECONDS));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> asyncMemory.addAsync("number", 42).get());
+        assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        assertSame(asyncMemory, AsyncMemory.of(asyncMemory));
+    }
+
+    @Test
+    void testSynchronousMemoriesAreAdapted() throws Exception {
+        AsyncMemory adapted = AsyncMemory.of(new ShortTermMemory(10));
+        adapted.addAsync("weather", "Sunny in Pune").get();
+
+        assertEquals("Sunny in Pune", adapted.getAsync("weather").get());
+        assertEquals(List.of("Sunny in Pune"), adapted.searchAsync("weather", 1).get());
+        adapted.clearAsync().get();
+        assertNull(adapted.getAsync("weather").get());
+    }
+
     @Test
     void testAddNonStringValue() {
         String key = "integer_doc_id";
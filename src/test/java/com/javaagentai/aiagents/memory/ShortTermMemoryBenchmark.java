@@ -0,0 +1,106 @@
+package com.javaagentai.aiagents.memory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Author: Mahesh Awasare
+ * <p>
+ * Throughput benchmark of {@link ShortTermMemory} against a synchronized access-ordered {@link LinkedHashMap}
+ * under 50%, 90% and 99% read mixes. It is a plain main class, so surefire does not pick it up; run it
+ * after {@code mvn test-compile} with
+ * {@code java -cp target/classes:target/test-classes com.javaagentai.aiagents.memory.ShortTermMemoryBenchmark [threads] [operations]}.
+ * Each mix is warmed up once and then measured over several rounds; the best round is reported.
+ */
+public class ShortTermMemoryBenchmark {
+
+    private static final int CAPACITY = 1000;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, Runtime.getRuntime().availableProcessors());
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        System.out.printf("ShortTermMemoryBenchmark: %d threads, %,d operations per thread, capacity %d%n", threads, operations, CAPACITY);
+        for (int readPercent : new int[]{50, 90, 99}) {
+            long striped = best(threads, operations, readPercent, () -> {
+                ShortTermMemory memory = new ShortTermMemory(CAPACITY);
+                return new Target(memory::get, memory::add);
+            });
+            long baseline = best(threads, operations, readPercent, () -> {
+                Map<String, Object> map = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                        return size() > CAPACITY;
+                    }
+                });
+                return new Target(map::get, map::put);
+            });
+            System.out.printf("%d%% reads: ShortTermMemory %,d ops/s, synchronized LinkedHashMap %,d ops/s (%.2fx)%n",
+                    readPercent, striped, baseline, (double) striped / baseline);
+        }
+    }
+
+    private record Target(Function<String, Object> reader, BiConsumer<String, Object> writer) {
+    }
+
+    @FunctionalInterface
+    private interface TargetFactory {
+        Target create();
+    }
+
+    private static long best(int threads, int operations, int readPercent, TargetFactory factory) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(factory.create(), threads, operations, readPercent);
+        }
+        long best = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            best = Math.max(best, run(factory.create(), threads, operations, readPercent));
+        }
+        return best;
+    }
+
+    // Keys follow a skewed distribution over twice the capacity, so writes keep evicting. Returns operations per second.
+    private static long run(Target target, int threads, int operations, int readPercent) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < operations; i++) {
+                        double u = random.nextDouble();
+                        String key = "key-" + (int) (u * u * CAPACITY * 2);
+                        if (random.nextInt(100) < readPercent) {
+                            target.reader().apply(key);
+                        } else {
+                            target.writer().accept(key, i);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long began = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = Math.max(1, System.nanoTime() - began);
+            return (long) threads * operations * 1_000_000_000L / elapsed;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.javaagentai.aiagents.memory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class ShortTermMemoryTest {
+
+    @Test
+    void testEvictsLeastRecentlyUsedEntry() {
+        ShortTermMemory memory = new ShortTermMemory(3);
+        memory.add("a", "alpha");
+        memory.add("b", "beta");
+        memory.add("c", "gamma");
+        assertEquals("alpha", memory.get("a")); // "b" is now the least recently used
+
+        memory.add("d", "delta");
+
+        assertEquals(3, memory.size());
+        assertNull(memory.get("b"));
+        assertEquals(List.of("gamma", "alpha", "delta"), memory.getAll());
+    }
+
+    @Test
+    void testOverwriteRefreshesRecencyWithoutGrowing() {
+        ShortTermMemory memory = new ShortTermMemory(2);
+        memory.add("a", "first");
+        memory.add("b", "second");
+        memory.add("a", "updated");
+        memory.add("c", "third");
+
+        assertEquals(2, memory.size());
+        assertEquals("updated", memory.get("a"));
+        assertNull(memory.get("b"));
+    }
+
+    @Test
+    void testUnboundedMemoryAndNullHandling() {
+        ShortTermMemory memory = new ShortTermMemory();
+        memory.add(null, "ignored");
+        memory.add("key", null);
+        Map<String, Object> batch = new LinkedHashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.put("k" + i, i);
+        }
+        memory.add(batch);
+
+        assertEquals(1000, memory.size());
+        assertNull(memory.get(null));
+        assertEquals(999, memory.get("k999"));
+    }
+
+    @Test
+    void testSearchAndClear() {
+        ShortTermMemory memory = new ShortTermMemory(10);
+        memory.add("weather", "Sunny in Pune");
+        memory.add("note", "Remember the WEATHER report");
+        memory.add("other", "unrelated");
+
+        assertEquals(List.of("Sunny in Pune", "Remember the WEATHER report"), memory.search("weather", 5));
+        assertEquals(List.of("Sunny in Pune"), memory.search("weather", 1));
+        assertTrue(memory.search(" ", 5).isEmpty());
+
+        memory.clear();
+        assertEquals(0, memory.size());
+        assertTrue(memory.getAll().isEmpty());
+        memory.add("again", "works after clear");
+        assertEquals(List.of("works after clear"), memory.getAll());
+    }
+
+    @Test
+    void testSearchRanksByRelevance() {
+        ShortTermMemory memory = new ShortTermMemory(10);
+        memory.add("m1", "The meeting is on Monday.");
+        memory.add("m2", "Deploy the payment service; the payment gateway needs new keys.");
+        memory.add("m3", "Payment received.");
+        memory.add("m4", "Lunch order for the team.");
+
+        // Terms are matched individually, so the entry mentioning more of them ranks first.
+        List<Object> results = memory.search("Payment gateway deploy", 3);
+        assertEquals("Deploy the payment service; the payment gateway needs new keys.", results.get(0));
+        assertEquals("Payment received.", results.get(1));
+        assertEquals(2, results.size(), "Entries sharing no term with the query are not returned.");
+        assertTrue(memory.search("nothing-matches-this", 3).isEmpty());
+    }
+
+    @Test
+    void testIndexFollowsOverwritesAndEviction() {
+        ShortTermMemory memory = new ShortTermMemory(2);
+        memory.add("a", "apples and pears");
+        memory.add("a", "bananas");
+        assertTrue(memory.search("apples", 5).isEmpty());
+        assertEquals(List.of("bananas"), memory.search("bananas", 5));
+
+        memory.add("b", "cherries");
+        memory.add("c", "more cherries");
+        assertTrue(memory.search("bananas", 5).isEmpty(), "Evicted entries must leave the index.");
+        assertEquals(List.of("cherries", "more cherries"), memory.search("cherries", 5));
+
+        memory.clear();
+        assertTrue(memory.search("cherries", 5).isEmpty());
+    }
+
+    @Test
+    void testEvictsByWeight() {
+        ShortTermMemory memory = new ShortTermMemory(100, 100, (key, value) -> String.valueOf(value).length());
+        memory.add("small1", "x".repeat(10));
+        memory.add("small2", "x".repeat(10));
+        memory.add("small3", "x".repeat(10));
+        assertEquals(30, memory.getWeight());
+
+        memory.add("tool-output", "y".repeat(85)); // Pushes out the two least recently used entries
+
+        assertEquals(List.of("x".repeat(10), "y".repeat(85)), memory.getAll());
+        assertEquals(95, memory.getWeight());
+        assertEquals(2, memory.getEvictionCount());
+
+        memory.add("tool-output", "y".repeat(5)); // Overwrites adjust the weight without evicting
+        assertEquals(15, memory.getWeight());
+        assertEquals(2, memory.getEvictionCount());
+    }
+
+    @Test
+    void testEntryHeavierThanTheLimitIsNotStored() {
+        ShortTermMemory memory = new ShortTermMemory(100, 100, (key, value) -> String.valueOf(value).length());
+        memory.add("note", "short");
+        memory.add("huge", "z".repeat(500));
+
+        assertNull(memory.get("huge"));
+        assertEquals(List.of("short"), memory.getAll(), "Other entries are kept.");
+        assertEquals(1, memory.getEvictionCount());
+
+        memory.add("note", "w".repeat(101)); // A too-heavy overwrite drops the stale value
+        assertEquals(0, memory.size());
+        assertEquals(0, memory.getWeight());
+    }
+
+    @Test
+    void testDefaultWeigherEstimatesRetainedSize() {
+        long shortNote = ShortTermMemory.estimateWeight("k", "hello");
+        long toolOutput = ShortTermMemory.estimateWeight("k", "a".repeat(1_000_000));
+        long nested = ShortTermMemory.estimateWeight("k", Map.of("rows", List.of("a".repeat(1000), "b".repeat(1000))));
+
+        assertTrue(toolOutput > 2_000_000 && toolOutput < 2_001_000, "Got " + toolOutput);
+        assertTrue(shortNote < 300, "Got " + shortNote);
+        assertTrue(nested > 4000, "Got " + nested);
+
+        ShortTermMemory memory = new ShortTermMemory(1000, 1_000_000);
+        memory.add("output1", "a".repeat(300_000));
+        memory.add("output2", "b".repeat(300_000));
+        assertEquals(1, memory.size(), "Two 600KB strings do not fit in 1MB.");
+        assertTrue(memory.getWeight() <= memory.getMaxWeight());
+        memory.clear();
+        assertEquals(0, memory.getWeight());
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void testConcurrentReadWriteMixes() throws Exception {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int capacity = 1000;
+        for (int readPercent : new int[]{50, 90, 99}) {
+            ShortTermMemory memory = new ShortTermMemory(capacity);
+
+            run(memory, threads, 50_000, readPercent, capacity);
+
+            assertTrue(memory.size() <= capacity, "Capacity exceeded: " + memory.size());
+            assertEquals(memory.size(), memory.getAll().size());
+        }
+    }
+
+    // Keys follow a skewed distribution over twice the capacity, so writes keep evicting.
+    private static void run(ShortTermMemory memory, int threads, int operations, int readPercent, int capacity) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < operations; i++) {
+                        double u = random.nextDouble();
+                        String key = "key-" + (int) (u * u * capacity * 2);
+                        if (random.nextInt(100) < readPercent) {
+                            memory.get(key);
+                        } else {
+                            memory.add(key, i);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
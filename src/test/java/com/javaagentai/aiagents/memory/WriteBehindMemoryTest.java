@@ -0,0 +1,128 @@
+package com.javaagentai.aiagents.memory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Author: Mahesh Awasare
+ */
+public class WriteBehindMemoryTest {
+
+    // Counts batched writes and can be held closed to simulate a slow backend.
+    static class RecordingMemory extends ShortTermMemory {
+        final AtomicInteger batchWrites = new AtomicInteger();
+        final CountDownLatch gate;
+
+        RecordingMemory(CountDownLatch gate) {
+            super(1000);
+            this.gate = gate;
+        }
+
+        @Override
+        public void add(Map<String, Object> data) {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batchWrites.incrementAndGet();
+            super.add(data);
+        }
+    }
+
+    @Test
+    void testWritesAreBatchedAndFlushed() {
+        RecordingMemory delegate = new RecordingMemory(new CountDownLatch(0));
+        try (WriteBehindMemory memory = new WriteBehindMemory(delegate, 100, 50, 50)) {
+            for (int i = 0; i < 100; i++) {
+                memory.add("key" + i, "value" + i);
+            }
+            memory.flush();
+
+            assertEquals(100, delegate.size(), "All queued writes should reach the delegate after flush.");
+            assertTrue(delegate.batchWrites.get() < 100, "Writes should be grouped into batches.");
+            assertEquals("value42", delegate.get("key42"));
+        }
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testGetSeesPendingWritesAndCloseDrains() {
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingMemory delegate = new RecordingMemory(gate);
+        WriteBehindMemory memory = new WriteBehindMemory(delegate, 10, 5, 20);
+
+        memory.add("pending_key", "pending_value");
+        assertEquals("pending_value", memory.get("pending_key"), "Unflushed writes should be visible through get().");
+        assertNull(delegate.get("pending_key"), "Delegate should not have the value while the backend is blocked.");
+
+        gate.countDown();
+        memory.close();
+        assertEquals("pending_value", delegate.get("pending_key"), "close() should drain all queued writes.");
+
+        memory.add("after_close", "written_through");
+        assertEquals("written_through", delegate.get("after_close"), "Writes after close should go straight to the delegate.");
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testFullQueueAppliesBackpressure() throws InterruptedException {
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingMemory delegate = new RecordingMemory(gate);
+        WriteBehindMemory memory = new WriteBehindMemory(delegate, 2, 1, 20);
+
+        CountDownLatch producerDone = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 10; i++) {
+                memory.add("k" + i, "v" + i);
+            }
+            producerDone.countDown();
+        });
+        producer.start();
+
+        assertFalse(producerDone.await(300, TimeUnit.MILLISECONDS), "Producer should block while the queue is full.");
+        assertTrue(memory.getQueueSize() <= 2);
+
+        gate.countDown();
+        assertTrue(producerDone.await(5, TimeUnit.SECONDS), "Producer should resume once the flusher drains the queue.");
+        memory.close();
+        assertEquals(10, delegate.size());
+    }
+
+    @Test
+    @Timeout(value = 10, unit = TimeUnit.SECONDS)
+    void testClearWaitsForTheBatchBeingWritten() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        RecordingMemory delegate = new RecordingMemory(gate) {
+            @Override
+            public void add(Map<String, Object> data) {
+                writing.countDown();
+                super.add(data);
+            }
+        };
+        try (WriteBehindMemory memory = new WriteBehindMemory(delegate, 10, 5, 20)) {
+            memory.add("stale", "written before clear");
+            assertTrue(writing.await(5, TimeUnit.SECONDS), "The flusher should be writing the batch.");
+
+            CompletableFuture<Void> clearing = CompletableFuture.runAsync(memory::clear);
+            assertThrows(TimeoutException.class, () -> clearing.get(200, TimeUnit.MILLISECONDS),
+                    "clear() should wait for the batch in flight.");
+            gate.countDown();
+            clearing.get(5, TimeUnit.SECONDS);
+
+            memory.flush();
+            assertNull(delegate.get("stale"), "A batch drained before clear() must not survive it.");
+            assertNull(memory.get("stale"));
+        }
+    }
+}